@@ -0,0 +1,64 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session lookup and room creation with the room table pre-filled to {@code rooms} entries.
+ * Codes come from a space of 32^4 (about one million), so at the larger sizes
+ * {@code createRoom} includes its collision retries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameRoomServiceBenchmark {
+
+    @Param({"100", "10000", "500000"})
+    public int rooms;
+
+    private GameRoomService gameRoomService;
+    private String[] sessionIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gameRoomService = new GameRoomService();
+        sessionIds = new String[rooms];
+        for (int i = 0; i < rooms; i++) {
+            GameRoom room = gameRoomService.createRoom();
+            sessionIds[i] = "session-" + i;
+            gameRoomService.joinRoom(room.getRoomCode(), sessionIds[i], "Player");
+        }
+    }
+
+    @Benchmark
+    public GameRoom getRoomBySession() {
+        return gameRoomService.getRoomBySession(sessionIds[ThreadLocalRandom.current().nextInt(rooms)]);
+    }
+
+    /**
+     * Create and evict, so the table stays at {@code rooms} entries
+     */
+    @Benchmark
+    public GameRoom createRoom() {
+        GameRoom room = gameRoomService.createRoom();
+        gameRoomService.evictRoom(room);
+        return room;
+    }
+}
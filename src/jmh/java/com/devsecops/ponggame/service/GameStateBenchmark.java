@@ -0,0 +1,63 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.GameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-room work done on a shard thread: one physics step and one paddle input.
+ * The game loop is never started; the benchmark thread plays the shard.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+
+    private final GameLoopService gameLoopService = new GameLoopService(60);
+    private GameRoom room;
+    private GameState state;
+    private long now;
+    private long nanos;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        room = new GameRoom("BNCH");
+        room.addPlayer("p1", "Alice");
+        room.addPlayer("p2", "Bob");
+        state = room.getGameState();
+        state.reset();
+        state.setRunning(true);
+        now = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public int step() {
+        int scorer = gameLoopService.step(state, now += 16);
+        if (!state.isRunning()) {
+            state.reset(); // keep stepping a live game
+            state.setRunning(true);
+        }
+        return scorer;
+    }
+
+    @Benchmark
+    public boolean paddleInput() {
+        nanos += 1_000_000;
+        return gameLoopService.applyPaddleInput(room, 1, (nanos >> 20) % 400, nanos);
+    }
+}
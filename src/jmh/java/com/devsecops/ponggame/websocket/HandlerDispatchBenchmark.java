@@ -0,0 +1,114 @@
+package com.devsecops.ponggame.websocket;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.service.ExpiryService;
+import com.devsecops.ponggame.service.GameLoopService;
+import com.devsecops.ponggame.service.GameRoomService;
+import com.devsecops.ponggame.service.MatchmakingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbound dispatch through {@link GameWebSocketHandler} and the per-tick snapshot fan-out,
+ * wired with the real services and two stub sessions sharing a room (one JSON, one binary).
+ * Outbound frames go through the real dispatcher queues and are discarded by the stub sessions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerDispatchBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private GameWebSocketHandler handler;
+    private StubWebSocketSession jsonSession;
+    private StubWebSocketSession binarySession;
+    private GameRoom room;
+
+    private final TextMessage ping = new TextMessage("{\"type\":\"ping\",\"timestamp\":1700000000000,\"rtt\":42}");
+    private final TextMessage paddleMove = new TextMessage("{\"type\":\"paddle_move\",\"paddleY\":187.5}");
+    private final TextMessage chat = new TextMessage("{\"type\":\"chat\",\"sender\":\"Alice\",\"message\":\"nice shot!\"}");
+    private final BinaryMessage binaryPaddleMove = BinaryProtocol.encodePaddleMove(187.5);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new AnnotationConfigApplicationContext();
+        // A stub never stalls, but a burst can still outrun the flush thread; drop instead of disconnecting
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Map.of("pong.ws.outbound.overflow-policy", "DROP_OLDEST")));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(GameRoomService.class);
+        context.registerBean(GameLoopService.class);
+        context.registerBean(MatchmakingService.class);
+        context.registerBean(ExpiryService.class);
+        context.registerBean(OutboundDispatcher.class);
+        context.registerBean(MessageMetrics.class);
+        context.registerBean(GameWebSocketHandler.class);
+        context.refresh();
+
+        handler = context.getBean(GameWebSocketHandler.class);
+        jsonSession = new StubWebSocketSession("bench-json", null);
+        binarySession = new StubWebSocketSession("bench-binary", BinaryProtocol.SUBPROTOCOL);
+        handler.afterConnectionEstablished(jsonSession);
+        handler.afterConnectionEstablished(binarySession);
+
+        handler.handleMessage(jsonSession, new TextMessage("{\"type\":\"create_room\",\"playerName\":\"Alice\"}"));
+        room = context.getBean(GameRoomService.class).getRoomBySession(jsonSession.getId());
+        handler.handleMessage(binarySession, new TextMessage(
+                "{\"type\":\"join_room\",\"roomCode\":\"" + room.getRoomCode() + "\",\"playerName\":\"Bob\"}"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void ping() throws Exception {
+        handler.handleMessage(jsonSession, ping);
+    }
+
+    @Benchmark
+    public void paddleMoveJson() throws Exception {
+        handler.handleMessage(jsonSession, paddleMove);
+    }
+
+    @Benchmark
+    public void paddleMoveBinary() throws Exception {
+        handler.handleMessage(binarySession, binaryPaddleMove);
+    }
+
+    @Benchmark
+    public void chat() throws Exception {
+        handler.handleMessage(jsonSession, chat);
+    }
+
+    /**
+     * One tick's ball_state for the room: a JSON frame for one player and a binary frame for the other
+     */
+    @Benchmark
+    public void snapshotFanout() {
+        handler.onSnapshot(room);
+    }
+}
@@ -0,0 +1,52 @@
+package com.devsecops.ponggame.websocket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of the frames sent every tick, isolated from queueing
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutboundEncoderBenchmark {
+
+    private final OutboundEncoder encoder = new OutboundEncoder();
+    private double ballX = 400.25;
+
+    @Benchmark
+    public TextMessage ballStateJson() {
+        ballX += 0.5;
+        return encoder.ballState(ballX, 225.75, 5.0, -3.5, 180.0, 210.5, 1700000000000L, 120, 118);
+    }
+
+    @Benchmark
+    public BinaryMessage ballStateBinary() {
+        ballX += 0.5;
+        return BinaryProtocol.encodeBallState(ballX, 225.75, 5.0, -3.5, 180.0, 210.5, 1700000000000L, 120, 118);
+    }
+
+    @Benchmark
+    public TextMessage opponentPaddleJson() {
+        return encoder.opponentPaddle(187.5, 1700000000000L);
+    }
+
+    @Benchmark
+    public TextMessage chatMessage() {
+        return encoder.chatMessage("Alice", "nice \"shot\" 🏓");
+    }
+}
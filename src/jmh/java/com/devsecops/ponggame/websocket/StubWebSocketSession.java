@@ -0,0 +1,87 @@
+package com.devsecops.ponggame.websocket;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Always-open session that discards everything sent to it, so benchmarks measure the server side only
+ */
+class StubWebSocketSession implements WebSocketSession {
+
+    private final String id;
+    private final String acceptedProtocol;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private volatile long sentFrames;
+
+    StubWebSocketSession(String id, String acceptedProtocol) {
+        this.id = id;
+        this.acceptedProtocol = acceptedProtocol;
+    }
+
+    long getSentFrames() {
+        return sentFrames;
+    }
+
+    @Override
+    public String getId() { return id; }
+
+    @Override
+    public URI getUri() { return URI.create("ws://localhost/game-ws"); }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() { return HttpHeaders.EMPTY; }
+
+    @Override
+    public Map<String, Object> getAttributes() { return attributes; }
+
+    @Override
+    public Principal getPrincipal() { return null; }
+
+    @Override
+    public InetSocketAddress getLocalAddress() { return null; }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() { return null; }
+
+    @Override
+    public String getAcceptedProtocol() { return acceptedProtocol; }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) { }
+
+    @Override
+    public int getTextMessageSizeLimit() { return Integer.MAX_VALUE; }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) { }
+
+    @Override
+    public int getBinaryMessageSizeLimit() { return Integer.MAX_VALUE; }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() { return List.of(); }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        sentFrames++; // only the flush thread sends to a given session
+    }
+
+    @Override
+    public boolean isOpen() { return true; }
+
+    @Override
+    public void close() { }
+
+    @Override
+    public void close(CloseStatus status) { }
+}
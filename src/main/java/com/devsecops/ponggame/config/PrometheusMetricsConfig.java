@@ -1,5 +1,7 @@
 package com.devsecops.ponggame.config;
 
+import com.devsecops.ponggame.model.RoomPhase;
+import com.devsecops.ponggame.model.RoomStats;
 import com.devsecops.ponggame.service.GameRoomService;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -34,25 +36,31 @@ public class PrometheusMetricsConfig {
 
     @PostConstruct
     public void initMetrics() {
-        // Gauges (current state)
-        Gauge.builder("pong_active_rooms", gameRoomService, 
-                service -> service.getStats().get("activeRooms") != null ? 
-                    ((Number) service.getStats().get("activeRooms")).doubleValue() : 0)
+        // Gauges (current state), read straight from the striped room counters
+        Gauge.builder("pong_active_rooms", gameRoomService, GameRoomService::getActiveRoomCount)
             .description("Number of active game rooms")
             .register(meterRegistry);
         
-        Gauge.builder("pong_connected_players", gameRoomService,
-                service -> service.getStats().get("connectedPlayers") != null ?
-                    ((Number) service.getStats().get("connectedPlayers")).doubleValue() : 0)
+        Gauge.builder("pong_connected_players", gameRoomService, GameRoomService::getConnectedPlayerCount)
             .description("Number of connected players")
             .register(meterRegistry);
         
-        Gauge.builder("pong_active_games", gameRoomService,
-                service -> service.getStats().get("activeGames") != null ?
-                    ((Number) service.getStats().get("activeGames")).doubleValue() : 0)
+        Gauge.builder("pong_spectators", gameRoomService, GameRoomService::getSpectatorCount)
+            .description("Number of sessions watching a room")
+            .register(meterRegistry);
+        
+        Gauge.builder("pong_active_games", gameRoomService, GameRoomService::getActiveGameCount)
             .description("Number of games currently in progress")
             .register(meterRegistry);
 
+        RoomStats roomStats = gameRoomService.getRoomStats();
+        for (RoomPhase phase : RoomPhase.values()) {
+            Gauge.builder("pong_rooms", roomStats, stats -> stats.count(phase))
+                .description("Open rooms by lifecycle phase")
+                .tag("phase", phase.name().toLowerCase())
+                .register(meterRegistry);
+        }
+
         // Counters (cumulative)
         gamesStartedCounter = Counter.builder("pong_games_started_total")
             .description("Total number of games started")
@@ -1,27 +1,40 @@
 package com.devsecops.ponggame.config;
 
 import com.devsecops.ponggame.websocket.GameWebSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 
 /**
  * WebSocket Configuration for Real-time Multiplayer
+ * The game protocol handler is shared by both transports; the servlet (Tomcat) endpoint is
+ * registered here unless the "reactive" profile serves /game-ws from ReactiveWebSocketConfig
+ * (only present in a -Preactive build).
  */
 @Configuration
-@EnableWebSocket
-public class WebSocketConfig implements WebSocketConfigurer {
+public class WebSocketConfig {
 
     @Bean
     public GameWebSocketHandler gameWebSocketHandler() {
         return new GameWebSocketHandler();
     }
 
-    @Override
-    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(gameWebSocketHandler(), "/game-ws")
-                .setAllowedOrigins("*");
+    @Configuration
+    @EnableWebSocket
+    @Profile("!reactive")
+    static class ServletEndpointConfig implements WebSocketConfigurer {
+
+        @Autowired
+        private GameWebSocketHandler gameWebSocketHandler;
+
+        @Override
+        public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+            registry.addHandler(gameWebSocketHandler, "/game-ws")
+                    .setAllowedOrigins("*");
+        }
     }
 }
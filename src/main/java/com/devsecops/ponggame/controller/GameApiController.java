@@ -1,10 +1,22 @@
 package com.devsecops.ponggame.controller;
 
+import com.devsecops.ponggame.model.ClusterNode;
+import com.devsecops.ponggame.model.PlayerRating;
+import com.devsecops.ponggame.model.PlayerStats;
 import com.devsecops.ponggame.service.GameRoomService;
+import com.devsecops.ponggame.service.MatchHistoryService;
+import com.devsecops.ponggame.service.RatingService;
+import com.devsecops.ponggame.service.RoomDirectory;
+import com.devsecops.ponggame.service.ReplayLog;
+import com.devsecops.ponggame.websocket.LeaderboardCache;
+import com.devsecops.ponggame.websocket.LobbyBroadcaster;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.lang.management.ManagementFactory;
@@ -15,6 +27,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -27,13 +40,28 @@ public class GameApiController {
 
     private final Instant startTime = Instant.now();
     private final AtomicLong requestCounter = new AtomicLong(0);
-    private final AtomicLong totalGamesPlayed = new AtomicLong(0);
-    private final AtomicLong player1Wins = new AtomicLong(0);
-    private final AtomicLong player2Wins = new AtomicLong(0);
 
     @Autowired(required = false)
     private GameRoomService gameRoomService;
 
+    @Autowired(required = false)
+    private LobbyBroadcaster lobbyBroadcaster;
+
+    @Autowired(required = false)
+    private ReplayLog replayLog;
+
+    @Autowired(required = false)
+    private MatchHistoryService matchHistoryService;
+
+    @Autowired(required = false)
+    private RatingService ratingService;
+
+    @Autowired(required = false)
+    private LeaderboardCache leaderboardCache;
+
+    @Autowired(required = false)
+    private RoomDirectory roomDirectory;
+
     /**
      * Get game information
      */
@@ -98,9 +126,9 @@ public class GameApiController {
         // Application Metrics
         Map<String, Object> app = new HashMap<>();
         app.put("totalRequests", requestCounter.get());
-        app.put("gamesPlayed", totalGamesPlayed.get());
-        app.put("player1Wins", player1Wins.get());
-        app.put("player2Wins", player2Wins.get());
+        app.put("gamesPlayed", matchHistoryService != null ? matchHistoryService.getGamesPlayed() : 0);
+        app.put("player1Wins", matchHistoryService != null ? matchHistoryService.getPlayer1Wins() : 0);
+        app.put("player2Wins", matchHistoryService != null ? matchHistoryService.getPlayer2Wins() : 0);
         metrics.put("application", app);
         
         // Thread Metrics
@@ -134,29 +162,6 @@ public class GameApiController {
         return ResponseEntity.ok(response);
     }
 
-    /**
-     * Record game result
-     */
-    @GetMapping("/game/record")
-    public ResponseEntity<Map<String, Object>> recordGame(
-            @org.springframework.web.bind.annotation.RequestParam(required = false) String winner) {
-        requestCounter.incrementAndGet();
-        totalGamesPlayed.incrementAndGet();
-        
-        if ("player1".equalsIgnoreCase(winner)) {
-            player1Wins.incrementAndGet();
-        } else if ("player2".equalsIgnoreCase(winner)) {
-            player2Wins.incrementAndGet();
-        }
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("recorded", true);
-        response.put("totalGames", totalGamesPlayed.get());
-        response.put("player1Wins", player1Wins.get());
-        response.put("player2Wins", player2Wins.get());
-        return ResponseEntity.ok(response);
-    }
-
     /**
      * Simple health check endpoint
      */
@@ -191,6 +196,115 @@ public class GameApiController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Node that owns a room code, for routing clients and load balancers to it
+     */
+    @GetMapping("/rooms/{roomCode}/node")
+    public ResponseEntity<Map<String, Object>> getRoomNode(@PathVariable String roomCode) {
+        requestCounter.incrementAndGet();
+        if (roomDirectory == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String code = roomCode.toUpperCase();
+        ClusterNode owner = roomDirectory.ownerOf(code);
+        Map<String, Object> response = new HashMap<>();
+        response.put("roomCode", code);
+        response.put("nodeId", owner.getId());
+        response.put("url", owner.getUrl());
+        response.put("local", owner == roomDirectory.getLocalNode());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Page of open rooms waiting for an opponent, served pre-serialized from the last lobby refresh
+     */
+    @GetMapping("/lobby")
+    public ResponseEntity<String> getLobby(@RequestParam(defaultValue = "0") int page) {
+        requestCounter.incrementAndGet();
+        if (lobbyBroadcaster == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(lobbyBroadcaster.page(page).getPayload());
+    }
+
+    /**
+     * Recorded matches that can be replayed over the WebSocket, newest first
+     */
+    @GetMapping("/replays")
+    public ResponseEntity<Map<String, Object>> getReplays(@RequestParam(defaultValue = "20") int limit) {
+        requestCounter.incrementAndGet();
+        Map<String, Object> response = new HashMap<>();
+        response.put("matches", replayLog != null
+                ? replayLog.recentMatches(Math.max(1, Math.min(limit, 100)))
+                : List.of());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Games and wins from the persisted match history over the last {@code window} minutes
+     */
+    @GetMapping("/history/summary")
+    public ResponseEntity<Map<String, Object>> getHistorySummary(@RequestParam(defaultValue = "60") int window) {
+        requestCounter.incrementAndGet();
+        if (matchHistoryService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> response = new HashMap<>(matchHistoryService.getWindowSummary(window));
+        response.put("totalGamesPlayed", matchHistoryService.getGamesPlayed());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Persisted totals of one player
+     */
+    @GetMapping("/history/players/{name}")
+    public ResponseEntity<PlayerStats> getPlayerHistory(@PathVariable String name) {
+        requestCounter.incrementAndGet();
+        PlayerStats stats = matchHistoryService != null ? matchHistoryService.getPlayer(name) : null;
+        if (stats == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Highest rated players, served pre-serialized from the last leaderboard refresh
+     */
+    @GetMapping("/leaderboard")
+    public ResponseEntity<String> getLeaderboard() {
+        requestCounter.incrementAndGet();
+        if (leaderboardCache == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(leaderboardCache.current().getPayload());
+    }
+
+    /**
+     * Current rating and rank of one player
+     */
+    @GetMapping("/ratings/{name}")
+    public ResponseEntity<Map<String, Object>> getRating(@PathVariable String name) {
+        requestCounter.incrementAndGet();
+        PlayerRating rating = ratingService != null ? ratingService.getRating(name) : null;
+        if (rating == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("playerName", rating.getPlayerName());
+        response.put("rating", rating.getPoints());
+        response.put("rank", ratingService.getRank(name));
+        response.put("players", ratingService.getPlayerCount());
+        response.put("games", rating.getGames());
+        response.put("wins", rating.getWins());
+        return ResponseEntity.ok(response);
+    }
+
     private String formatDuration(Duration duration) {
         long days = duration.toDays();
         long hours = duration.toHours() % 24;
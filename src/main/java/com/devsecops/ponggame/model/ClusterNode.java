@@ -0,0 +1,17 @@
+package com.devsecops.ponggame.model;
+
+/**
+ * One game server of the cluster and the WebSocket URL clients reach it at
+ */
+public final class ClusterNode {
+    private final String id;
+    private final String url;
+
+    public ClusterNode(String id, String url) {
+        this.id = id;
+        this.url = url;
+    }
+
+    public String getId() { return id; }
+    public String getUrl() { return url; }
+}
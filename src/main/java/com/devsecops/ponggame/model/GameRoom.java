@@ -1,17 +1,32 @@
 package com.devsecops.ponggame.model;
 
+import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Represents a game room for multiplayer Pong
+ * Player slots live in one immutable {@link Slots} value updated by compare-and-set,
+ * so concurrent joins and leaves are linearizable without a lock. The room's
+ * {@link RoomPhase} is part of the same value and every change is reported to {@link RoomStats}.
+ * Spectators are kept apart from the slots: any number may watch, and they never affect the phase.
+ * Each slot also carries the sequence number of its occupant's last applied paddle input, which
+ * starts over whenever the slot is claimed, released or rebound.
  */
 public class GameRoom {
     private final String roomCode;
-    private String player1SessionId;
-    private String player2SessionId;
-    private String player1Name;
-    private String player2Name;
+    private final AtomicReference<Slots> slots = new AtomicReference<>(Slots.EMPTY);
+    private final RoomStats stats;
+    private final Set<String> spectators = ConcurrentHashMap.newKeySet();
+    // Index 1 and 2: token that lets the holder of that slot reclaim it after a restart
+    private final AtomicReferenceArray<String> resumeTokens = new AtomicReferenceArray<>(3);
+    // Index 1 and 2: slot generation (high 32 bits, bumped when the slot changes hands) and the
+    // last applied input sequence of the current occupant (low 32 bits)
+    private final AtomicLongArray inputSeqs = new AtomicLongArray(3);
     private GameState gameState;
     private long createdAt;
     private AtomicLong player1LastPing;
@@ -20,13 +35,21 @@ public class GameRoom {
     private AtomicLong player2Latency;
 
     public GameRoom(String roomCode) {
+        this(roomCode, null);
+    }
+
+    public GameRoom(String roomCode, RoomStats stats) {
         this.roomCode = roomCode;
+        this.stats = stats;
         this.gameState = new GameState();
         this.createdAt = System.currentTimeMillis();
         this.player1LastPing = new AtomicLong(0);
         this.player2LastPing = new AtomicLong(0);
         this.player1Latency = new AtomicLong(0);
         this.player2Latency = new AtomicLong(0);
+        if (stats != null) {
+            stats.moved(null, RoomPhase.WAITING);
+        }
     }
 
     public String getRoomCode() {
@@ -34,59 +57,200 @@ public class GameRoom {
     }
 
     public boolean isFull() {
-        return player1SessionId != null && player2SessionId != null;
+        return slots.get().isFull();
     }
 
     public boolean isEmpty() {
-        return player1SessionId == null && player2SessionId == null;
+        return slots.get().isEmpty();
     }
 
     public int getPlayerCount() {
-        int count = 0;
-        if (player1SessionId != null) count++;
-        if (player2SessionId != null) count++;
-        return count;
+        return slots.get().getPlayerCount();
     }
 
-    public int addPlayer(String sessionId, String playerName) {
-        if (player1SessionId == null) {
-            player1SessionId = sessionId;
-            player1Name = playerName;
-            return 1;
-        } else if (player2SessionId == null) {
-            player2SessionId = sessionId;
-            player2Name = playerName;
-            return 2;
+    /**
+     * Current slot assignment, a consistent snapshot of both players
+     */
+    public Slots getSlots() {
+        return slots.get();
+    }
+
+    /**
+     * Atomically claim the first free slot.
+     * Returns the slot state after the claim, or null if the room is full, closed,
+     * or the session already holds a slot.
+     */
+    public Slots claimSlot(String sessionId, String playerName) {
+        while (true) {
+            Slots current = slots.get();
+            Slots next = current.claim(sessionId, playerName);
+            if (next == null) {
+                return null;
+            }
+            if (compareAndSet(current, next)) {
+                newOccupant(next.getPlayerNumber(sessionId));
+                return next;
+            }
         }
-        return -1; // Room full
     }
 
-    public void removePlayer(String sessionId) {
-        if (sessionId.equals(player1SessionId)) {
-            player1SessionId = null;
-            player1Name = null;
-        } else if (sessionId.equals(player2SessionId)) {
-            player2SessionId = null;
-            player2Name = null;
+    /**
+     * Atomically release the session's slot.
+     * Returns the slot state before the release, or null if the session held no slot.
+     */
+    public Slots releaseSlot(String sessionId) {
+        while (true) {
+            Slots current = slots.get();
+            Slots next = current.release(sessionId);
+            if (next == null) {
+                return null;
+            }
+            if (compareAndSet(current, next)) {
+                newOccupant(current.getPlayerNumber(sessionId));
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Atomically hand the session's slot, name included, to another session.
+     * Returns false if {@code sessionId} holds no slot.
+     */
+    public boolean rebindSlot(String sessionId, String newSessionId) {
+        while (true) {
+            Slots current = slots.get();
+            Slots next = current.rebind(sessionId, newSessionId);
+            if (next == null) {
+                return false;
+            }
+            if (compareAndSet(current, next)) {
+                newOccupant(current.getPlayerNumber(sessionId));
+                return true;
+            }
         }
     }
 
+    /**
+     * Close the room if it has no players, so no later join can claim a slot in it
+     */
+    public boolean closeIfEmpty() {
+        return compareAndSet(Slots.EMPTY, Slots.CLOSED);
+    }
+
+    /**
+     * A game has started (or restarted) in the full room
+     */
+    public boolean markRunning() {
+        return changePhase(RoomPhase.RUNNING);
+    }
+
+    /**
+     * The running game has ended
+     */
+    public boolean markFinished() {
+        return changePhase(RoomPhase.FINISHED);
+    }
+
+    public RoomPhase getPhase() {
+        return slots.get().phase;
+    }
+
+    private boolean changePhase(RoomPhase phase) {
+        while (true) {
+            Slots current = slots.get();
+            Slots next = current.withPhase(phase);
+            if (next == null) {
+                return false;
+            }
+            if (compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean compareAndSet(Slots current, Slots next) {
+        if (!slots.compareAndSet(current, next)) {
+            return false;
+        }
+        if (stats != null && current.phase != next.phase) {
+            stats.moved(current.phase, next.phase);
+        }
+        return true;
+    }
+
+    public int addPlayer(String sessionId, String playerName) {
+        Slots claimed = claimSlot(sessionId, playerName);
+        return claimed != null ? claimed.getPlayerNumber(sessionId) : -1; // Room full
+    }
+
+    public void removePlayer(String sessionId) {
+        releaseSlot(sessionId);
+    }
+
     public int getPlayerNumber(String sessionId) {
-        if (sessionId.equals(player1SessionId)) return 1;
-        if (sessionId.equals(player2SessionId)) return 2;
-        return -1;
+        return slots.get().getPlayerNumber(sessionId);
     }
 
     public String getOpponentSessionId(String sessionId) {
-        if (sessionId.equals(player1SessionId)) return player2SessionId;
-        if (sessionId.equals(player2SessionId)) return player1SessionId;
-        return null;
+        return slots.get().getOpponentSessionId(sessionId);
+    }
+
+    public boolean addSpectator(String sessionId) {
+        return spectators.add(sessionId);
+    }
+
+    public boolean removeSpectator(String sessionId) {
+        return spectators.remove(sessionId);
+    }
+
+    /**
+     * Live read-only view of the watching sessions, safe to iterate while they come and go
+     */
+    public Set<String> getSpectators() {
+        return Collections.unmodifiableSet(spectators);
+    }
+
+    public int getSpectatorCount() {
+        return spectators.size();
     }
 
-    public String getPlayer1SessionId() { return player1SessionId; }
-    public String getPlayer2SessionId() { return player2SessionId; }
-    public String getPlayer1Name() { return player1Name; }
-    public String getPlayer2Name() { return player2Name; }
+    public String getResumeToken(int playerNumber) { return resumeTokens.get(playerNumber); }
+    public void setResumeToken(int playerNumber, String token) { resumeTokens.set(playerNumber, token); }
+
+    /**
+     * Sequence number of the last paddle input applied for the slot's current occupant, 0 if none
+     */
+    public int getInputSeq(int playerNumber) {
+        return (int) inputSeqs.get(playerNumber);
+    }
+
+    /**
+     * Generation of the slot's occupancy, to be passed back to {@link #acknowledgeInput}
+     */
+    public int getSlotGeneration(int playerNumber) {
+        return (int) (inputSeqs.get(playerNumber) >>> 32);
+    }
+
+    /**
+     * Record an applied input sequence. Ignored if the slot has changed hands since
+     * {@code generation} was read, or if the sequence is not newer than the last one.
+     */
+    public void acknowledgeInput(int playerNumber, int generation, int inputSeq) {
+        inputSeqs.getAndUpdate(playerNumber, current ->
+                (int) (current >>> 32) == generation && inputSeq > (int) current
+                        ? ((long) generation << 32) | inputSeq
+                        : current);
+    }
+
+    private void newOccupant(int playerNumber) {
+        // A new client numbers its inputs from 1 again
+        inputSeqs.getAndUpdate(playerNumber, current -> ((current >>> 32) + 1) << 32);
+    }
+
+    public String getPlayer1SessionId() { return slots.get().player1SessionId; }
+    public String getPlayer2SessionId() { return slots.get().player2SessionId; }
+    public String getPlayer1Name() { return slots.get().player1Name; }
+    public String getPlayer2Name() { return slots.get().player2Name; }
     public GameState getGameState() { return gameState; }
     public long getCreatedAt() { return createdAt; }
     
@@ -99,4 +263,111 @@ public class GameRoom {
         if (playerNumber == 1) player1LastPing.set(timestamp);
         else if (playerNumber == 2) player2LastPing.set(timestamp);
     }
+
+    /**
+     * Latest of creation and either player's last ping, used for idle expiry
+     */
+    public long getLastActivity() {
+        return Math.max(createdAt, Math.max(player1LastPing.get(), player2LastPing.get()));
+    }
+
+    /**
+     * Immutable player slot assignment, replaced as a whole by compare-and-set
+     */
+    public static final class Slots {
+        static final Slots EMPTY = new Slots(null, null, null, null, RoomPhase.WAITING);
+        static final Slots CLOSED = new Slots(null, null, null, null, null);
+
+        private final String player1SessionId;
+        private final String player1Name;
+        private final String player2SessionId;
+        private final String player2Name;
+        private final RoomPhase phase; // null once closed
+
+        private Slots(String player1SessionId, String player1Name,
+                      String player2SessionId, String player2Name, RoomPhase phase) {
+            this.player1SessionId = player1SessionId;
+            this.player1Name = player1Name;
+            this.player2SessionId = player2SessionId;
+            this.player2Name = player2Name;
+            this.phase = phase;
+        }
+
+        public boolean isFull() {
+            return player1SessionId != null && player2SessionId != null;
+        }
+
+        public boolean isEmpty() {
+            return player1SessionId == null && player2SessionId == null;
+        }
+
+        public boolean isClosed() {
+            return phase == null;
+        }
+
+        public RoomPhase getPhase() {
+            return phase;
+        }
+
+        public int getPlayerCount() {
+            return (player1SessionId != null ? 1 : 0) + (player2SessionId != null ? 1 : 0);
+        }
+
+        public int getPlayerNumber(String sessionId) {
+            if (sessionId.equals(player1SessionId)) return 1;
+            if (sessionId.equals(player2SessionId)) return 2;
+            return -1;
+        }
+
+        public String getOpponentSessionId(String sessionId) {
+            if (sessionId.equals(player1SessionId)) return player2SessionId;
+            if (sessionId.equals(player2SessionId)) return player1SessionId;
+            return null;
+        }
+
+        public String getPlayer1SessionId() { return player1SessionId; }
+        public String getPlayer2SessionId() { return player2SessionId; }
+        public String getPlayer1Name() { return player1Name; }
+        public String getPlayer2Name() { return player2Name; }
+
+        private Slots claim(String sessionId, String playerName) {
+            if (isClosed() || getPlayerNumber(sessionId) > 0) {
+                return null;
+            }
+            if (player1SessionId == null) {
+                return new Slots(sessionId, playerName, player2SessionId, player2Name,
+                        player2SessionId != null ? RoomPhase.FULL : RoomPhase.WAITING);
+            } else if (player2SessionId == null) {
+                return new Slots(player1SessionId, player1Name, sessionId, playerName, RoomPhase.FULL);
+            }
+            return null;
+        }
+
+        private Slots release(String sessionId) {
+            if (sessionId.equals(player1SessionId)) {
+                return player2SessionId == null ? EMPTY
+                        : new Slots(null, null, player2SessionId, player2Name, RoomPhase.WAITING);
+            } else if (sessionId.equals(player2SessionId)) {
+                return player1SessionId == null ? EMPTY
+                        : new Slots(player1SessionId, player1Name, null, null, RoomPhase.WAITING);
+            }
+            return null;
+        }
+
+        private Slots rebind(String sessionId, String newSessionId) {
+            if (sessionId.equals(player1SessionId) && !newSessionId.equals(player2SessionId)) {
+                return new Slots(newSessionId, player1Name, player2SessionId, player2Name, phase);
+            } else if (sessionId.equals(player2SessionId) && !newSessionId.equals(player1SessionId)) {
+                return new Slots(player1SessionId, player1Name, newSessionId, player2Name, phase);
+            }
+            return null;
+        }
+
+        private Slots withPhase(RoomPhase next) {
+            // Games only run in full rooms, and only a running game can finish
+            boolean allowed = next == RoomPhase.RUNNING ? isFull() && phase != RoomPhase.RUNNING
+                    : next == RoomPhase.FINISHED && phase == RoomPhase.RUNNING;
+            return allowed ? new Slots(player1SessionId, player1Name, player2SessionId, player2Name, next) : null;
+        }
+    }
 }
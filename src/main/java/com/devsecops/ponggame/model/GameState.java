@@ -2,35 +2,80 @@ package com.devsecops.ponggame.model;
 
 /**
  * Represents the current state of a Pong game
+ * Only read and written on the game loop shard that owns the room.
  */
 public class GameState {
+    // Field geometry (matches the 800x450 canvas in index.html)
+    public static final double FIELD_WIDTH = 800;
+    public static final double FIELD_HEIGHT = 450;
+    public static final double BALL_SIZE = 10;
+    public static final double BALL_SPEED = 5;
+    public static final double PADDLE_WIDTH = 12;
+    public static final double PADDLE_HEIGHT = 90;
+    public static final double PADDLE_MARGIN = 20;
+
     private double ballX;
     private double ballY;
     private double ballDx;
     private double ballDy;
+    private double ballSpeed;
     private double player1Y;
     private double player2Y;
+    private double player1PaddleHeight;
+    private double player2PaddleHeight;
     private int player1Score;
     private int player2Score;
     private boolean isRunning;
     private boolean isPaused;
     private long lastUpdate;
 
+    // Live power-up on the field, id 0 when there is none
+    private long powerupId;
+    private PowerupType powerupType;
+    private double powerupX;
+    private double powerupY;
+
+    // Power-up effects, each expiring on its own (0 = not active)
+    private long player1PaddleEffectExpiresAt;
+    private long player2PaddleEffectExpiresAt;
+    private long slowBallExpiresAt;
+    private double speedBeforeSlow;
+
+    // Paddle input coalescing: set on input, cleared by the game loop flush
+    private boolean player1PaddleDirty;
+    private boolean player2PaddleDirty;
+    private long player1LastInputNanos;
+    private long player2LastInputNanos;
+
+    // Replay log id of the match being played, 0 when none is being recorded
+    private long matchId;
+    // Where that match's latest replay record is (segment id << 32 | offset), to link the next one to it
+    private long lastReplayRecord;
+
     public GameState() {
         reset();
     }
 
     public void reset() {
-        this.ballX = 400;
-        this.ballY = 225;
-        this.ballDx = 5;
-        this.ballDy = 5;
-        this.player1Y = 180;
-        this.player2Y = 180;
+        this.ballX = FIELD_WIDTH / 2;
+        this.ballY = FIELD_HEIGHT / 2;
+        this.ballDx = BALL_SPEED;
+        this.ballDy = BALL_SPEED;
+        this.ballSpeed = BALL_SPEED;
+        this.player1Y = (FIELD_HEIGHT - PADDLE_HEIGHT) / 2;
+        this.player2Y = (FIELD_HEIGHT - PADDLE_HEIGHT) / 2;
+        this.player1PaddleHeight = PADDLE_HEIGHT;
+        this.player2PaddleHeight = PADDLE_HEIGHT;
         this.player1Score = 0;
         this.player2Score = 0;
         this.isRunning = false;
         this.isPaused = false;
+        this.powerupId = 0;
+        this.powerupType = null;
+        this.player1PaddleEffectExpiresAt = 0;
+        this.player2PaddleEffectExpiresAt = 0;
+        this.slowBallExpiresAt = 0;
+        this.speedBeforeSlow = 0;
         this.lastUpdate = System.currentTimeMillis();
     }
 
@@ -46,12 +91,21 @@ public class GameState {
     
     public double getBallDy() { return ballDy; }
     public void setBallDy(double ballDy) { this.ballDy = ballDy; }
+
+    public double getBallSpeed() { return ballSpeed; }
+    public void setBallSpeed(double ballSpeed) { this.ballSpeed = ballSpeed; }
     
     public double getPlayer1Y() { return player1Y; }
     public void setPlayer1Y(double player1Y) { this.player1Y = player1Y; }
     
     public double getPlayer2Y() { return player2Y; }
     public void setPlayer2Y(double player2Y) { this.player2Y = player2Y; }
+
+    public double getPlayer1PaddleHeight() { return player1PaddleHeight; }
+    public void setPlayer1PaddleHeight(double height) { this.player1PaddleHeight = height; }
+
+    public double getPlayer2PaddleHeight() { return player2PaddleHeight; }
+    public void setPlayer2PaddleHeight(double height) { this.player2PaddleHeight = height; }
     
     public int getPlayer1Score() { return player1Score; }
     public void setPlayer1Score(int player1Score) { this.player1Score = player1Score; }
@@ -68,6 +122,64 @@ public class GameState {
     public long getLastUpdate() { return lastUpdate; }
     public void setLastUpdate(long lastUpdate) { this.lastUpdate = lastUpdate; }
 
+    public long getPowerupId() { return powerupId; }
+    public PowerupType getPowerupType() { return powerupType; }
+    public double getPowerupX() { return powerupX; }
+    public double getPowerupY() { return powerupY; }
+
+    /**
+     * Put a power-up on the field, replacing any live one
+     */
+    public void placePowerup(long id, PowerupType type, double x, double y) {
+        this.powerupId = id;
+        this.powerupType = type;
+        this.powerupX = x;
+        this.powerupY = y;
+    }
+
+    public void clearPowerup() {
+        this.powerupId = 0;
+        this.powerupType = null;
+    }
+
+    /**
+     * When the power-up resizing the player's paddle wears off
+     */
+    public long getPaddleEffectExpiresAt(int playerNumber) {
+        return playerNumber == 1 ? player1PaddleEffectExpiresAt : player2PaddleEffectExpiresAt;
+    }
+    public void setPaddleEffectExpiresAt(int playerNumber, long expiresAt) {
+        if (playerNumber == 1) player1PaddleEffectExpiresAt = expiresAt;
+        else player2PaddleEffectExpiresAt = expiresAt;
+    }
+
+    public long getSlowBallExpiresAt() { return slowBallExpiresAt; }
+    public void setSlowBallExpiresAt(long slowBallExpiresAt) { this.slowBallExpiresAt = slowBallExpiresAt; }
+
+    public double getSpeedBeforeSlow() { return speedBeforeSlow; }
+    public void setSpeedBeforeSlow(double speedBeforeSlow) { this.speedBeforeSlow = speedBeforeSlow; }
+
+    public boolean isPaddleDirty(int playerNumber) {
+        return playerNumber == 1 ? player1PaddleDirty : player2PaddleDirty;
+    }
+    public void setPaddleDirty(int playerNumber, boolean dirty) {
+        if (playerNumber == 1) player1PaddleDirty = dirty;
+        else player2PaddleDirty = dirty;
+    }
+
+    public long getLastInputNanos(int playerNumber) {
+        return playerNumber == 1 ? player1LastInputNanos : player2LastInputNanos;
+    }
+    public void setLastInputNanos(int playerNumber, long nanos) {
+        if (playerNumber == 1) player1LastInputNanos = nanos;
+        else player2LastInputNanos = nanos;
+    }
+
+    public long getMatchId() { return matchId; }
+    public void setMatchId(long matchId) { this.matchId = matchId; }
+    public long getLastReplayRecord() { return lastReplayRecord; }
+    public void setLastReplayRecord(long lastReplayRecord) { this.lastReplayRecord = lastReplayRecord; }
+
     public void incrementPlayer1Score() { this.player1Score++; }
     public void incrementPlayer2Score() { this.player2Score++; }
 }
@@ -0,0 +1,32 @@
+package com.devsecops.ponggame.model;
+
+/**
+ * An open room as listed in the lobby: one player waiting for an opponent
+ */
+public final class LobbyEntry {
+    private final String roomCode;
+    private final String hostName;
+    private final long createdAt;
+
+    public LobbyEntry(String roomCode, String hostName, long createdAt) {
+        this.roomCode = roomCode;
+        this.hostName = hostName;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Entry for a room that can be joined right now, or null if it should not be listed
+     */
+    public static LobbyEntry of(GameRoom room) {
+        GameRoom.Slots slots = room.getSlots();
+        if (slots.getPhase() != RoomPhase.WAITING || slots.getPlayerCount() != 1) {
+            return null;
+        }
+        String hostName = slots.getPlayer1SessionId() != null ? slots.getPlayer1Name() : slots.getPlayer2Name();
+        return new LobbyEntry(room.getRoomCode(), hostName, room.getCreatedAt());
+    }
+
+    public String getRoomCode() { return roomCode; }
+    public String getHostName() { return hostName; }
+    public long getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,40 @@
+package com.devsecops.ponggame.model;
+
+/**
+ * Outcome of a finished game, as persisted in the match history
+ */
+public final class MatchResult {
+
+    /**
+     * Names of players who did not pick one; these are not distinct players
+     */
+    public static final String DEFAULT_PLAYER1_NAME = "Player 1";
+    public static final String DEFAULT_PLAYER2_NAME = "Player 2";
+
+    private final String roomCode;
+    private final String player1Name;
+    private final String player2Name;
+    private final int player1Score;
+    private final int player2Score;
+    private final int winner;
+    private final long endedAt;
+
+    public MatchResult(String roomCode, String player1Name, String player2Name,
+                       int player1Score, int player2Score, int winner, long endedAt) {
+        this.roomCode = roomCode;
+        this.player1Name = player1Name;
+        this.player2Name = player2Name;
+        this.player1Score = player1Score;
+        this.player2Score = player2Score;
+        this.winner = winner;
+        this.endedAt = endedAt;
+    }
+
+    public String getRoomCode() { return roomCode; }
+    public String getPlayer1Name() { return player1Name; }
+    public String getPlayer2Name() { return player2Name; }
+    public int getPlayer1Score() { return player1Score; }
+    public int getPlayer2Score() { return player2Score; }
+    public int getWinner() { return winner; }
+    public long getEndedAt() { return endedAt; }
+}
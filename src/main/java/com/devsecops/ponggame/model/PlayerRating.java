@@ -0,0 +1,40 @@
+package com.devsecops.ponggame.model;
+
+/**
+ * Elo rating of one player. Immutable: each rated game replaces the entry.
+ */
+public final class PlayerRating {
+    private final String playerName;
+    private final double rating;
+    private final long games;
+    private final long wins;
+    private final long updatedAt;
+
+    public PlayerRating(String playerName, double rating, long games, long wins, long updatedAt) {
+        this.playerName = playerName;
+        this.rating = rating;
+        this.games = games;
+        this.wins = wins;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Rating after one more game
+     */
+    public PlayerRating next(double rating, boolean won, long playedAt) {
+        return new PlayerRating(playerName, rating, games + 1, wins + (won ? 1 : 0), Math.max(updatedAt, playedAt));
+    }
+
+    public String getPlayerName() { return playerName; }
+    public double getRating() { return rating; }
+    public long getGames() { return games; }
+    public long getWins() { return wins; }
+    public long getUpdatedAt() { return updatedAt; }
+
+    /**
+     * Rating rounded to whole points, as shown and as ranked
+     */
+    public int getPoints() {
+        return (int) Math.round(rating);
+    }
+}
@@ -0,0 +1,43 @@
+package com.devsecops.ponggame.model;
+
+/**
+ * Running totals of one player's finished games. Immutable: each result replaces the entry.
+ */
+public final class PlayerStats {
+    private final String playerName;
+    private final long games;
+    private final long wins;
+    private final long pointsFor;
+    private final long pointsAgainst;
+    private final long lastPlayedAt;
+
+    public PlayerStats(String playerName, long games, long wins, long pointsFor, long pointsAgainst, long lastPlayedAt) {
+        this.playerName = playerName;
+        this.games = games;
+        this.wins = wins;
+        this.pointsFor = pointsFor;
+        this.pointsAgainst = pointsAgainst;
+        this.lastPlayedAt = lastPlayedAt;
+    }
+
+    /**
+     * Totals after one more game; {@code previous} may be null for a first game
+     */
+    public static PlayerStats add(PlayerStats previous, String playerName, boolean won,
+                                  int pointsFor, int pointsAgainst, long playedAt) {
+        if (previous == null) {
+            return new PlayerStats(playerName, 1, won ? 1 : 0, pointsFor, pointsAgainst, playedAt);
+        }
+        return new PlayerStats(playerName, previous.games + 1, previous.wins + (won ? 1 : 0),
+                previous.pointsFor + pointsFor, previous.pointsAgainst + pointsAgainst,
+                Math.max(previous.lastPlayedAt, playedAt));
+    }
+
+    public String getPlayerName() { return playerName; }
+    public long getGames() { return games; }
+    public long getWins() { return wins; }
+    public long getLosses() { return games - wins; }
+    public long getPointsFor() { return pointsFor; }
+    public long getPointsAgainst() { return pointsAgainst; }
+    public long getLastPlayedAt() { return lastPlayedAt; }
+}
@@ -0,0 +1,27 @@
+package com.devsecops.ponggame.model;
+
+/**
+ * Power-ups the server spawns on the field, by their wire names
+ */
+public enum PowerupType {
+    SPEED_BOOST,      // faster paddle, client side only
+    BIG_PADDLE,       // collector's paddle grows
+    SLOW_BALL,        // ball slows down
+    SHRINK_OPPONENT;  // opponent's paddle shrinks
+
+    private static final PowerupType[] VALUES = values();
+
+    /**
+     * Type with the given wire name, or null if there is none
+     */
+    public static PowerupType fromWireName(String name) {
+        if (name != null) {
+            for (PowerupType type : VALUES) {
+                if (type.name().equals(name)) {
+                    return type;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.devsecops.ponggame.model;
+
+/**
+ * Lifecycle phase of an open room, derived from its slots and game
+ */
+public enum RoomPhase {
+    WAITING,   // fewer than two players
+    FULL,      // two players, no game started yet
+    RUNNING,   // game in progress
+    FINISHED   // game over, waiting for a rematch
+}
@@ -0,0 +1,54 @@
+package com.devsecops.ponggame.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Room counts per {@link RoomPhase}, adjusted on every phase transition.
+ * Striped counters keep concurrent transitions from contending on one cache line,
+ * and reads are a plain sum with no allocation.
+ */
+public class RoomStats {
+    private final LongAdder created = new LongAdder();
+    private final LongAdder[] byPhase = new LongAdder[RoomPhase.values().length];
+
+    public RoomStats() {
+        for (int i = 0; i < byPhase.length; i++) {
+            byPhase[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a transition; null stands for a room that does not exist (yet or any more)
+     */
+    public void moved(RoomPhase from, RoomPhase to) {
+        if (from != null) {
+            byPhase[from.ordinal()].decrement();
+        }
+        if (to != null) {
+            byPhase[to.ordinal()].increment();
+        }
+    }
+
+    public void roomCreated() {
+        created.increment();
+    }
+
+    /**
+     * Rooms currently open in any phase
+     */
+    public long open() {
+        long total = 0;
+        for (LongAdder adder : byPhase) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    public long count(RoomPhase phase) {
+        return byPhase[phase.ordinal()].sum();
+    }
+
+    public long getCreated() {
+        return created.sum();
+    }
+}
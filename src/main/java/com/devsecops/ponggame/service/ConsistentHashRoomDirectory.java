@@ -0,0 +1,127 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.ClusterNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link RoomDirectory} over a fixed node list ({@code pong.cluster.nodes}, {@code id=url,...}).
+ * Each node is placed at {@code pong.cluster.virtual-nodes} points of a 64-bit hash ring, and a
+ * room code belongs to the first point at or after its own hash. Adding or removing a node only
+ * moves the codes between it and its ring neighbours. Lookups are a binary search over a sorted
+ * array, without locks or allocation. With no node list the local node owns every code.
+ */
+@Service
+public class ConsistentHashRoomDirectory implements RoomDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsistentHashRoomDirectory.class);
+
+    private final ClusterNode localNode;
+    private final List<ClusterNode> nodes;
+    private final long[] points;
+    private final ClusterNode[] owners;
+
+    @Autowired
+    public ConsistentHashRoomDirectory(@Value("${pong.cluster.node-id:local}") String nodeId,
+                                       @Value("${pong.cluster.nodes:}") String nodeList,
+                                       @Value("${pong.cluster.virtual-nodes:128}") int virtualNodes) {
+        List<ClusterNode> parsed = parse(nodeList);
+        if (parsed.isEmpty()) {
+            parsed = List.of(new ClusterNode(nodeId, ""));
+        }
+        this.nodes = List.copyOf(parsed);
+        this.localNode = nodes.stream()
+                .filter(node -> node.getId().equals(nodeId))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "pong.cluster.node-id '" + nodeId + "' is not in pong.cluster.nodes"));
+
+        TreeMap<Long, ClusterNode> ring = new TreeMap<>();
+        int replicas = Math.max(1, virtualNodes);
+        for (ClusterNode node : nodes) {
+            for (int i = 0; i < replicas; i++) {
+                ring.putIfAbsent(hash(node.getId() + "#" + i), node);
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new ClusterNode[ring.size()];
+        int index = 0;
+        for (Map.Entry<Long, ClusterNode> point : ring.entrySet()) {
+            points[index] = point.getKey();
+            owners[index++] = point.getValue();
+        }
+        if (nodes.size() > 1) {
+            logger.info("Room directory: node {} of {}", localNode.getId(), nodes.size());
+        }
+    }
+
+    private static List<ClusterNode> parse(String nodeList) {
+        List<ClusterNode> parsed = new ArrayList<>();
+        if (nodeList == null || nodeList.isBlank()) {
+            return parsed;
+        }
+        for (String entry : nodeList.split(",")) {
+            String trimmed = entry.trim();
+            int separator = trimmed.indexOf('=');
+            if (separator <= 0 || separator == trimmed.length() - 1) {
+                throw new IllegalArgumentException("pong.cluster.nodes entry '" + trimmed + "' is not id=url");
+            }
+            String id = trimmed.substring(0, separator).trim();
+            if (parsed.stream().anyMatch(node -> node.getId().equals(id))) {
+                throw new IllegalArgumentException("pong.cluster.nodes lists '" + id + "' twice");
+            }
+            parsed.add(new ClusterNode(id, trimmed.substring(separator + 1).trim()));
+        }
+        return parsed;
+    }
+
+    @Override
+    public ClusterNode getLocalNode() {
+        return localNode;
+    }
+
+    @Override
+    public List<ClusterNode> getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public ClusterNode ownerOf(String roomCode) {
+        if (nodes.size() == 1) {
+            return localNode;
+        }
+        int index = Arrays.binarySearch(points, hash(roomCode));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so that short,
+     * similar keys (room codes, "node#1", "node#2") spread over the whole ring
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
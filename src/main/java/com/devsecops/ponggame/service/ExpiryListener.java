@@ -0,0 +1,19 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+
+/**
+ * Callbacks fired by {@link ExpiryService}. Invoked on the expiry thread.
+ */
+public interface ExpiryListener {
+
+    /**
+     * A WebSocket session sent nothing for longer than the session timeout
+     */
+    void onSessionExpired(String sessionId);
+
+    /**
+     * No player in the room pinged for longer than the room timeout
+     */
+    void onRoomExpired(GameRoom room);
+}
@@ -0,0 +1,206 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Idle expiry for rooms and WebSocket sessions, driven by a {@link TimingWheel}.
+ * Activity only stamps a timestamp (session messages, room pings via {@link GameRoom#updatePing});
+ * the deadline is re-checked lazily when its wheel slot comes due and rescheduled if there was
+ * activity in the meantime, so each sweep costs O(due entries), not O(rooms).
+ */
+@Service
+public class ExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryService.class);
+
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SLOTS = 512;
+
+    private final long sessionTimeoutMs;
+    private final long roomTimeoutMs;
+    private final Map<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+    // Deadlines offered from any thread, moved into the wheel by the expiry thread
+    private final ConcurrentLinkedQueue<Object> intake = new ConcurrentLinkedQueue<>();
+    private final TimingWheel<Object> wheel;
+    private final Counter expiredSessions;
+    private final Counter expiredRooms;
+
+    private ScheduledExecutorService scheduler;
+    private volatile ExpiryListener listener;
+    private volatile int trackedRooms;
+
+    @Autowired
+    public ExpiryService(MeterRegistry meterRegistry,
+                         @Value("${pong.expiry.session-timeout-ms:30000}") long sessionTimeoutMs,
+                         @Value("${pong.expiry.room-timeout-ms:300000}") long roomTimeoutMs) {
+        this.sessionTimeoutMs = sessionTimeoutMs;
+        this.roomTimeoutMs = roomTimeoutMs;
+        this.wheel = new TimingWheel<>(TICK_MS, WHEEL_SLOTS, System.currentTimeMillis());
+
+        this.expiredSessions = Counter.builder("pong_expired_total")
+            .description("Idle sessions and rooms evicted by the expiry wheel")
+            .tag("kind", "session")
+            .register(meterRegistry);
+        this.expiredRooms = Counter.builder("pong_expired_total")
+            .description("Idle sessions and rooms evicted by the expiry wheel")
+            .tag("kind", "room")
+            .register(meterRegistry);
+        Gauge.builder("pong_expiry_tracked", sessions, Map::size)
+            .description("Entries tracked by the expiry wheel")
+            .tag("kind", "session")
+            .register(meterRegistry);
+        Gauge.builder("pong_expiry_tracked", this, service -> service.trackedRooms)
+            .description("Entries tracked by the expiry wheel")
+            .tag("kind", "room")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sweep(System.currentTimeMillis());
+            } catch (Exception e) {
+                logger.error("Expiry sweep failed: {}", e.getMessage());
+            }
+        }, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void setListener(ExpiryListener listener) {
+        this.listener = listener;
+    }
+
+    public void trackSession(String sessionId) {
+        SessionEntry entry = new SessionEntry(sessionId, System.currentTimeMillis());
+        sessions.put(sessionId, entry);
+        intake.offer(entry);
+    }
+
+    /**
+     * Record inbound activity; a single timestamp write
+     */
+    public void touchSession(String sessionId) {
+        touchSession(sessionId, System.currentTimeMillis());
+    }
+
+    void touchSession(String sessionId, long nowMs) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry != null) {
+            entry.lastActivity = nowMs;
+        }
+    }
+
+    public void untrackSession(String sessionId) {
+        SessionEntry entry = sessions.remove(sessionId);
+        if (entry != null) {
+            entry.removed = true;
+        }
+    }
+
+    /**
+     * Expire the room once no player has pinged it for the room timeout
+     */
+    public void trackRoom(GameRoom room) {
+        intake.offer(room);
+    }
+
+    /**
+     * Move new entries into the wheel and fire everything due. Expiry thread only (or a test).
+     */
+    void sweep(long nowMs) {
+        Object tracked;
+        while ((tracked = intake.poll()) != null) {
+            if (tracked instanceof GameRoom room) {
+                trackedRooms++;
+                wheel.schedule(room, room.getLastActivity() + roomTimeoutMs);
+            } else {
+                SessionEntry entry = (SessionEntry) tracked;
+                wheel.schedule(entry, entry.lastActivity + sessionTimeoutMs);
+            }
+        }
+        wheel.advance(nowMs, due -> {
+            if (due instanceof GameRoom room) {
+                checkRoom(room, nowMs);
+            } else {
+                checkSession((SessionEntry) due, nowMs);
+            }
+        });
+    }
+
+    private void checkSession(SessionEntry entry, long nowMs) {
+        if (entry.removed) {
+            return;
+        }
+        long deadline = entry.lastActivity + sessionTimeoutMs;
+        if (deadline > nowMs) {
+            wheel.schedule(entry, deadline);
+            return;
+        }
+        sessions.remove(entry.sessionId, entry);
+        expiredSessions.increment();
+        logger.info("Session {} idle for {} ms, closing", entry.sessionId, nowMs - entry.lastActivity);
+        ExpiryListener current = listener;
+        if (current != null) {
+            current.onSessionExpired(entry.sessionId);
+        }
+    }
+
+    private void checkRoom(GameRoom room, long nowMs) {
+        if (room.getSlots().isClosed()) {
+            trackedRooms--;
+            return;
+        }
+        long deadline = room.getLastActivity() + roomTimeoutMs;
+        if (deadline > nowMs) {
+            wheel.schedule(room, deadline);
+            return;
+        }
+        trackedRooms--;
+        expiredRooms.increment();
+        logger.info("Room {} idle for {} ms, evicting", room.getRoomCode(), nowMs - room.getLastActivity());
+        ExpiryListener current = listener;
+        if (current != null) {
+            current.onRoomExpired(room);
+        }
+    }
+
+    private static final class SessionEntry {
+        final String sessionId;
+        volatile long lastActivity;
+        volatile boolean removed;
+
+        SessionEntry(String sessionId, long lastActivity) {
+            this.sessionId = sessionId;
+            this.lastActivity = lastActivity;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.PowerupType;
+
+/**
+ * Callbacks fired by the server game loop. Invoked on the room's game loop shard thread.
+ */
+public interface GameLoopListener {
+
+    /**
+     * A game has been reset and its first ball served
+     */
+    void onGameStarted(GameRoom room);
+
+    /**
+     * A tick has been simulated and the room's state should be sent to the players
+     */
+    void onSnapshot(GameRoom room);
+
+    /**
+     * A player's coalesced paddle position should be relayed to the opponent (game not running)
+     */
+    void onPaddleFlush(GameRoom room, int playerNumber, double paddleY);
+
+    /**
+     * A player scored a point
+     */
+    void onScore(GameRoom room, int scorer);
+
+    /**
+     * A player reached the winning score and the game has stopped
+     */
+    void onGameOver(GameRoom room, int winner);
+
+    /**
+     * A power-up has been placed on the field
+     */
+    void onPowerupSpawned(GameRoom room, long powerupId, PowerupType type, double x, double y);
+
+    /**
+     * The ball passed over the live power-up and its effect has been applied
+     */
+    void onPowerupCollected(GameRoom room, int playerNumber, PowerupType type);
+
+    /**
+     * A paddle effect ran out and the paddle is back to its normal height
+     */
+    void onPowerupExpired(GameRoom room);
+}
@@ -0,0 +1,586 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.GameState;
+import com.devsecops.ponggame.model.PowerupType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-authoritative game loop.
+ * Steps ball, wall, paddle and scoring physics for every attached room at a fixed tick rate.
+ * Speeds are expressed per 60 Hz frame (as in pong.js) and scaled to the configured rate.
+ * Paddle input is coalesced: only the latest position per player is kept, and it reaches the
+ * opponent in the next snapshot (running game) or the next paddle flush (game not running).
+ * Rooms are partitioned by room code across single-threaded {@link RoomShard} loops; every
+ * mutation of a room's game state is queued to, and runs on, its owning shard.
+ * Power-ups are placed on the field by the server and collected when the ball passes over
+ * them, by the player who last hit the ball; clients cannot claim one. Each effect (either
+ * paddle's size, the slowed ball) expires on its own, and a new one on the same target replaces it.
+ */
+@Service
+public class GameLoopService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameLoopService.class);
+
+    public static final int WINNING_SCORE = 10;
+    public static final double BALL_SPEED_INCREMENT = 0.3;
+    public static final double MAX_BALL_SPEED = GameState.BALL_SPEED * 2.5;
+    public static final long POWERUP_DURATION_MS = 5000;
+    // Ball centre to power-up centre distance that collects it (as drawn by pong.js)
+    public static final double POWERUP_PICKUP_RADIUS = GameState.BALL_SIZE + 15;
+    private static final double POWERUP_MARGIN_Y = 50;
+
+    private static final double REFERENCE_RATE_HZ = 60.0;
+
+    private final RoomShard[] shards;
+    private final int tickRateHz;
+    private final double stepScale;
+    private final int paddleFlushEveryTicks;
+    private final long minInputIntervalNanos;
+    private final Timer paddleRelayTimer;
+    private final AtomicLong powerupIds = new AtomicLong();
+
+    private volatile GameLoopListener listener;
+
+    @Autowired(required = false)
+    private ReplayLog replayLog;
+
+    GameLoopService(int tickRateHz) {
+        this(tickRateHz, 30, 0, 1, new SimpleMeterRegistry());
+    }
+
+    GameLoopService(int tickRateHz, int paddleFlushHz, int maxPaddleInputHz) {
+        this(tickRateHz, paddleFlushHz, maxPaddleInputHz, 1, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public GameLoopService(@Value("${pong.game.tick-rate-hz:60}") int tickRateHz,
+                           @Value("${pong.game.paddle-flush-hz:30}") int paddleFlushHz,
+                           @Value("${pong.game.max-paddle-input-hz:0}") int maxPaddleInputHz,
+                           @Value("${pong.game.shards:0}") int shardCount,
+                           MeterRegistry meterRegistry) {
+        if (tickRateHz <= 0) {
+            throw new IllegalArgumentException("pong.game.tick-rate-hz must be positive");
+        }
+        this.tickRateHz = tickRateHz;
+        this.stepScale = REFERENCE_RATE_HZ / tickRateHz;
+        this.paddleFlushEveryTicks = Math.max(1, Math.round((float) tickRateHz / Math.max(1, paddleFlushHz)));
+        this.minInputIntervalNanos = maxPaddleInputHz > 0 ? TimeUnit.SECONDS.toNanos(1) / maxPaddleInputHz : 0;
+
+        // Same series name as the WebSocket layer's chat relay timer, tagged by message type
+        this.paddleRelayTimer = Timer.builder("pong_ws_relay_latency")
+            .description("Time from receiving a message to handing the relayed frame to the opponent's queue")
+            .tag("type", "paddle_move")
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofNanos(1_000))
+            .maximumExpectedValue(Duration.ofSeconds(1))
+            .register(meterRegistry);
+
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new RoomShard[count];
+        for (int i = 0; i < count; i++) {
+            RoomShard shard = new RoomShard(i);
+            shards[i] = shard;
+            String tag = Integer.toString(i);
+            Gauge.builder("pong_shard_queue_depth", shard, RoomShard::getQueueDepth)
+                .description("Room mutations waiting for the shard's event loop")
+                .tag("shard", tag)
+                .register(meterRegistry);
+            Gauge.builder("pong_shard_loop_utilization", shard, RoomShard::getUtilization)
+                .description("Fraction of the last second the shard's event loop was busy")
+                .tag("shard", tag)
+                .register(meterRegistry);
+            Gauge.builder("pong_shard_rooms", shard, RoomShard::getRoomCount)
+                .description("Rooms simulated by the shard")
+                .tag("shard", tag)
+                .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / tickRateHz;
+        for (RoomShard shard : shards) {
+            shard.start(periodNanos, this::tick);
+        }
+        logger.info("Game loop started at {} Hz on {} shard(s)", tickRateHz, shards.length);
+    }
+
+    /**
+     * Stop every shard and wait for running ticks to finish, after which game states can be
+     * read from any thread. Safe to call twice (snapshot, then shutdown).
+     */
+    @PreDestroy
+    public void stop() {
+        for (RoomShard shard : shards) {
+            shard.stop();
+        }
+        try {
+            for (RoomShard shard : shards) {
+                if (!shard.awaitStopped(1000)) {
+                    logger.warn("Shard {} did not stop within 1 s", shard.getIndex());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void setListener(GameLoopListener listener) {
+        this.listener = listener;
+    }
+
+    public int getTickRateHz() {
+        return tickRateHz;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Run a task on the room's owning shard, after any mutation already queued for it
+     */
+    public void execute(GameRoom room, Runnable task) {
+        shardFor(room).execute(task);
+    }
+
+    /**
+     * Start simulating a room (called once both players are in)
+     */
+    public void attach(GameRoom room) {
+        RoomShard shard = shardFor(room);
+        shard.execute(() -> shard.add(room));
+    }
+
+    /**
+     * Stop simulating a room and halt its game
+     */
+    public void detach(GameRoom room) {
+        RoomShard shard = shardFor(room);
+        shard.execute(() -> {
+            shard.remove(room);
+            GameState state = room.getGameState();
+            if (replayLog != null && state.isRunning()) {
+                replayLog.abandoned(room);
+            }
+            state.setRunning(false);
+        });
+    }
+
+    /**
+     * Reset the room's state and serve the first ball.
+     * The listener's onGameStarted fires on the shard before the first snapshot.
+     */
+    public void startGame(GameRoom room) {
+        RoomShard shard = shardFor(room);
+        shard.execute(() -> {
+            GameState state = room.getGameState();
+            if (replayLog != null && state.isRunning()) {
+                replayLog.abandoned(room); // restarted mid-game
+            }
+            state.reset();
+            serveBall(state);
+            state.setRunning(true);
+            room.markRunning();
+            shard.add(room);
+            if (replayLog != null) {
+                replayLog.gameStarted(room);
+            }
+            GameLoopListener current = listener;
+            if (current != null) {
+                current.onGameStarted(room);
+            }
+        });
+    }
+
+    /**
+     * Continue a game paused by a restart, once both players are back
+     */
+    public void resumeGame(GameRoom room) {
+        RoomShard shard = shardFor(room);
+        shard.execute(() -> {
+            GameState state = room.getGameState();
+            if (state.isPaused()) {
+                state.setPaused(false);
+                state.setLastUpdate(System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * Record a player's paddle position (latest value wins) on the room's shard.
+     * A positive input sequence is echoed back in snapshots once the input has been applied,
+     * unless the slot has changed hands in the meantime.
+     */
+    public void recordPaddleInput(GameRoom room, int playerNumber, double requestedY, int inputSeq) {
+        long nowNanos = System.nanoTime();
+        int generation = room.getSlotGeneration(playerNumber);
+        shardFor(room).execute(() -> {
+            if (!applyPaddleInput(room, playerNumber, requestedY, inputSeq, generation, nowNanos)) {
+                logger.trace("Paddle input over rate cap in room {}", room.getRoomCode());
+            }
+        });
+    }
+
+    /**
+     * Place a power-up on the field of a running game, unless one is already there.
+     * The position is clamped to the middle of the field; the listener's onPowerupSpawned
+     * fires on the shard with the id the server assigned.
+     */
+    public void spawnPowerup(GameRoom room, PowerupType type, double x, double y) {
+        shardFor(room).execute(() -> {
+            GameState state = room.getGameState();
+            if (!placePowerup(state, type, x, y)) {
+                return;
+            }
+            GameLoopListener current = listener;
+            if (current != null) {
+                current.onPowerupSpawned(room, state.getPowerupId(), type, state.getPowerupX(), state.getPowerupY());
+            }
+        });
+    }
+
+    /**
+     * Owning shard of a room, stable for the room's lifetime
+     */
+    RoomShard shardFor(GameRoom room) {
+        return shards[Math.floorMod(room.getRoomCode().hashCode(), shards.length)];
+    }
+
+    /**
+     * Returns false if the input was dropped by the input rate cap. Shard thread only.
+     */
+    boolean applyPaddleInput(GameRoom room, int playerNumber, double requestedY, long nowNanos) {
+        return applyPaddleInput(room, playerNumber, requestedY, 0, nowNanos);
+    }
+
+    boolean applyPaddleInput(GameRoom room, int playerNumber, double requestedY, int inputSeq, long nowNanos) {
+        return applyPaddleInput(room, playerNumber, requestedY, inputSeq, room.getSlotGeneration(playerNumber), nowNanos);
+    }
+
+    boolean applyPaddleInput(GameRoom room, int playerNumber, double requestedY, int inputSeq,
+                             int generation, long nowNanos) {
+        GameState state = room.getGameState();
+        if (minInputIntervalNanos > 0) {
+            long last = state.getLastInputNanos(playerNumber);
+            if (last != 0 && nowNanos - last < minInputIntervalNanos) {
+                return false;
+            }
+        }
+        state.setLastInputNanos(playerNumber, nowNanos);
+        if (inputSeq > 0) {
+            room.acknowledgeInput(playerNumber, generation, inputSeq);
+        }
+
+        // Clamped to the field, the game loop collides against it
+        double paddleY;
+        if (playerNumber == 1) {
+            paddleY = clampPaddle(requestedY, state.getPlayer1PaddleHeight());
+            if (paddleY == state.getPlayer1Y()) return true;
+            state.setPlayer1Y(paddleY);
+        } else {
+            paddleY = clampPaddle(requestedY, state.getPlayer2PaddleHeight());
+            if (paddleY == state.getPlayer2Y()) return true;
+            state.setPlayer2Y(paddleY);
+        }
+        // Only a moved paddle is relayed to the opponent
+        state.setPaddleDirty(playerNumber, true);
+        if (replayLog != null) {
+            replayLog.paddleMoved(room, playerNumber, paddleY);
+        }
+        return true;
+    }
+
+    /**
+     * Returns false if the game is not running or a power-up is already live. Shard thread only.
+     */
+    boolean placePowerup(GameState state, PowerupType type, double x, double y) {
+        if (!state.isRunning() || state.isPaused() || state.getPowerupId() != 0) {
+            return false;
+        }
+        double clampedX = Math.max(GameState.FIELD_WIDTH / 4, Math.min(GameState.FIELD_WIDTH * 3 / 4, x));
+        double clampedY = Math.max(POWERUP_MARGIN_Y, Math.min(GameState.FIELD_HEIGHT - POWERUP_MARGIN_Y, y));
+        state.placePowerup(powerupIds.incrementAndGet(), type,
+                Double.isNaN(clampedX) ? GameState.FIELD_WIDTH / 2 : clampedX,
+                Double.isNaN(clampedY) ? GameState.FIELD_HEIGHT / 2 : clampedY);
+        return true;
+    }
+
+    /**
+     * Collect the live power-up, at most once, if the ball is over it. Returns the collecting player
+     * (the one the ball is moving away from), or 0 if nothing was collected.
+     */
+    int collectPowerup(GameState state, long now) {
+        if (state.getPowerupId() == 0) {
+            return 0;
+        }
+        double dx = state.getBallX() - state.getPowerupX();
+        double dy = state.getBallY() - state.getPowerupY();
+        if (dx * dx + dy * dy >= POWERUP_PICKUP_RADIUS * POWERUP_PICKUP_RADIUS) {
+            return 0;
+        }
+        int collector = state.getBallDx() > 0 ? 1 : 2;
+        applyPowerupEffect(state, collector, state.getPowerupType(), now);
+        state.clearPowerup();
+        return collector;
+    }
+
+    private void applyPowerupEffect(GameState state, int playerNumber, PowerupType type, long now) {
+        long expiresAt = now + POWERUP_DURATION_MS;
+        switch (type) {
+            case BIG_PADDLE:
+                setPaddleHeight(state, playerNumber, GameState.PADDLE_HEIGHT * 1.5);
+                state.setPaddleEffectExpiresAt(playerNumber, expiresAt);
+                break;
+            case SHRINK_OPPONENT:
+                int opponent = playerNumber == 1 ? 2 : 1;
+                setPaddleHeight(state, opponent, GameState.PADDLE_HEIGHT * 0.6);
+                state.setPaddleEffectExpiresAt(opponent, expiresAt);
+                break;
+            case SLOW_BALL:
+                if (state.getSpeedBeforeSlow() == 0) {
+                    state.setSpeedBeforeSlow(state.getBallSpeed());
+                    state.setBallSpeed(GameState.BALL_SPEED * 0.5);
+                    state.setBallDx(state.getBallDx() * 0.5);
+                    state.setBallDy(state.getBallDy() * 0.5);
+                }
+                state.setSlowBallExpiresAt(expiresAt);
+                break;
+            default:
+                // SPEED_BOOST only affects client-side paddle speed
+                break;
+        }
+    }
+
+    private void tick(RoomShard shard) {
+        GameLoopListener current = listener;
+        long now = System.currentTimeMillis();
+        boolean flushPaddles = shard.getTickCount() % paddleFlushEveryTicks == 0;
+        for (GameRoom room : shard.rooms()) {
+            try {
+                GameState state = room.getGameState();
+                if (!room.isFull()) {
+                    continue;
+                }
+                if (!state.isRunning() || state.isPaused()) {
+                    if (flushPaddles && current != null) {
+                        flushPaddle(room, state, 1, current);
+                        flushPaddle(room, state, 2, current);
+                    }
+                    continue;
+                }
+                // Snapshots carry both paddles, so pending input needs no separate relay
+                long tickNanos = System.nanoTime();
+                recordRelay(state, 1, tickNanos);
+                recordRelay(state, 2, tickNanos);
+                boolean expired = expirePowerups(state, now);
+                int event = step(state, now);
+                if (event != 0 && !state.isRunning()) {
+                    room.markFinished();
+                }
+                PowerupType powerup = state.getPowerupType();
+                int collector = event == 0 ? collectPowerup(state, now) : 0;
+                if (collector != 0) {
+                    if (replayLog != null) {
+                        replayLog.powerup(room, collector, powerup.name());
+                    }
+                    if (current != null) {
+                        current.onPowerupCollected(room, collector, powerup);
+                    }
+                }
+                if (replayLog != null) {
+                    record(room, state, event);
+                }
+                if (current == null) {
+                    continue;
+                }
+                if (expired) {
+                    current.onPowerupExpired(room);
+                }
+                if (event != 0) {
+                    current.onScore(room, event);
+                    if (!state.isRunning()) {
+                        current.onGameOver(room, event);
+                        continue;
+                    }
+                }
+                current.onSnapshot(room);
+            } catch (Exception e) {
+                logger.error("Error ticking room {}: {}", room.getRoomCode(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Advance one tick. Returns the scoring player (1 or 2), or 0 if nobody scored.
+     */
+    int step(GameState state, long now) {
+        // Sub-step fast balls so they cannot tunnel through a paddle at low tick rates
+        double travel = Math.max(Math.abs(state.getBallDx()), Math.abs(state.getBallDy())) * stepScale;
+        int subSteps = Math.max(1, (int) Math.ceil(travel / GameState.BALL_SIZE));
+        double scale = stepScale / subSteps;
+
+        int scorer = 0;
+        for (int i = 0; i < subSteps && scorer == 0; i++) {
+            scorer = advanceBall(state, scale);
+        }
+
+        if (scorer != 0) {
+            if (scorer == 1) {
+                state.incrementPlayer1Score();
+            } else {
+                state.incrementPlayer2Score();
+            }
+            if (state.getPlayer1Score() >= WINNING_SCORE || state.getPlayer2Score() >= WINNING_SCORE) {
+                state.setRunning(false);
+                state.clearPowerup();
+            } else {
+                serveBall(state);
+            }
+        }
+
+        state.setLastUpdate(now);
+        return scorer;
+    }
+
+    private int advanceBall(GameState state, double scale) {
+        double size = GameState.BALL_SIZE;
+        state.setBallX(state.getBallX() + state.getBallDx() * scale);
+        state.setBallY(state.getBallY() + state.getBallDy() * scale);
+
+        // Wall collision
+        if (state.getBallY() - size < 0 || state.getBallY() + size > GameState.FIELD_HEIGHT) {
+            state.setBallDy(-state.getBallDy());
+            state.setBallY(state.getBallY() - size < 0 ? size : GameState.FIELD_HEIGHT - size);
+        }
+
+        // Paddle collision
+        double paddle1X = GameState.PADDLE_MARGIN;
+        double paddle2X = GameState.FIELD_WIDTH - GameState.PADDLE_MARGIN - GameState.PADDLE_WIDTH;
+        if (hitsPaddle(state, paddle1X, state.getPlayer1Y(), state.getPlayer1PaddleHeight())) {
+            bounce(state, state.getPlayer1Y(), state.getPlayer1PaddleHeight(), 1);
+            state.setBallX(paddle1X + GameState.PADDLE_WIDTH + size);
+        } else if (hitsPaddle(state, paddle2X, state.getPlayer2Y(), state.getPlayer2PaddleHeight())) {
+            bounce(state, state.getPlayer2Y(), state.getPlayer2PaddleHeight(), -1);
+            state.setBallX(paddle2X - size);
+        }
+
+        // Scoring
+        if (state.getBallX() < 0) {
+            return 2;
+        } else if (state.getBallX() > GameState.FIELD_WIDTH) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private boolean hitsPaddle(GameState state, double paddleX, double paddleY, double paddleHeight) {
+        double size = GameState.BALL_SIZE;
+        return state.getBallX() - size < paddleX + GameState.PADDLE_WIDTH &&
+               state.getBallX() + size > paddleX &&
+               state.getBallY() - size < paddleY + paddleHeight &&
+               state.getBallY() + size > paddleY;
+    }
+
+    private void bounce(GameState state, double paddleY, double paddleHeight, int direction) {
+        double hitPos = (state.getBallY() - paddleY) / paddleHeight;
+        double angle = (hitPos - 0.5) * Math.PI / 3;
+
+        double speed = Math.min(state.getBallSpeed() + BALL_SPEED_INCREMENT, MAX_BALL_SPEED);
+        state.setBallSpeed(speed);
+        state.setBallDx(direction * speed * Math.cos(angle));
+        state.setBallDy(speed * Math.sin(angle));
+    }
+
+    private void serveBall(GameState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double angle = random.nextDouble() * Math.PI / 4 - Math.PI / 8;
+        int direction = random.nextBoolean() ? 1 : -1;
+
+        state.setBallX(GameState.FIELD_WIDTH / 2);
+        state.setBallY(GameState.FIELD_HEIGHT / 2);
+        state.setBallSpeed(GameState.BALL_SPEED);
+        state.setSpeedBeforeSlow(0);
+        state.setBallDx(direction * GameState.BALL_SPEED * Math.cos(angle));
+        state.setBallDy(GameState.BALL_SPEED * Math.sin(angle));
+    }
+
+    /**
+     * End every effect whose own duration has run out. Returns true if a paddle height changed.
+     */
+    boolean expirePowerups(GameState state, long now) {
+        boolean paddleChanged = false;
+        for (int playerNumber = 1; playerNumber <= 2; playerNumber++) {
+            long expiresAt = state.getPaddleEffectExpiresAt(playerNumber);
+            if (expiresAt != 0 && now >= expiresAt) {
+                setPaddleHeight(state, playerNumber, GameState.PADDLE_HEIGHT);
+                state.setPaddleEffectExpiresAt(playerNumber, 0);
+                paddleChanged = true;
+            }
+        }
+        long slowBallExpiresAt = state.getSlowBallExpiresAt();
+        if (slowBallExpiresAt != 0 && now >= slowBallExpiresAt) {
+            if (state.getSpeedBeforeSlow() > 0) {
+                state.setBallSpeed(state.getSpeedBeforeSlow());
+                state.setSpeedBeforeSlow(0);
+            }
+            state.setSlowBallExpiresAt(0);
+        }
+        return paddleChanged;
+    }
+
+    private void record(GameRoom room, GameState state, int event) {
+        if (event == 0) {
+            replayLog.snapshot(room);
+            return;
+        }
+        replayLog.scored(room, event);
+        if (state.isRunning()) {
+            replayLog.snapshot(room); // the new serve
+        } else {
+            replayLog.gameOver(room, event);
+        }
+    }
+
+    private void recordRelay(GameState state, int playerNumber, long nowNanos) {
+        if (state.isPaddleDirty(playerNumber)) {
+            state.setPaddleDirty(playerNumber, false);
+            paddleRelayTimer.record(nowNanos - state.getLastInputNanos(playerNumber), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flushPaddle(GameRoom room, GameState state, int playerNumber, GameLoopListener current) {
+        if (state.isPaddleDirty(playerNumber)) {
+            recordRelay(state, playerNumber, System.nanoTime());
+            current.onPaddleFlush(room, playerNumber, playerNumber == 1 ? state.getPlayer1Y() : state.getPlayer2Y());
+        }
+    }
+
+    private double clampPaddle(double paddleY, double paddleHeight) {
+        return Math.max(0, Math.min(GameState.FIELD_HEIGHT - paddleHeight, paddleY));
+    }
+
+    private void setPaddleHeight(GameState state, int playerNumber, double height) {
+        if (playerNumber == 1) {
+            state.setPlayer1PaddleHeight(height);
+        } else {
+            state.setPlayer2PaddleHeight(height);
+        }
+    }
+}
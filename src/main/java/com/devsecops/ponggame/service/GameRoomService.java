@@ -1,43 +1,65 @@
 package com.devsecops.ponggame.service;
 
 import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.RoomPhase;
+import com.devsecops.ponggame.model.RoomStats;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for managing game rooms
  */
 @Service
 public class GameRoomService {
+
+    private static final String PLACEHOLDER_PREFIX = "resume:";
     
     private final Map<String, GameRoom> rooms = new ConcurrentHashMap<>();
     private final Map<String, String> sessionToRoom = new ConcurrentHashMap<>();
+    private final Map<String, String> spectatorToRoom = new ConcurrentHashMap<>();
     private final SecureRandom random = new SecureRandom();
     
-    private final AtomicLong totalRoomsCreated = new AtomicLong(0);
-    private final AtomicLong activeGames = new AtomicLong(0);
+    private final RoomStats roomStats = new RoomStats();
+
+    @Autowired(required = false)
+    private ExpiryService expiryService;
+
+    @Autowired(required = false)
+    private LobbyService lobbyService;
+
+    @Autowired(required = false)
+    private RoomDirectory roomDirectory;
 
     /**
      * Create a new game room with a unique code
      */
     public GameRoom createRoom() {
-        String roomCode = generateRoomCode();
-        while (rooms.containsKey(roomCode)) {
-            roomCode = generateRoomCode();
+        GameRoom room = new GameRoom(generateRoomCode(), roomStats);
+        while (rooms.putIfAbsent(room.getRoomCode(), room) != null) {
+            room.closeIfEmpty(); // code collision: uncount the discarded room
+            room = new GameRoom(generateRoomCode(), roomStats);
         }
         
-        GameRoom room = new GameRoom(roomCode);
-        rooms.put(roomCode, room);
-        totalRoomsCreated.incrementAndGet();
+        roomStats.roomCreated();
+        if (expiryService != null) {
+            expiryService.trackRoom(room);
+        }
         return room;
     }
 
     /**
      * Join an existing room
+     * Returns null if the room does not exist or no slot could be claimed.
      */
     public GameRoom joinRoom(String roomCode, String sessionId, String playerName) {
         GameRoom room = rooms.get(roomCode.toUpperCase());
@@ -45,18 +67,13 @@ public class GameRoomService {
             return null; // Room not found
         }
         
-        if (room.isFull()) {
-            return null; // Room is full
-        }
-        
-        int playerNumber = room.addPlayer(sessionId, playerName);
-        if (playerNumber > 0) {
-            sessionToRoom.put(sessionId, roomCode.toUpperCase());
-            if (room.isFull()) {
-                activeGames.incrementAndGet();
-            }
+        // Claiming is atomic: of two racing joins for the last slot exactly one wins
+        if (room.claimSlot(sessionId, playerName) == null) {
+            return null; // Room is full or closed
         }
         
+        sessionToRoom.put(sessionId, room.getRoomCode());
+        lobbyChanged(room);
         return room;
     }
 
@@ -83,6 +100,10 @@ public class GameRoomService {
      */
     public void registerSession(String sessionId, String roomCode) {
         sessionToRoom.put(sessionId, roomCode.toUpperCase());
+        GameRoom room = rooms.get(roomCode.toUpperCase());
+        if (room != null) {
+            lobbyChanged(room);
+        }
     }
 
     /**
@@ -93,25 +114,190 @@ public class GameRoomService {
         if (roomCode != null) {
             GameRoom room = rooms.get(roomCode);
             if (room != null) {
-                boolean wasFull = room.isFull();
-                room.removePlayer(sessionId);
-                
-                if (wasFull) {
-                    activeGames.decrementAndGet();
+                int playerNumber = room.getPlayerNumber(sessionId);
+                if (playerNumber > 0) {
+                    room.setResumeToken(playerNumber, null);
                 }
+                room.releaseSlot(sessionId);
                 
-                // Clean up empty rooms
-                if (room.isEmpty()) {
-                    rooms.remove(roomCode);
+                // Clean up empty rooms; closing first stops a racing join from landing in a removed room
+                if (room.closeIfEmpty()) {
+                    rooms.remove(roomCode, room);
+                }
+                lobbyChanged(room);
+            }
+        }
+    }
+
+    /**
+     * New resume token for the player's slot, replacing any earlier one.
+     * The token starts with the room code, so resuming needs no token index.
+     */
+    public String issueResumeToken(GameRoom room, int playerNumber) {
+        byte[] secret = new byte[16];
+        random.nextBytes(secret);
+        String token = room.getRoomCode() + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+        room.setResumeToken(playerNumber, token);
+        return token;
+    }
+
+    /**
+     * Room code a resume token was issued for, or null if it is not a resume token
+     */
+    public static String resumeTokenRoomCode(String token) {
+        int separator = token != null ? token.indexOf('.') : -1;
+        return separator > 0 ? token.substring(0, separator) : null;
+    }
+
+    /**
+     * Session id that holds a restored player's slot until the player resumes it
+     */
+    public static String placeholderSessionId(String roomCode, int playerNumber) {
+        return PLACEHOLDER_PREFIX + roomCode + ":" + playerNumber;
+    }
+
+    public static boolean isPlaceholder(String sessionId) {
+        return sessionId != null && sessionId.startsWith(PLACEHOLDER_PREFIX);
+    }
+
+    /**
+     * Put a room rebuilt from a snapshot back in service. Its players hold placeholder sessions,
+     * which expire like idle sessions unless resumed first. Returns false on a code clash.
+     */
+    public boolean restoreRoom(GameRoom room) {
+        if (rooms.putIfAbsent(room.getRoomCode(), room) != null) {
+            return false;
+        }
+        GameRoom.Slots slots = room.getSlots();
+        for (String sessionId : new String[]{slots.getPlayer1SessionId(), slots.getPlayer2SessionId()}) {
+            if (sessionId != null) {
+                sessionToRoom.put(sessionId, room.getRoomCode());
+                if (expiryService != null) {
+                    expiryService.trackSession(sessionId);
                 }
             }
         }
+        if (expiryService != null) {
+            expiryService.trackRoom(room);
+        }
+        lobbyChanged(room);
+        return true;
+    }
+
+    /**
+     * Hand a restored player's slot to the session presenting its resume token.
+     * Returns the room, or null if the token matches no slot awaiting its player.
+     */
+    public GameRoom resume(String token, String sessionId) {
+        String roomCode = resumeTokenRoomCode(token);
+        GameRoom room = roomCode != null ? rooms.get(roomCode) : null;
+        if (room == null) {
+            return null;
+        }
+        byte[] presented = token.getBytes(StandardCharsets.UTF_8);
+        for (int playerNumber = 1; playerNumber <= 2; playerNumber++) {
+            String expected = room.getResumeToken(playerNumber);
+            if (expected == null || !MessageDigest.isEqual(presented, expected.getBytes(StandardCharsets.UTF_8))) {
+                continue;
+            }
+            GameRoom.Slots slots = room.getSlots();
+            String holder = playerNumber == 1 ? slots.getPlayer1SessionId() : slots.getPlayer2SessionId();
+            if (!isPlaceholder(holder) || !room.rebindSlot(holder, sessionId)) {
+                return null;
+            }
+            sessionToRoom.remove(holder);
+            sessionToRoom.put(sessionId, room.getRoomCode());
+            if (expiryService != null) {
+                expiryService.untrackSession(holder);
+            }
+            lobbyChanged(room);
+            return room;
+        }
+        return null;
+    }
+
+    /**
+     * Every room currently held, for snapshots
+     */
+    public List<GameRoom> getRooms() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    /**
+     * Watch a room. Returns null if the room does not exist or has closed.
+     * A session watches at most one room; watching another moves it.
+     */
+    public GameRoom spectate(String roomCode, String sessionId) {
+        GameRoom room = rooms.get(roomCode.toUpperCase());
+        if (room == null) {
+            return null;
+        }
+        stopSpectating(sessionId);
+        room.addSpectator(sessionId);
+        spectatorToRoom.put(sessionId, room.getRoomCode());
+        
+        // The room may have closed while we were adding; nobody would end our watch then
+        if (room.getSlots().isClosed()) {
+            room.removeSpectator(sessionId);
+            spectatorToRoom.remove(sessionId, room.getRoomCode());
+            return null;
+        }
+        return room;
+    }
+
+    /**
+     * Stop watching, if the session was a spectator
+     */
+    public void stopSpectating(String sessionId) {
+        String roomCode = spectatorToRoom.remove(sessionId);
+        if (roomCode != null) {
+            GameRoom room = rooms.get(roomCode);
+            if (room != null) {
+                room.removeSpectator(sessionId);
+            }
+        }
+    }
+
+    /**
+     * Room a session is watching, or null
+     */
+    public GameRoom getRoomBySpectator(String sessionId) {
+        String roomCode = spectatorToRoom.get(sessionId);
+        return roomCode != null ? rooms.get(roomCode) : null;
+    }
+
+    /**
+     * Detach every spectator of a closed room. Returns the sessions that were watching.
+     */
+    public List<String> removeSpectators(GameRoom room) {
+        List<String> removed = new ArrayList<>(room.getSpectatorCount());
+        for (String sessionId : room.getSpectators()) {
+            if (room.removeSpectator(sessionId)) {
+                spectatorToRoom.remove(sessionId, room.getRoomCode());
+                removed.add(sessionId);
+            }
+        }
+        return removed;
+    }
+
+    private void lobbyChanged(GameRoom room) {
+        if (lobbyService != null) {
+            lobbyService.roomChanged(room);
+        }
     }
 
     /**
-     * Generate a random 4-character room code
+     * Random 4-character room code owned by this node, so the room never has to be looked up elsewhere
      */
     private String generateRoomCode() {
+        String code = randomRoomCode();
+        while (roomDirectory != null && !roomDirectory.isLocal(code)) {
+            code = randomRoomCode();
+        }
+        return code;
+    }
+
+    private String randomRoomCode() {
         String chars = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789"; // Exclude confusing chars
         StringBuilder code = new StringBuilder(4);
         for (int i = 0; i < 4; i++) {
@@ -121,27 +307,58 @@ public class GameRoomService {
     }
 
     /**
-     * Get statistics
+     * Room counts per phase, maintained on every slot and game transition
+     */
+    public RoomStats getRoomStats() {
+        return roomStats;
+    }
+
+    public long getActiveRoomCount() {
+        return roomStats.open();
+    }
+
+    public long getActiveGameCount() {
+        return roomStats.count(RoomPhase.RUNNING);
+    }
+
+    public long getConnectedPlayerCount() {
+        return sessionToRoom.size();
+    }
+
+    public long getSpectatorCount() {
+        return spectatorToRoom.size();
+    }
+
+    /**
+     * Get statistics (for the REST API; gauges read the counters directly)
      */
     public Map<String, Object> getStats() {
-        Map<String, Object> stats = new ConcurrentHashMap<>();
-        stats.put("totalRoomsCreated", totalRoomsCreated.get());
-        stats.put("activeRooms", rooms.size());
-        stats.put("activeGames", activeGames.get());
-        stats.put("connectedPlayers", sessionToRoom.size());
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalRoomsCreated", roomStats.getCreated());
+        stats.put("activeRooms", getActiveRoomCount());
+        stats.put("activeGames", getActiveGameCount());
+        stats.put("connectedPlayers", getConnectedPlayerCount());
+        stats.put("spectators", getSpectatorCount());
+        stats.put("waitingRooms", roomStats.count(RoomPhase.WAITING));
+        stats.put("fullRooms", roomStats.count(RoomPhase.FULL));
+        stats.put("runningGames", roomStats.count(RoomPhase.RUNNING));
+        stats.put("finishedGames", roomStats.count(RoomPhase.FINISHED));
         return stats;
     }
 
     /**
-     * Clean up stale rooms (older than 1 hour with no activity)
+     * Remove an idle room, releasing any players still holding a slot
      */
-    public void cleanupStaleRooms() {
-        long now = System.currentTimeMillis();
-        long oneHour = 60 * 60 * 1000;
-        
-        rooms.entrySet().removeIf(entry -> {
-            GameRoom room = entry.getValue();
-            return room.isEmpty() && (now - room.getCreatedAt() > oneHour);
-        });
+    public void evictRoom(GameRoom room) {
+        GameRoom.Slots slots = room.getSlots();
+        for (String sessionId : new String[]{slots.getPlayer1SessionId(), slots.getPlayer2SessionId()}) {
+            if (sessionId != null) {
+                leaveRoom(sessionId);
+            }
+        }
+        if (room.closeIfEmpty()) {
+            rooms.remove(room.getRoomCode(), room);
+            lobbyChanged(room);
+        }
     }
 }
@@ -0,0 +1,18 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.LobbyEntry;
+
+import java.util.List;
+
+/**
+ * Callbacks fired by {@link LobbyService}. Invoked on the lobby thread, at most once per refresh.
+ */
+public interface LobbyListener {
+
+    /**
+     * The set of open rooms changed.
+     * {@code rooms} is the complete listing (oldest first) as of {@code version};
+     * {@code added} and {@code removed} take the listing of {@code version - 1} to it.
+     */
+    void onLobbyChanged(long version, List<LobbyEntry> rooms, List<LobbyEntry> added, List<String> removed);
+}
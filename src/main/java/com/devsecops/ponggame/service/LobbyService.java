@@ -0,0 +1,158 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.LobbyEntry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing of open rooms (one player waiting) for the lobby browser.
+ * Slot changes only mark a room dirty; every refresh interval the dirty rooms are re-checked
+ * against the current listing, so building the diff costs O(changes) and a room that fills up
+ * before the next refresh (such as a quick-match pairing) is never listed at all. When anything
+ * changed, the listing is re-sorted, O(n log n) in listed rooms, and handed with the diff to the
+ * {@link LobbyListener} once. A busy lobby is therefore paid for per refresh, not per change.
+ */
+@Service
+public class LobbyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LobbyService.class);
+
+    private static final Comparator<LobbyEntry> OLDEST_FIRST =
+            Comparator.comparingLong(LobbyEntry::getCreatedAt).thenComparing(LobbyEntry::getRoomCode);
+
+    private final long refreshMs;
+    // Rooms whose slots changed since the last refresh, latest room per code
+    private final Map<String, GameRoom> dirty = new ConcurrentHashMap<>();
+    // Owned by the refresh (lobby thread, or a test calling refresh directly)
+    private final Map<String, LobbyEntry> listed = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private volatile LobbyListener listener;
+    private volatile List<LobbyEntry> rooms = List.of();
+    private volatile long version;
+
+    @Autowired
+    public LobbyService(MeterRegistry meterRegistry,
+                        @Value("${pong.lobby.refresh-ms:500}") long refreshMs) {
+        this.refreshMs = refreshMs;
+        Gauge.builder("pong_lobby_rooms", this, service -> service.rooms.size())
+            .description("Open rooms listed in the lobby")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lobby");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                logger.error("Lobby refresh failed: {}", e.getMessage());
+            }
+        }, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void setListener(LobbyListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Note that a room's slots changed; picked up by the next refresh
+     */
+    public void roomChanged(GameRoom room) {
+        dirty.put(room.getRoomCode(), room);
+    }
+
+    /**
+     * Listing as of the last refresh, oldest room first
+     */
+    public List<LobbyEntry> getRooms() {
+        return rooms;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Apply the changes collected since the last refresh.
+     * Returns true if the listing changed.
+     */
+    synchronized boolean refresh() {
+        if (dirty.isEmpty()) {
+            return false;
+        }
+        List<LobbyEntry> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, GameRoom> change : dirty.entrySet()) {
+            // Removed before reading the room, so a change racing with this refresh stays dirty
+            String roomCode = change.getKey();
+            dirty.remove(roomCode, change.getValue());
+            LobbyEntry next = LobbyEntry.of(change.getValue());
+            LobbyEntry previous = listed.get(roomCode);
+            if (sameListing(previous, next)) {
+                continue;
+            }
+            if (previous != null) {
+                listed.remove(roomCode);
+                removed.add(roomCode);
+            }
+            if (next != null) {
+                listed.put(roomCode, next);
+                added.add(next);
+            }
+        }
+        if (added.isEmpty() && removed.isEmpty()) {
+            return false;
+        }
+
+        List<LobbyEntry> next = new ArrayList<>(listed.values());
+        next.sort(OLDEST_FIRST);
+        added.sort(OLDEST_FIRST);
+        rooms = List.copyOf(next);
+        version++;
+
+        LobbyListener current = listener;
+        if (current != null) {
+            current.onLobbyChanged(version, rooms, added, removed);
+        }
+        return true;
+    }
+
+    private static boolean sameListing(LobbyEntry a, LobbyEntry b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getCreatedAt() == b.getCreatedAt() && Objects.equals(a.getHostName(), b.getHostName());
+    }
+}
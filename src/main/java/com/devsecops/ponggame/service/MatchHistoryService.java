@@ -0,0 +1,350 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.GameState;
+import com.devsecops.ponggame.model.MatchResult;
+import com.devsecops.ponggame.model.PlayerStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Persistent history of finished games, written behind the game loop.
+ * {@link #record} only offers the result to a bounded queue, so the shard thread ending a game
+ * never waits on disk. The "match-history" thread drains the queue in batches of up to
+ * {@code pong.history.batch-size}, or whatever arrived within {@code pong.history.flush-interval-ms},
+ * appends each batch to the {@link MatchHistoryStore} with a single fsync and only then folds it
+ * into the aggregates. Those are kept incrementally, so queries never scan the history:
+ * <ul>
+ *   <li>totals since the file was created,</li>
+ *   <li>per-player totals, keyed by player name,</li>
+ *   <li>a ring of per-minute buckets covering the last {@code pong.history.window-minutes}.</li>
+ * </ul>
+ * On startup the aggregates are rebuilt from the file.
+ *
+ * Every finished game is also handed to the {@link MatchResultListener}s (ratings) as it ends,
+ * even with the history disabled; recovered results are handed to them on startup, so they are
+ * rebuilt the same way as the aggregates.
+ */
+@Service
+public class MatchHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchHistoryService.class);
+
+    private static final long MINUTE_MS = 60_000;
+    // Longest wait before the writer looks at the running flag again
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final boolean enabled;
+    private final Path file;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int windowMinutes;
+    private final BlockingQueue<MatchResult> queue;
+
+    private final AtomicLong gamesPlayed = new AtomicLong();
+    private final AtomicLong player1Wins = new AtomicLong();
+    private final AtomicLong player2Wins = new AtomicLong();
+    private final Map<String, PlayerStats> players = new ConcurrentHashMap<>();
+    // Minute ring: bucket i holds the games that ended in minute bucketMinute[i]
+    private final AtomicLongArray bucketMinute;
+    private final AtomicLongArray bucketGames;
+    private final AtomicLongArray bucketPlayer1Wins;
+    private final AtomicLongArray bucketPlayer2Wins;
+
+    private final List<MatchResultListener> resultListeners;
+    private final Counter resultsWritten;
+    private final Counter resultsDropped;
+
+    private MatchHistoryStore store;
+    private Thread writer;
+    private volatile boolean running;
+
+    @Autowired
+    public MatchHistoryService(MeterRegistry meterRegistry,
+                               @Value("${pong.history.enabled:true}") boolean enabled,
+                               @Value("${pong.history.file:data/history/matches.log}") String file,
+                               @Value("${pong.history.batch-size:256}") int batchSize,
+                               @Value("${pong.history.flush-interval-ms:1000}") long flushIntervalMs,
+                               @Value("${pong.history.queue-capacity:65536}") int queueCapacity,
+                               @Value("${pong.history.window-minutes:10080}") int windowMinutes,
+                               List<MatchResultListener> resultListeners) {
+        this.resultListeners = List.copyOf(resultListeners);
+        this.enabled = enabled;
+        this.file = Paths.get(file);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.windowMinutes = Math.max(1, windowMinutes);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.bucketMinute = new AtomicLongArray(this.windowMinutes);
+        this.bucketGames = new AtomicLongArray(this.windowMinutes);
+        this.bucketPlayer1Wins = new AtomicLongArray(this.windowMinutes);
+        this.bucketPlayer2Wins = new AtomicLongArray(this.windowMinutes);
+        for (int i = 0; i < this.windowMinutes; i++) {
+            bucketMinute.set(i, -1);
+        }
+
+        this.resultsWritten = Counter.builder("pong_history_results")
+            .description("Game results persisted to the match history")
+            .register(meterRegistry);
+        this.resultsDropped = Counter.builder("pong_history_results_dropped")
+            .description("Game results lost because the history queue was full or the write failed")
+            .register(meterRegistry);
+        Gauge.builder("pong_history_queue_depth", queue, BlockingQueue::size)
+            .description("Game results waiting to be written")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            store = MatchHistoryStore.open(file, this::recover);
+        } catch (IOException e) {
+            logger.error("Match history disabled, {} is not usable: {}", file, e.getMessage());
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "match-history");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Match history at {} ({} game(s) recovered)", file.toAbsolutePath(), gamesPlayed.get());
+    }
+
+    /**
+     * Stop taking results, write what is queued and close the file
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            // Not interrupted: an interrupt closes the file channel mid-write
+            try {
+                writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                logger.warn("Closing match history failed: {}", e.getMessage());
+            }
+            store = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Hand the result of a finished game to the listeners and queue it for writing (shard thread
+     * of the room). Never blocks: when the queue is full the result is dropped and counted.
+     */
+    public void record(GameRoom room, int winner) {
+        GameState state = room.getGameState();
+        MatchResult result = new MatchResult(room.getRoomCode(),
+                nameOrDefault(room.getPlayer1Name(), MatchResult.DEFAULT_PLAYER1_NAME),
+                nameOrDefault(room.getPlayer2Name(), MatchResult.DEFAULT_PLAYER2_NAME),
+                state.getPlayer1Score(), state.getPlayer2Score(), winner, System.currentTimeMillis());
+        for (MatchResultListener listener : resultListeners) {
+            listener.onMatchResult(result);
+        }
+        if (!running) {
+            return;
+        }
+        if (!queue.offer(result)) {
+            resultsDropped.increment();
+        }
+    }
+
+    private static String nameOrDefault(String name, String fallback) {
+        if (name == null || name.isBlank()) {
+            return fallback;
+        }
+        return name.length() > MatchHistoryStore.MAX_NAME_CHARS ? name.substring(0, MatchHistoryStore.MAX_NAME_CHARS) : name;
+    }
+
+    // ============================================
+    // Write-behind (match-history thread)
+    // ============================================
+
+    private void writeLoop() {
+        List<MatchResult> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                MatchResult first = queue.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Top the batch up to the batch size, waiting at most one flush interval for stragglers
+     */
+    private void fillBatch(List<MatchResult> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long waitNanos = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || waitNanos <= 0 || !running) {
+                return;
+            }
+            MatchResult next = queue.poll(Math.min(waitNanos, POLL_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void write(List<MatchResult> batch) {
+        try {
+            store.append(batch);
+        } catch (IOException e) {
+            logger.error("Could not write {} game result(s) to the match history: {}", batch.size(), e.getMessage());
+            resultsDropped.increment(batch.size());
+            return;
+        }
+        resultsWritten.increment(batch.size());
+        batch.forEach(this::apply);
+    }
+
+    /**
+     * Result read back from the file on startup: the listeners saw it before the restart
+     */
+    private void recover(MatchResult result) {
+        for (MatchResultListener listener : resultListeners) {
+            listener.onMatchResult(result);
+        }
+        apply(result);
+    }
+
+    /**
+     * Fold one persisted result into the aggregates (match-history thread, or startup)
+     */
+    private void apply(MatchResult result) {
+        gamesPlayed.incrementAndGet();
+        if (result.getWinner() == 1) {
+            player1Wins.incrementAndGet();
+        } else if (result.getWinner() == 2) {
+            player2Wins.incrementAndGet();
+        }
+        players.compute(result.getPlayer1Name(), (name, previous) -> PlayerStats.add(previous, name,
+                result.getWinner() == 1, result.getPlayer1Score(), result.getPlayer2Score(), result.getEndedAt()));
+        players.compute(result.getPlayer2Name(), (name, previous) -> PlayerStats.add(previous, name,
+                result.getWinner() == 2, result.getPlayer2Score(), result.getPlayer1Score(), result.getEndedAt()));
+
+        long minute = result.getEndedAt() / MINUTE_MS;
+        if (minute <= System.currentTimeMillis() / MINUTE_MS - windowMinutes) {
+            return;
+        }
+        int bucket = (int) (minute % windowMinutes);
+        long held = bucketMinute.get(bucket);
+        if (held > minute) {
+            return; // older than what the ring holds now
+        }
+        if (held != minute) {
+            bucketGames.set(bucket, 0);
+            bucketPlayer1Wins.set(bucket, 0);
+            bucketPlayer2Wins.set(bucket, 0);
+            bucketMinute.set(bucket, minute);
+        }
+        bucketGames.incrementAndGet(bucket);
+        if (result.getWinner() == 1) {
+            bucketPlayer1Wins.incrementAndGet(bucket);
+        } else if (result.getWinner() == 2) {
+            bucketPlayer2Wins.incrementAndGet(bucket);
+        }
+    }
+
+    // ============================================
+    // Queries
+    // ============================================
+
+    public long getGamesPlayed() {
+        return gamesPlayed.get();
+    }
+
+    public long getPlayer1Wins() {
+        return player1Wins.get();
+    }
+
+    public long getPlayer2Wins() {
+        return player2Wins.get();
+    }
+
+    /**
+     * Totals of one player, or null if they have no finished game on record
+     */
+    public PlayerStats getPlayer(String playerName) {
+        return playerName == null ? null : players.get(playerName);
+    }
+
+    public Collection<PlayerStats> getPlayers() {
+        return players.values();
+    }
+
+    /**
+     * Games and wins of the last {@code minutes} minutes (capped at the configured window),
+     * summed from the minute ring
+     */
+    public Map<String, Object> getWindowSummary(int minutes) {
+        int window = Math.max(1, Math.min(minutes, windowMinutes));
+        long now = System.currentTimeMillis() / MINUTE_MS;
+        long games = 0;
+        long wins1 = 0;
+        long wins2 = 0;
+        for (long minute = now - window + 1; minute <= now; minute++) {
+            int bucket = (int) (minute % windowMinutes);
+            if (bucketMinute.get(bucket) == minute) {
+                games += bucketGames.get(bucket);
+                wins1 += bucketPlayer1Wins.get(bucket);
+                wins2 += bucketPlayer2Wins.get(bucket);
+            }
+        }
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("windowMinutes", window);
+        summary.put("gamesPlayed", games);
+        summary.put("player1Wins", wins1);
+        summary.put("player2Wins", wins2);
+        return summary;
+    }
+}
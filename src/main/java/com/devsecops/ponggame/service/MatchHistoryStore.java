@@ -0,0 +1,177 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.MatchResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of finished games for the {@link MatchHistoryService}.
+ * Each batch is written with one positional write and one fsync. Records carry a CRC, so a
+ * batch torn by a crash is detected on the next start and cut off.
+ *
+ * <pre>
+ *   length u32 | crc32 u32 (of the payload) | payload
+ *   payload    endedAt i64 | winner u8 | player1Score u16 | player2Score u16 |
+ *              roomCode, player1Name, player2Name (u8 length + UTF-8 each)
+ * </pre>
+ * Little-endian. Names longer than 64 characters are cut.
+ */
+final class MatchHistoryStore implements AutoCloseable {
+
+    static final int MAX_NAME_CHARS = 64;
+    private static final int RECORD_HEADER = 8;
+    private static final int MAX_PAYLOAD = 8 + 1 + 2 + 2 + 3 * (1 + 255);
+
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private long end;
+
+    private MatchHistoryStore(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Open (or create) the file, hand every intact record to {@code visitor} in write order
+     * and truncate whatever follows the last one
+     */
+    static MatchHistoryStore open(Path file, Consumer<MatchResult> visitor) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MatchHistoryStore store = new MatchHistoryStore(channel);
+        try {
+            store.recover(visitor);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void recover(Consumer<MatchResult> visitor) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer payload = ByteBuffer.allocate(MAX_PAYLOAD).order(ByteOrder.LITTLE_ENDIAN);
+        long position = 0;
+        while (position + RECORD_HEADER <= size) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            if (length <= 0 || length > MAX_PAYLOAD || position + RECORD_HEADER + length > size) {
+                break;
+            }
+            payload.clear().limit(length);
+            readFully(payload, position + RECORD_HEADER);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            payload.flip();
+            visitor.accept(decode(payload));
+            position += RECORD_HEADER + length;
+        }
+        if (position < size) {
+            channel.truncate(position);
+        }
+        end = position;
+    }
+
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("Unexpected end of match history");
+            }
+        }
+    }
+
+    /**
+     * Append a batch and force it to disk
+     */
+    void append(List<MatchResult> results) throws IOException {
+        int needed = results.size() * (RECORD_HEADER + MAX_PAYLOAD);
+        if (buffer.capacity() < needed) {
+            buffer = ByteBuffer.allocate(needed).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        buffer.clear();
+        for (MatchResult result : results) {
+            int start = buffer.position();
+            buffer.position(start + RECORD_HEADER);
+            encode(result, buffer);
+            int length = buffer.position() - start - RECORD_HEADER;
+            crc.reset();
+            crc.update(buffer.array(), start + RECORD_HEADER, length);
+            buffer.putInt(start, length);
+            buffer.putInt(start + 4, (int) crc.getValue());
+        }
+        buffer.flip();
+        long position = end;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+        end = position;
+    }
+
+    long size() {
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void encode(MatchResult result, ByteBuffer out) {
+        out.putLong(result.getEndedAt());
+        out.put((byte) result.getWinner());
+        out.putShort((short) result.getPlayer1Score());
+        out.putShort((short) result.getPlayer2Score());
+        putString(out, result.getRoomCode());
+        putString(out, result.getPlayer1Name());
+        putString(out, result.getPlayer2Name());
+    }
+
+    private static MatchResult decode(ByteBuffer in) {
+        long endedAt = in.getLong();
+        int winner = in.get();
+        int player1Score = in.getShort() & 0xFFFF;
+        int player2Score = in.getShort() & 0xFFFF;
+        String roomCode = getString(in);
+        String player1Name = getString(in);
+        String player2Name = getString(in);
+        return new MatchResult(roomCode, player1Name, player2Name, player1Score, player2Score, winner, endedAt);
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        String text = value == null ? "" : value;
+        if (text.length() > MAX_NAME_CHARS) {
+            text = text.substring(0, MAX_NAME_CHARS);
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 255);
+        out.put((byte) length);
+        out.put(bytes, 0, length);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.get() & 0xFF;
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
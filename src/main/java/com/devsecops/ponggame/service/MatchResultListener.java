@@ -0,0 +1,13 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.MatchResult;
+
+/**
+ * Consumer of finished games, fed by {@link MatchHistoryService}. Live results arrive on the
+ * shard thread of the room as the game ends, whether or not the history is persisted; results
+ * recovered from the history file arrive once on startup. Implementations must not block.
+ */
+public interface MatchResultListener {
+
+    void onMatchResult(MatchResult result);
+}
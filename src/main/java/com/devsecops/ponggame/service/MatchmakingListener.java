@@ -0,0 +1,15 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+
+/**
+ * Callbacks fired by quick-match matchmaking. Invoked on the matchmaking thread.
+ */
+public interface MatchmakingListener {
+
+    /**
+     * Two waiting players were paired and both already hold a slot in the new room.
+     * Player 1 is the one who waited longer and hosts the game.
+     */
+    void onMatched(GameRoom room);
+}
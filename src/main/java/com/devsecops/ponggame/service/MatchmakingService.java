@@ -0,0 +1,281 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Quick-match queue.
+ * Waiting players are bucketed by their measured RTT and paired in batches on a fixed interval,
+ * oldest first within a bucket. A player left unpaired longer than the widen delay may be paired
+ * with the nearest leftover from another bucket. Enqueueing is a lock-free offer, so a burst of
+ * thousands of players costs one pass of the next batch.
+ */
+@Service
+public class MatchmakingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchmakingService.class);
+
+    private final GameRoomService gameRoomService;
+    private final long rttBucketMs;
+    private final long widenAfterNanos;
+    private final long intervalMs;
+
+    // Intake per RTT bucket, offered from any thread
+    private final ConcurrentLinkedQueue<Ticket>[] intake;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final Map<String, Long> reportedRtt = new ConcurrentHashMap<>();
+
+    // Waiting lists per RTT bucket, owned by the matchmaking thread
+    private final ArrayDeque<Ticket>[] waiting;
+
+    private final Timer timeToMatch;
+    private final Counter matches;
+
+    private ScheduledExecutorService scheduler;
+    private volatile MatchmakingListener listener;
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public MatchmakingService(GameRoomService gameRoomService,
+                              MeterRegistry meterRegistry,
+                              @Value("${pong.matchmaking.interval-ms:100}") long intervalMs,
+                              @Value("${pong.matchmaking.rtt-bucket-ms:50}") long rttBucketMs,
+                              @Value("${pong.matchmaking.rtt-buckets:6}") int rttBuckets,
+                              @Value("${pong.matchmaking.widen-after-ms:3000}") long widenAfterMs) {
+        if (intervalMs <= 0 || rttBucketMs <= 0 || rttBuckets <= 0) {
+            throw new IllegalArgumentException("pong.matchmaking interval and buckets must be positive");
+        }
+        this.gameRoomService = gameRoomService;
+        this.intervalMs = intervalMs;
+        this.rttBucketMs = rttBucketMs;
+        this.widenAfterNanos = TimeUnit.MILLISECONDS.toNanos(widenAfterMs);
+        this.intake = new ConcurrentLinkedQueue[rttBuckets];
+        this.waiting = new ArrayDeque[rttBuckets];
+        for (int i = 0; i < rttBuckets; i++) {
+            intake[i] = new ConcurrentLinkedQueue<>();
+            waiting[i] = new ArrayDeque<>();
+        }
+
+        this.timeToMatch = Timer.builder("pong_matchmaking_time_to_match")
+            .description("Time from quick_match to being placed in a room")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.matches = Counter.builder("pong_matchmaking_matches_total")
+            .description("Rooms created by quick-match")
+            .register(meterRegistry);
+        Gauge.builder("pong_matchmaking_waiting", tickets, Map::size)
+            .description("Players waiting in the quick-match queue")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "matchmaking");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                matchBatch(System.nanoTime());
+            } catch (Exception e) {
+                logger.error("Matchmaking batch failed: {}", e.getMessage());
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void setListener(MatchmakingListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Add a player to the queue. Returns false if the session is already waiting.
+     */
+    public boolean enqueue(String sessionId, String playerName, long rttMs) {
+        Ticket ticket = new Ticket(sessionId, playerName, rttMs, System.nanoTime());
+        if (tickets.putIfAbsent(sessionId, ticket) != null) {
+            return false;
+        }
+        intake[bucketFor(rttMs)].offer(ticket);
+        return true;
+    }
+
+    /**
+     * Remove a waiting player. Returns false if the session was not waiting or has just been matched.
+     */
+    public boolean cancel(String sessionId) {
+        reportedRtt.remove(sessionId);
+        Ticket ticket = tickets.remove(sessionId);
+        return ticket != null && ticket.claim();
+    }
+
+    /**
+     * Remember the RTT a lobby client reported in its last ping
+     */
+    public void reportRtt(String sessionId, long rttMs) {
+        reportedRtt.put(sessionId, rttMs);
+    }
+
+    public long getReportedRtt(String sessionId) {
+        return reportedRtt.getOrDefault(sessionId, 0L);
+    }
+
+    public boolean isWaiting(String sessionId) {
+        return tickets.containsKey(sessionId);
+    }
+
+    public int getWaitingCount() {
+        return tickets.size();
+    }
+
+    int bucketFor(long rttMs) {
+        return (int) Math.min(intake.length - 1, Math.max(0, rttMs) / rttBucketMs);
+    }
+
+    /**
+     * Pair everything that can be paired. Matchmaking thread only (or a test).
+     */
+    void matchBatch(long nowNanos) {
+        for (int b = 0; b < intake.length; b++) {
+            Ticket ticket;
+            while ((ticket = intake[b].poll()) != null) {
+                waiting[b].add(ticket);
+            }
+            while (true) {
+                Ticket first = pollLive(waiting[b]);
+                if (first == null) {
+                    break;
+                }
+                Ticket second = pollLive(waiting[b]);
+                if (second == null) {
+                    waiting[b].addFirst(first);
+                    break;
+                }
+                pair(first, second, nowNanos);
+            }
+        }
+
+        // Leftovers (at most one per bucket) that waited too long settle for the nearest bucket
+        Ticket carry = null;
+        int carryBucket = -1;
+        for (int b = 0; b < waiting.length; b++) {
+            Ticket leftover = pollLive(waiting[b]);
+            if (leftover == null) {
+                continue;
+            }
+            waiting[b].addFirst(leftover);
+            if (carry != null && (nowNanos - carry.enqueuedNanos > widenAfterNanos
+                    || nowNanos - leftover.enqueuedNanos > widenAfterNanos)) {
+                waiting[carryBucket].poll();
+                waiting[b].poll();
+                pair(carry, leftover, nowNanos);
+                carry = null;
+            } else {
+                carry = leftover;
+                carryBucket = b;
+            }
+        }
+    }
+
+    private Ticket pollLive(ArrayDeque<Ticket> queue) {
+        Ticket ticket;
+        while ((ticket = queue.poll()) != null) {
+            if (!ticket.isClaimed()) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    private void pair(Ticket a, Ticket b, long nowNanos) {
+        // A cancel racing the pairing wins; the survivor goes back to the front of its bucket
+        if (!a.claim()) {
+            requeue(b);
+            return;
+        }
+        if (!b.claim()) {
+            a.release();
+            requeue(a);
+            return;
+        }
+        tickets.remove(a.sessionId, a);
+        tickets.remove(b.sessionId, b);
+
+        Ticket host = a.enqueuedNanos <= b.enqueuedNanos ? a : b;
+        Ticket guest = host == a ? b : a;
+        GameRoom room = gameRoomService.createRoom();
+        gameRoomService.joinRoom(room.getRoomCode(), host.sessionId, host.playerName);
+        gameRoomService.joinRoom(room.getRoomCode(), guest.sessionId, guest.playerName);
+
+        timeToMatch.record(nowNanos - a.enqueuedNanos, TimeUnit.NANOSECONDS);
+        timeToMatch.record(nowNanos - b.enqueuedNanos, TimeUnit.NANOSECONDS);
+        matches.increment();
+
+        MatchmakingListener current = listener;
+        if (current != null) {
+            current.onMatched(room);
+        }
+        logger.debug("Matched {} ({} ms) with {} ({} ms) in room {}",
+                host.playerName, host.rttMs, guest.playerName, guest.rttMs, room.getRoomCode());
+    }
+
+    private void requeue(Ticket ticket) {
+        if (tickets.get(ticket.sessionId) == ticket) {
+            waiting[bucketFor(ticket.rttMs)].addFirst(ticket);
+        }
+    }
+
+    private static final class Ticket {
+        final String sessionId;
+        final String playerName;
+        final long rttMs;
+        final long enqueuedNanos;
+        // Set once by whichever of pairing or cancel gets there first
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+        Ticket(String sessionId, String playerName, long rttMs, long enqueuedNanos) {
+            this.sessionId = sessionId;
+            this.playerName = playerName;
+            this.rttMs = rttMs;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        void release() {
+            claimed.set(false);
+        }
+
+        boolean isClaimed() {
+            return claimed.get();
+        }
+    }
+}
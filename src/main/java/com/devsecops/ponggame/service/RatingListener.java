@@ -0,0 +1,17 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.PlayerRating;
+
+import java.util.List;
+
+/**
+ * Callbacks fired by {@link RatingService}. Invoked on the rating thread, at most once per refresh.
+ */
+public interface RatingListener {
+
+    /**
+     * Ratings changed. {@code top} holds the highest rated players (best first) as of
+     * {@code version}, out of {@code players} rated players.
+     */
+    void onLeaderboardChanged(long version, List<PlayerRating> top, int players);
+}
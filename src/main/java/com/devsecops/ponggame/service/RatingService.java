@@ -0,0 +1,232 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.MatchResult;
+import com.devsecops.ponggame.model.PlayerRating;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Elo ratings of players, identified by the name they play under.
+ * Each finished game adjusts both players' ratings in O(log n): the entries are swapped in a
+ * skip list ordered by rating, which serves the top of the table without sorting, and in a
+ * Fenwick tree counting players per rating point, which answers "how many rate higher"
+ * (a player's rank) in O(log R) for a rating range R. Readers never lock.
+ *
+ * Ratings are fed as a {@link MatchResultListener} when each game ends, and are rebuilt from the
+ * match history on restart. Every refresh interval, if anything changed, the top
+ * {@code pong.rating.leaderboard-size} players are handed to the {@link RatingListener} once.
+ */
+@Service
+public class RatingService implements MatchResultListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingService.class);
+
+    /**
+     * Ratings are ranked by whole points in [0, MAX_POINTS]; anything outside is ranked at the bound
+     */
+    static final int MAX_POINTS = 4095;
+
+    private static final Comparator<PlayerRating> HIGHEST_FIRST =
+            Comparator.comparingDouble(PlayerRating::getRating).reversed().thenComparing(PlayerRating::getPlayerName);
+
+    private final double initialRating;
+    private final double kFactor;
+    private final int leaderboardSize;
+    private final long refreshMs;
+
+    private final Map<String, PlayerRating> ratings = new ConcurrentHashMap<>();
+    private final NavigableSet<PlayerRating> ranking = new ConcurrentSkipListSet<>(HIGHEST_FIRST);
+    // Fenwick tree over rating points; index 0 is unused
+    private final AtomicIntegerArray pointCounts = new AtomicIntegerArray(MAX_POINTS + 2);
+
+    private ScheduledExecutorService scheduler;
+    private volatile RatingListener listener;
+    private volatile List<PlayerRating> leaderboard = List.of();
+    private volatile long version;
+    private volatile boolean dirty;
+
+    @Autowired
+    public RatingService(MeterRegistry meterRegistry,
+                         @Value("${pong.rating.initial:1500}") double initialRating,
+                         @Value("${pong.rating.k-factor:32}") double kFactor,
+                         @Value("${pong.rating.leaderboard-size:100}") int leaderboardSize,
+                         @Value("${pong.rating.refresh-ms:1000}") long refreshMs) {
+        this.initialRating = initialRating;
+        this.kFactor = kFactor;
+        this.leaderboardSize = Math.max(1, leaderboardSize);
+        this.refreshMs = refreshMs;
+        Gauge.builder("pong_rated_players", ratings, Map::size)
+            .description("Players with an Elo rating")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rating");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                logger.error("Leaderboard refresh failed: {}", e.getMessage());
+            }
+        }, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void setListener(RatingListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void onMatchResult(MatchResult result) {
+        apply(result);
+    }
+
+    /**
+     * Rate a finished game. Games without a winner, between two players of the same name, or
+     * where either side plays under a default name leave ratings unchanged.
+     */
+    public synchronized void apply(MatchResult result) {
+        String name1 = result.getPlayer1Name();
+        String name2 = result.getPlayer2Name();
+        if ((result.getWinner() != 1 && result.getWinner() != 2) || !isRated(name1) || !isRated(name2)
+                || name1.equals(name2)) {
+            return;
+        }
+        PlayerRating player1 = ratings.get(name1);
+        PlayerRating player2 = ratings.get(name2);
+        double rating1 = player1 != null ? player1.getRating() : initialRating;
+        double rating2 = player2 != null ? player2.getRating() : initialRating;
+
+        double expected1 = 1.0 / (1.0 + Math.pow(10, (rating2 - rating1) / 400.0));
+        double score1 = result.getWinner() == 1 ? 1 : 0;
+        double delta = kFactor * (score1 - expected1);
+
+        long playedAt = result.getEndedAt();
+        replace(player1, player1 != null ? player1.next(rating1 + delta, score1 == 1, playedAt)
+                : new PlayerRating(name1, rating1 + delta, 1, score1 == 1 ? 1 : 0, playedAt));
+        replace(player2, player2 != null ? player2.next(rating2 - delta, score1 == 0, playedAt)
+                : new PlayerRating(name2, rating2 - delta, 1, score1 == 0 ? 1 : 0, playedAt));
+        dirty = true;
+    }
+
+    private static boolean isRated(String name) {
+        return name != null && !name.equals(MatchResult.DEFAULT_PLAYER1_NAME)
+                && !name.equals(MatchResult.DEFAULT_PLAYER2_NAME);
+    }
+
+    private void replace(PlayerRating previous, PlayerRating next) {
+        if (previous != null) {
+            ranking.remove(previous);
+            countPoints(previous, -1);
+        }
+        ratings.put(next.getPlayerName(), next);
+        ranking.add(next);
+        countPoints(next, 1);
+    }
+
+    private void countPoints(PlayerRating rating, int delta) {
+        for (int i = bucket(rating) + 1; i < pointCounts.length(); i += i & -i) {
+            pointCounts.addAndGet(i, delta);
+        }
+    }
+
+    /**
+     * Players rated at or below {@code bucket}
+     */
+    private int countAtOrBelow(int bucket) {
+        int count = 0;
+        for (int i = bucket + 1; i > 0; i -= i & -i) {
+            count += pointCounts.get(i);
+        }
+        return count;
+    }
+
+    private static int bucket(PlayerRating rating) {
+        return Math.max(0, Math.min(rating.getPoints(), MAX_POINTS));
+    }
+
+    public PlayerRating getRating(String playerName) {
+        return playerName == null ? null : ratings.get(playerName);
+    }
+
+    /**
+     * 1-based rank of the player (players with equal whole-point ratings share a rank), or 0 if unrated
+     */
+    public int getRank(String playerName) {
+        PlayerRating rating = getRating(playerName);
+        if (rating == null) {
+            return 0;
+        }
+        return countAtOrBelow(MAX_POINTS) - countAtOrBelow(bucket(rating)) + 1;
+    }
+
+    public int getPlayerCount() {
+        return ratings.size();
+    }
+
+    /**
+     * Top of the table as of the last refresh, best first
+     */
+    public List<PlayerRating> getLeaderboard() {
+        return leaderboard;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Take a new leaderboard if ratings changed since the last refresh.
+     * Returns true if they did.
+     */
+    synchronized boolean refresh() {
+        if (!dirty) {
+            return false;
+        }
+        dirty = false;
+        List<PlayerRating> top = new ArrayList<>(Math.min(leaderboardSize, ratings.size()));
+        Iterator<PlayerRating> iterator = ranking.iterator();
+        while (top.size() < leaderboardSize && iterator.hasNext()) {
+            top.add(iterator.next());
+        }
+        leaderboard = List.copyOf(top);
+        version++;
+
+        RatingListener current = listener;
+        if (current != null) {
+            current.onLeaderboardChanged(version, leaderboard, ratings.size());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package com.devsecops.ponggame.service;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Forward-only walk over the records of one recorded match, from its START to its END record.
+ * Starts at the START record and follows each record's link to the match's next one; only
+ * where a link is missing (see {@link ReplayLog}) does it scan forward past other matches.
+ * Records are handed out as read-only views of the mapped segments, never copied; each view
+ * is a complete binary frame. Not thread-safe: one reader at a time.
+ */
+public final class ReplayCursor {
+
+    private final long matchId;
+    private final List<ReplaySegment> segments;
+    private int segmentIndex;
+    private int position;
+    private boolean ended;
+
+    private ReplaySegment recordSegment;
+    private int recordOffset;
+    private int recordLength;
+
+    ReplayCursor(long matchId, List<ReplaySegment> segments, int startOffset) {
+        this.matchId = matchId;
+        this.segments = segments;
+        this.position = startOffset;
+    }
+
+    /**
+     * Move to the match's next record. Returns false after its END record.
+     */
+    public boolean next() {
+        if (ended) {
+            return false;
+        }
+        if (recordSegment != null) {
+            int words = recordSegment.buffer().getShort(recordOffset + 6) & 0xFFFF;
+            if (words != 0) {
+                select(recordSegment, recordOffset + words * 8);
+                return true;
+            }
+        }
+        while (segmentIndex < segments.size()) {
+            ReplaySegment segment = segments.get(segmentIndex);
+            ByteBuffer buffer = segment.buffer();
+            while (position + ReplayLog.HEADER_SIZE <= segment.capacity()) {
+                int length = segment.lengthAt(position);
+                if (length == 0) {
+                    break;
+                }
+                int offset = position;
+                position += length;
+                if (buffer.getLong(offset + 8) == matchId) {
+                    select(segment, offset);
+                    return true;
+                }
+            }
+            segmentIndex++;
+            position = ReplaySegment.HEADER_SIZE;
+        }
+        return false;
+    }
+
+    private void select(ReplaySegment segment, int offset) {
+        recordSegment = segment;
+        recordOffset = offset;
+        recordLength = segment.lengthAt(offset);
+        position = offset + recordLength;
+        ended = segment.buffer().get(offset + 4) == ReplayLog.END;
+    }
+
+    /**
+     * The current record as a binary frame, zero-copy
+     */
+    public ByteBuffer record() {
+        return recordSegment.slice(recordOffset, recordLength);
+    }
+
+    public byte type() {
+        return recordSegment.buffer().get(recordOffset + 4);
+    }
+
+    /**
+     * Epoch milliseconds at which the current record was written
+     */
+    public long timestamp() {
+        return recordSegment.buffer().getLong(recordOffset + 16);
+    }
+
+    public long getMatchId() {
+        return matchId;
+    }
+}
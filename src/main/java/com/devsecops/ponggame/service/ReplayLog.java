@@ -0,0 +1,796 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.GameState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only match recording for replays.
+ * Shard threads append fixed-layout records for every match event straight into the active
+ * memory-mapped {@link ReplaySegment}: no lock, no copy and no allocation per record (beyond
+ * the names at match start). When the active segment fills up, appenders switch to a spare
+ * segment that the background "replay" thread keeps ready. That thread also forces sealed
+ * segments to disk, compacts older ones and deletes the oldest once the log exceeds its size
+ * cap, so disk use stays bounded under continuous load.
+ *
+ * Records are 8-byte aligned and little-endian. The first word packs the opcode
+ * {@link #RECORD_OPCODE} and the record length, so a record slice is a complete binary
+ * WebSocket frame and is streamed to replay viewers as is:
+ * <pre>
+ *   op u8 (0x08) | length u24 | type u8 | player u8 | next u16 |
+ *   matchId i64 | timestamp i64 (epoch ms) | payload, zero-padded           24 bytes + payload
+ *
+ *   START      roomCode, player1Name, player2Name (u8 length + UTF-8 each)
+ *   PADDLE     paddleY f32 (player = whose paddle)
+ *   BALL       ballX, ballY, ballDx, ballDy, player1Y, player2Y f32
+ *   SCORE      player1Score, player2Score u16 (player = scorer)
+ *   POWERUP    powerupType (u8 length + ASCII) (player = collector)
+ *   END        player1Score, player2Score u16 (player = winner, 0 if abandoned)
+ * </pre>
+ * {@code next} links a record to its match's next record in the same segment, as a distance in
+ * 8-byte words. The shard appending a match's records fills it in when it appends the next one,
+ * so playback hops from record to record of its match instead of reading everyone else's. It is
+ * 0 while the next record is not written yet, lands in a later segment or is over 512 KiB away;
+ * playback then scans forward to the match's next record.
+ *
+ * Compaction drops PADDLE records (BALL carries both paddles) and thins BALL records to
+ * {@code pong.replay.compacted-ball-hz}; match events are always kept and relinked.
+ */
+@Service
+public class ReplayLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayLog.class);
+
+    public static final byte RECORD_OPCODE = 0x08;
+    public static final int HEADER_SIZE = 24;
+
+    public static final byte START = 1;
+    public static final byte PADDLE = 2;
+    public static final byte BALL = 3;
+    public static final byte SCORE = 4;
+    public static final byte POWERUP = 5;
+    public static final byte END = 6;
+
+    private static final int PADDLE_SIZE = align(HEADER_SIZE + 4);
+    private static final int BALL_SIZE = align(HEADER_SIZE + 6 * 4);
+    private static final int SCORE_SIZE = align(HEADER_SIZE + 2 * 2);
+    private static final int MAX_NAME_CHARS = 64;
+    private static final int NEXT_OFFSET = 6;
+    private static final int MAX_NEXT_WORDS = 0xFFFF;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final int fullSegments;
+    private final long compactedBallIntervalMs;
+    private final long maintenanceMs;
+
+    private final NavigableMap<Long, ReplaySegment> segments = new ConcurrentSkipListMap<>();
+    // By match id, so in start order
+    private final NavigableMap<Long, Match> matches = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextMatchId = new AtomicLong(1);
+    private final Object maintenanceLock = new Object();
+    private final Counter recordsAppended;
+    private final Counter recordsDropped;
+
+    private ScheduledExecutorService maintenance;
+    private volatile ReplaySegment active;
+    // Guarded by this
+    private ReplaySegment spare;
+    private long nextSegmentId = 1;
+    // Owned by the maintenance pass
+    private long forcedThrough;
+
+    @Autowired
+    public ReplayLog(MeterRegistry meterRegistry,
+                     @Value("${pong.replay.enabled:true}") boolean enabled,
+                     @Value("${pong.replay.dir:data/replay}") String directory,
+                     @Value("${pong.replay.segment-bytes:67108864}") int segmentBytes,
+                     @Value("${pong.replay.max-bytes:1073741824}") long maxBytes,
+                     @Value("${pong.replay.full-segments:2}") int fullSegments,
+                     @Value("${pong.replay.compacted-ball-hz:10}") int compactedBallHz,
+                     @Value("${pong.replay.maintenance-ms:5000}") long maintenanceMs) {
+        if (segmentBytes < ReplaySegment.HEADER_SIZE + 4096) {
+            throw new IllegalArgumentException("pong.replay.segment-bytes is too small");
+        }
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes & ~7;
+        this.maxBytes = maxBytes;
+        this.fullSegments = Math.max(0, fullSegments);
+        this.compactedBallIntervalMs = 1000L / Math.max(1, compactedBallHz);
+        this.maintenanceMs = maintenanceMs;
+
+        this.recordsAppended = Counter.builder("pong_replay_records")
+            .description("Match events appended to the replay log")
+            .register(meterRegistry);
+        this.recordsDropped = Counter.builder("pong_replay_records_dropped")
+            .description("Match events not recorded because no segment could be allocated")
+            .register(meterRegistry);
+        Gauge.builder("pong_replay_bytes", this, ReplayLog::getUsedBytes)
+            .description("Bytes held by replay log segments")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("pong_replay_segments", segments, Map::size)
+            .description("Replay log segments on disk")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            recover();
+            synchronized (this) {
+                ReplaySegment first = createSegment();
+                segments.put(first.id(), first);
+                active = first;
+            }
+        } catch (IOException e) {
+            logger.error("Replay log disabled, {} is not usable: {}", directory, e.getMessage());
+            return;
+        }
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.execute(this::maintainQuietly);
+        maintenance.scheduleWithFixedDelay(this::maintainQuietly, maintenanceMs, maintenanceMs, TimeUnit.MILLISECONDS);
+        logger.info("Replay log at {} ({} segment(s), {} match(es) recovered)",
+                directory.toAbsolutePath(), segments.size() - 1, matches.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (maintenance != null) {
+            // Not interrupted: an interrupt closes the channel of a segment being mapped
+            maintenance.shutdown();
+            try {
+                maintenance.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ReplaySegment current = active;
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    // ============================================
+    // Recording (shard thread of the room)
+    // ============================================
+
+    /**
+     * Open a match for the room and tag its game state with the new match id
+     */
+    public void gameStarted(GameRoom room) {
+        GameState state = room.getGameState();
+        state.setMatchId(0);
+        if (active == null) {
+            return;
+        }
+        String player1Name = shorten(room.getPlayer1Name());
+        String player2Name = shorten(room.getPlayer2Name());
+        byte[] roomCode = room.getRoomCode().getBytes(StandardCharsets.US_ASCII);
+        byte[] name1 = player1Name.getBytes(StandardCharsets.UTF_8);
+        byte[] name2 = player2Name.getBytes(StandardCharsets.UTF_8);
+        int length = align(HEADER_SIZE + 3 + roomCode.length + name1.length + name2.length);
+        long matchId = nextMatchId.getAndIncrement();
+        long now = System.currentTimeMillis();
+
+        ReplaySegment segment = active;
+        int offset = segment.reserve(length);
+        if (offset < 0 && (segment = roll(segment)) != null) offset = segment.reserve(length);
+        if (offset < 0) {
+            recordsDropped.increment();
+            return;
+        }
+        ByteBuffer buffer = segment.buffer();
+        writeHeader(buffer, offset, START, 0, matchId, now);
+        int position = putString(buffer, offset + HEADER_SIZE, roomCode);
+        position = putString(buffer, position, name1);
+        putString(buffer, position, name2);
+        segment.commit(offset, firstWord(length));
+        recordsAppended.increment();
+
+        matches.put(matchId, new Match(matchId, room.getRoomCode(), player1Name, player2Name, now, segment, offset));
+        state.setMatchId(matchId);
+        state.setLastReplayRecord(0);
+        linkRecord(state, segment, offset);
+    }
+
+    public void paddleMoved(GameRoom room, int playerNumber, double paddleY) {
+        GameState state = room.getGameState();
+        long matchId = state.getMatchId();
+        if (matchId == 0) {
+            return;
+        }
+        ReplaySegment segment = active;
+        int offset = segment.reserve(PADDLE_SIZE);
+        if (offset < 0 && (segment = roll(segment)) != null) offset = segment.reserve(PADDLE_SIZE);
+        if (offset < 0) {
+            recordsDropped.increment();
+            return;
+        }
+        ByteBuffer buffer = segment.buffer();
+        writeHeader(buffer, offset, PADDLE, playerNumber, matchId, System.currentTimeMillis());
+        buffer.putFloat(offset + HEADER_SIZE, (float) paddleY);
+        segment.commit(offset, firstWord(PADDLE_SIZE));
+        recordsAppended.increment();
+        linkRecord(state, segment, offset);
+    }
+
+    public void snapshot(GameRoom room) {
+        GameState state = room.getGameState();
+        long matchId = state.getMatchId();
+        if (matchId == 0) {
+            return;
+        }
+        ReplaySegment segment = active;
+        int offset = segment.reserve(BALL_SIZE);
+        if (offset < 0 && (segment = roll(segment)) != null) offset = segment.reserve(BALL_SIZE);
+        if (offset < 0) {
+            recordsDropped.increment();
+            return;
+        }
+        ByteBuffer buffer = segment.buffer();
+        writeHeader(buffer, offset, BALL, 0, matchId, state.getLastUpdate());
+        int position = offset + HEADER_SIZE;
+        buffer.putFloat(position, (float) state.getBallX());
+        buffer.putFloat(position + 4, (float) state.getBallY());
+        buffer.putFloat(position + 8, (float) state.getBallDx());
+        buffer.putFloat(position + 12, (float) state.getBallDy());
+        buffer.putFloat(position + 16, (float) state.getPlayer1Y());
+        buffer.putFloat(position + 20, (float) state.getPlayer2Y());
+        segment.commit(offset, firstWord(BALL_SIZE));
+        recordsAppended.increment();
+        linkRecord(state, segment, offset);
+    }
+
+    public void scored(GameRoom room, int scorer) {
+        appendScore(room.getGameState(), SCORE, scorer);
+    }
+
+    public void powerup(GameRoom room, int playerNumber, String powerupType) {
+        GameState state = room.getGameState();
+        long matchId = state.getMatchId();
+        if (matchId == 0) {
+            return;
+        }
+        int typeLength = Math.min(powerupType.length(), 255);
+        int length = align(HEADER_SIZE + 1 + typeLength);
+        ReplaySegment segment = active;
+        int offset = segment.reserve(length);
+        if (offset < 0 && (segment = roll(segment)) != null) offset = segment.reserve(length);
+        if (offset < 0) {
+            recordsDropped.increment();
+            return;
+        }
+        ByteBuffer buffer = segment.buffer();
+        writeHeader(buffer, offset, POWERUP, playerNumber, matchId, System.currentTimeMillis());
+        int position = offset + HEADER_SIZE;
+        buffer.put(position++, (byte) typeLength);
+        for (int i = 0; i < typeLength; i++) {
+            buffer.put(position++, (byte) powerupType.charAt(i));
+        }
+        segment.commit(offset, firstWord(length));
+        recordsAppended.increment();
+        linkRecord(state, segment, offset);
+    }
+
+    /**
+     * Close the match with its winner (the last scorer)
+     */
+    public void gameOver(GameRoom room, int winner) {
+        endMatch(room.getGameState(), winner);
+    }
+
+    /**
+     * Close a match that stopped before anyone won
+     */
+    public void abandoned(GameRoom room) {
+        endMatch(room.getGameState(), 0);
+    }
+
+    private void endMatch(GameState state, int winner) {
+        long matchId = state.getMatchId();
+        ReplaySegment segment = appendScore(state, END, winner);
+        state.setMatchId(0);
+        state.setLastReplayRecord(0);
+        Match match = matches.get(matchId);
+        if (match != null) {
+            if (segment != null) {
+                match.finish(winner, state.getPlayer1Score(), state.getPlayer2Score(),
+                        System.currentTimeMillis(), segment.id());
+            } else {
+                matches.remove(matchId); // its end was not recorded, so it cannot be played back
+            }
+        }
+    }
+
+    private ReplaySegment appendScore(GameState state, byte type, int player) {
+        long matchId = state.getMatchId();
+        if (matchId == 0) {
+            return null;
+        }
+        ReplaySegment segment = active;
+        int offset = segment.reserve(SCORE_SIZE);
+        if (offset < 0 && (segment = roll(segment)) != null) offset = segment.reserve(SCORE_SIZE);
+        if (offset < 0) {
+            recordsDropped.increment();
+            return null;
+        }
+        ByteBuffer buffer = segment.buffer();
+        writeHeader(buffer, offset, type, player, matchId, System.currentTimeMillis());
+        buffer.putShort(offset + HEADER_SIZE, (short) state.getPlayer1Score());
+        buffer.putShort(offset + HEADER_SIZE + 2, (short) state.getPlayer2Score());
+        segment.commit(offset, firstWord(SCORE_SIZE));
+        recordsAppended.increment();
+        linkRecord(state, segment, offset);
+        return segment;
+    }
+
+    /**
+     * Point the match's previous record at the one just committed, if both are in the same segment
+     * and close enough, and remember the new one as the match's latest. Shard thread of the room only.
+     */
+    private static void linkRecord(GameState state, ReplaySegment segment, int offset) {
+        long previous = state.getLastReplayRecord();
+        if (previous != 0 && previous >>> 32 == segment.id()) {
+            int previousOffset = (int) previous;
+            int words = (offset - previousOffset) >>> 3;
+            if (words <= MAX_NEXT_WORDS) {
+                // Published to playback by Match.finish(), after the END record
+                segment.buffer().putShort(previousOffset + NEXT_OFFSET, (short) words);
+            }
+        }
+        state.setLastReplayRecord(segment.id() << 32 | offset);
+    }
+
+    /**
+     * Switch appenders from a full segment to the next one. Returns null if none could be created.
+     */
+    private synchronized ReplaySegment roll(ReplaySegment full) {
+        ReplaySegment current = active;
+        if (current != full) {
+            return current; // another shard rolled first
+        }
+        ReplaySegment next = spare;
+        spare = null;
+        if (next == null) {
+            try {
+                // The maintenance thread fell behind; allocate on this thread
+                next = createSegment();
+            } catch (IOException e) {
+                logger.error("Cannot allocate replay segment: {}", e.getMessage());
+                return null;
+            }
+        }
+        segments.put(next.id(), next);
+        active = next;
+        if (maintenance != null) {
+            maintenance.execute(this::maintainQuietly);
+        }
+        return next;
+    }
+
+    // ============================================
+    // Playback
+    // ============================================
+
+    /**
+     * Finished matches still on disk, newest first
+     */
+    public List<Match> recentMatches(int limit) {
+        List<Match> recent = new ArrayList<>(Math.min(limit, 64));
+        for (Match match : matches.descendingMap().values()) {
+            if (recent.size() >= limit) {
+                break;
+            }
+            if (match.isFinished()) {
+                recent.add(match);
+            }
+        }
+        return recent;
+    }
+
+    /**
+     * A finished match, or null
+     */
+    public Match getMatch(long matchId) {
+        Match match = matches.get(matchId);
+        return match != null && match.isFinished() ? match : null;
+    }
+
+    /**
+     * Cursor over the recorded frames of a finished match, or null if it is unknown or gone
+     */
+    public ReplayCursor openCursor(long matchId) {
+        Match match = getMatch(matchId);
+        if (match == null) {
+            return null;
+        }
+        RecordLocation start = match.start;
+        List<ReplaySegment> span = new ArrayList<>(
+                segments.subMap(match.firstSegment, true, match.lastSegment, true).values());
+        if (span.isEmpty() || span.get(0).id() != match.firstSegment) {
+            return null; // deleted by retention since the lookup
+        }
+        span.set(0, start.segment); // the mapping the start offset belongs to, even if compacted since
+        return new ReplayCursor(matchId, span, start.offset);
+    }
+
+    // ============================================
+    // Maintenance (replay thread)
+    // ============================================
+
+    private void maintainQuietly() {
+        try {
+            maintain();
+        } catch (Exception e) {
+            logger.error("Replay log maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Prepare the spare segment, flush and compact sealed segments, and enforce the size cap
+     */
+    void maintain() throws IOException {
+        synchronized (maintenanceLock) {
+            synchronized (this) {
+                if (spare == null) {
+                    spare = createSegment();
+                }
+            }
+
+            ReplaySegment current = active;
+            List<ReplaySegment> sealed = new ArrayList<>(segments.headMap(current.id(), false).values());
+            for (ReplaySegment segment : sealed) {
+                if (segment.id() > forcedThrough) {
+                    segment.force();
+                    forcedThrough = segment.id();
+                }
+            }
+            for (int i = 0; i < sealed.size() - fullSegments; i++) {
+                ReplaySegment segment = sealed.get(i);
+                if (!segment.isCompacted()) {
+                    compact(segment);
+                }
+            }
+            enforceSizeCap(current);
+        }
+    }
+
+    private void compact(ReplaySegment segment) throws IOException {
+        Path temporary = segment.path().resolveSibling(segment.path().getFileName() + ".tmp");
+        Map<Long, Long> lastBallAt = new HashMap<>();
+        // Per match: where its last kept record went, to link the next one to it
+        Map<Long, Integer> lastKeptAt = new HashMap<>();
+        Map<Long, Integer> startsAt = new HashMap<>();
+        long before = segment.usedBytes();
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ReplaySegment.writeCompactedHeader(out, segment.id());
+            ByteBuffer buffer = segment.buffer();
+            int position = ReplaySegment.HEADER_SIZE;
+            while (position + HEADER_SIZE <= segment.capacity()) {
+                int length = segment.lengthAt(position);
+                if (length == 0) {
+                    break;
+                }
+                if (keepWhenCompacting(buffer, position, lastBallAt)) {
+                    int at = (int) out.position();
+                    ByteBuffer record = segment.slice(position, length);
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                    long matchId = buffer.getLong(position + 8);
+                    writeNext(out, at, 0);
+                    Integer previous = lastKeptAt.put(matchId, at);
+                    if (previous != null && (at - previous) >>> 3 <= MAX_NEXT_WORDS) {
+                        writeNext(out, previous, (at - previous) >>> 3);
+                    }
+                    if (buffer.get(position + 4) == START) {
+                        startsAt.put(matchId, at);
+                    }
+                }
+                position += length;
+            }
+            out.force(true);
+        }
+        Files.move(temporary, segment.path(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        ReplaySegment compacted = ReplaySegment.open(segment.path());
+        if (compacted != null) {
+            segments.replace(segment.id(), segment, compacted);
+            startsAt.forEach((matchId, offset) -> {
+                Match match = matches.get(matchId);
+                if (match != null) {
+                    match.start = new RecordLocation(compacted, offset);
+                }
+            });
+            logger.debug("Compacted replay segment {}: {} -> {} bytes", segment.id(), before, compacted.usedBytes());
+        }
+    }
+
+    private static void writeNext(FileChannel out, int recordAt, int words) throws IOException {
+        ByteBuffer next = ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN).putShort(0, (short) words);
+        while (next.hasRemaining()) {
+            out.write(next, recordAt + NEXT_OFFSET + next.position());
+        }
+    }
+
+    private boolean keepWhenCompacting(ByteBuffer buffer, int offset, Map<Long, Long> lastBallAt) {
+        byte type = buffer.get(offset + 4);
+        if (type == PADDLE) {
+            return false;
+        }
+        if (type != BALL) {
+            return true;
+        }
+        long matchId = buffer.getLong(offset + 8);
+        long timestamp = buffer.getLong(offset + 16);
+        Long last = lastBallAt.get(matchId);
+        if (last != null && timestamp - last < compactedBallIntervalMs) {
+            return false;
+        }
+        lastBallAt.put(matchId, timestamp);
+        return true;
+    }
+
+    private void enforceSizeCap(ReplaySegment current) throws IOException {
+        long used = getUsedBytes();
+        while (used > maxBytes) {
+            Map.Entry<Long, ReplaySegment> oldest = segments.firstEntry();
+            if (oldest == null || oldest.getValue() == current) {
+                break;
+            }
+            ReplaySegment segment = oldest.getValue();
+            segments.remove(oldest.getKey());
+            used -= segment.usedBytes();
+            segment.delete();
+            // Matches are in start order, so the ones that began in this segment come first
+            Map.Entry<Long, Match> head;
+            while ((head = matches.firstEntry()) != null && head.getValue().firstSegment <= segment.id()) {
+                matches.remove(head.getKey());
+            }
+            logger.info("Deleted replay segment {} to stay under {} bytes", segment.id(), maxBytes);
+        }
+    }
+
+    // ============================================
+    // Recovery (startup)
+    // ============================================
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        for (Path file : files) {
+            ReplaySegment segment = ReplaySegment.open(file);
+            if (segment == null) {
+                logger.warn("Skipping {}: not a replay segment", file);
+                nextSegmentId = Math.max(nextSegmentId, segmentId(file) + 1); // never reuse its name
+                continue;
+            }
+            nextSegmentId = Math.max(nextSegmentId, segment.id() + 1);
+            if (segment.end() == ReplaySegment.HEADER_SIZE && !segment.isCompacted()) {
+                segment.delete(); // the last run's unused spare
+                continue;
+            }
+            segments.put(segment.id(), segment);
+        }
+
+        Map<Long, Match> open = new HashMap<>();
+        long maxMatchId = 0;
+        for (ReplaySegment segment : segments.values()) {
+            ByteBuffer buffer = segment.buffer();
+            int position = ReplaySegment.HEADER_SIZE;
+            while (position + HEADER_SIZE <= segment.capacity()) {
+                int length = segment.lengthAt(position);
+                if (length == 0) {
+                    break;
+                }
+                long matchId = buffer.getLong(position + 8);
+                long timestamp = buffer.getLong(position + 16);
+                byte type = buffer.get(position + 4);
+                maxMatchId = Math.max(maxMatchId, matchId);
+                if (type == START) {
+                    int at = position + HEADER_SIZE;
+                    String roomCode = getString(buffer, at);
+                    at += 1 + (buffer.get(at) & 0xFF);
+                    String player1Name = getString(buffer, at);
+                    at += 1 + (buffer.get(at) & 0xFF);
+                    String player2Name = getString(buffer, at);
+                    open.put(matchId, new Match(matchId, roomCode, player1Name, player2Name, timestamp, segment, position));
+                } else if (type == END) {
+                    Match match = open.remove(matchId);
+                    if (match != null) {
+                        match.finish(buffer.get(position + 5), buffer.getShort(position + HEADER_SIZE),
+                                buffer.getShort(position + HEADER_SIZE + 2), timestamp, segment.id());
+                        matches.put(matchId, match);
+                    }
+                }
+                position += length;
+            }
+            forcedThrough = segment.id(); // written before the restart
+        }
+        // Matches cut off by the restart have no end and are not replayable
+        nextMatchId.set(maxMatchId + 1);
+    }
+
+    // ============================================
+    // Helpers
+    // ============================================
+
+    private synchronized ReplaySegment createSegment() throws IOException {
+        long id = nextSegmentId++;
+        return ReplaySegment.create(directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX)),
+                id, segmentBytes);
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    public long getUsedBytes() {
+        long used = 0;
+        for (ReplaySegment segment : segments.values()) {
+            used += segment.usedBytes();
+        }
+        return used;
+    }
+
+    public boolean isEnabled() {
+        return active != null;
+    }
+
+    /**
+     * Record length packed in a record's first word, or 0 for an uncommitted slot
+     */
+    static int recordLength(int firstWord) {
+        return firstWord == 0 ? 0 : firstWord >>> 8;
+    }
+
+    private static int firstWord(int length) {
+        return length << 8 | RECORD_OPCODE;
+    }
+
+    private static int align(int length) {
+        return (length + 7) & ~7;
+    }
+
+    private static void writeHeader(ByteBuffer buffer, int offset, byte type, int player, long matchId, long timestamp) {
+        buffer.put(offset + 4, type);
+        buffer.put(offset + 5, (byte) player);
+        buffer.putShort(offset + 6, (short) 0);
+        buffer.putLong(offset + 8, matchId);
+        buffer.putLong(offset + 16, timestamp);
+    }
+
+    private static int putString(ByteBuffer buffer, int position, byte[] bytes) {
+        buffer.put(position, (byte) bytes.length);
+        buffer.put(position + 1, bytes);
+        return position + 1 + bytes.length;
+    }
+
+    private static String getString(ByteBuffer buffer, int position) {
+        byte[] bytes = new byte[buffer.get(position) & 0xFF];
+        buffer.get(position + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String shorten(String name) {
+        if (name == null) {
+            return "";
+        }
+        return name.length() > MAX_NAME_CHARS ? name.substring(0, MAX_NAME_CHARS) : name;
+    }
+
+    /**
+     * A record's segment and offset, swapped as one when compaction moves the record
+     */
+    private static final class RecordLocation {
+        private final ReplaySegment segment;
+        private final int offset;
+
+        RecordLocation(ReplaySegment segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Index entry of a recorded match. The result fields are set once, when the match ends.
+     */
+    public static final class Match {
+        private final long matchId;
+        private final String roomCode;
+        private final String player1Name;
+        private final String player2Name;
+        private final long startedAt;
+        private final long firstSegment;
+        // The START record, where playback begins
+        private volatile RecordLocation start;
+        private volatile long endedAt;
+        private int winner;
+        private int player1Score;
+        private int player2Score;
+        private long lastSegment;
+
+        Match(long matchId, String roomCode, String player1Name, String player2Name, long startedAt,
+              ReplaySegment firstSegment, int startOffset) {
+            this.matchId = matchId;
+            this.roomCode = roomCode;
+            this.player1Name = player1Name;
+            this.player2Name = player2Name;
+            this.startedAt = startedAt;
+            this.firstSegment = firstSegment.id();
+            this.start = new RecordLocation(firstSegment, startOffset);
+        }
+
+        void finish(int winner, int player1Score, int player2Score, long endedAt, long lastSegment) {
+            this.winner = winner;
+            this.player1Score = player1Score;
+            this.player2Score = player2Score;
+            this.lastSegment = lastSegment;
+            this.endedAt = endedAt; // volatile write last: publishes the fields above
+        }
+
+        public boolean isFinished() { return endedAt != 0; }
+        public long getMatchId() { return matchId; }
+        public String getRoomCode() { return roomCode; }
+        public String getPlayer1Name() { return player1Name; }
+        public String getPlayer2Name() { return player2Name; }
+        public long getStartedAt() { return startedAt; }
+        public long getEndedAt() { return endedAt; }
+        public int getWinner() { return winner; }
+        public int getPlayer1Score() { return player1Score; }
+        public int getPlayer2Score() { return player2Score; }
+    }
+}
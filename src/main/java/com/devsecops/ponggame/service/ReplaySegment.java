@@ -0,0 +1,197 @@
+package com.devsecops.ponggame.service;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One memory-mapped, append-only file of the {@link ReplayLog}.
+ * Appenders reserve space with a CAS on the write position and fill it with absolute puts, so
+ * any number of shard threads append without a lock. A record becomes visible when its first
+ * word (opcode and length, see {@link ReplayLog}) is published with release semantics; readers
+ * stop at the first word that is still zero.
+ *
+ * <pre>
+ *   header   magic u32 | version u16 | flags u16 | segment id u64                 16 bytes
+ *   records  8-byte aligned, back to back
+ * </pre>
+ */
+final class ReplaySegment {
+
+    static final int MAGIC = 0x4C505250; // "PRPL" little-endian
+    static final short VERSION = 1;
+    static final short FLAG_COMPACTED = 1;
+    static final int HEADER_SIZE = 16;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final long id;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final boolean compacted;
+    private final AtomicInteger writePosition;
+
+    private ReplaySegment(long id, Path path, MappedByteBuffer buffer, boolean compacted, int end) {
+        this.id = id;
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+        this.compacted = compacted;
+        this.writePosition = new AtomicInteger(end);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Create and map a new, empty segment file of the given size
+     */
+    static ReplaySegment create(Path path, long id, int capacity) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        ReplaySegment segment = new ReplaySegment(id, path, buffer, false, HEADER_SIZE);
+        segment.writeHeader(id, (short) 0);
+        return segment;
+    }
+
+    /**
+     * Map an existing segment and find the end of its committed records.
+     * Returns null if the file is not a segment.
+     */
+    static ReplaySegment open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+            return null;
+        }
+        boolean compacted = (buffer.getShort(6) & FLAG_COMPACTED) != 0;
+        ReplaySegment segment = new ReplaySegment(buffer.getLong(8), path, buffer, compacted, HEADER_SIZE);
+        int end = HEADER_SIZE;
+        while (end + ReplayLog.HEADER_SIZE <= segment.capacity) {
+            int length = segment.lengthAt(end);
+            if (length == 0) break;
+            end += length;
+        }
+        segment.writePosition.set(compacted ? segment.capacity : end);
+        return segment;
+    }
+
+    private void writeHeader(long segmentId, short flags) {
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, flags);
+        buffer.putLong(8, segmentId);
+    }
+
+    /**
+     * Reserve {@code length} bytes (a multiple of 8). Returns the offset, or -1 if the segment is full.
+     */
+    int reserve(int length) {
+        while (true) {
+            int position = writePosition.get();
+            if (position > capacity - length) {
+                // Park the position past the end so no later, smaller record lands after a gap
+                writePosition.compareAndSet(position, capacity);
+                return -1;
+            }
+            if (writePosition.compareAndSet(position, position + length)) {
+                return position;
+            }
+        }
+    }
+
+    /**
+     * Publish a filled record; its first word must be non-zero
+     */
+    void commit(int offset, int firstWord) {
+        INT.setRelease(buffer, offset, firstWord);
+    }
+
+    /**
+     * Length of the committed record at {@code offset}, or 0 if none (yet)
+     */
+    int lengthAt(int offset) {
+        return ReplayLog.recordLength((int) INT.getAcquire(buffer, offset));
+    }
+
+    /**
+     * Zero-copy read-only view of {@code [offset, offset + length)}
+     */
+    ByteBuffer slice(int offset, int length) {
+        return buffer.slice(offset, length).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * The mapped file, for absolute puts into a reserved record and absolute reads of committed ones
+     */
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * End of the records reserved so far (capacity once the segment is full)
+     */
+    int end() {
+        return Math.min(writePosition.get(), capacity);
+    }
+
+    /**
+     * Bytes worth keeping: the whole file once compacted, the reserved records otherwise
+     */
+    long usedBytes() {
+        return compacted ? capacity : end();
+    }
+
+    long id() {
+        return id;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    boolean isCompacted() {
+        return compacted;
+    }
+
+    /**
+     * Write the header of a compacted copy of segment {@code id} at the channel's position
+     */
+    static void writeCompactedHeader(FileChannel channel, long id) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).putShort(FLAG_COMPACTED).putLong(id).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    void delete() throws IOException {
+        // The mapping stays valid for readers still holding this segment
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,26 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.ClusterNode;
+
+import java.util.List;
+
+/**
+ * Maps room codes to the node that owns them. A room lives only on its owner: rooms are
+ * created under codes the local node owns, and sessions for any other code are sent to
+ * its owner. Every node must be configured with the same node list.
+ */
+public interface RoomDirectory {
+
+    ClusterNode getLocalNode();
+
+    List<ClusterNode> getNodes();
+
+    /**
+     * Node that owns the room code (upper case)
+     */
+    ClusterNode ownerOf(String roomCode);
+
+    default boolean isLocal(String roomCode) {
+        return ownerOf(roomCode) == getLocalNode();
+    }
+}
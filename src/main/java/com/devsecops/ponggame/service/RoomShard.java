@@ -0,0 +1,145 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * One single-threaded event loop owning a partition of the rooms.
+ * Every read and write of an owned room's {@link com.devsecops.ponggame.model.GameState}
+ * happens on this shard's thread, so the state needs no locks or volatile fields.
+ */
+final class RoomShard {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomShard.class);
+
+    private final int index;
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+
+    // Owned by the shard thread
+    private final Set<GameRoom> rooms = new HashSet<>();
+    private long tickCount;
+    private long windowStartNanos;
+    private long windowBusyNanos;
+
+    // Published for metrics
+    private volatile int roomCount;
+    private volatile double utilization;
+
+    RoomShard(int index) {
+        this.index = index;
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "game-loop-" + index);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * Run the tick task at a fixed rate on this shard's thread
+     */
+    void start(long periodNanos, Consumer<RoomShard> tick) {
+        windowStartNanos = System.nanoTime();
+        executor.scheduleAtFixedRate(() -> {
+            long started = System.nanoTime();
+            tickCount++;
+            tick.accept(this);
+            recordBusy(started, System.nanoTime());
+        }, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Wait for the current tick or task to finish after {@link #stop}.
+     * Returns true once the shard thread will touch no room again.
+     */
+    boolean awaitStopped(long timeoutMs) throws InterruptedException {
+        return executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a mutation to run on this shard's thread, in submission order
+     */
+    void execute(Runnable task) {
+        pendingTasks.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                pendingTasks.decrementAndGet();
+                long started = System.nanoTime();
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    logger.error("Error in shard {} task: {}", index, e.getMessage());
+                }
+                recordBusy(started, System.nanoTime());
+            });
+        } catch (RejectedExecutionException e) {
+            pendingTasks.decrementAndGet();
+            logger.debug("Shard {} is stopped, dropping task", index);
+        }
+    }
+
+    // Shard thread only
+
+    Set<GameRoom> rooms() {
+        return rooms;
+    }
+
+    void add(GameRoom room) {
+        rooms.add(room);
+        roomCount = rooms.size();
+    }
+
+    void remove(GameRoom room) {
+        rooms.remove(room);
+        roomCount = rooms.size();
+    }
+
+    long getTickCount() {
+        return tickCount;
+    }
+
+    // Metrics (any thread)
+
+    int getQueueDepth() {
+        return pendingTasks.get();
+    }
+
+    int getRoomCount() {
+        return roomCount;
+    }
+
+    /**
+     * Fraction of wall time spent running ticks and tasks over the last completed second
+     */
+    double getUtilization() {
+        return utilization;
+    }
+
+    private void recordBusy(long started, long finished) {
+        windowBusyNanos += finished - started;
+        long elapsed = finished - windowStartNanos;
+        if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+            utilization = Math.min(1.0, (double) windowBusyNanos / elapsed);
+            windowBusyNanos = 0;
+            windowStartNanos = finished;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.GameState;
+import com.devsecops.ponggame.model.RoomPhase;
+import com.devsecops.ponggame.model.RoomStats;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of live rooms for the {@link RoomSnapshotService}.
+ * The whole file is encoded into one buffer, written to a temporary file, fsynced and moved
+ * over the old snapshot, so a crash mid-save leaves the previous file or none, never half of one.
+ *
+ * <pre>
+ *   header   magic u32 | version u16 | reserved u16 | createdAt i64 | room count u32
+ *   room     roomCode (u8 length + ASCII) | phase u8 | flags u8 (1 running, 2 paused) |
+ *            per player: flags u8 (1 present, 2 has token) | name, token (u16 length + UTF-8) |
+ *            ballX, ballY, ballDx, ballDy, ballSpeed, player1Y, player2Y,
+ *            player1PaddleHeight, player2PaddleHeight, speedBeforeSlow f64 |
+ *            player1PaddleEffectExpiresAt, player2PaddleEffectExpiresAt, slowBallExpiresAt i64 |
+ *            player1Score, player2Score u16
+ *   trailer  crc32 u32 (of everything before it)
+ * </pre>
+ * Little-endian.
+ */
+final class RoomSnapshotFile {
+
+    static final int MAGIC = 0x4E535250; // "PRSN" little-endian
+    static final short VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int ROOM_ESTIMATE = 200;
+
+    private static final byte RUNNING = 1;
+    private static final byte PAUSED = 2;
+    private static final byte PRESENT = 1;
+    private static final byte HAS_TOKEN = 2;
+    private static final RoomPhase[] PHASES = RoomPhase.values();
+
+    private RoomSnapshotFile() {
+    }
+
+    /**
+     * Write the open rooms to {@code file}, replacing it. Game states must not be changing.
+     * Returns the number of rooms written.
+     */
+    static int write(Path file, List<GameRoom> rooms) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + rooms.size() * ROOM_ESTIMATE + 4)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(System.currentTimeMillis()).putInt(0);
+        int count = 0;
+        for (GameRoom room : rooms) {
+            GameRoom.Slots slots = room.getSlots();
+            if (slots.isClosed() || slots.isEmpty()) {
+                continue;
+            }
+            out = ensure(out, ROOM_ESTIMATE + 4 * sizeOf(slots.getPlayer1Name()) + 4 * sizeOf(slots.getPlayer2Name()));
+            encode(out, room, slots);
+            count++;
+        }
+        out.putInt(16, count);
+
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 0, out.position());
+        out = ensure(out, 4);
+        out.putInt((int) crc.getValue());
+        out.flip();
+
+        Path target = file.toAbsolutePath();
+        Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Rebuild the rooms in {@code file}. Restored players hold placeholder sessions (see
+     * {@link GameRoomService#placeholderSessionId}); running games come back paused.
+     *
+     * @throws IOException if the file cannot be read or is not an intact snapshot
+     */
+    static List<GameRoom> read(Path file, RoomStats stats) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < HEADER_SIZE + 4) {
+            throw new IOException("Snapshot too short: " + bytes.length + " bytes");
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        if (in.getInt(bytes.length - 4) != (int) crc.getValue()) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        if (in.getInt(0) != MAGIC || in.getShort(4) != VERSION) {
+            throw new IOException("Not a version " + VERSION + " room snapshot");
+        }
+        int count = in.getInt(16);
+        in.position(HEADER_SIZE).limit(bytes.length - 4);
+        List<GameRoom> rooms = new ArrayList<>(Math.min(count, bytes.length / HEADER_SIZE));
+        try {
+            for (int i = 0; i < count; i++) {
+                rooms.add(decode(in, stats));
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Malformed snapshot room " + rooms.size(), e);
+        }
+        return rooms;
+    }
+
+    private static void encode(ByteBuffer out, GameRoom room, GameRoom.Slots slots) {
+        GameState state = room.getGameState();
+        byte[] code = room.getRoomCode().getBytes(StandardCharsets.US_ASCII);
+        out.put((byte) code.length).put(code);
+        out.put((byte) slots.getPhase().ordinal());
+        out.put((byte) ((state.isRunning() ? RUNNING : 0) | (state.isPaused() ? PAUSED : 0)));
+        putPlayer(out, slots.getPlayer1SessionId(), slots.getPlayer1Name(), room.getResumeToken(1));
+        putPlayer(out, slots.getPlayer2SessionId(), slots.getPlayer2Name(), room.getResumeToken(2));
+        out.putDouble(state.getBallX()).putDouble(state.getBallY())
+            .putDouble(state.getBallDx()).putDouble(state.getBallDy()).putDouble(state.getBallSpeed())
+            .putDouble(state.getPlayer1Y()).putDouble(state.getPlayer2Y())
+            .putDouble(state.getPlayer1PaddleHeight()).putDouble(state.getPlayer2PaddleHeight())
+            .putDouble(state.getSpeedBeforeSlow());
+        out.putLong(state.getPaddleEffectExpiresAt(1)).putLong(state.getPaddleEffectExpiresAt(2))
+            .putLong(state.getSlowBallExpiresAt());
+        out.putShort((short) state.getPlayer1Score()).putShort((short) state.getPlayer2Score());
+    }
+
+    private static GameRoom decode(ByteBuffer in, RoomStats stats) {
+        byte[] code = new byte[in.get() & 0xFF];
+        in.get(code);
+        String roomCode = new String(code, StandardCharsets.US_ASCII);
+        RoomPhase phase = PHASES[in.get()];
+        byte flags = in.get();
+
+        GameRoom room = new GameRoom(roomCode, stats);
+        for (int playerNumber = 1; playerNumber <= 2; playerNumber++) {
+            byte player = in.get();
+            if ((player & PRESENT) == 0) {
+                continue;
+            }
+            String name = getString(in);
+            String token = (player & HAS_TOKEN) != 0 ? getString(in) : null;
+            // Slots fill in order, so an absent player 1 is held by an empty placeholder claim
+            if (playerNumber == 2 && room.getSlots().getPlayer1SessionId() == null) {
+                room.claimSlot(GameRoomService.placeholderSessionId(roomCode, 1), null);
+                room.claimSlot(GameRoomService.placeholderSessionId(roomCode, 2), name);
+                room.releaseSlot(GameRoomService.placeholderSessionId(roomCode, 1));
+            } else {
+                room.claimSlot(GameRoomService.placeholderSessionId(roomCode, playerNumber), name);
+            }
+            room.setResumeToken(playerNumber, token);
+        }
+
+        GameState state = room.getGameState();
+        state.setBallX(in.getDouble());
+        state.setBallY(in.getDouble());
+        state.setBallDx(in.getDouble());
+        state.setBallDy(in.getDouble());
+        state.setBallSpeed(in.getDouble());
+        state.setPlayer1Y(in.getDouble());
+        state.setPlayer2Y(in.getDouble());
+        state.setPlayer1PaddleHeight(in.getDouble());
+        state.setPlayer2PaddleHeight(in.getDouble());
+        state.setSpeedBeforeSlow(in.getDouble());
+        state.setPaddleEffectExpiresAt(1, in.getLong());
+        state.setPaddleEffectExpiresAt(2, in.getLong());
+        state.setSlowBallExpiresAt(in.getLong());
+        state.setPlayer1Score(in.getShort() & 0xFFFF);
+        state.setPlayer2Score(in.getShort() & 0xFFFF);
+        state.setLastUpdate(System.currentTimeMillis());
+
+        if (phase == RoomPhase.RUNNING || phase == RoomPhase.FINISHED) {
+            room.markRunning();
+        }
+        if (phase == RoomPhase.FINISHED) {
+            room.markFinished();
+        }
+        if ((flags & RUNNING) != 0) {
+            // Nobody is connected yet: hold the ball until both players are back
+            state.setRunning(true);
+            state.setPaused(true);
+        }
+        return room;
+    }
+
+    private static void putPlayer(ByteBuffer out, String sessionId, String name, String token) {
+        if (sessionId == null) {
+            out.put((byte) 0);
+            return;
+        }
+        out.put((byte) (PRESENT | (token != null ? HAS_TOKEN : 0)));
+        putString(out, name);
+        if (token != null) {
+            putString(out, token);
+        }
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 0xFFFF);
+        out.putShort((short) length);
+        out.put(bytes, 0, length);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static int sizeOf(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static ByteBuffer ensure(ByteBuffer out, int bytes) {
+        if (out.remaining() >= bytes) {
+            return out;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        out.flip();
+        return grown.put(out);
+    }
+}
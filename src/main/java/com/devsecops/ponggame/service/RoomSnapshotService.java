@@ -0,0 +1,165 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carries live rooms across a restart.
+ * On shutdown, before the web server closes any WebSocket, the service starts draining (no
+ * new rooms, disconnects no longer tear rooms down), stops the game loop and writes every
+ * open room to a {@link RoomSnapshotFile}. On the next start the rooms are rebuilt before the
+ * server accepts connections: each player's slot is held by a placeholder session until the
+ * player comes back with the resume token handed out when the slot was taken, and running
+ * games stay paused until both players are back. Placeholders nobody resumes expire like idle
+ * sessions. The snapshot is consumed by the restore, so an older one is never applied twice.
+ * Save and restore times are reported as {@code pong_room_snapshot_duration}.
+ */
+@Service
+public class RoomSnapshotService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomSnapshotService.class);
+
+    private final GameRoomService gameRoomService;
+    private final GameLoopService gameLoopService;
+    private final boolean enabled;
+    private final Path file;
+    private final Timer saveTimer;
+    private final Timer restoreTimer;
+
+    private volatile boolean running;
+    private volatile boolean draining;
+
+    @Autowired
+    public RoomSnapshotService(GameRoomService gameRoomService, GameLoopService gameLoopService,
+                               MeterRegistry meterRegistry,
+                               @Value("${pong.snapshot.enabled:true}") boolean enabled,
+                               @Value("${pong.snapshot.file:data/snapshot/rooms.snap}") String file) {
+        this.gameRoomService = gameRoomService;
+        this.gameLoopService = gameLoopService;
+        this.enabled = enabled;
+        this.file = Paths.get(file);
+        this.saveTimer = Timer.builder("pong_room_snapshot_duration")
+            .description("Time taken to snapshot or restore the live rooms")
+            .tag("operation", "save")
+            .register(meterRegistry);
+        this.restoreTimer = Timer.builder("pong_room_snapshot_duration")
+            .description("Time taken to snapshot or restore the live rooms")
+            .tag("operation", "restore")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            restore();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Runs in the first shutdown phase, while sessions are still open
+     */
+    @Override
+    public void stop() {
+        draining = true;
+        running = false;
+        if (enabled) {
+            gameLoopService.stop();
+            save();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stop before the web server's graceful shutdown and stop phases
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    /**
+     * True once shutdown has begun: rooms are frozen for the snapshot
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Write every open room to the snapshot file. The game loop must be stopped.
+     * Returns the number of rooms written, or -1 if the write failed.
+     */
+    int save() {
+        long startNanos = System.nanoTime();
+        try {
+            int count = RoomSnapshotFile.write(file, gameRoomService.getRooms());
+            long elapsedNanos = System.nanoTime() - startNanos;
+            saveTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            logger.info("Snapshot of {} room(s) written to {} in {} ms", count, file.toAbsolutePath(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            return count;
+        } catch (IOException e) {
+            logger.error("Room snapshot to {} failed: {}", file, e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Bring back the rooms of the last snapshot, if there is one, and delete it.
+     * Returns the number of rooms restored.
+     */
+    int restore() {
+        long startNanos = System.nanoTime();
+        List<GameRoom> rooms;
+        try {
+            rooms = RoomSnapshotFile.read(file, gameRoomService.getRoomStats());
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            logger.warn("Ignoring room snapshot {}: {}", file, e.getMessage());
+            return 0;
+        }
+        int restored = 0;
+        for (GameRoom room : rooms) {
+            if (!gameRoomService.restoreRoom(room)) {
+                continue;
+            }
+            if (room.isFull()) {
+                gameLoopService.attach(room);
+            }
+            restored++;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete room snapshot {}: {}", file, e.getMessage());
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        restoreTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        logger.info("Restored {} room(s) from {} in {} ms", restored, file.toAbsolutePath(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        return restored;
+    }
+}
@@ -0,0 +1,76 @@
+package com.devsecops.ponggame.service;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel. Items are hashed into slots by deadline tick; advancing the wheel only
+ * visits the slots that have come due, so the cost is proportional to the due items rather than
+ * to everything scheduled. Deadlines further out than one turn wait extra rounds in their slot.
+ * Not thread-safe: owned by a single thread.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final ArrayDeque<Entry<T>>[] slots;
+    private ArrayDeque<Entry<T>> spare = new ArrayDeque<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMs, int slotCount, long startMs) {
+        this.tickMs = tickMs;
+        this.slots = new ArrayDeque[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+        this.currentTick = startMs / tickMs;
+    }
+
+    /**
+     * Schedule an item; a deadline already in the past fires on the next advance
+     */
+    void schedule(T item, long deadlineMs) {
+        long deadlineTick = Math.max(currentTick + 1, (deadlineMs + tickMs - 1) / tickMs);
+        slots[(int) (deadlineTick % slots.length)].add(new Entry<>(item, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Fire every item whose deadline is at or before {@code nowMs}.
+     * The callback may schedule again (including the item it was handed).
+     */
+    void advance(long nowMs, Consumer<T> onDue) {
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            int index = (int) (currentTick % slots.length);
+            ArrayDeque<Entry<T>> due = slots[index];
+            slots[index] = spare;
+            Entry<T> entry;
+            while ((entry = due.poll()) != null) {
+                if (entry.deadlineTick <= currentTick) {
+                    size--;
+                    onDue.accept(entry.item);
+                } else {
+                    slots[index].add(entry); // later round
+                }
+            }
+            spare = due;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static final class Entry<T> {
+        final T item;
+        final long deadlineTick;
+
+        Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.devsecops.ponggame.websocket;
+
+import com.devsecops.ponggame.service.ReplayLog;
+import org.springframework.web.socket.BinaryMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compact binary frames for the high-frequency paddle and ball traffic.
+ * Negotiated through the WebSocket subprotocol; chat and room setup stay JSON.
+ *
+ * All frames are little-endian and start with a one-byte opcode:
+ * <pre>
+ *   PADDLE_MOVE      (client to server)  op u8 | paddleY f32 [| inputSeq u32]                  5 or 9 bytes
+ *   OPPONENT_PADDLE  (server to client)  op u8 | paddleY f32 | timestamp f64                   13 bytes
+ *   BALL_STATE       (server to client)  op u8 | ballX, ballY, ballDx, ballDy,
+ *                                                player1Y, player2Y f32 | timestamp f64 |
+ *                                                player1InputSeq, player2InputSeq u32         41 bytes
+ * </pre>
+ * The input sequences echo the last paddle input the server applied for each player (0 if none),
+ * so clients can reconcile their predicted paddle.
+ * Opcode 0x04 (GAME_STATE) is reserved: the server owns the ball, so it is accepted and ignored.
+ *
+ * Clients that negotiate {@link #SUBPROTOCOL_DELTA} receive sequence-numbered snapshots instead of
+ * BALL_STATE (see {@link SnapshotChannel}). Fields are quantized to i16: positions in 1/16 px,
+ * velocities in 1/256 px per frame.
+ * <pre>
+ *   KEYFRAME         (server to client)  op u8 | seq u32 | ballX, ballY, ballDx, ballDy,
+ *                                                player1Y, player2Y i16 | inputSeq u32 |
+ *                                                timestamp f64                                29 bytes
+ *   DELTA            (server to client)  op u8 | seq u32 | base u8 (seq - baseSeq) | mask u8 |
+ *                                                timestamp - baseTimestamp varint |
+ *                                                (value - baseValue) zigzag varint per mask bit
+ *   SNAPSHOT_ACK     (client to server)  op u8 | seq u32                                       5 bytes
+ * </pre>
+ * Mask bit i is set when field i (in KEYFRAME order) differs from the acknowledged base. A snapshot
+ * only echoes the input sequence of the player it is sent to.
+ *
+ * Replays are streamed as the recorded frames themselves, opcode {@link #REPLAY_RECORD}
+ * (server to client); see {@link ReplayLog} for their layout.
+ */
+public final class BinaryProtocol {
+
+    public static final String SUBPROTOCOL = "pong.binary.v1";
+    public static final String SUBPROTOCOL_DELTA = "pong.binary.v2";
+
+    public static final byte PADDLE_MOVE = 0x01;
+    public static final byte OPPONENT_PADDLE = 0x02;
+    public static final byte BALL_STATE = 0x03;
+    public static final byte GAME_STATE = 0x04;
+    public static final byte KEYFRAME = 0x05;
+    public static final byte DELTA = 0x06;
+    public static final byte SNAPSHOT_ACK = 0x07;
+    public static final byte REPLAY_RECORD = ReplayLog.RECORD_OPCODE;
+
+    public static final int PADDLE_MOVE_SIZE = 1 + 4;
+    public static final int SEQUENCED_PADDLE_MOVE_SIZE = PADDLE_MOVE_SIZE + 4;
+    public static final int OPPONENT_PADDLE_SIZE = 1 + 4 + 8;
+    public static final int BALL_STATE_SIZE = 1 + 6 * 4 + 8 + 2 * 4;
+    public static final int KEYFRAME_SIZE = 1 + 4 + SnapshotChannel.QUANTIZED_FIELDS * 2 + 4 + 8;
+    public static final int SNAPSHOT_ACK_SIZE = 1 + 4;
+
+    public static final double POSITION_SCALE = 16;
+    public static final double VELOCITY_SCALE = 256;
+
+    private BinaryProtocol() {
+    }
+
+    public static BinaryMessage encodePaddleMove(double paddleY) {
+        ByteBuffer buffer = allocate(PADDLE_MOVE_SIZE);
+        buffer.put(PADDLE_MOVE);
+        buffer.putFloat((float) paddleY);
+        return new BinaryMessage(buffer.array());
+    }
+
+    public static BinaryMessage encodePaddleMove(double paddleY, int inputSeq) {
+        ByteBuffer buffer = allocate(SEQUENCED_PADDLE_MOVE_SIZE);
+        buffer.put(PADDLE_MOVE);
+        buffer.putFloat((float) paddleY);
+        buffer.putInt(inputSeq);
+        return new BinaryMessage(buffer.array());
+    }
+
+    public static BinaryMessage encodeOpponentPaddle(double paddleY, long timestamp) {
+        ByteBuffer buffer = allocate(OPPONENT_PADDLE_SIZE);
+        buffer.put(OPPONENT_PADDLE);
+        buffer.putFloat((float) paddleY);
+        buffer.putDouble(timestamp);
+        return new BinaryMessage(buffer.array());
+    }
+
+    public static BinaryMessage encodeBallState(double ballX, double ballY, double ballDx, double ballDy,
+                                                double player1Y, double player2Y, long timestamp,
+                                                int player1InputSeq, int player2InputSeq) {
+        ByteBuffer buffer = allocate(BALL_STATE_SIZE);
+        buffer.put(BALL_STATE);
+        buffer.putFloat((float) ballX);
+        buffer.putFloat((float) ballY);
+        buffer.putFloat((float) ballDx);
+        buffer.putFloat((float) ballDy);
+        buffer.putFloat((float) player1Y);
+        buffer.putFloat((float) player2Y);
+        buffer.putDouble(timestamp);
+        buffer.putInt(player1InputSeq);
+        buffer.putInt(player2InputSeq);
+        return new BinaryMessage(buffer.array());
+    }
+
+    /**
+     * Opcode of an inbound frame, or -1 if the frame is empty
+     */
+    public static int opcode(ByteBuffer frame) {
+        return frame.remaining() > 0 ? frame.get(frame.position()) : -1;
+    }
+
+    /**
+     * Paddle position of a PADDLE_MOVE frame, or NaN if the frame is truncated
+     */
+    public static double decodePaddleMove(ByteBuffer frame) {
+        if (frame.remaining() < PADDLE_MOVE_SIZE) {
+            return Double.NaN;
+        }
+        return frame.order(ByteOrder.LITTLE_ENDIAN).getFloat(frame.position() + 1);
+    }
+
+    /**
+     * Input sequence of a PADDLE_MOVE frame, or 0 if the client did not send one
+     */
+    public static int decodePaddleMoveSeq(ByteBuffer frame) {
+        if (frame.remaining() < SEQUENCED_PADDLE_MOVE_SIZE) {
+            return 0;
+        }
+        return frame.order(ByteOrder.LITTLE_ENDIAN).getInt(frame.position() + 5);
+    }
+
+    public static BinaryMessage encodeSnapshotAck(int seq) {
+        ByteBuffer buffer = allocate(SNAPSHOT_ACK_SIZE);
+        buffer.put(SNAPSHOT_ACK);
+        buffer.putInt(seq);
+        return new BinaryMessage(buffer.array());
+    }
+
+    /**
+     * Acknowledged sequence of a SNAPSHOT_ACK frame, or -1 if the frame is truncated
+     */
+    public static int decodeSnapshotAck(ByteBuffer frame) {
+        if (frame.remaining() < SNAPSHOT_ACK_SIZE) {
+            return -1;
+        }
+        return frame.order(ByteOrder.LITTLE_ENDIAN).getInt(frame.position() + 1);
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -1,263 +1,350 @@
 package com.devsecops.ponggame.websocket;
 
 import com.devsecops.ponggame.config.PrometheusMetricsConfig;
+import com.devsecops.ponggame.model.ClusterNode;
 import com.devsecops.ponggame.model.GameRoom;
 import com.devsecops.ponggame.model.GameState;
+import com.devsecops.ponggame.model.PowerupType;
+import com.devsecops.ponggame.service.ExpiryListener;
+import com.devsecops.ponggame.service.ExpiryService;
+import com.devsecops.ponggame.service.GameLoopListener;
+import com.devsecops.ponggame.service.GameLoopService;
 import com.devsecops.ponggame.service.GameRoomService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.devsecops.ponggame.service.MatchHistoryService;
+import com.devsecops.ponggame.service.MatchmakingListener;
+import com.devsecops.ponggame.service.MatchmakingService;
+import com.devsecops.ponggame.service.RoomDirectory;
+import com.devsecops.ponggame.service.RoomSnapshotService;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WebSocket Handler for real-time Pong multiplayer
+ * Ball physics and scoring run on the server game loop; clients only send input.
+ * Clients that negotiate the {@link BinaryProtocol#SUBPROTOCOL} subprotocol exchange
+ * paddle and ball traffic as binary frames; everything else stays JSON. Clients on
+ * {@link BinaryProtocol#SUBPROTOCOL_DELTA} get acknowledged delta snapshots from a
+ * per-session {@link SnapshotChannel} instead of full BALL_STATE frames.
+ * Spectators share frames: each tick is encoded at most once per wire format and the same
+ * frame is queued for every watcher, whose state lane drops it if a newer one arrives first.
+ * All sends go through the per-session queues of {@link OutboundDispatcher}, and JSON
+ * frames are written by {@link OutboundEncoder} rather than built as Jackson trees.
+ * Players get a resume token with their slot, to reclaim it after a restart restored by
+ * {@link RoomSnapshotService}.
  */
-public class GameWebSocketHandler extends TextWebSocketHandler {
+public class GameWebSocketHandler extends TextWebSocketHandler
+        implements GameLoopListener, MatchmakingListener, ExpiryListener, SubProtocolCapable {
 
     private static final Logger logger = LoggerFactory.getLogger(GameWebSocketHandler.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private static final String RESTARTING = "Server is restarting, try again in a moment";
+    private final OutboundEncoder encoder = new OutboundEncoder();
+    private final InboundMessageParser inboundParser = new InboundMessageParser();
+    private final Map<String, SnapshotChannel> snapshotChannels = new ConcurrentHashMap<>();
 
     @Autowired
     private GameRoomService gameRoomService;
+
+    @Autowired
+    private GameLoopService gameLoopService;
+
+    @Autowired
+    private MatchmakingService matchmakingService;
+
+    @Autowired
+    private ExpiryService expiryService;
+
+    @Autowired
+    private OutboundDispatcher outboundDispatcher;
+
+    @Autowired
+    private LobbyBroadcaster lobbyBroadcaster;
+
+    @Autowired
+    private ReplayStreamer replayStreamer;
+
+    @Autowired
+    private MessageMetrics messageMetrics;
     
     @Autowired(required = false)
     private PrometheusMetricsConfig metricsConfig;
 
+    @Autowired(required = false)
+    private MatchHistoryService matchHistoryService;
+
+    @Autowired(required = false)
+    private RoomDirectory roomDirectory;
+
+    @Autowired(required = false)
+    private RoomSnapshotService roomSnapshotService;
+
+    @Value("${pong.ws.binary-enabled:true}")
+    private boolean binaryEnabled;
+
+    @Value("${pong.ws.snapshot.keyframe-interval:60}")
+    private int keyframeInterval;
+
+    @PostConstruct
+    public void registerListeners() {
+        gameLoopService.setListener(this);
+        matchmakingService.setListener(this);
+        expiryService.setListener(this);
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return binaryEnabled
+                ? List.of(BinaryProtocol.SUBPROTOCOL_DELTA, BinaryProtocol.SUBPROTOCOL)
+                : List.of();
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        sessions.put(session.getId(), session);
-        logger.info("WebSocket connected: {}", session.getId());
+        if (BinaryProtocol.SUBPROTOCOL_DELTA.equals(session.getAcceptedProtocol())) {
+            snapshotChannels.put(session.getId(), new SnapshotChannel(keyframeInterval));
+        }
+        outboundDispatcher.register(session);
+        expiryService.trackSession(session.getId());
+        logger.info("WebSocket connected: {} (protocol: {})", session.getId(),
+                isBinary(session) ? session.getAcceptedProtocol() : "json");
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        long receivedNanos = System.nanoTime();
+        MessageType type = MessageType.UNKNOWN;
+        if (!binaryEnabled || !isBinary(session)) {
+            // Binary frames are only part of the negotiated subprotocols
+            logger.warn("Binary frame on session {} without a binary subprotocol", session.getId());
+            messageMetrics.recordInbound(type, message.getPayloadLength(), receivedNanos);
+            closeSession(session, CloseStatus.NOT_ACCEPTABLE);
+            return;
+        }
+        expiryService.touchSession(session.getId());
+        try {
+            ByteBuffer frame = message.getPayload();
+            int opcode = BinaryProtocol.opcode(frame);
+            switch (opcode) {
+                case BinaryProtocol.PADDLE_MOVE:
+                    type = MessageType.PADDLE_MOVE;
+                    double paddleY = BinaryProtocol.decodePaddleMove(frame);
+                    if (!Double.isNaN(paddleY)) {
+                        handlePaddleMove(session, paddleY, BinaryProtocol.decodePaddleMoveSeq(frame));
+                    }
+                    break;
+                case BinaryProtocol.GAME_STATE:
+                    // Ignored: ball state is owned by the server game loop
+                    type = MessageType.GAME_STATE;
+                    break;
+                case BinaryProtocol.SNAPSHOT_ACK:
+                    type = MessageType.SNAPSHOT_ACK;
+                    SnapshotChannel channel = snapshotChannels.get(session.getId());
+                    if (channel != null) {
+                        channel.acknowledge(BinaryProtocol.decodeSnapshotAck(frame));
+                    }
+                    break;
+                default:
+                    logger.warn("Unknown binary opcode: {}", opcode);
+            }
+        } catch (Exception e) {
+            logger.error("Error handling binary message: {} - {}", e.getClass().getSimpleName(), e.getMessage());
+        } finally {
+            messageMetrics.recordInbound(type, message.getPayloadLength(), receivedNanos);
+        }
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        long receivedNanos = System.nanoTime();
+        MessageType type = MessageType.UNKNOWN;
+        expiryService.touchSession(session.getId());
+        InboundMessage inbound = null;
         try {
-            JsonNode json = objectMapper.readTree(message.getPayload());
-            if (json == null || !json.has("type")) {
+            inbound = inboundParser.parse(message.getPayload());
+            if (inbound == null) {
                 logger.warn("Message missing type field");
                 return;
             }
-            String type = json.get("type").asText();
 
+            type = inbound.getType();
             switch (type) {
-                case "create_room":
-                    handleCreateRoom(session, json);
+                case CREATE_ROOM:
+                    handleCreateRoom(session, inbound);
                     break;
-                case "join_room":
-                    handleJoinRoom(session, json);
+                case JOIN_ROOM:
+                    handleJoinRoom(session, inbound);
                     break;
-                case "paddle_move":
-                    handlePaddleMove(session, json);
+                case PADDLE_MOVE:
+                    if (inbound.hasPaddleY()) {
+                        handlePaddleMove(session, inbound.getPaddleY(), inbound.getSeq());
+                    }
                     break;
-                case "game_start":
+                case GAME_START:
                     handleGameStart(session);
                     break;
-                case "game_state":
-                    handleGameState(session, json);
+                case GAME_STATE:
+                case SCORE_UPDATE:
+                case GAME_OVER:
+                    // Ignored: ball, score and game over are owned by the server game loop
+                    break;
+                case PING:
+                    handlePing(session, inbound);
+                    break;
+                case CHAT:
+                    handleChat(session, inbound, receivedNanos);
+                    break;
+                case SPAWN_POWERUP:
+                    handleSpawnPowerup(session, inbound);
                     break;
-                case "ping":
-                    handlePing(session, json);
+                case COLLECT_POWERUP:
+                    // Ignored: pickups are detected by the server game loop
                     break;
-                case "score_update":
-                    handleScoreUpdate(session, json);
+                case QUICK_MATCH:
+                    handleQuickMatch(session, inbound);
                     break;
-                case "game_over":
-                    handleGameOver(session, json);
+                case SPECTATE:
+                    handleSpectate(session, inbound);
                     break;
-                case "chat":
-                    handleChat(session, json);
+                case STOP_SPECTATING:
+                    gameRoomService.stopSpectating(session.getId());
                     break;
-                case "spawn_powerup":
-                    handleSpawnPowerup(session, json);
+                case LOBBY_SUBSCRIBE:
+                    lobbyBroadcaster.subscribe(session.getId());
                     break;
-                case "collect_powerup":
-                    handleCollectPowerup(session, json);
+                case LOBBY_UNSUBSCRIBE:
+                    lobbyBroadcaster.unsubscribe(session.getId());
+                    break;
+                case REPLAY:
+                    handleReplay(session, inbound);
+                    break;
+                case STOP_REPLAY:
+                    replayStreamer.stop(session.getId());
+                    break;
+                case RESUME:
+                    handleResume(session, inbound);
                     break;
                 default:
-                    logger.warn("Unknown message type: {}", type);
+                    logger.warn("Unknown message type from session {}", session.getId());
             }
         } catch (Exception e) {
             logger.error("Error handling message: {} - {}", e.getClass().getSimpleName(), e.getMessage());
             // Don't rethrow - keep connection alive
+        } finally {
+            inboundParser.release(inbound);
+            messageMetrics.recordInbound(type, MessageMetrics.payloadBytes(message), receivedNanos);
         }
     }
 
-    private void handleCreateRoom(WebSocketSession session, JsonNode json) throws IOException {
-        String playerName = json.has("playerName") ? json.get("playerName").asText() : "Player 1";
+    private void handleCreateRoom(WebSocketSession session, InboundMessage inbound) {
+        if (isDraining()) {
+            sendError(session, RESTARTING);
+            return;
+        }
+        String playerName = inbound.getPlayerName() != null ? inbound.getPlayerName() : "Player 1";
+        leaveActivities(session.getId(), false);
         
         GameRoom room = gameRoomService.createRoom();
         room.addPlayer(session.getId(), playerName);
         gameRoomService.registerSession(session.getId(), room.getRoomCode());
         
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("type", "room_created");
-        response.put("roomCode", room.getRoomCode());
-        response.put("playerNumber", 1);
-        response.put("playerName", playerName);
-        
-        sendMessage(session, response.toString());
+        sendMessage(session, MessageType.ROOM_CREATED, encoder.roomCreated(room.getRoomCode(), 1, playerName));
+        sendResumeToken(session.getId(), room, 1);
         logger.info("Room created: {} by {}", room.getRoomCode(), playerName);
     }
 
-    private void handleJoinRoom(WebSocketSession session, JsonNode json) throws IOException {
-        String roomCode = json.get("roomCode").asText().toUpperCase();
-        String playerName = json.has("playerName") ? json.get("playerName").asText() : "Player 2";
-        
-        GameRoom room = gameRoomService.getRoom(roomCode);
+    private void handleJoinRoom(WebSocketSession session, InboundMessage inbound) {
+        if (inbound.getRoomCode() == null) {
+            sendError(session, "Room code required");
+            return;
+        }
+        if (isDraining()) {
+            sendError(session, RESTARTING);
+            return;
+        }
+        String roomCode = inbound.getRoomCode().toUpperCase();
+        String playerName = inbound.getPlayerName() != null ? inbound.getPlayerName() : "Player 2";
+        leaveActivities(session.getId(), false);
+        if (redirectToOwner(session, roomCode, MessageType.JOIN_ROOM)) {
+            return;
+        }
         
-        if (room == null) {
+        if (gameRoomService.getRoom(roomCode) == null) {
             sendError(session, "Room not found: " + roomCode);
             return;
         }
         
-        if (room.isFull()) {
+        GameRoom room = gameRoomService.joinRoom(roomCode, session.getId(), playerName);
+        if (room == null) {
             sendError(session, "Room is full");
             return;
         }
         
-        int playerNumber = room.addPlayer(session.getId(), playerName);
-        gameRoomService.registerSession(session.getId(), roomCode);
+        int playerNumber = room.getPlayerNumber(session.getId());
+        if (room.isFull()) {
+            gameLoopService.attach(room);
+        }
         
         // Send confirmation to joining player
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("type", "room_joined");
-        response.put("roomCode", roomCode);
-        response.put("playerNumber", playerNumber);
-        response.put("playerName", playerName);
-        response.put("opponentName", room.getPlayer1Name());
-        sendMessage(session, response.toString());
+        sendMessage(session, MessageType.ROOM_JOINED,
+                encoder.roomJoined(roomCode, playerNumber, playerName, room.getPlayer1Name()));
+        sendResumeToken(session.getId(), room, playerNumber);
         
         // Notify player 1 that player 2 joined
         String player1SessionId = room.getPlayer1SessionId();
         if (player1SessionId != null) {
-            WebSocketSession player1Session = sessions.get(player1SessionId);
-            if (player1Session != null && player1Session.isOpen()) {
-                ObjectNode notification = objectMapper.createObjectNode();
-                notification.put("type", "opponent_joined");
-                notification.put("opponentName", playerName);
-                notification.put("roomFull", true);
-                sendMessage(player1Session, notification.toString());
-            }
+            sendMessage(player1SessionId, MessageType.OPPONENT_JOINED, encoder.opponentJoined(playerName));
         }
         
         logger.info("Player {} joined room {}", playerName, roomCode);
     }
 
-    private void handlePaddleMove(WebSocketSession session, JsonNode json) throws IOException {
+    private void handlePaddleMove(WebSocketSession session, double requestedY, int inputSeq) {
         GameRoom room = gameRoomService.getRoomBySession(session.getId());
         if (room == null || !room.isFull()) return;
-        
-        double paddleY = json.get("paddleY").asDouble();
         int playerNumber = room.getPlayerNumber(session.getId());
-        long timestamp = System.currentTimeMillis();
+        if (playerNumber < 0) return; // left the room meanwhile
         
-        // Update game state
-        GameState state = room.getGameState();
-        if (playerNumber == 1) {
-            state.setPlayer1Y(paddleY);
-        } else {
-            state.setPlayer2Y(paddleY);
-        }
-        
-        // Forward to opponent
-        String opponentSessionId = room.getOpponentSessionId(session.getId());
-        WebSocketSession opponentSession = sessions.get(opponentSessionId);
-        
-        if (opponentSession != null && opponentSession.isOpen()) {
-            ObjectNode message = objectMapper.createObjectNode();
-            message.put("type", "opponent_paddle");
-            message.put("paddleY", paddleY);
-            message.put("timestamp", timestamp);
-            sendMessage(opponentSession, message.toString());
-        }
+        // Latest value wins; the game loop relays it to the opponent on its own cadence
+        gameLoopService.recordPaddleInput(room, playerNumber, requestedY, inputSeq);
     }
 
-    private void handleGameStart(WebSocketSession session) throws IOException {
+    private void handleGameStart(WebSocketSession session) {
         GameRoom room = gameRoomService.getRoomBySession(session.getId());
         if (room == null || !room.isFull()) {
             sendError(session, "Cannot start: Room not full");
             return;
         }
         
-        room.getGameState().setRunning(true);
-        room.getGameState().reset();
-        
-        // Track metrics
-        if (metricsConfig != null) {
-            metricsConfig.incrementGamesStarted();
-        }
-        
-        // Notify both players
-        ObjectNode message = objectMapper.createObjectNode();
-        message.put("type", "game_started");
-        message.put("timestamp", System.currentTimeMillis());
-        
-        broadcastToRoom(room, message.toString());
-        logger.info("Game started in room {}", room.getRoomCode());
+        // Players are notified from onGameStarted, once the room's shard has served the ball
+        gameLoopService.startGame(room);
     }
 
-    private void handleGameState(WebSocketSession session, JsonNode json) throws IOException {
-        GameRoom room = gameRoomService.getRoomBySession(session.getId());
-        if (room == null || !room.isFull()) return;
-        
-        int playerNumber = room.getPlayerNumber(session.getId());
-        
-        // Only player 1 controls the ball (authoritative)
-        if (playerNumber == 1) {
-            // Validate all required fields exist
-            if (!json.has("ballX") || !json.has("ballY") || !json.has("ballDx") || !json.has("ballDy")) {
-                return;
-            }
-            
-            GameState state = room.getGameState();
-            if (state == null) return;
-            
-            state.setBallX(json.get("ballX").asDouble());
-            state.setBallY(json.get("ballY").asDouble());
-            state.setBallDx(json.get("ballDx").asDouble());
-            state.setBallDy(json.get("ballDy").asDouble());
-            state.setLastUpdate(System.currentTimeMillis());
-            
-            // Forward ball state to player 2
-            String player2SessionId = room.getPlayer2SessionId();
-            if (player2SessionId == null) return;
-            
-            WebSocketSession player2Session = sessions.get(player2SessionId);
-            
-            if (player2Session != null && player2Session.isOpen()) {
-                ObjectNode message = objectMapper.createObjectNode();
-                message.put("type", "ball_state");
-                message.put("ballX", state.getBallX());
-                message.put("ballY", state.getBallY());
-                message.put("ballDx", state.getBallDx());
-                message.put("ballDy", state.getBallDy());
-                message.put("timestamp", state.getLastUpdate());
-                sendMessage(player2Session, message.toString());
-            }
-        }
-    }
-
-    private void handlePing(WebSocketSession session, JsonNode json) throws IOException {
-        long clientTimestamp = json.get("timestamp").asLong();
+    private void handlePing(WebSocketSession session, InboundMessage inbound) {
+        long clientTimestamp = inbound.getTimestamp();
         long serverTimestamp = System.currentTimeMillis();
         
         // Get client-measured RTT if provided (from previous pong response)
-        long clientRtt = json.has("rtt") ? json.get("rtt").asLong() : 0;
+        long clientRtt = inbound.getRtt();
         
         GameRoom room = gameRoomService.getRoomBySession(session.getId());
         if (room != null) {
             int playerNumber = room.getPlayerNumber(session.getId());
+            room.updatePing(playerNumber, serverTimestamp);
             
             // Store the client's measured RTT
             if (playerNumber == 1) {
@@ -265,71 +352,326 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             } else {
                 room.setPlayer2Latency(clientRtt);
             }
+        } else {
+            // Lobby players are bucketed by this RTT if they ask for a quick match
+            matchmakingService.reportRtt(session.getId(), clientRtt);
         }
         
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("type", "pong");
-        response.put("clientTimestamp", clientTimestamp);
-        response.put("serverTimestamp", serverTimestamp);
-        
-        if (room != null) {
-            response.put("player1Latency", room.getPlayer1Latency());
-            response.put("player2Latency", room.getPlayer2Latency());
+        TextMessage response = room != null
+                ? encoder.pong(clientTimestamp, serverTimestamp, room.getPlayer1Latency(), room.getPlayer2Latency())
+                : encoder.pong(clientTimestamp, serverTimestamp);
+        sendMessage(session, MessageType.PONG, response);
+    }
+
+    // ============================================
+    // Matchmaking
+    // ============================================
+    private void handleQuickMatch(WebSocketSession session, InboundMessage inbound) {
+        if (gameRoomService.getRoomBySession(session.getId()) != null) {
+            sendError(session, "Already in a room");
+            return;
+        }
+        if (isDraining()) {
+            sendError(session, RESTARTING);
+            return;
+        }
+        String playerName = inbound.getPlayerName() != null ? inbound.getPlayerName() : "Player";
+        long rtt = inbound.getRtt() > 0 ? inbound.getRtt() : matchmakingService.getReportedRtt(session.getId());
+        leaveActivities(session.getId(), true);
+
+        if (matchmakingService.enqueue(session.getId(), playerName, rtt)) {
+            sendMessage(session, MessageType.MATCHMAKING_QUEUED, encoder.matchmakingQueued());
+            logger.info("{} queued for quick match ({} ms)", playerName, rtt);
         }
-        
-        sendMessage(session, response.toString());
     }
 
-    private void handleScoreUpdate(WebSocketSession session, JsonNode json) throws IOException {
-        GameRoom room = gameRoomService.getRoomBySession(session.getId());
-        if (room == null) return;
-        
-        int scorer = json.get("scorer").asInt();
+    /**
+     * Send the client to the node that owns the room, if that is not this one.
+     * The client reconnects there and repeats {@code action}.
+     */
+    private boolean redirectToOwner(WebSocketSession session, String roomCode, MessageType action) {
+        if (roomDirectory == null || roomDirectory.isLocal(roomCode)) {
+            return false;
+        }
+        ClusterNode owner = roomDirectory.ownerOf(roomCode);
+        sendMessage(session, MessageType.REDIRECT, encoder.redirect(roomCode, action.getWireName(), owner.getUrl()));
+        logger.debug("Session {} redirected to node {} for room {}", session.getId(), owner.getId(), roomCode);
+        return true;
+    }
+
+    /**
+     * Hand a slot restored from a snapshot back to its player. The game continues once both
+     * players are back.
+     */
+    private void handleResume(WebSocketSession session, InboundMessage inbound) {
+        if (isDraining()) {
+            // Still the old instance: have the client come back to the new one
+            closeSession(session, CloseStatus.SERVICE_RESTARTED);
+            return;
+        }
+        if (gameRoomService.getRoomBySession(session.getId()) != null) {
+            sendError(session, "Already in a room");
+            return;
+        }
+        // The room may have been restored on the node that owns its code
+        String roomCode = GameRoomService.resumeTokenRoomCode(inbound.getToken());
+        if (roomCode != null && redirectToOwner(session, roomCode, MessageType.RESUME)) {
+            return;
+        }
+        GameRoom room = gameRoomService.resume(inbound.getToken(), session.getId());
+        if (room == null) {
+            sendMessage(session, MessageType.RESUME_FAILED, encoder.resumeFailed());
+            return;
+        }
+        leaveActivities(session.getId(), false);
+
+        GameRoom.Slots slots = room.getSlots();
+        int playerNumber = slots.getPlayerNumber(session.getId());
+        String playerName = playerNumber == 1 ? slots.getPlayer1Name() : slots.getPlayer2Name();
+        String opponentName = playerNumber == 1 ? slots.getPlayer2Name() : slots.getPlayer1Name();
+        // Game state is only read on the room's shard; queued before resumeGame, so it reports the paused state
+        gameLoopService.execute(room, () -> {
+            GameState state = room.getGameState();
+            sendMessage(session, MessageType.ROOM_RESUMED, encoder.roomResumed(room.getRoomCode(), playerNumber,
+                    playerName, opponentName, state.getPlayer1Score(), state.getPlayer2Score(), state.isRunning()));
+        });
+
+        if (slots.isFull() && !GameRoomService.isPlaceholder(slots.getPlayer1SessionId())
+                && !GameRoomService.isPlaceholder(slots.getPlayer2SessionId())) {
+            gameLoopService.resumeGame(room);
+        }
+        logger.info("{} resumed room {} as player {}", playerName, room.getRoomCode(), playerNumber);
+    }
+
+    private void sendResumeToken(String sessionId, GameRoom room, int playerNumber) {
+        if (roomSnapshotService != null) {
+            sendMessage(sessionId, MessageType.RESUME_TOKEN, encoder.resumeToken(room.getRoomCode(),
+                    gameRoomService.issueResumeToken(room, playerNumber)));
+        }
+    }
+
+    private boolean isDraining() {
+        return roomSnapshotService != null && roomSnapshotService.isDraining();
+    }
+
+    // ============================================
+    // Spectators
+    // ============================================
+    private void handleSpectate(WebSocketSession session, InboundMessage inbound) {
+        if (inbound.getRoomCode() == null) {
+            sendError(session, "Room code required");
+            return;
+        }
+        if (gameRoomService.getRoomBySession(session.getId()) != null) {
+            sendError(session, "Already in a room");
+            return;
+        }
+        String roomCode = inbound.getRoomCode().toUpperCase();
+        leaveActivities(session.getId(), false);
+        if (redirectToOwner(session, roomCode, MessageType.SPECTATE)) {
+            return;
+        }
+
+        GameRoom room = gameRoomService.spectate(roomCode, session.getId());
+        if (room == null) {
+            sendError(session, "Room not found: " + roomCode);
+            return;
+        }
+
+        // Read on the room's shard, so snapshots (sent from the shard too) follow this message
+        gameLoopService.execute(room, () -> {
+            GameState state = room.getGameState();
+            sendMessage(session, MessageType.SPECTATING, encoder.spectating(room.getRoomCode(), room.getPlayer1Name(),
+                    room.getPlayer2Name(), state.getPlayer1Score(), state.getPlayer2Score(), state.isRunning()));
+        });
+        logger.info("Session {} is watching room {}", session.getId(), room.getRoomCode());
+    }
+
+    // ============================================
+    // Replays
+    // ============================================
+    private void handleReplay(WebSocketSession session, InboundMessage inbound) {
+        if (!replayStreamer.isAvailable()) {
+            sendError(session, "Replays are disabled");
+            return;
+        }
+        if (!isBinary(session)) {
+            sendError(session, "Replays need the binary protocol");
+            return;
+        }
+        if (gameRoomService.getRoomBySession(session.getId()) != null) {
+            sendError(session, "Already in a room");
+            return;
+        }
+        leaveActivities(session.getId(), false);
+
+        if (!replayStreamer.start(session.getId(), inbound.getMatchId(), inbound.getSpeed())) {
+            sendError(session, "Replay not found: " + inbound.getMatchId());
+            return;
+        }
+        logger.info("Session {} is replaying match {}", session.getId(), inbound.getMatchId());
+    }
+
+    /**
+     * Tell everyone watching a closed room that the show is over
+     */
+    private void endSpectating(GameRoom room) {
+        for (String sessionId : gameRoomService.removeSpectators(room)) {
+            sendMessage(sessionId, MessageType.SPECTATE_ENDED, encoder.spectateEnded());
+        }
+    }
+
+    @Override
+    public void onMatched(GameRoom room) {
+        String p1Id = room.getPlayer1SessionId();
+        String p2Id = room.getPlayer2SessionId();
+
+        // A player who disconnected while being paired leaves the room; the other goes back in the queue
+        boolean p1Connected = outboundDispatcher.getSession(p1Id) != null;
+        boolean p2Connected = outboundDispatcher.getSession(p2Id) != null;
+        if (!p1Connected || !p2Connected) {
+            requeueIfConnected(p1Id, room.getPlayer1Name(), p1Connected);
+            requeueIfConnected(p2Id, room.getPlayer2Name(), p2Connected);
+            return;
+        }
+
+        gameLoopService.attach(room);
+        sendMessage(p1Id, MessageType.MATCH_FOUND,
+                encoder.matchFound(room.getRoomCode(), 1, room.getPlayer1Name(), room.getPlayer2Name()));
+        sendMessage(p2Id, MessageType.MATCH_FOUND,
+                encoder.matchFound(room.getRoomCode(), 2, room.getPlayer2Name(), room.getPlayer1Name()));
+        sendResumeToken(p1Id, room, 1);
+        sendResumeToken(p2Id, room, 2);
+        logger.info("Quick match: {} vs {} in room {}", room.getPlayer1Name(), room.getPlayer2Name(), room.getRoomCode());
+    }
+
+    private void requeueIfConnected(String sessionId, String playerName, boolean connected) {
+        gameRoomService.leaveRoom(sessionId);
+        if (connected) {
+            matchmakingService.enqueue(sessionId, playerName, matchmakingService.getReportedRtt(sessionId));
+        }
+    }
+
+    // ============================================
+    // Game Loop Callbacks
+    // ============================================
+    @Override
+    public void onGameStarted(GameRoom room) {
+        // Track metrics
+        if (metricsConfig != null) {
+            metricsConfig.incrementGamesStarted();
+        }
+
+        // Notify both players
+        broadcastToRoom(room, MessageType.GAME_STARTED, encoder.gameStarted(System.currentTimeMillis()));
+        logger.info("Game started in room {}", room.getRoomCode());
+    }
+
+    @Override
+    public void onSnapshot(GameRoom room) {
         GameState state = room.getGameState();
-        
-        if (scorer == 1) {
-            state.incrementPlayer1Score();
+        TextMessage jsonFrame = null;
+        BinaryMessage binaryFrame = null;
+
+        // Encode each shared wire format at most once per tick; delta snapshots are per client
+        String[] sessionIds = {room.getPlayer1SessionId(), room.getPlayer2SessionId()};
+        for (int i = 0; i < sessionIds.length; i++) {
+            String sessionId = sessionIds[i];
+            WebSocketSession session = outboundDispatcher.getSession(sessionId);
+            if (session == null) continue;
+            SnapshotChannel channel = snapshotChannels.get(sessionId);
+            if (channel != null) {
+                sendMessage(sessionId, OutboundKind.BALL_STATE, MessageType.BALL_STATE,
+                        channel.encode(state, room.getInputSeq(i + 1)));
+            } else if (isBinary(session)) {
+                if (binaryFrame == null) {
+                    binaryFrame = binaryBallState(room, state);
+                }
+                sendMessage(sessionId, OutboundKind.BALL_STATE, MessageType.BALL_STATE, binaryFrame);
+            } else {
+                if (jsonFrame == null) {
+                    jsonFrame = jsonBallState(room, state);
+                }
+                sendMessage(sessionId, OutboundKind.BALL_STATE, MessageType.BALL_STATE, jsonFrame);
+            }
+        }
+
+        // Spectators never acknowledge, so even delta clients get the full shared frame
+        for (String sessionId : room.getSpectators()) {
+            WebSocketSession session = outboundDispatcher.getSession(sessionId);
+            if (session == null) continue;
+            if (isBinary(session)) {
+                if (binaryFrame == null) {
+                    binaryFrame = binaryBallState(room, state);
+                }
+                sendMessage(sessionId, OutboundKind.BALL_STATE, MessageType.BALL_STATE, binaryFrame);
+            } else {
+                if (jsonFrame == null) {
+                    jsonFrame = jsonBallState(room, state);
+                }
+                sendMessage(sessionId, OutboundKind.BALL_STATE, MessageType.BALL_STATE, jsonFrame);
+            }
+        }
+    }
+
+    private BinaryMessage binaryBallState(GameRoom room, GameState state) {
+        return BinaryProtocol.encodeBallState(state.getBallX(), state.getBallY(),
+                state.getBallDx(), state.getBallDy(), state.getPlayer1Y(), state.getPlayer2Y(),
+                state.getLastUpdate(), room.getInputSeq(1), room.getInputSeq(2));
+    }
+
+    private TextMessage jsonBallState(GameRoom room, GameState state) {
+        return encoder.ballState(state.getBallX(), state.getBallY(),
+                state.getBallDx(), state.getBallDy(), state.getPlayer1Y(), state.getPlayer2Y(),
+                state.getLastUpdate(), room.getInputSeq(1), room.getInputSeq(2));
+    }
+
+    @Override
+    public void onPaddleFlush(GameRoom room, int playerNumber, double paddleY) {
+        String opponentSessionId = playerNumber == 1 ? room.getPlayer2SessionId() : room.getPlayer1SessionId();
+        WebSocketSession opponentSession = outboundDispatcher.getSession(opponentSessionId);
+        if (opponentSession == null) return;
+
+        long timestamp = System.currentTimeMillis();
+        if (isBinary(opponentSession)) {
+            sendMessage(opponentSessionId, OutboundKind.OPPONENT_PADDLE, MessageType.OPPONENT_PADDLE,
+                    BinaryProtocol.encodeOpponentPaddle(paddleY, timestamp));
         } else {
-            state.incrementPlayer2Score();
+            sendMessage(opponentSessionId, OutboundKind.OPPONENT_PADDLE, MessageType.OPPONENT_PADDLE,
+                    encoder.opponentPaddle(paddleY, timestamp));
         }
-        
+    }
+
+    @Override
+    public void onScore(GameRoom room, int scorer) {
+        GameState state = room.getGameState();
+
         // Broadcast score to both players
-        ObjectNode message = objectMapper.createObjectNode();
-        message.put("type", "score_updated");
-        message.put("player1Score", state.getPlayer1Score());
-        message.put("player2Score", state.getPlayer2Score());
-        message.put("scorer", scorer);
-        
-        broadcastToRoom(room, message.toString());
+        broadcastToRoom(room, MessageType.SCORE_UPDATED,
+                encoder.scoreUpdated(state.getPlayer1Score(), state.getPlayer2Score(), scorer));
     }
 
-    private void handleGameOver(WebSocketSession session, JsonNode json) throws IOException {
-        GameRoom room = gameRoomService.getRoomBySession(session.getId());
-        if (room == null) return;
-        
-        int winner = json.get("winner").asInt();
-        room.getGameState().setRunning(false);
-        
+    @Override
+    public void onGameOver(GameRoom room, int winner) {
         // Track metrics
         if (metricsConfig != null) {
             metricsConfig.incrementGamesCompleted();
             metricsConfig.incrementPlayerWin(winner);
         }
-        
-        ObjectNode message = objectMapper.createObjectNode();
-        message.put("type", "game_ended");
-        message.put("winner", winner);
-        message.put("player1Score", room.getGameState().getPlayer1Score());
-        message.put("player2Score", room.getGameState().getPlayer2Score());
-        
-        broadcastToRoom(room, message.toString());
+        if (matchHistoryService != null) {
+            matchHistoryService.record(room, winner);
+        }
+
+        GameState state = room.getGameState();
+        broadcastToRoom(room, MessageType.GAME_ENDED,
+                encoder.gameEnded(winner, state.getPlayer1Score(), state.getPlayer2Score()));
         logger.info("Game ended in room {}. Winner: Player {}", room.getRoomCode(), winner);
     }
 
     // ============================================
     // Chat Handler
     // ============================================
-    private void handleChat(WebSocketSession session, JsonNode json) throws IOException {
+    private void handleChat(WebSocketSession session, InboundMessage inbound, long receivedNanos) {
         GameRoom room = gameRoomService.getRoomBySession(session.getId());
         if (room == null) return;
         
@@ -338,8 +680,8 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             metricsConfig.incrementChatMessages();
         }
         
-        String sender = json.has("sender") ? json.get("sender").asText() : "Unknown";
-        String chatMessage = json.has("message") ? json.get("message").asText() : "";
+        String sender = inbound.getSender() != null ? inbound.getSender() : "Unknown";
+        String chatMessage = inbound.getMessage() != null ? inbound.getMessage() : "";
         
         // Sanitize message (basic)
         chatMessage = chatMessage.substring(0, Math.min(chatMessage.length(), 100));
@@ -347,119 +689,172 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         // Forward to opponent only (sender already has it)
         String opponentSessionId = room.getOpponentSessionId(session.getId());
         if (opponentSessionId != null) {
-            WebSocketSession opponentSession = sessions.get(opponentSessionId);
-            if (opponentSession != null && opponentSession.isOpen()) {
-                ObjectNode response = objectMapper.createObjectNode();
-                response.put("type", "chat_message");
-                response.put("sender", sender);
-                response.put("message", chatMessage);
-                sendMessage(opponentSession, response.toString());
-            }
+            sendMessage(opponentSessionId, OutboundKind.CHAT, MessageType.CHAT_MESSAGE,
+                    encoder.chatMessage(sender, chatMessage));
+            messageMetrics.recordChatRelay(receivedNanos);
         }
     }
 
     // ============================================
     // Power-up Handlers
     // ============================================
-    private void handleSpawnPowerup(WebSocketSession session, JsonNode json) throws IOException {
+    private void handleSpawnPowerup(WebSocketSession session, InboundMessage inbound) {
         GameRoom room = gameRoomService.getRoomBySession(session.getId());
         if (room == null) return;
         
         // Only host can spawn power-ups
         if (room.getPlayerNumber(session.getId()) != 1) return;
         
-        String powerupType = json.get("powerupType").asText();
-        double x = json.get("x").asDouble();
-        double y = json.get("y").asDouble();
-        long id = json.get("id").asLong();
+        PowerupType type = PowerupType.fromWireName(inbound.getPowerupType());
+        if (type == null) return;
         
-        ObjectNode message = objectMapper.createObjectNode();
-        message.put("type", "powerup_spawn");
-        message.put("powerupType", powerupType);
-        message.put("x", x);
-        message.put("y", y);
-        message.put("id", id);
-        
-        broadcastToRoom(room, message.toString());
+        // The shard places it (one at a time, running games only) and announces it from onPowerupSpawned
+        gameLoopService.spawnPowerup(room, type, inbound.getX(), inbound.getY());
     }
 
-    private void handleCollectPowerup(WebSocketSession session, JsonNode json) throws IOException {
-        GameRoom room = gameRoomService.getRoomBySession(session.getId());
-        if (room == null) return;
-        
+    @Override
+    public void onPowerupSpawned(GameRoom room, long powerupId, PowerupType type, double x, double y) {
+        broadcastToRoom(room, MessageType.POWERUP_SPAWN, encoder.powerupSpawn(type.name(), x, y, powerupId));
+    }
+
+    @Override
+    public void onPowerupCollected(GameRoom room, int playerNumber, PowerupType type) {
         // Track metrics
         if (metricsConfig != null) {
             metricsConfig.incrementPowerupsCollected();
         }
         
-        int playerNumber = room.getPlayerNumber(session.getId());
-        String powerupType = json.has("powerupType") ? json.get("powerupType").asText() : "SPEED_BOOST";
-        
-        ObjectNode message = objectMapper.createObjectNode();
-        message.put("type", "powerup_collected");
-        message.put("playerNumber", playerNumber);
-        message.put("powerupType", powerupType);
-        
-        broadcastToRoom(room, message.toString());
+        // Paddle heights are the server's, so clients never run their own effect timers for them
+        GameState state = room.getGameState();
+        broadcastToRoom(room, MessageType.POWERUP_COLLECTED, encoder.powerupCollected(playerNumber, type.name(),
+                state.getPlayer1PaddleHeight(), state.getPlayer2PaddleHeight(), GameLoopService.POWERUP_DURATION_MS));
+    }
+
+    @Override
+    public void onPowerupExpired(GameRoom room) {
+        GameState state = room.getGameState();
+        broadcastToRoom(room, MessageType.POWERUP_EXPIRED,
+                encoder.powerupExpired(state.getPlayer1PaddleHeight(), state.getPlayer2PaddleHeight()));
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session.getId());
+        releaseSession(session.getId());
+        logger.info("WebSocket disconnected: {}", session.getId());
+    }
+
+    /**
+     * Take the session off the quick-match queue (unless {@code keepQueued}), out of spectating,
+     * the lobby feed and replay playback, before it moves on to something else
+     */
+    private void leaveActivities(String sessionId, boolean keepQueued) {
+        if (!keepQueued) {
+            matchmakingService.cancel(sessionId);
+        }
+        gameRoomService.stopSpectating(sessionId);
+        lobbyBroadcaster.unsubscribe(sessionId);
+        replayStreamer.stop(sessionId);
+    }
+
+    /**
+     * Drop everything held for a session. Safe to run twice (expiry, then the close callback).
+     */
+    private void releaseSession(String sessionId) {
+        outboundDispatcher.unregister(sessionId);
+        snapshotChannels.remove(sessionId);
+        expiryService.untrackSession(sessionId);
+        leaveActivities(sessionId, false);
+        if (isDraining()) {
+            // Shutting down: the room stays as it is, for the snapshot and the player's resume
+            return;
+        }
         
-        GameRoom room = gameRoomService.getRoomBySession(session.getId());
+        GameRoom room = gameRoomService.getRoomBySession(sessionId);
         if (room != null) {
-            String opponentSessionId = room.getOpponentSessionId(session.getId());
+            String opponentSessionId = room.getOpponentSessionId(sessionId);
             
             // Notify opponent
             if (opponentSessionId != null) {
-                WebSocketSession opponentSession = sessions.get(opponentSessionId);
-                if (opponentSession != null && opponentSession.isOpen()) {
-                    try {
-                        ObjectNode message = objectMapper.createObjectNode();
-                        message.put("type", "opponent_disconnected");
-                        sendMessage(opponentSession, message.toString());
-                    } catch (IOException e) {
-                        logger.error("Error notifying opponent of disconnect", e);
-                    }
-                }
+                sendMessage(opponentSessionId, MessageType.OPPONENT_DISCONNECTED, encoder.opponentDisconnected());
             }
             
-            gameRoomService.leaveRoom(session.getId());
+            gameLoopService.detach(room);
+            gameRoomService.leaveRoom(sessionId);
+            if (room.getSlots().isClosed()) {
+                endSpectating(room);
+            }
+        }
+    }
+
+    // ============================================
+    // Expiry Callbacks
+    // ============================================
+    @Override
+    public void onSessionExpired(String sessionId) {
+        // A socket that died without a close frame may never call afterConnectionClosed
+        WebSocketSession session = outboundDispatcher.getSession(sessionId);
+        releaseSession(sessionId);
+        if (session != null) {
+            closeSession(session, CloseStatus.SESSION_NOT_RELIABLE);
         }
-        
-        logger.info("WebSocket disconnected: {}", session.getId());
     }
 
-    private void sendMessage(WebSocketSession session, String message) throws IOException {
-        if (session.isOpen()) {
-            session.sendMessage(new TextMessage(message));
+    private void closeSession(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            logger.debug("Closing session {} failed: {}", session.getId(), e.getMessage());
         }
     }
 
-    private void sendError(WebSocketSession session, String error) throws IOException {
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("type", "error");
-        response.put("message", error);
-        sendMessage(session, response.toString());
+    @Override
+    public void onRoomExpired(GameRoom room) {
+        for (String sessionId : new String[]{room.getPlayer1SessionId(), room.getPlayer2SessionId()}) {
+            if (sessionId != null) {
+                sendMessage(sessionId, MessageType.ERROR, encoder.error("Room closed after inactivity"));
+            }
+        }
+        gameLoopService.detach(room);
+        gameRoomService.evictRoom(room);
+        endSpectating(room);
+    }
+
+    private void sendMessage(WebSocketSession session, MessageType type, TextMessage message) {
+        sendMessage(session.getId(), type, message);
+    }
+
+    private void sendMessage(String sessionId, MessageType type, TextMessage message) {
+        sendMessage(sessionId, OutboundKind.EVENT, type, message);
+    }
+
+    private void sendMessage(String sessionId, OutboundKind kind, MessageType type, WebSocketMessage<?> message) {
+        // Never blocks: the frame is queued and written by the session's flush task
+        outboundDispatcher.send(sessionId, kind, type, message);
+    }
+
+    private boolean isBinary(WebSocketSession session) {
+        String protocol = session.getAcceptedProtocol();
+        return BinaryProtocol.SUBPROTOCOL.equals(protocol) || BinaryProtocol.SUBPROTOCOL_DELTA.equals(protocol);
+    }
+
+    private void sendError(WebSocketSession session, String error) {
+        sendMessage(session, MessageType.ERROR, encoder.error(error));
     }
 
-    private void broadcastToRoom(GameRoom room, String message) throws IOException {
+    private void broadcastToRoom(GameRoom room, MessageType type, TextMessage frame) {
         String p1Id = room.getPlayer1SessionId();
         String p2Id = room.getPlayer2SessionId();
         
         if (p1Id != null) {
-            WebSocketSession p1 = sessions.get(p1Id);
-            if (p1 != null && p1.isOpen()) {
-                sendMessage(p1, message);
-            }
+            sendMessage(p1Id, OutboundKind.EVENT, type, frame);
         }
         
         if (p2Id != null) {
-            WebSocketSession p2 = sessions.get(p2Id);
-            if (p2 != null && p2.isOpen()) {
-                sendMessage(p2, message);
-            }
+            sendMessage(p2Id, OutboundKind.EVENT, type, frame);
+        }
+        
+        for (String spectatorId : room.getSpectators()) {
+            sendMessage(spectatorId, OutboundKind.EVENT, type, frame);
         }
     }
 }
@@ -0,0 +1,85 @@
+package com.devsecops.ponggame.websocket;
+
+/**
+ * Reusable holder for a parsed inbound message.
+ * Each pooled parser in {@link InboundMessageParser} fills its own instance; numeric fields are
+ * primitives so the hot message types (paddle_move, ping) are decoded without allocating.
+ * Only valid until it is released back to the parser.
+ */
+public final class InboundMessage {
+
+    final InboundMessageParser.ParserState state;
+
+    MessageType type;
+
+    // Numeric fields
+    double paddleY;
+    double x;
+    double y;
+    long timestamp;
+    long rtt;
+    long id;
+    long matchId;
+    double speed;
+    int seq;
+    int scorer;
+    int winner;
+    boolean hasPaddleY;
+    boolean hasTimestamp;
+
+    // Text fields (room setup, resume, chat and power-ups only)
+    String roomCode;
+    String playerName;
+    String sender;
+    String message;
+    String powerupType;
+    String token;
+
+    InboundMessage(InboundMessageParser.ParserState state) {
+        this.state = state;
+    }
+
+    void reset() {
+        type = null;
+        paddleY = 0;
+        x = 0;
+        y = 0;
+        timestamp = 0;
+        rtt = 0;
+        id = 0;
+        matchId = 0;
+        speed = 0;
+        seq = 0;
+        scorer = 0;
+        winner = 0;
+        hasPaddleY = false;
+        hasTimestamp = false;
+        roomCode = null;
+        playerName = null;
+        sender = null;
+        message = null;
+        powerupType = null;
+        token = null;
+    }
+
+    public MessageType getType() { return type; }
+    public double getPaddleY() { return paddleY; }
+    public boolean hasPaddleY() { return hasPaddleY; }
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public long getTimestamp() { return timestamp; }
+    public boolean hasTimestamp() { return hasTimestamp; }
+    public long getRtt() { return rtt; }
+    public long getId() { return id; }
+    public long getMatchId() { return matchId; }
+    public double getSpeed() { return speed; }
+    public int getSeq() { return seq; }
+    public int getScorer() { return scorer; }
+    public int getWinner() { return winner; }
+    public String getRoomCode() { return roomCode; }
+    public String getPlayerName() { return playerName; }
+    public String getSender() { return sender; }
+    public String getMessage() { return message; }
+    public String getPowerupType() { return powerupType; }
+    public String getToken() { return token; }
+}
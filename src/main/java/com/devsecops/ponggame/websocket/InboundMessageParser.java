@@ -0,0 +1,276 @@
+package com.devsecops.ponggame.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streaming parser for inbound JSON messages.
+ * A bounded pool of long-lived non-blocking Jackson {@link JsonParser}s is shared by all
+ * threads; each parse borrows one, feeds it the message and fills its reusable
+ * {@link InboundMessage} instead of building a {@code JsonNode} tree. The pool is not tied to
+ * threads, so a virtual thread per message reuses the same parsers as a fixed thread pool.
+ * Field names come from Jackson's canonical symbol table, the "type" value is matched in place
+ * and short decimals are parsed from the token characters, so paddle_move and ping are decoded
+ * without allocating.
+ */
+public class InboundMessageParser {
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final BlockingQueue<ParserState> pool;
+
+    public InboundMessageParser() {
+        this(Math.max(8, Runtime.getRuntime().availableProcessors() * 4));
+    }
+
+    InboundMessageParser(int poolSize) {
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Parse a message into a pooled holder, which the caller hands back with {@link #release}.
+     * Returns null (and keeps nothing borrowed) if the payload is not a single JSON object with a "type" field.
+     */
+    public InboundMessage parse(String payload) throws IOException {
+        ParserState state = pool.poll();
+        if (state == null) {
+            state = new ParserState(); // more parses in flight than pooled parsers
+        }
+        try {
+            InboundMessage result = parse(state, payload);
+            if (result == null) {
+                state.reopen();
+                pool.offer(state);
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            // The parser is left mid-document; start the next message on a fresh one
+            state.reopen();
+            pool.offer(state);
+            throw e;
+        }
+    }
+
+    /**
+     * Return a parsed message's holder and parser to the pool. The holder must not be read afterwards.
+     */
+    public void release(InboundMessage inbound) {
+        if (inbound != null) {
+            pool.offer(inbound.state);
+        }
+    }
+
+    private InboundMessage parse(ParserState state, String payload) throws IOException {
+        InboundMessage holder = state.holder;
+        holder.reset();
+        state.feed(payload);
+
+        JsonParser parser = state.parser;
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            token = parser.nextToken();
+            if (token == JsonToken.NOT_AVAILABLE) {
+                return null;
+            }
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "type":
+                    holder.type = token == JsonToken.VALUE_STRING
+                            ? MessageType.fromChars(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())
+                            : MessageType.UNKNOWN;
+                    break;
+                case "paddleY":
+                    holder.paddleY = readDouble(parser, token);
+                    holder.hasPaddleY = true;
+                    break;
+                case "x":
+                    holder.x = readDouble(parser, token);
+                    break;
+                case "y":
+                    holder.y = readDouble(parser, token);
+                    break;
+                case "timestamp":
+                    holder.timestamp = parser.getValueAsLong();
+                    holder.hasTimestamp = true;
+                    break;
+                case "rtt":
+                    holder.rtt = parser.getValueAsLong();
+                    break;
+                case "id":
+                    holder.id = parser.getValueAsLong();
+                    break;
+                case "matchId":
+                    holder.matchId = parser.getValueAsLong();
+                    break;
+                case "speed":
+                    holder.speed = readDouble(parser, token);
+                    break;
+                case "seq":
+                    holder.seq = parser.getValueAsInt();
+                    break;
+                case "scorer":
+                    holder.scorer = parser.getValueAsInt();
+                    break;
+                case "winner":
+                    holder.winner = parser.getValueAsInt();
+                    break;
+                case "roomCode":
+                    holder.roomCode = parser.getValueAsString();
+                    break;
+                case "playerName":
+                    holder.playerName = parser.getValueAsString();
+                    break;
+                case "sender":
+                    holder.sender = parser.getValueAsString();
+                    break;
+                case "message":
+                    holder.message = parser.getValueAsString();
+                    break;
+                case "powerupType":
+                    holder.powerupType = parser.getValueAsString();
+                    break;
+                case "token":
+                    holder.token = parser.getValueAsString();
+                    break;
+                default:
+                    if (!skipValue(parser, token)) {
+                        return null;
+                    }
+            }
+        }
+        // Must end exactly at the close of the root object, with nothing trailing
+        if (token != JsonToken.END_OBJECT || parser.nextToken() != JsonToken.NOT_AVAILABLE) {
+            return null;
+        }
+        return holder.type != null ? holder : null;
+    }
+
+    /**
+     * Skip a nested value. JsonParser.skipChildren() would spin on NOT_AVAILABLE for truncated input.
+     */
+    private boolean skipValue(JsonParser parser, JsonToken token) throws IOException {
+        int depth = token.isStructStart() ? 1 : 0;
+        while (depth > 0) {
+            token = parser.nextToken();
+            if (token == JsonToken.NOT_AVAILABLE || token == null) {
+                return false;
+            }
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+        }
+        return true;
+    }
+
+    private double readDouble(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isNumeric()) {
+            double fast = parseShortDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            if (!Double.isNaN(fast)) {
+                return fast;
+            }
+        }
+        return parser.getValueAsDouble();
+    }
+
+    /**
+     * Parse a plain decimal with at most 15 significant digits and no exponent.
+     * Both the mantissa and the power of ten are exact doubles, so the single division is
+     * correctly rounded. Returns NaN for anything else so the caller can fall back to Jackson.
+     */
+    static double parseShortDecimal(char[] chars, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) i++;
+        if (i == end) return Double.NaN;
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0 && ++significantDigits > MAX_FAST_DIGITS) {
+                    return Double.NaN;
+                }
+                if (fraction) scale++;
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (scale >= POWERS_OF_TEN.length) {
+            return Double.NaN;
+        }
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Pooled parser, input buffer and result holder
+     */
+    final class ParserState {
+        private final InboundMessage holder = new InboundMessage(this);
+        private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+        private JsonParser parser;
+        private ByteArrayFeeder feeder;
+
+        ParserState() {
+            reopen();
+        }
+
+        void reopen() {
+            try {
+                if (parser != null) {
+                    parser.close();
+                }
+                parser = jsonFactory.createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create JSON parser", e);
+            }
+            feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        void feed(String payload) throws IOException {
+            int length = payload.length();
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            // ASCII fast path into the reused buffer; anything else is encoded normally
+            for (int i = 0; i < length; i++) {
+                char c = payload.charAt(i);
+                if (c >= 0x80) {
+                    byte[] encoded = payload.getBytes(StandardCharsets.UTF_8);
+                    feeder.feedInput(encoded, 0, encoded.length);
+                    return;
+                }
+                buffer[i] = (byte) c;
+            }
+            feeder.feedInput(buffer, 0, length);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.devsecops.ponggame.websocket;
+
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * Reusable byte buffer for writing one outbound JSON frame.
+ * Keys are written from precomputed bytes and numbers are formatted in place,
+ * so the only allocations per frame are the final payload and its {@link TextMessage}.
+ * A pooled writer goes back to its pool once {@link #end()} has copied the frame out.
+ */
+final class JsonFrameWriter {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+    private static final long MAX_FIXED_POINT = Long.MAX_VALUE / 10_000;
+
+    private final int fractionDigits;
+    private final long fractionScale;
+    private final Queue<JsonFrameWriter> pool;
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length;
+    private boolean ascii;
+
+    JsonFrameWriter(int fractionDigits) {
+        this(fractionDigits, null);
+    }
+
+    JsonFrameWriter(int fractionDigits, Queue<JsonFrameWriter> pool) {
+        this.fractionDigits = fractionDigits;
+        this.pool = pool;
+        long scale = 1;
+        for (int i = 0; i < fractionDigits; i++) scale *= 10;
+        this.fractionScale = scale;
+    }
+
+    static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Start a frame with a precomputed prefix such as {@code {"type":"pong"}
+     */
+    JsonFrameWriter begin(byte[] prefix) {
+        length = 0;
+        ascii = true;
+        return raw(prefix);
+    }
+
+    /**
+     * Append precomputed bytes, typically a key such as {@code ,"ballX":}
+     */
+    JsonFrameWriter raw(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+        return this;
+    }
+
+    JsonFrameWriter number(long value) {
+        ensureCapacity(20);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return raw(ascii(Long.toString(value)));
+            }
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int start = length;
+        do {
+            buffer[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        reverse(start, length - 1);
+        return this;
+    }
+
+    /**
+     * Fixed-point decimal, rounded to the configured fraction digits with trailing zeros trimmed
+     */
+    JsonFrameWriter number(double value) {
+        if (!Double.isFinite(value) || Math.abs(value) >= MAX_FIXED_POINT) {
+            return Double.isFinite(value) ? raw(ascii(Double.toString(value))) : number(0L);
+        }
+        long scaled = Math.round(value * fractionScale);
+        if (scaled < 0) {
+            ensureCapacity(1);
+            buffer[length++] = '-';
+            scaled = -scaled;
+        }
+        number(scaled / fractionScale);
+        long fraction = scaled % fractionScale;
+        if (fraction != 0) {
+            ensureCapacity(fractionDigits + 1);
+            buffer[length++] = '.';
+            int digits = fractionDigits;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            int end = length + digits - 1;
+            for (int i = end; i >= length; i--) {
+                buffer[i] = (byte) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            length = end + 1;
+        }
+        return this;
+    }
+
+    JsonFrameWriter string(String value) {
+        if (value == null) {
+            return raw(NULL);
+        }
+        ensureCapacity(value.length() + 2);
+        buffer[length++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                ensureCapacity(1);
+                buffer[length++] = (byte) c;
+            } else if (c == '"' || c == '\\') {
+                ensureCapacity(2);
+                buffer[length++] = '\\';
+                buffer[length++] = (byte) c;
+            } else if (c < 0x20) {
+                ensureCapacity(6);
+                buffer[length++] = '\\';
+                buffer[length++] = 'u';
+                buffer[length++] = '0';
+                buffer[length++] = '0';
+                buffer[length++] = HEX[c >> 4];
+                buffer[length++] = HEX[c & 0xF];
+            } else {
+                i = utf8(value, i);
+            }
+        }
+        ensureCapacity(1);
+        buffer[length++] = '"';
+        return this;
+    }
+
+    /**
+     * Close the object, copy the frame out of the buffer and return the writer to its pool
+     */
+    TextMessage end() {
+        ensureCapacity(1);
+        buffer[length++] = '}';
+        // ASCII frames become compact Latin-1 strings with a straight byte copy
+        String payload = ascii
+                ? new String(buffer, 0, length, StandardCharsets.ISO_8859_1)
+                : new String(buffer, 0, length, StandardCharsets.UTF_8);
+        if (pool != null) {
+            pool.offer(this); // dropped if the pool is already full
+        }
+        return new TextMessage(payload);
+    }
+
+    /**
+     * Frame bytes written so far (for constants and tests)
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private int utf8(String value, int index) {
+        ascii = false;
+        int codePoint = value.codePointAt(index);
+        ensureCapacity(4);
+        if (codePoint < 0x800) {
+            buffer[length++] = (byte) (0xC0 | (codePoint >> 6));
+            buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            buffer[length++] = (byte) (0xE0 | (codePoint >> 12));
+            buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+        return index + Character.charCount(codePoint) - 1;
+    }
+
+    private void reverse(int from, int to) {
+        while (from < to) {
+            byte tmp = buffer[from];
+            buffer[from++] = buffer[to];
+            buffer[to--] = tmp;
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.devsecops.ponggame.websocket;
+
+import com.devsecops.ponggame.model.PlayerRating;
+import com.devsecops.ponggame.service.RatingListener;
+import com.devsecops.ponggame.service.RatingService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.List;
+
+/**
+ * Leaderboard delivery. Each leaderboard published by {@link RatingService} is serialized once
+ * and the same frame is served to every reader until the next one, so a burst of requests
+ * costs no ranking or encoding work.
+ */
+@Component
+public class LeaderboardCache implements RatingListener {
+
+    private final OutboundEncoder encoder = new OutboundEncoder();
+    private final RatingService ratingService;
+
+    private volatile TextMessage current;
+
+    @Autowired
+    public LeaderboardCache(RatingService ratingService) {
+        this.ratingService = ratingService;
+        this.current = encoder.leaderboard(0, 0, List.of());
+    }
+
+    @PostConstruct
+    public void registerListener() {
+        ratingService.setListener(this);
+    }
+
+    /**
+     * Pre-serialized leaderboard as of the last refresh
+     */
+    public TextMessage current() {
+        return current;
+    }
+
+    @Override
+    public void onLeaderboardChanged(long version, List<PlayerRating> top, int players) {
+        current = encoder.leaderboard(version, players, top);
+    }
+}
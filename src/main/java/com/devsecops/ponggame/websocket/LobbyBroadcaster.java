@@ -0,0 +1,100 @@
+package com.devsecops.ponggame.websocket;
+
+import com.devsecops.ponggame.model.LobbyEntry;
+import com.devsecops.ponggame.service.LobbyListener;
+import com.devsecops.ponggame.service.LobbyService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lobby browser delivery. Every listing published by {@link LobbyService} is serialized once
+ * into pages that are shared by all REST and WebSocket readers, and its diff is encoded once
+ * and queued for every lobby subscriber. A subscriber gets the first page on subscribe and
+ * only diffs afterwards, so an idle lobby costs nothing per viewer.
+ *
+ * Subscribing and publishing hold the same lock, so each subscriber's first page and its
+ * diffs are queued in version order with no gap.
+ */
+@Component
+public class LobbyBroadcaster implements LobbyListener {
+
+    private final OutboundEncoder encoder = new OutboundEncoder();
+    private final Set<String> subscribers = ConcurrentHashMap.newKeySet();
+    private final LobbyService lobbyService;
+    private final OutboundDispatcher outboundDispatcher;
+    private final int pageSize;
+
+    private volatile TextMessage[] pages;
+
+    @Autowired
+    public LobbyBroadcaster(LobbyService lobbyService, OutboundDispatcher outboundDispatcher,
+                            MeterRegistry meterRegistry,
+                            @Value("${pong.lobby.page-size:20}") int pageSize) {
+        this.lobbyService = lobbyService;
+        this.outboundDispatcher = outboundDispatcher;
+        this.pageSize = Math.max(1, pageSize);
+        this.pages = encodePages(0, List.of());
+        Gauge.builder("pong_lobby_subscribers", subscribers, Set::size)
+            .description("WebSocket sessions receiving lobby updates")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void registerListener() {
+        lobbyService.setListener(this);
+    }
+
+    /**
+     * Start pushing lobby diffs to a session, beginning with the first page
+     */
+    public void subscribe(String sessionId) {
+        synchronized (subscribers) {
+            subscribers.add(sessionId);
+            outboundDispatcher.send(sessionId, OutboundKind.EVENT, MessageType.LOBBY_SNAPSHOT, pages[0]);
+        }
+    }
+
+    public void unsubscribe(String sessionId) {
+        subscribers.remove(sessionId);
+    }
+
+    /**
+     * Pre-serialized page of the current listing; out-of-range pages are clamped
+     */
+    public TextMessage page(int page) {
+        TextMessage[] current = pages;
+        return current[Math.max(0, Math.min(page, current.length - 1))];
+    }
+
+    @Override
+    public void onLobbyChanged(long version, List<LobbyEntry> rooms, List<LobbyEntry> added, List<String> removed) {
+        TextMessage[] nextPages = encodePages(version, rooms);
+        TextMessage diff = encoder.lobbyDiff(version, added, removed);
+        synchronized (subscribers) {
+            pages = nextPages;
+            for (String sessionId : subscribers) {
+                outboundDispatcher.send(sessionId, OutboundKind.EVENT, MessageType.LOBBY_DIFF, diff);
+            }
+        }
+    }
+
+    private TextMessage[] encodePages(long version, List<LobbyEntry> rooms) {
+        int count = Math.max(1, (rooms.size() + pageSize - 1) / pageSize);
+        TextMessage[] encoded = new TextMessage[count];
+        for (int page = 0; page < count; page++) {
+            int from = page * pageSize;
+            encoded[page] = encoder.lobbySnapshot(version, page, count, rooms,
+                    from, Math.min(from + pageSize, rooms.size()));
+        }
+        return encoded;
+    }
+}
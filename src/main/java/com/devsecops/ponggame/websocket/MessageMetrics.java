@@ -0,0 +1,96 @@
+package com.devsecops.ponggame.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message-type handler timing, inbound bytes and relay latency.
+ * Meters are built once per {@link MessageType} and looked up by ordinal, so cardinality is
+ * bounded by the enum and the hot path costs a clock read and an array index.
+ */
+@Component
+public class MessageMetrics {
+
+    private final Timer[] handlerTimers = new Timer[MessageType.values().length];
+    private final Counter[] inboundBytes = new Counter[MessageType.values().length];
+    private final Timer chatRelay;
+
+    @Autowired
+    public MessageMetrics(MeterRegistry meterRegistry) {
+        for (MessageType type : MessageType.values()) {
+            if (!type.isInbound()) {
+                continue; // outbound bytes are counted by the OutboundDispatcher
+            }
+            handlerTimers[type.ordinal()] = Timer.builder("pong_ws_handler")
+                .description("Time spent handling an inbound WebSocket message")
+                .tag("type", type.getWireName())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(meterRegistry);
+            inboundBytes[type.ordinal()] = Counter.builder("pong_ws_inbound_bytes_total")
+                .description("Inbound WebSocket payload bytes")
+                .tag("type", type.getWireName())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        }
+        // The game loop records the paddle_move series of the same timer
+        chatRelay = Timer.builder("pong_ws_relay_latency")
+            .description("Time from receiving a message to handing the relayed frame to the opponent's queue")
+            .tag("type", MessageType.CHAT.getWireName())
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofNanos(1_000))
+            .maximumExpectedValue(Duration.ofSeconds(1))
+            .register(meterRegistry);
+    }
+
+    void recordInbound(MessageType type, int bytes, long startNanos) {
+        handlerTimers[type.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        inboundBytes[type.ordinal()].increment(bytes);
+    }
+
+    void recordChatRelay(long receivedNanos) {
+        chatRelay.record(System.nanoTime() - receivedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Payload size on the wire without encoding the text (TextMessage.getPayloadLength would)
+     */
+    static int payloadBytes(WebSocketMessage<?> message) {
+        if (message instanceof BinaryMessage binary) {
+            return binary.getPayloadLength();
+        }
+        if (message instanceof TextMessage text) {
+            return utf8Length(text.getPayload());
+        }
+        return message.getPayloadLength();
+    }
+
+    static int utf8Length(String text) {
+        int length = text.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    bytes += 2; // 4 bytes for the pair of 2 chars
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                } // an unpaired surrogate is encoded as '?'
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,119 @@
+package com.devsecops.ponggame.websocket;
+
+/**
+ * WebSocket message types. Inbound types are matched against the JSON "type" field without
+ * allocating; outbound types travel with each queued frame so bytes written are counted per type.
+ */
+public enum MessageType {
+    CREATE_ROOM("create_room"),
+    JOIN_ROOM("join_room"),
+    PADDLE_MOVE("paddle_move"),
+    GAME_START("game_start"),
+    GAME_STATE("game_state"),
+    PING("ping"),
+    SCORE_UPDATE("score_update"),
+    GAME_OVER("game_over"),
+    CHAT("chat"),
+    SPAWN_POWERUP("spawn_powerup"),
+    COLLECT_POWERUP("collect_powerup"),
+    QUICK_MATCH("quick_match"),
+    SPECTATE("spectate"),
+    STOP_SPECTATING("stop_spectating"),
+    LOBBY_SUBSCRIBE("lobby_subscribe"),
+    LOBBY_UNSUBSCRIBE("lobby_unsubscribe"),
+    REPLAY("replay"),
+    STOP_REPLAY("stop_replay"),
+    RESUME("resume"),
+    /** Binary only (see {@link BinaryProtocol#SNAPSHOT_ACK}), so never matched from JSON */
+    SNAPSHOT_ACK("snapshot_ack"),
+    UNKNOWN("unknown"),
+
+    ROOM_CREATED(Direction.OUTBOUND, "room_created"),
+    ROOM_JOINED(Direction.OUTBOUND, "room_joined"),
+    OPPONENT_JOINED(Direction.OUTBOUND, "opponent_joined"),
+    OPPONENT_DISCONNECTED(Direction.OUTBOUND, "opponent_disconnected"),
+    OPPONENT_PADDLE(Direction.OUTBOUND, "opponent_paddle"),
+    /** JSON, binary and delta-encoded ball snapshots */
+    BALL_STATE(Direction.OUTBOUND, "ball_state"),
+    GAME_STARTED(Direction.OUTBOUND, "game_started"),
+    SCORE_UPDATED(Direction.OUTBOUND, "score_updated"),
+    GAME_ENDED(Direction.OUTBOUND, "game_ended"),
+    PONG(Direction.OUTBOUND, "pong"),
+    CHAT_MESSAGE(Direction.OUTBOUND, "chat_message"),
+    POWERUP_SPAWN(Direction.OUTBOUND, "powerup_spawn"),
+    POWERUP_COLLECTED(Direction.OUTBOUND, "powerup_collected"),
+    POWERUP_EXPIRED(Direction.OUTBOUND, "powerup_expired"),
+    MATCHMAKING_QUEUED(Direction.OUTBOUND, "matchmaking_queued"),
+    MATCH_FOUND(Direction.OUTBOUND, "match_found"),
+    SPECTATING(Direction.OUTBOUND, "spectating"),
+    SPECTATE_ENDED(Direction.OUTBOUND, "spectate_ended"),
+    LOBBY_SNAPSHOT(Direction.OUTBOUND, "lobby_snapshot"),
+    LOBBY_DIFF(Direction.OUTBOUND, "lobby_diff"),
+    REPLAY_STARTED(Direction.OUTBOUND, "replay_started"),
+    /** Binary replay log records */
+    REPLAY_RECORD(Direction.OUTBOUND, "replay_record"),
+    REPLAY_ENDED(Direction.OUTBOUND, "replay_ended"),
+    RESUME_TOKEN(Direction.OUTBOUND, "resume_token"),
+    ROOM_RESUMED(Direction.OUTBOUND, "room_resumed"),
+    RESUME_FAILED(Direction.OUTBOUND, "resume_failed"),
+    REDIRECT(Direction.OUTBOUND, "redirect"),
+    ERROR(Direction.OUTBOUND, "error");
+
+    public enum Direction {
+        INBOUND,
+        OUTBOUND
+    }
+
+    private static final MessageType[] KNOWN = {
+        CREATE_ROOM, JOIN_ROOM, PADDLE_MOVE, GAME_START, GAME_STATE, PING,
+        SCORE_UPDATE, GAME_OVER, CHAT, SPAWN_POWERUP, COLLECT_POWERUP, QUICK_MATCH,
+        SPECTATE, STOP_SPECTATING, LOBBY_SUBSCRIBE, LOBBY_UNSUBSCRIBE, REPLAY, STOP_REPLAY,
+        RESUME
+    };
+
+    private final Direction direction;
+    private final String wireName;
+    private final char[] wireChars;
+
+    MessageType(String wireName) {
+        this(Direction.INBOUND, wireName);
+    }
+
+    MessageType(Direction direction, String wireName) {
+        this.direction = direction;
+        this.wireName = wireName;
+        this.wireChars = wireName.toCharArray();
+    }
+
+    public String getWireName() {
+        return wireName;
+    }
+
+    public boolean isInbound() {
+        return direction == Direction.INBOUND;
+    }
+
+    /**
+     * Resolve a type from a slice of the parser's character buffer
+     */
+    public static MessageType fromChars(char[] chars, int offset, int length) {
+        for (MessageType type : KNOWN) {
+            if (type.matches(chars, offset, length)) {
+                return type;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private boolean matches(char[] chars, int offset, int length) {
+        if (wireChars.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (wireChars[i] != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,222 @@
+package com.devsecops.ponggame.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the per-session outbound queues and the flush threads that drain them.
+ * With {@code spring.threads.virtual.enabled} (Java 21) each flush runs on its own virtual thread,
+ * so a blocking send parks instead of holding one of a fixed pool of platform threads.
+ * Exposes queue depth, drop counts per {@link OutboundKind} and bytes written per
+ * {@link MessageType} as Prometheus metrics.
+ */
+@Component
+public class OutboundDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundDispatcher.class);
+
+    static final String REASON_SUPERSEDED = "superseded";
+    static final String REASON_OVERFLOW = "overflow";
+
+    // Tomcat user property bounding how long a blocking send may stall a flush thread
+    private static final String TOMCAT_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final Map<String, OutboundQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicLong queuedFrames = new AtomicLong(0);
+    private final Counter[] supersededCounters = new Counter[OutboundKind.values().length];
+    private final Counter[] overflowCounters = new Counter[OutboundKind.values().length];
+    private final Counter[] sentBytesCounters = new Counter[MessageType.values().length];
+    private final Counter slowDisconnectCounter;
+    private final Executor flushExecutor;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long sendTimeoutMs;
+
+    OutboundDispatcher(MeterRegistry meterRegistry, int capacity, OverflowPolicy overflowPolicy,
+                       int flushThreads, long sendTimeoutMs) {
+        this(meterRegistry, capacity, overflowPolicy, flushThreads, sendTimeoutMs, false);
+    }
+
+    @Autowired
+    public OutboundDispatcher(MeterRegistry meterRegistry,
+                              @Value("${pong.ws.outbound.capacity:256}") int capacity,
+                              @Value("${pong.ws.outbound.overflow-policy:DISCONNECT}") OverflowPolicy overflowPolicy,
+                              @Value("${pong.ws.outbound.flush-threads:0}") int flushThreads,
+                              @Value("${pong.ws.outbound.send-timeout-ms:2000}") long sendTimeoutMs,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.sendTimeoutMs = sendTimeoutMs;
+
+        if (virtualThreads) {
+            // Fails fast below Java 21; flush-threads does not apply
+            SimpleAsyncTaskExecutor perFlush = new SimpleAsyncTaskExecutor("ws-flush-");
+            perFlush.setVirtualThreads(true);
+            this.flushExecutor = perFlush;
+        } else {
+            int threads = flushThreads > 0 ? flushThreads : Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+            AtomicInteger threadCount = new AtomicInteger();
+            this.flushExecutor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "ws-flush-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        Gauge.builder("pong_ws_outbound_queue_depth", queuedFrames, AtomicLong::get)
+            .description("Frames waiting in WebSocket outbound queues")
+            .register(meterRegistry);
+        Gauge.builder("pong_ws_outbound_sessions", queues, Map::size)
+            .description("WebSocket sessions with an outbound queue")
+            .register(meterRegistry);
+
+        for (OutboundKind kind : OutboundKind.values()) {
+            supersededCounters[kind.ordinal()] = Counter.builder("pong_ws_outbound_dropped_total")
+                .description("Outbound frames dropped before being sent")
+                .tag("kind", kind.tagValue())
+                .tag("reason", REASON_SUPERSEDED)
+                .register(meterRegistry);
+            overflowCounters[kind.ordinal()] = Counter.builder("pong_ws_outbound_dropped_total")
+                .description("Outbound frames dropped before being sent")
+                .tag("kind", kind.tagValue())
+                .tag("reason", REASON_OVERFLOW)
+                .register(meterRegistry);
+        }
+        for (MessageType type : MessageType.values()) {
+            if (type.isInbound()) {
+                continue;
+            }
+            sentBytesCounters[type.ordinal()] = Counter.builder("pong_ws_outbound_bytes_total")
+                .description("Outbound WebSocket payload bytes written to sessions")
+                .tag("type", type.getWireName())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        }
+        slowDisconnectCounter = Counter.builder("pong_ws_slow_consumer_disconnects_total")
+            .description("Sessions closed because their outbound queue overflowed or a send failed")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushExecutor instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        } else if (flushExecutor instanceof SimpleAsyncTaskExecutor perFlush) {
+            perFlush.close(); // rejects further flushes
+        }
+    }
+
+    /**
+     * Create the outbound queue for a newly connected session
+     */
+    public void register(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession
+                && nativeSession.getNativeSession() instanceof jakarta.websocket.Session endpointSession) {
+            endpointSession.getUserProperties().put(TOMCAT_SEND_TIMEOUT, sendTimeoutMs);
+        }
+        queues.put(session.getId(), new OutboundQueue(session, this));
+    }
+
+    /**
+     * Drop the queue of a closed session
+     */
+    public void unregister(String sessionId) {
+        OutboundQueue queue = queues.remove(sessionId);
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    /**
+     * Queue a frame of an outbound {@code type} for a session without blocking. Returns false if it was not queued.
+     */
+    public boolean send(String sessionId, OutboundKind kind, MessageType type, WebSocketMessage<?> message) {
+        OutboundQueue queue = sessionId != null ? queues.get(sessionId) : null;
+        return queue != null && queue.offer(kind, type, message);
+    }
+
+    /**
+     * Session with an outbound queue, or null if not connected
+     */
+    public WebSocketSession getSession(String sessionId) {
+        OutboundQueue queue = sessionId != null ? queues.get(sessionId) : null;
+        return queue != null ? queue.getSession() : null;
+    }
+
+    /**
+     * Frames currently queued for a session
+     */
+    public int getQueueDepth(String sessionId) {
+        OutboundQueue queue = queues.get(sessionId);
+        return queue != null ? queue.depth() : 0;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    void schedule(Runnable flush) {
+        try {
+            flushExecutor.execute(flush);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Flush rejected during shutdown");
+        }
+    }
+
+    void recordDrop(OutboundKind kind, String reason) {
+        Counter[] counters = REASON_SUPERSEDED.equals(reason) ? supersededCounters : overflowCounters;
+        counters[kind.ordinal()].increment();
+    }
+
+    void recordSent(MessageType type, WebSocketMessage<?> message) {
+        sentBytesCounters[type.ordinal()].increment(MessageMetrics.payloadBytes(message));
+    }
+
+    void adjustQueuedFrames(long delta) {
+        queuedFrames.addAndGet(delta);
+    }
+
+    void closeSlowSession(OutboundQueue queue) {
+        schedule(() -> closeSession(queue, CloseStatus.SESSION_NOT_RELIABLE));
+    }
+
+    void closeSession(OutboundQueue queue, CloseStatus status) {
+        queue.close();
+        slowDisconnectCounter.increment();
+        WebSocketSession session = queue.getSession();
+        try {
+            if (session.isOpen()) {
+                session.close(status);
+            }
+        } catch (IOException e) {
+            logger.debug("Error closing slow session {}: {}", session.getId(), e.getMessage());
+        }
+        logger.warn("Closed slow WebSocket session {}", session.getId());
+    }
+}
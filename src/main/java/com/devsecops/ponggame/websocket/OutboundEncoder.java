@@ -0,0 +1,415 @@
+package com.devsecops.ponggame.websocket;
+
+import com.devsecops.ponggame.model.LobbyEntry;
+import com.devsecops.ponggame.model.PlayerRating;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static com.devsecops.ponggame.websocket.JsonFrameWriter.ascii;
+
+/**
+ * Writers for every outbound JSON message type.
+ * Each writer emits its fields in a fixed order from precomputed key bytes into a
+ * {@link JsonFrameWriter} borrowed from a bounded pool, replacing {@code ObjectNode.toString()}.
+ * The pool is shared by all threads, so encoding on a fresh virtual thread reuses a warm buffer.
+ * Positions and velocities are written with three decimals.
+ */
+public final class OutboundEncoder {
+
+    private static final int FRACTION_DIGITS = 3;
+
+    // Type prefixes
+    private static final byte[] ROOM_CREATED = ascii("{\"type\":\"room_created\"");
+    private static final byte[] ROOM_JOINED = ascii("{\"type\":\"room_joined\"");
+    private static final byte[] OPPONENT_JOINED = ascii("{\"type\":\"opponent_joined\"");
+    private static final byte[] OPPONENT_PADDLE = ascii("{\"type\":\"opponent_paddle\"");
+    private static final byte[] BALL_STATE = ascii("{\"type\":\"ball_state\"");
+    private static final byte[] GAME_STARTED = ascii("{\"type\":\"game_started\"");
+    private static final byte[] SCORE_UPDATED = ascii("{\"type\":\"score_updated\"");
+    private static final byte[] GAME_ENDED = ascii("{\"type\":\"game_ended\"");
+    private static final byte[] PONG = ascii("{\"type\":\"pong\"");
+    private static final byte[] CHAT_MESSAGE = ascii("{\"type\":\"chat_message\"");
+    private static final byte[] POWERUP_SPAWN = ascii("{\"type\":\"powerup_spawn\"");
+    private static final byte[] POWERUP_COLLECTED = ascii("{\"type\":\"powerup_collected\"");
+    private static final byte[] POWERUP_EXPIRED = ascii("{\"type\":\"powerup_expired\"");
+    private static final byte[] MATCH_FOUND = ascii("{\"type\":\"match_found\"");
+    private static final byte[] SPECTATING = ascii("{\"type\":\"spectating\"");
+    private static final byte[] LOBBY_SNAPSHOT = ascii("{\"type\":\"lobby_snapshot\"");
+    private static final byte[] LOBBY_DIFF = ascii("{\"type\":\"lobby_diff\"");
+    private static final byte[] REPLAY_STARTED = ascii("{\"type\":\"replay_started\"");
+    private static final byte[] REPLAY_ENDED = ascii("{\"type\":\"replay_ended\"");
+    private static final byte[] RESUME_TOKEN = ascii("{\"type\":\"resume_token\"");
+    private static final byte[] ROOM_RESUMED = ascii("{\"type\":\"room_resumed\"");
+    private static final byte[] REDIRECT = ascii("{\"type\":\"redirect\"");
+    private static final byte[] LEADERBOARD = ascii("{\"type\":\"leaderboard\"");
+    private static final byte[] ERROR = ascii("{\"type\":\"error\"");
+
+    // Keys
+    private static final byte[] ROOM_CODE = ascii(",\"roomCode\":");
+    private static final byte[] PLAYER_NUMBER = ascii(",\"playerNumber\":");
+    private static final byte[] PLAYER_NAME = ascii(",\"playerName\":");
+    private static final byte[] OPPONENT_NAME = ascii(",\"opponentName\":");
+    private static final byte[] ROOM_FULL_TRUE = ascii(",\"roomFull\":true");
+    private static final byte[] PADDLE_Y = ascii(",\"paddleY\":");
+    private static final byte[] TIMESTAMP = ascii(",\"timestamp\":");
+    private static final byte[] BALL_X = ascii(",\"ballX\":");
+    private static final byte[] BALL_Y = ascii(",\"ballY\":");
+    private static final byte[] BALL_DX = ascii(",\"ballDx\":");
+    private static final byte[] BALL_DY = ascii(",\"ballDy\":");
+    private static final byte[] PLAYER1_Y = ascii(",\"player1Y\":");
+    private static final byte[] PLAYER2_Y = ascii(",\"player2Y\":");
+    private static final byte[] PLAYER1_INPUT_SEQ = ascii(",\"player1InputSeq\":");
+    private static final byte[] PLAYER2_INPUT_SEQ = ascii(",\"player2InputSeq\":");
+    private static final byte[] PLAYER1_NAME = ascii(",\"player1Name\":");
+    private static final byte[] PLAYER2_NAME = ascii(",\"player2Name\":");
+    private static final byte[] RUNNING_TRUE = ascii(",\"running\":true");
+    private static final byte[] RUNNING_FALSE = ascii(",\"running\":false");
+    private static final byte[] PLAYER1_SCORE = ascii(",\"player1Score\":");
+    private static final byte[] PLAYER2_SCORE = ascii(",\"player2Score\":");
+    private static final byte[] SCORER = ascii(",\"scorer\":");
+    private static final byte[] WINNER = ascii(",\"winner\":");
+    private static final byte[] CLIENT_TIMESTAMP = ascii(",\"clientTimestamp\":");
+    private static final byte[] SERVER_TIMESTAMP = ascii(",\"serverTimestamp\":");
+    private static final byte[] PLAYER1_LATENCY = ascii(",\"player1Latency\":");
+    private static final byte[] PLAYER2_LATENCY = ascii(",\"player2Latency\":");
+    private static final byte[] SENDER = ascii(",\"sender\":");
+    private static final byte[] MESSAGE = ascii(",\"message\":");
+    private static final byte[] POWERUP_TYPE = ascii(",\"powerupType\":");
+    private static final byte[] X = ascii(",\"x\":");
+    private static final byte[] Y = ascii(",\"y\":");
+    private static final byte[] ID = ascii(",\"id\":");
+    private static final byte[] PLAYER1_PADDLE_HEIGHT = ascii(",\"player1PaddleHeight\":");
+    private static final byte[] PLAYER2_PADDLE_HEIGHT = ascii(",\"player2PaddleHeight\":");
+    private static final byte[] DURATION_MS = ascii(",\"durationMs\":");
+    private static final byte[] VERSION = ascii(",\"version\":");
+    private static final byte[] PAGE = ascii(",\"page\":");
+    private static final byte[] PAGES = ascii(",\"pages\":");
+    private static final byte[] TOTAL = ascii(",\"total\":");
+    private static final byte[] ROOMS = ascii(",\"rooms\":[");
+    private static final byte[] ADDED = ascii(",\"added\":[");
+    private static final byte[] REMOVED = ascii(",\"removed\":[");
+    private static final byte[] ENTRY_ROOM_CODE = ascii("{\"roomCode\":");
+    private static final byte[] HOST_NAME = ascii(",\"hostName\":");
+    private static final byte[] CREATED_AT = ascii(",\"createdAt\":");
+    private static final byte[] MATCH_ID = ascii(",\"matchId\":");
+    private static final byte[] SPEED = ascii(",\"speed\":");
+    private static final byte[] TOKEN = ascii(",\"token\":");
+    private static final byte[] ACTION = ascii(",\"action\":");
+    private static final byte[] URL = ascii(",\"url\":");
+    private static final byte[] PLAYERS = ascii(",\"players\":");
+    private static final byte[] ENTRIES = ascii(",\"entries\":[");
+    private static final byte[] ENTRY_RANK = ascii("{\"rank\":");
+    private static final byte[] RATING = ascii(",\"rating\":");
+    private static final byte[] GAMES = ascii(",\"games\":");
+    private static final byte[] WINS = ascii(",\"wins\":");
+    private static final byte[] COMMA = ascii(",");
+    private static final byte[] OBJECT_END = ascii("}");
+    private static final byte[] ARRAY_END = ascii("]");
+
+    // Messages without fields are encoded once and shared
+    private static final TextMessage OPPONENT_DISCONNECTED_FRAME =
+            new TextMessage("{\"type\":\"opponent_disconnected\"}");
+    private static final TextMessage MATCHMAKING_QUEUED_FRAME =
+            new TextMessage("{\"type\":\"matchmaking_queued\"}");
+    private static final TextMessage SPECTATE_ENDED_FRAME =
+            new TextMessage("{\"type\":\"spectate_ended\"}");
+    private static final TextMessage RESUME_FAILED_FRAME =
+            new TextMessage("{\"type\":\"resume_failed\"}");
+
+    private final BlockingQueue<JsonFrameWriter> writers;
+
+    public OutboundEncoder() {
+        this(Math.max(8, Runtime.getRuntime().availableProcessors() * 4));
+    }
+
+    OutboundEncoder(int poolSize) {
+        this.writers = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    public TextMessage roomCreated(String roomCode, int playerNumber, String playerName) {
+        return writer().begin(ROOM_CREATED)
+                .raw(ROOM_CODE).string(roomCode)
+                .raw(PLAYER_NUMBER).number(playerNumber)
+                .raw(PLAYER_NAME).string(playerName)
+                .end();
+    }
+
+    public TextMessage roomJoined(String roomCode, int playerNumber, String playerName, String opponentName) {
+        return writer().begin(ROOM_JOINED)
+                .raw(ROOM_CODE).string(roomCode)
+                .raw(PLAYER_NUMBER).number(playerNumber)
+                .raw(PLAYER_NAME).string(playerName)
+                .raw(OPPONENT_NAME).string(opponentName)
+                .end();
+    }
+
+    public TextMessage opponentJoined(String opponentName) {
+        return writer().begin(OPPONENT_JOINED)
+                .raw(OPPONENT_NAME).string(opponentName)
+                .raw(ROOM_FULL_TRUE)
+                .end();
+    }
+
+    public TextMessage opponentDisconnected() {
+        return OPPONENT_DISCONNECTED_FRAME;
+    }
+
+    public TextMessage opponentPaddle(double paddleY, long timestamp) {
+        return writer().begin(OPPONENT_PADDLE)
+                .raw(PADDLE_Y).number(paddleY)
+                .raw(TIMESTAMP).number(timestamp)
+                .end();
+    }
+
+    public TextMessage ballState(double ballX, double ballY, double ballDx, double ballDy,
+                                 double player1Y, double player2Y, long timestamp,
+                                 int player1InputSeq, int player2InputSeq) {
+        return writer().begin(BALL_STATE)
+                .raw(BALL_X).number(ballX)
+                .raw(BALL_Y).number(ballY)
+                .raw(BALL_DX).number(ballDx)
+                .raw(BALL_DY).number(ballDy)
+                .raw(PLAYER1_Y).number(player1Y)
+                .raw(PLAYER2_Y).number(player2Y)
+                .raw(TIMESTAMP).number(timestamp)
+                .raw(PLAYER1_INPUT_SEQ).number(player1InputSeq)
+                .raw(PLAYER2_INPUT_SEQ).number(player2InputSeq)
+                .end();
+    }
+
+    public TextMessage gameStarted(long timestamp) {
+        return writer().begin(GAME_STARTED)
+                .raw(TIMESTAMP).number(timestamp)
+                .end();
+    }
+
+    public TextMessage scoreUpdated(int player1Score, int player2Score, int scorer) {
+        return writer().begin(SCORE_UPDATED)
+                .raw(PLAYER1_SCORE).number(player1Score)
+                .raw(PLAYER2_SCORE).number(player2Score)
+                .raw(SCORER).number(scorer)
+                .end();
+    }
+
+    public TextMessage gameEnded(int winner, int player1Score, int player2Score) {
+        return writer().begin(GAME_ENDED)
+                .raw(WINNER).number(winner)
+                .raw(PLAYER1_SCORE).number(player1Score)
+                .raw(PLAYER2_SCORE).number(player2Score)
+                .end();
+    }
+
+    public TextMessage pong(long clientTimestamp, long serverTimestamp) {
+        return writer().begin(PONG)
+                .raw(CLIENT_TIMESTAMP).number(clientTimestamp)
+                .raw(SERVER_TIMESTAMP).number(serverTimestamp)
+                .end();
+    }
+
+    public TextMessage pong(long clientTimestamp, long serverTimestamp, long player1Latency, long player2Latency) {
+        return writer().begin(PONG)
+                .raw(CLIENT_TIMESTAMP).number(clientTimestamp)
+                .raw(SERVER_TIMESTAMP).number(serverTimestamp)
+                .raw(PLAYER1_LATENCY).number(player1Latency)
+                .raw(PLAYER2_LATENCY).number(player2Latency)
+                .end();
+    }
+
+    public TextMessage chatMessage(String sender, String message) {
+        return writer().begin(CHAT_MESSAGE)
+                .raw(SENDER).string(sender)
+                .raw(MESSAGE).string(message)
+                .end();
+    }
+
+    public TextMessage powerupSpawn(String powerupType, double x, double y, long id) {
+        return writer().begin(POWERUP_SPAWN)
+                .raw(POWERUP_TYPE).string(powerupType)
+                .raw(X).number(x)
+                .raw(Y).number(y)
+                .raw(ID).number(id)
+                .end();
+    }
+
+    public TextMessage powerupCollected(int playerNumber, String powerupType, double player1PaddleHeight,
+                                        double player2PaddleHeight, long durationMs) {
+        return writer().begin(POWERUP_COLLECTED)
+                .raw(PLAYER_NUMBER).number(playerNumber)
+                .raw(POWERUP_TYPE).string(powerupType)
+                .raw(PLAYER1_PADDLE_HEIGHT).number(player1PaddleHeight)
+                .raw(PLAYER2_PADDLE_HEIGHT).number(player2PaddleHeight)
+                .raw(DURATION_MS).number(durationMs)
+                .end();
+    }
+
+    public TextMessage powerupExpired(double player1PaddleHeight, double player2PaddleHeight) {
+        return writer().begin(POWERUP_EXPIRED)
+                .raw(PLAYER1_PADDLE_HEIGHT).number(player1PaddleHeight)
+                .raw(PLAYER2_PADDLE_HEIGHT).number(player2PaddleHeight)
+                .end();
+    }
+
+    public TextMessage matchmakingQueued() {
+        return MATCHMAKING_QUEUED_FRAME;
+    }
+
+    public TextMessage matchFound(String roomCode, int playerNumber, String playerName, String opponentName) {
+        return writer().begin(MATCH_FOUND)
+                .raw(ROOM_CODE).string(roomCode)
+                .raw(PLAYER_NUMBER).number(playerNumber)
+                .raw(PLAYER_NAME).string(playerName)
+                .raw(OPPONENT_NAME).string(opponentName)
+                .end();
+    }
+
+    public TextMessage spectating(String roomCode, String player1Name, String player2Name,
+                                  int player1Score, int player2Score, boolean running) {
+        JsonFrameWriter writer = writer().begin(SPECTATING)
+                .raw(ROOM_CODE).string(roomCode)
+                .raw(PLAYER1_NAME).string(player1Name)
+                .raw(PLAYER2_NAME).string(player2Name)
+                .raw(PLAYER1_SCORE).number(player1Score)
+                .raw(PLAYER2_SCORE).number(player2Score);
+        return writer.raw(running ? RUNNING_TRUE : RUNNING_FALSE).end();
+    }
+
+    public TextMessage spectateEnded() {
+        return SPECTATE_ENDED_FRAME;
+    }
+
+    /**
+     * Sent before the first record of a replay; speed 0 means as fast as the connection allows
+     */
+    public TextMessage replayStarted(long matchId, String roomCode, String player1Name, String player2Name,
+                                     double speed) {
+        return writer().begin(REPLAY_STARTED)
+                .raw(MATCH_ID).number(matchId)
+                .raw(ROOM_CODE).string(roomCode)
+                .raw(PLAYER1_NAME).string(player1Name)
+                .raw(PLAYER2_NAME).string(player2Name)
+                .raw(SPEED).number(speed)
+                .end();
+    }
+
+    public TextMessage replayEnded(long matchId) {
+        return writer().begin(REPLAY_ENDED)
+                .raw(MATCH_ID).number(matchId)
+                .end();
+    }
+
+    /**
+     * One page of the lobby listing: {@code rooms[from, to)}
+     */
+    public TextMessage lobbySnapshot(long version, int page, int pages, List<LobbyEntry> rooms, int from, int to) {
+        JsonFrameWriter writer = writer().begin(LOBBY_SNAPSHOT)
+                .raw(VERSION).number(version)
+                .raw(PAGE).number(page)
+                .raw(PAGES).number(pages)
+                .raw(TOTAL).number(rooms.size())
+                .raw(ROOMS);
+        for (int i = from; i < to; i++) {
+            lobbyEntry(i > from ? writer.raw(COMMA) : writer, rooms.get(i));
+        }
+        return writer.raw(ARRAY_END).end();
+    }
+
+    public TextMessage lobbyDiff(long version, List<LobbyEntry> added, List<String> removed) {
+        JsonFrameWriter writer = writer().begin(LOBBY_DIFF)
+                .raw(VERSION).number(version)
+                .raw(ADDED);
+        for (int i = 0; i < added.size(); i++) {
+            lobbyEntry(i > 0 ? writer.raw(COMMA) : writer, added.get(i));
+        }
+        writer.raw(ARRAY_END).raw(REMOVED);
+        for (int i = 0; i < removed.size(); i++) {
+            (i > 0 ? writer.raw(COMMA) : writer).string(removed.get(i));
+        }
+        return writer.raw(ARRAY_END).end();
+    }
+
+    private static void lobbyEntry(JsonFrameWriter writer, LobbyEntry entry) {
+        writer.raw(ENTRY_ROOM_CODE).string(entry.getRoomCode())
+                .raw(HOST_NAME).string(entry.getHostName())
+                .raw(CREATED_AT).number(entry.getCreatedAt())
+                .raw(OBJECT_END);
+    }
+
+    /**
+     * Token the client keeps to reclaim its slot after a server restart
+     */
+    public TextMessage resumeToken(String roomCode, String token) {
+        return writer().begin(RESUME_TOKEN)
+                .raw(ROOM_CODE).string(roomCode)
+                .raw(TOKEN).string(token)
+                .end();
+    }
+
+    public TextMessage roomResumed(String roomCode, int playerNumber, String playerName, String opponentName,
+                                   int player1Score, int player2Score, boolean running) {
+        return writer().begin(ROOM_RESUMED)
+                .raw(ROOM_CODE).string(roomCode)
+                .raw(PLAYER_NUMBER).number(playerNumber)
+                .raw(PLAYER_NAME).string(playerName)
+                .raw(OPPONENT_NAME).string(opponentName)
+                .raw(PLAYER1_SCORE).number(player1Score)
+                .raw(PLAYER2_SCORE).number(player2Score)
+                .raw(running ? RUNNING_TRUE : RUNNING_FALSE)
+                .end();
+    }
+
+    public TextMessage resumeFailed() {
+        return RESUME_FAILED_FRAME;
+    }
+
+    /**
+     * The room lives on another node: reconnect to {@code url} and repeat {@code action} there
+     */
+    public TextMessage redirect(String roomCode, String action, String url) {
+        return writer().begin(REDIRECT)
+                .raw(ROOM_CODE).string(roomCode)
+                .raw(ACTION).string(action)
+                .raw(URL).string(url)
+                .end();
+    }
+
+    /**
+     * Top of the rating table, best first; equal whole-point ratings share a rank
+     */
+    public TextMessage leaderboard(long version, int players, List<PlayerRating> top) {
+        JsonFrameWriter writer = writer().begin(LEADERBOARD)
+                .raw(VERSION).number(version)
+                .raw(PLAYERS).number(players)
+                .raw(ENTRIES);
+        int rank = 0;
+        for (int i = 0; i < top.size(); i++) {
+            PlayerRating entry = top.get(i);
+            if (i == 0 || entry.getPoints() != top.get(i - 1).getPoints()) {
+                rank = i + 1;
+            }
+            (i > 0 ? writer.raw(COMMA) : writer).raw(ENTRY_RANK).number(rank)
+                    .raw(PLAYER_NAME).string(entry.getPlayerName())
+                    .raw(RATING).number(entry.getPoints())
+                    .raw(GAMES).number(entry.getGames())
+                    .raw(WINS).number(entry.getWins())
+                    .raw(OBJECT_END);
+        }
+        return writer.raw(ARRAY_END).end();
+    }
+
+    public TextMessage error(String message) {
+        return writer().begin(ERROR)
+                .raw(MESSAGE).string(message)
+                .end();
+    }
+
+    /**
+     * Borrow a writer; {@link JsonFrameWriter#end()} hands it back
+     */
+    private JsonFrameWriter writer() {
+        JsonFrameWriter writer = writers.poll();
+        return writer != null ? writer : new JsonFrameWriter(FRACTION_DIGITS, writers);
+    }
+}
@@ -0,0 +1,43 @@
+package com.devsecops.ponggame.websocket;
+
+/**
+ * Classifies outbound frames for the per-session send queue.
+ * State frames are superseded by the next one of the same kind; events and chat are queued in order.
+ */
+public enum OutboundKind {
+    /** Opponent paddle position - only the latest matters */
+    OPPONENT_PADDLE(Lane.STATE),
+    /** Ball snapshot - only the latest matters */
+    BALL_STATE(Lane.STATE),
+    /** Score, game start/over, room and power-up events - never superseded */
+    EVENT(Lane.CRITICAL),
+    /** Chat messages - delivered after game traffic */
+    CHAT(Lane.BULK);
+
+    /**
+     * Priority lanes, drained in declaration order
+     */
+    public enum Lane {
+        CRITICAL,
+        STATE,
+        BULK
+    }
+
+    private final Lane lane;
+
+    OutboundKind(Lane lane) {
+        this.lane = lane;
+    }
+
+    public Lane getLane() {
+        return lane;
+    }
+
+    public boolean isSuperseding() {
+        return lane == Lane.STATE;
+    }
+
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,191 @@
+package com.devsecops.ponggame.websocket;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded outbound queue for one WebSocket session.
+ * Producers never block: they enqueue and schedule a flush on the dispatcher's executor,
+ * and only that flush task writes to the session, so sends are serialized.
+ * Each frame is queued with its {@link MessageType}, held in a parallel deque (or array, for
+ * state frames) so tagging it costs no allocation.
+ */
+class OutboundQueue {
+
+    private static final int MAX_FRAMES_PER_FLUSH = 64;
+
+    private final WebSocketSession session;
+    private final OutboundDispatcher dispatcher;
+    private final ArrayDeque<WebSocketMessage<?>> critical = new ArrayDeque<>();
+    private final ArrayDeque<MessageType> criticalTypes = new ArrayDeque<>();
+    private final ArrayDeque<WebSocketMessage<?>> bulk = new ArrayDeque<>();
+    private final ArrayDeque<MessageType> bulkTypes = new ArrayDeque<>();
+    private final WebSocketMessage<?>[] latestState = new WebSocketMessage<?>[OutboundKind.values().length];
+    private final MessageType[] latestStateTypes = new MessageType[OutboundKind.values().length];
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private int depth;
+    private boolean closed;
+    private MessageType polledType;
+
+    OutboundQueue(WebSocketSession session, OutboundDispatcher dispatcher) {
+        this.session = session;
+        this.dispatcher = dispatcher;
+    }
+
+    WebSocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * Queue a frame. Returns false if it was dropped.
+     */
+    boolean offer(OutboundKind kind, MessageType type, WebSocketMessage<?> message) {
+        boolean overflow = false;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (kind.isSuperseding()) {
+                if (latestState[kind.ordinal()] != null) {
+                    dispatcher.recordDrop(kind, OutboundDispatcher.REASON_SUPERSEDED);
+                } else {
+                    incrementDepth();
+                }
+                latestState[kind.ordinal()] = message;
+                latestStateTypes[kind.ordinal()] = type;
+            } else {
+                boolean isCritical = kind.getLane() == OutboundKind.Lane.CRITICAL;
+                ArrayDeque<WebSocketMessage<?>> lane = isCritical ? critical : bulk;
+                ArrayDeque<MessageType> laneTypes = isCritical ? criticalTypes : bulkTypes;
+                if (lane.size() >= dispatcher.getCapacity()) {
+                    switch (dispatcher.getOverflowPolicy()) {
+                        case DROP_OLDEST:
+                            lane.poll();
+                            laneTypes.poll();
+                            decrementDepth();
+                            dispatcher.recordDrop(kind, OutboundDispatcher.REASON_OVERFLOW);
+                            break;
+                        case DROP_NEWEST:
+                            dispatcher.recordDrop(kind, OutboundDispatcher.REASON_OVERFLOW);
+                            return false;
+                        default:
+                            overflow = true;
+                    }
+                }
+                if (!overflow) {
+                    lane.add(message);
+                    laneTypes.add(type);
+                    incrementDepth();
+                }
+            }
+        }
+
+        if (overflow) {
+            dispatcher.recordDrop(kind, OutboundDispatcher.REASON_OVERFLOW);
+            dispatcher.closeSlowSession(this);
+            return false;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            dispatcher.schedule(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * Discard everything still queued; later offers are rejected
+     */
+    synchronized void close() {
+        closed = true;
+        critical.clear();
+        criticalTypes.clear();
+        bulk.clear();
+        bulkTypes.clear();
+        for (int i = 0; i < latestState.length; i++) {
+            latestState[i] = null;
+            latestStateTypes[i] = null;
+        }
+        dispatcher.adjustQueuedFrames(-depth);
+        depth = 0;
+    }
+
+    synchronized int depth() {
+        return depth;
+    }
+
+    private void flush() {
+        for (int sent = 0; sent < MAX_FRAMES_PER_FLUSH; sent++) {
+            WebSocketMessage<?> next;
+            MessageType type;
+            synchronized (this) {
+                next = poll();
+                type = polledType;
+                if (next == null) {
+                    scheduled.set(false);
+                    return;
+                }
+            }
+            try {
+                if (session.isOpen()) {
+                    session.sendMessage(writable(next));
+                    dispatcher.recordSent(type, next);
+                }
+            } catch (IOException | IllegalStateException e) {
+                dispatcher.closeSession(this, CloseStatus.SESSION_NOT_RELIABLE);
+                synchronized (this) {
+                    scheduled.set(false);
+                }
+                return;
+            }
+        }
+        // Yield the flush thread to other sessions, then continue
+        dispatcher.schedule(this::flush);
+    }
+
+    /**
+     * Binary frames may be shared by many sessions (spectator fan-out), and writing a payload
+     * consumes its buffer, so each send gets its own view of the bytes
+     */
+    private static WebSocketMessage<?> writable(WebSocketMessage<?> message) {
+        if (message instanceof BinaryMessage binary) {
+            return new BinaryMessage(binary.getPayload().duplicate(), binary.isLast());
+        }
+        return message;
+    }
+
+    private WebSocketMessage<?> poll() {
+        WebSocketMessage<?> next = critical.poll();
+        polledType = criticalTypes.poll();
+        if (next == null) {
+            for (int i = 0; i < latestState.length && next == null; i++) {
+                next = latestState[i];
+                polledType = latestStateTypes[i];
+                latestState[i] = null;
+                latestStateTypes[i] = null;
+            }
+        }
+        if (next == null) {
+            next = bulk.poll();
+            polledType = bulkTypes.poll();
+        }
+        if (next != null) {
+            decrementDepth();
+        }
+        return next;
+    }
+
+    private void incrementDepth() {
+        depth++;
+        dispatcher.adjustQueuedFrames(1);
+    }
+
+    private void decrementDepth() {
+        depth--;
+        dispatcher.adjustQueuedFrames(-1);
+    }
+}
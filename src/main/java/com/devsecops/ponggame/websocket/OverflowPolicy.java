@@ -0,0 +1,14 @@
+package com.devsecops.ponggame.websocket;
+
+/**
+ * What a session's outbound queue does when an event or chat lane is full.
+ * State frames never overflow: a newer frame replaces the queued one.
+ */
+public enum OverflowPolicy {
+    /** Drop the oldest queued frame of the same lane */
+    DROP_OLDEST,
+    /** Drop the frame being sent */
+    DROP_NEWEST,
+    /** Close the session as too slow to keep up */
+    DISCONNECT
+}
@@ -0,0 +1,171 @@
+package com.devsecops.ponggame.websocket;
+
+import com.devsecops.ponggame.service.ReplayCursor;
+import com.devsecops.ponggame.service.ReplayLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams recorded matches from the {@link ReplayLog} to WebSocket sessions.
+ * Records go out as the mapped segment slices themselves (one binary frame each, opcode
+ * {@link BinaryProtocol#REPLAY_RECORD}), paced by their recorded timestamps divided by the
+ * requested speed. A playback only tops the session's outbound queue up to
+ * {@code pong.replay.playback.max-queued} frames, so a slow viewer slows its own replay
+ * instead of overflowing its queue. One playback per session; all run on one scheduler thread.
+ */
+@Component
+public class ReplayStreamer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayStreamer.class);
+
+    private static final double MAX_SPEED = 16;
+    private static final int MAX_BATCH = 256;
+    private static final long BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final OutboundEncoder encoder = new OutboundEncoder();
+    private final Map<String, Playback> playbacks = new ConcurrentHashMap<>();
+    private final ReplayLog replayLog;
+    private final OutboundDispatcher outboundDispatcher;
+    private final int maxQueued;
+    private final ScheduledExecutorService scheduler;
+
+    @Autowired
+    public ReplayStreamer(ReplayLog replayLog, OutboundDispatcher outboundDispatcher, MeterRegistry meterRegistry,
+                          @Value("${pong.replay.playback.max-queued:32}") int maxQueued) {
+        this.replayLog = replayLog;
+        this.outboundDispatcher = outboundDispatcher;
+        this.maxQueued = Math.max(1, maxQueued);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replay-playback");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("pong_replay_playbacks", playbacks, Map::size)
+            .description("Replays being streamed to WebSocket sessions")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isAvailable() {
+        return replayLog.isEnabled();
+    }
+
+    /**
+     * Start streaming a finished match, replacing the session's current playback.
+     * Speed is clamped to (0, 16]. Returns false if the match is not on disk.
+     */
+    public boolean start(String sessionId, long matchId, double speed) {
+        ReplayLog.Match match = replayLog.getMatch(matchId);
+        ReplayCursor cursor = match != null ? replayLog.openCursor(matchId) : null;
+        if (cursor == null) {
+            return false;
+        }
+        double pace = speed > 0 ? Math.min(speed, MAX_SPEED) : 1;
+        stop(sessionId);
+        Playback playback = new Playback(sessionId, cursor, pace);
+        playbacks.put(sessionId, playback);
+        outboundDispatcher.send(sessionId, OutboundKind.EVENT, MessageType.REPLAY_STARTED, encoder.replayStarted(matchId,
+                match.getRoomCode(), match.getPlayer1Name(), match.getPlayer2Name(), pace));
+        scheduler.execute(playback);
+        return true;
+    }
+
+    /**
+     * Stop the session's playback, if any
+     */
+    public void stop(String sessionId) {
+        Playback playback = playbacks.remove(sessionId);
+        if (playback != null) {
+            playback.cancelled = true;
+        }
+    }
+
+    private final class Playback implements Runnable {
+        private final String sessionId;
+        private final ReplayCursor cursor;
+        private final double speed;
+        private volatile boolean cancelled;
+
+        // Scheduler thread only
+        private boolean pending;
+        private long firstRecordAt = -1;
+        private long startNanos;
+
+        Playback(String sessionId, ReplayCursor cursor, double speed) {
+            this.sessionId = sessionId;
+            this.cursor = cursor;
+            this.speed = speed;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            long delayNanos;
+            try {
+                delayNanos = pump();
+            } catch (Exception e) {
+                logger.warn("Replay of match {} to {} failed: {}", cursor.getMatchId(), sessionId, e.getMessage());
+                delayNanos = -1;
+            }
+            if (delayNanos < 0) {
+                playbacks.remove(sessionId, this);
+            } else if (!cancelled) {
+                scheduler.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Send the records that are due. Returns nanoseconds until the next run, or -1 when done.
+         */
+        private long pump() {
+            for (int sent = 0; sent < MAX_BATCH; sent++) {
+                if (outboundDispatcher.getQueueDepth(sessionId) >= maxQueued) {
+                    return BACKOFF_NANOS;
+                }
+                if (!pending) {
+                    if (!cursor.next()) {
+                        outboundDispatcher.send(sessionId, OutboundKind.EVENT, MessageType.REPLAY_ENDED,
+                                encoder.replayEnded(cursor.getMatchId()));
+                        return -1;
+                    }
+                    pending = true;
+                }
+                long recordAt = cursor.timestamp();
+                if (firstRecordAt < 0) {
+                    firstRecordAt = recordAt;
+                    startNanos = System.nanoTime();
+                }
+                long dueNanos = startNanos + (long) ((recordAt - firstRecordAt) * 1_000_000L / speed);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    return waitNanos;
+                }
+                BinaryMessage record = new BinaryMessage(cursor.record());
+                if (!outboundDispatcher.send(sessionId, OutboundKind.EVENT, MessageType.REPLAY_RECORD, record)) {
+                    return -1; // session gone
+                }
+                pending = false;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.devsecops.ponggame.websocket;
+
+import com.devsecops.ponggame.model.GameState;
+import org.springframework.web.socket.BinaryMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-client snapshot stream for the {@link BinaryProtocol#SUBPROTOCOL_DELTA} subprotocol.
+ * Every snapshot gets the next sequence number and is kept, quantized, in a small ring.
+ * Snapshots are encoded as a delta against the newest one the client has acknowledged; a
+ * KEYFRAME is sent instead when nothing usable is acknowledged and at least every
+ * {@code keyframeInterval} snapshots. Because deltas never build on unacknowledged frames,
+ * the outbound queue may still drop superseded snapshots.
+ *
+ * Encoding runs on the game loop shard of the client's room; acknowledgements arrive on
+ * WebSocket threads.
+ */
+public final class SnapshotChannel {
+
+    static final int QUANTIZED_FIELDS = 6;
+    static final int FIELDS = QUANTIZED_FIELDS + 1; // plus the recipient's input sequence
+    static final int RING_SIZE = 64;
+    private static final int MAX_BASE_OFFSET = 255;
+    private static final int MAX_DELTA_SIZE = 1 + 4 + 1 + 1 + 10 + QUANTIZED_FIELDS * 3 + 5;
+
+    private final int keyframeInterval;
+    private final int[][] values = new int[RING_SIZE][FIELDS];
+    private final long[] timestamps = new long[RING_SIZE];
+    private final int[] sequences = new int[RING_SIZE];
+    private final int[] current = new int[FIELDS];
+    private final byte[] scratch = new byte[MAX_DELTA_SIZE];
+    private final AtomicInteger ackedSeq = new AtomicInteger(0);
+
+    private int seq;
+    private int lastKeyframeSeq;
+
+    public SnapshotChannel(int keyframeInterval) {
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+    }
+
+    /**
+     * Record the client's acknowledgement. Stale acknowledgements are ignored, and sequences
+     * this channel never sent are rejected when the next base is chosen.
+     */
+    public void acknowledge(int ack) {
+        if (ack > 0) {
+            ackedSeq.accumulateAndGet(ack, Math::max);
+        }
+    }
+
+    /**
+     * Sequence number of the last snapshot encoded, 0 before the first
+     */
+    public int getSequence() {
+        return seq;
+    }
+
+    /**
+     * Quantize the room's state as the next snapshot and encode it for this client,
+     * echoing the client's last applied input sequence
+     */
+    public BinaryMessage encode(GameState state, int inputSeq) {
+        current[0] = quantize(state.getBallX(), BinaryProtocol.POSITION_SCALE);
+        current[1] = quantize(state.getBallY(), BinaryProtocol.POSITION_SCALE);
+        current[2] = quantize(state.getBallDx(), BinaryProtocol.VELOCITY_SCALE);
+        current[3] = quantize(state.getBallDy(), BinaryProtocol.VELOCITY_SCALE);
+        current[4] = quantize(state.getPlayer1Y(), BinaryProtocol.POSITION_SCALE);
+        current[5] = quantize(state.getPlayer2Y(), BinaryProtocol.POSITION_SCALE);
+        current[6] = inputSeq;
+        long timestamp = state.getLastUpdate();
+
+        seq++;
+        int base = baseSlot(timestamp);
+        BinaryMessage frame = base < 0 ? keyframe(timestamp) : delta(base, timestamp);
+
+        int slot = seq % RING_SIZE;
+        System.arraycopy(current, 0, values[slot], 0, FIELDS);
+        timestamps[slot] = timestamp;
+        sequences[slot] = seq;
+        return frame;
+    }
+
+    /**
+     * Ring slot of the acknowledged base for the next snapshot, or -1 if a keyframe is due
+     */
+    private int baseSlot(long timestamp) {
+        int acked = ackedSeq.get();
+        if (acked <= 0 || acked >= seq || seq - lastKeyframeSeq >= keyframeInterval) {
+            return -1;
+        }
+        int slot = acked % RING_SIZE;
+        boolean usable = sequences[slot] == acked
+                && seq - acked <= Math.min(MAX_BASE_OFFSET, RING_SIZE - 1)
+                && timestamp >= timestamps[slot];
+        return usable ? slot : -1;
+    }
+
+    private BinaryMessage keyframe(long timestamp) {
+        lastKeyframeSeq = seq;
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryProtocol.KEYFRAME_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(BinaryProtocol.KEYFRAME);
+        buffer.putInt(seq);
+        for (int i = 0; i < QUANTIZED_FIELDS; i++) {
+            buffer.putShort((short) current[i]);
+        }
+        buffer.putInt(current[QUANTIZED_FIELDS]);
+        buffer.putDouble(timestamp);
+        return new BinaryMessage(buffer.array());
+    }
+
+    private BinaryMessage delta(int baseSlot, long timestamp) {
+        int[] base = values[baseSlot];
+        int length = 0;
+        scratch[length++] = BinaryProtocol.DELTA;
+        scratch[length++] = (byte) seq;
+        scratch[length++] = (byte) (seq >>> 8);
+        scratch[length++] = (byte) (seq >>> 16);
+        scratch[length++] = (byte) (seq >>> 24);
+        scratch[length++] = (byte) (seq - sequences[baseSlot]);
+        int maskIndex = length++;
+        int mask = 0;
+        length = writeVarint(timestamp - timestamps[baseSlot], length);
+        for (int i = 0; i < FIELDS; i++) {
+            int diff = current[i] - base[i];
+            if (diff != 0) {
+                mask |= 1 << i;
+                length = writeVarint(Integer.toUnsignedLong((diff << 1) ^ (diff >> 31)), length);
+            }
+        }
+        scratch[maskIndex] = (byte) mask;
+        return new BinaryMessage(Arrays.copyOf(scratch, length));
+    }
+
+    private int writeVarint(long value, int offset) {
+        while ((value & ~0x7FL) != 0) {
+            scratch[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        scratch[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static int quantize(double value, double scale) {
+        long scaled = Math.round(value * scale);
+        return (int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scaled));
+    }
+}
@@ -2,6 +2,10 @@
  * DevSecOps Pong v3.1 - Online Multiplayer
  * WebSocket-based real-time gameplay with latency monitoring
  * Features: Ball Trail, Power-ups, In-game Chat
+ * Ball physics and scoring are simulated by the server; clients send paddle input
+ * and render the authoritative ball_state snapshots.
+ * The local paddle is predicted and reconciled against the input sequence the server
+ * echoes; the ball and the opponent's paddle are interpolated between snapshots.
  */
 
 // ============================================
@@ -18,7 +22,12 @@ const CONFIG = {
     PING_INTERVAL: 1000,
     TRAIL_LENGTH: 12,
     POWERUP_SPAWN_INTERVAL: 8000,
-    POWERUP_DURATION: 5000,
+    INTERPOLATION_DELAY: 50,   // ms behind the server clock that remote objects are drawn
+    SNAPSHOT_BUFFER_SIZE: 30,
+    BALL_SNAP_DISTANCE: 100,   // larger jumps (a serve) are not interpolated
+    RECONCILE_TOLERANCE: 0.5,
+    LOBBY_MAX_ROWS: 20,
+    REPLAY_MAX_ROWS: 10,
     COLORS: {
         background: '#000000',
         paddle1: '#00d4ff',
@@ -57,6 +66,14 @@ let latencyState = {
     lastPingTime: 0
 };
 
+// Client-side prediction: sequence number of the newest paddle input sent
+let inputSeq = 0;
+
+// Server snapshots awaiting interpolation, and the estimated server minus local clock
+let snapshotBuffer = [];
+let serverClockOffset = 0;
+let clockSynced = false;
+
 // Ball trail for visual effect
 let ballTrail = [];
 
@@ -73,17 +90,167 @@ let chatMessages = [];
 // WebSocket Connection
 // ============================================
 let socket = null;
+// WebSocket URL of the node that owns our room, once the server has redirected us there
+let gameServerUrl = null;
 let reconnectAttempts = 0;
 const MAX_RECONNECT_ATTEMPTS = 5;
-let lastGameStateTime = 0;
-const GAME_STATE_THROTTLE = 50; // Send game state max every 50ms
+// Reclaims this tab's slot after a server restart
+const RESUME_TOKEN_KEY = 'pong.resumeToken';
+let binaryMode = false;
+let pingTimer = null;
+
+// Compact little-endian frames for paddle and ball traffic (see BinaryProtocol.java)
+const BinaryProtocol = {
+    SUBPROTOCOL: 'pong.binary.v1',
+    SUBPROTOCOL_DELTA: 'pong.binary.v2',
+    PADDLE_MOVE: 0x01,
+    OPPONENT_PADDLE: 0x02,
+    BALL_STATE: 0x03,
+    KEYFRAME: 0x05,
+    DELTA: 0x06,
+    SNAPSHOT_ACK: 0x07,
+    REPLAY_RECORD: 0x08,
+    POSITION_SCALE: 16,
+    VELOCITY_SCALE: 256,
+    
+    encodePaddleMove(paddleY, seq) {
+        const buffer = new ArrayBuffer(9);
+        const view = new DataView(buffer);
+        view.setUint8(0, this.PADDLE_MOVE);
+        view.setFloat32(1, paddleY, true);
+        view.setUint32(5, seq, true);
+        return buffer;
+    },
+    
+    encodeSnapshotAck(seq) {
+        const buffer = new ArrayBuffer(5);
+        const view = new DataView(buffer);
+        view.setUint8(0, this.SNAPSHOT_ACK);
+        view.setUint32(1, seq, true);
+        return buffer;
+    },
+    
+    decode(buffer) {
+        const view = new DataView(buffer);
+        switch (view.getUint8(0)) {
+            case this.OPPONENT_PADDLE:
+                return {
+                    type: 'opponent_paddle',
+                    paddleY: view.getFloat32(1, true),
+                    timestamp: view.getFloat64(5, true)
+                };
+            case this.BALL_STATE:
+                return {
+                    type: 'ball_state',
+                    ballX: view.getFloat32(1, true),
+                    ballY: view.getFloat32(5, true),
+                    ballDx: view.getFloat32(9, true),
+                    ballDy: view.getFloat32(13, true),
+                    player1Y: view.getFloat32(17, true),
+                    player2Y: view.getFloat32(21, true),
+                    timestamp: view.getFloat64(25, true),
+                    player1InputSeq: view.getUint32(33, true),
+                    player2InputSeq: view.getUint32(37, true)
+                };
+            case this.KEYFRAME:
+            case this.DELTA:
+                return snapshots.decode(view);
+            case this.REPLAY_RECORD:
+                return { type: 'replay_record', view };
+            default:
+                return null;
+        }
+    }
+};
 
-function connectWebSocket() {
+// Received delta snapshots, kept quantized so deltas rebuild exactly what the server encoded
+const snapshots = {
+    RING_SIZE: 64,
+    ACK_INTERVAL: 50,
+    ring: new Map(),
+    latestSeq: 0,
+    lastAckTime: 0,
+    
+    reset() {
+        this.ring.clear();
+        this.latestSeq = 0;
+        this.lastAckTime = 0;
+    },
+    
+    decode(view) {
+        const seq = view.getUint32(1, true);
+        let snapshot;
+        if (view.getUint8(0) === BinaryProtocol.KEYFRAME) {
+            const values = [];
+            for (let i = 0; i < 6; i++) values.push(view.getInt16(5 + i * 2, true));
+            values.push(view.getUint32(17, true));
+            snapshot = { values, timestamp: view.getFloat64(21, true) };
+        } else {
+            const base = this.ring.get(seq - view.getUint8(5));
+            if (!base) return null; // base already evicted; the server falls back to a keyframe
+            const mask = view.getUint8(6);
+            const cursor = { offset: 7 };
+            const timestamp = base.timestamp + readVarint(view, cursor);
+            const values = base.values.slice();
+            for (let i = 0; i < 7; i++) {
+                if (mask & (1 << i)) {
+                    const zigzag = readVarint(view, cursor);
+                    values[i] += (zigzag % 2) ? -(zigzag + 1) / 2 : zigzag / 2;
+                }
+            }
+            snapshot = { values, timestamp };
+        }
+        this.ring.set(seq, snapshot);
+        this.ring.delete(seq - this.RING_SIZE);
+        this.latestSeq = seq;
+        this.acknowledge();
+        
+        const v = snapshot.values;
+        return {
+            type: 'ball_state',
+            seq,
+            ballX: v[0] / BinaryProtocol.POSITION_SCALE,
+            ballY: v[1] / BinaryProtocol.POSITION_SCALE,
+            ballDx: v[2] / BinaryProtocol.VELOCITY_SCALE,
+            ballDy: v[3] / BinaryProtocol.VELOCITY_SCALE,
+            player1Y: v[4] / BinaryProtocol.POSITION_SCALE,
+            player2Y: v[5] / BinaryProtocol.POSITION_SCALE,
+            inputSeq: v[6],
+            timestamp: snapshot.timestamp
+        };
+    },
+    
+    // Acks are rate limited; the server deltas against the newest one it has seen
+    acknowledge() {
+        const now = Date.now();
+        if (now - this.lastAckTime < this.ACK_INTERVAL) return;
+        this.lastAckTime = now;
+        if (socket && socket.readyState === WebSocket.OPEN) {
+            socket.send(BinaryProtocol.encodeSnapshotAck(this.latestSeq));
+        }
+    }
+};
+
+function readVarint(view, cursor) {
+    let value = 0;
+    let multiplier = 1;
+    let byte;
+    do {
+        byte = view.getUint8(cursor.offset++);
+        value += (byte & 0x7f) * multiplier;
+        multiplier *= 128;
+    } while (byte & 0x80);
+    return value;
+}
+
+function connectWebSocket(onOpen) {
     const protocol = window.location.protocol === 'https:' ? 'wss:' : 'ws:';
-    const wsUrl = `${protocol}//${window.location.host}/game-ws`;
+    const wsUrl = gameServerUrl || `${protocol}//${window.location.host}/game-ws`;
     
     try {
-        socket = new WebSocket(wsUrl);
+        socket = new WebSocket(wsUrl, [BinaryProtocol.SUBPROTOCOL_DELTA, BinaryProtocol.SUBPROTOCOL]);
+        socket.binaryType = 'arraybuffer';
+        lobbyBrowser.reset();
     } catch (error) {
         console.error('WebSocket creation failed:', error);
         scheduleReconnect();
@@ -91,13 +258,27 @@ function connectWebSocket() {
     }
     
     socket.onopen = () => {
-        console.log('WebSocket connected');
+        // Server accepted the subprotocol if it supports binary frames
+        binaryMode = socket.protocol === BinaryProtocol.SUBPROTOCOL
+            || socket.protocol === BinaryProtocol.SUBPROTOCOL_DELTA;
+        snapshots.reset();
+        console.log('WebSocket connected' + (binaryMode ? ' (' + socket.protocol + ')' : ''));
         reconnectAttempts = 0;
         updateConnectionStatus(true);
         startPingLoop();
+        if (document.getElementById('lobby-screen').classList.contains('active')) {
+            lobbyBrowser.subscribe();
+        }
+        const resumeToken = sessionStorage.getItem(RESUME_TOKEN_KEY);
+        if (resumeToken && !onOpen) {
+            sendMessage({ type: 'resume', token: resumeToken });
+        }
+        if (onOpen) onOpen();
     };
     
+    const ws = socket;
     socket.onclose = (event) => {
+        if (socket !== ws) return; // an older socket closing after a reconnect
         console.log('WebSocket disconnected, code:', event.code, 'reason:', event.reason);
         updateConnectionStatus(false);
         
@@ -113,7 +294,12 @@ function connectWebSocket() {
     
     socket.onmessage = (event) => {
         try {
-            handleServerMessage(JSON.parse(event.data));
+            if (event.data instanceof ArrayBuffer) {
+                const data = BinaryProtocol.decode(event.data);
+                if (data) handleServerMessage(data);
+            } else {
+                handleServerMessage(JSON.parse(event.data));
+            }
         } catch (e) {
             console.error('Error parsing message:', e);
         }
@@ -134,6 +320,10 @@ function scheduleReconnect() {
 function sendMessage(data) {
     if (socket && socket.readyState === WebSocket.OPEN) {
         try {
+            if (binaryMode && data.type === 'paddle_move') {
+                socket.send(BinaryProtocol.encodePaddleMove(data.paddleY, data.seq));
+                return;
+            }
             socket.send(JSON.stringify(data));
         } catch (e) {
             console.error('Error sending message:', e);
@@ -141,21 +331,6 @@ function sendMessage(data) {
     }
 }
 
-// Throttled game state sender for ball sync
-function sendGameState() {
-    const now = Date.now();
-    if (now - lastGameStateTime < GAME_STATE_THROTTLE) return;
-    lastGameStateTime = now;
-    
-    sendMessage({
-        type: 'game_state',
-        ballX: ball.x,
-        ballY: ball.y,
-        ballDx: ball.dx,
-        ballDy: ball.dy
-    });
-}
-
 // ============================================
 // Message Handlers
 // ============================================
@@ -170,6 +345,18 @@ function handleServerMessage(data) {
         case 'opponent_joined':
             handleOpponentJoined(data);
             break;
+        case 'matchmaking_queued':
+            handleMatchmakingQueued();
+            break;
+        case 'match_found':
+            handleMatchFound(data);
+            break;
+        case 'spectating':
+            handleSpectating(data);
+            break;
+        case 'spectate_ended':
+            handleSpectateEnded();
+            break;
         case 'game_started':
             handleGameStarted(data);
             break;
@@ -197,15 +384,93 @@ function handleServerMessage(data) {
         case 'powerup_collected':
             handlePowerupCollected(data);
             break;
+        case 'powerup_expired':
+            applyPaddleHeights(data);
+            break;
         case 'chat_message':
             handleChatMessage(data);
             break;
+        case 'lobby_snapshot':
+            lobbyBrowser.applySnapshot(data);
+            break;
+        case 'lobby_diff':
+            lobbyBrowser.applyDiff(data);
+            break;
+        case 'replay_started':
+            handleReplayStarted(data);
+            break;
+        case 'replay_record':
+            handleReplayRecord(data.view);
+            break;
+        case 'replay_ended':
+            handleReplayEnded();
+            break;
+        case 'redirect':
+            handleRedirect(data);
+            break;
+        case 'resume_token':
+            sessionStorage.setItem(RESUME_TOKEN_KEY, data.token);
+            break;
+        case 'room_resumed':
+            handleRoomResumed(data);
+            break;
+        case 'resume_failed':
+            // The slot is gone (or was never restored): carry on as a fresh connection
+            sessionStorage.removeItem(RESUME_TOKEN_KEY);
+            break;
         case 'error':
             showLobbyError(data.message);
             break;
     }
 }
 
+// The room lives on another node: move there and repeat the request
+function handleRedirect(data) {
+    console.log(`Room ${data.roomCode} is hosted at ${data.url}, reconnecting`);
+    gameServerUrl = data.url;
+    let retry;
+    if (data.action === 'spectate') {
+        retry = { type: 'spectate', roomCode: data.roomCode };
+    } else if (data.action === 'resume') {
+        retry = { type: 'resume', token: sessionStorage.getItem(RESUME_TOKEN_KEY) };
+    } else {
+        retry = { type: 'join_room', roomCode: data.roomCode, playerName: gameState.myName };
+    }
+    const previous = socket;
+    connectWebSocket(() => sendMessage(retry));
+    if (previous) previous.close();
+}
+
+// Back in a room restored after a server restart; a running game continues once both players are back
+function handleRoomResumed(data) {
+    gameState.roomCode = data.roomCode;
+    gameState.playerNumber = data.playerNumber;
+    gameState.myName = data.playerName;
+    gameState.opponentName = data.opponentName || '';
+    gameState.isHost = data.playerNumber === 1;
+    gameState.player1Score = data.player1Score;
+    gameState.player2Score = data.player2Score;
+    
+    if (!data.opponentName) {
+        document.getElementById('displayRoomCode').textContent = data.roomCode;
+        document.getElementById('room-code-display').style.display = '';
+        document.getElementById('share-msg').textContent = 'Share this code with your friend to play together!';
+        showScreen('waiting-screen');
+        return;
+    }
+    setupGameScreen();
+    updateScoreDisplay();
+    showScreen('game-screen');
+    
+    if (data.running) {
+        gameState.isRunning = true;
+        snapshotBuffer = [];
+        document.getElementById('startBtn').disabled = true;
+        document.getElementById('startBtn').textContent = 'Playing...';
+        gameLoop();
+    }
+}
+
 function handleRoomCreated(data) {
     gameState.roomCode = data.roomCode;
     gameState.playerNumber = data.playerNumber;
@@ -213,9 +478,118 @@ function handleRoomCreated(data) {
     gameState.isHost = true;
     
     document.getElementById('displayRoomCode').textContent = data.roomCode;
+    document.getElementById('room-code-display').style.display = '';
+    document.getElementById('share-msg').textContent = 'Share this code with your friend to play together!';
+    showScreen('waiting-screen');
+}
+
+function handleMatchmakingQueued() {
+    document.getElementById('room-code-display').style.display = 'none';
+    document.getElementById('share-msg').textContent = 'Finding an opponent with a similar ping...';
     showScreen('waiting-screen');
 }
 
+function handleMatchFound(data) {
+    gameState.roomCode = data.roomCode;
+    gameState.playerNumber = data.playerNumber;
+    gameState.myName = data.playerName;
+    gameState.opponentName = data.opponentName;
+    // The player who waited longer hosts the game
+    gameState.isHost = data.playerNumber === 1;
+    
+    setupGameScreen();
+    showScreen('game-screen');
+}
+
+function handleSpectating(data) {
+    // Player number 0 marks a spectator: no input, both paddles come from snapshots
+    gameState.roomCode = data.roomCode;
+    gameState.playerNumber = 0;
+    gameState.isHost = false;
+    gameState.player1Score = data.player1Score;
+    gameState.player2Score = data.player2Score;
+    
+    setupGameScreen();
+    document.getElementById('p1-name').textContent = data.player1Name || 'Waiting...';
+    document.getElementById('p2-name').textContent = data.player2Name || 'Waiting...';
+    document.getElementById('startBtn').textContent = 'Spectating';
+    updateScoreDisplay();
+    showScreen('game-screen');
+    
+    if (data.running) {
+        gameState.isRunning = true;
+        snapshotBuffer = [];
+        gameLoop();
+    }
+}
+
+function handleSpectateEnded() {
+    gameState.isRunning = false;
+    gameState.roomCode = '';
+    showScreen('lobby-screen');
+    showLobbyError('The room you were watching has closed');
+}
+
+// Replays are watched like a room: the records are paced by the server and applied as they arrive
+function handleReplayStarted(data) {
+    gameState.roomCode = data.roomCode;
+    gameState.playerNumber = 0;
+    gameState.isHost = false;
+    gameState.player1Score = 0;
+    gameState.player2Score = 0;
+    
+    setupGameScreen();
+    document.getElementById('p1-name').textContent = data.player1Name;
+    document.getElementById('p2-name').textContent = data.player2Name;
+    document.getElementById('startBtn').textContent = data.speed === 1 ? 'Replay' : `Replay ${data.speed}x`;
+    resetBall();
+    resetPaddles();
+    updateScoreDisplay();
+    ballTrail = [];
+    snapshotBuffer = [];
+    showScreen('game-screen');
+    
+    gameState.isRunning = true;
+    gameLoop();
+}
+
+// Record layout: see ReplayLog.java (24-byte header, payload from offset 24)
+function handleReplayRecord(view) {
+    const player = view.getUint8(5);
+    switch (view.getUint8(4)) {
+        case 2: // PADDLE
+            (player === 1 ? player1 : player2).y = view.getFloat32(24, true);
+            break;
+        case 3: // BALL
+            ball.x = view.getFloat32(24, true);
+            ball.y = view.getFloat32(28, true);
+            ball.dx = view.getFloat32(32, true);
+            ball.dy = view.getFloat32(36, true);
+            player1.y = view.getFloat32(40, true);
+            player2.y = view.getFloat32(44, true);
+            break;
+        case 4: // SCORE
+            handleScoreUpdated({
+                player1Score: view.getUint16(24, true),
+                player2Score: view.getUint16(26, true)
+            });
+            break;
+        case 6: // END
+            draw();
+            handleGameEnded({
+                winner: player,
+                player1Score: view.getUint16(24, true),
+                player2Score: view.getUint16(26, true)
+            });
+            break;
+    }
+}
+
+function handleReplayEnded() {
+    gameState.isRunning = false;
+    document.getElementById('startBtn').textContent = 'Replay over';
+}
+
 function handleRoomJoined(data) {
     gameState.roomCode = data.roomCode;
     gameState.playerNumber = data.playerNumber;
@@ -248,23 +622,23 @@ function handleGameStarted(data) {
     resetPaddles();
     updateScoreDisplay();
     
-    // Clear power-ups and trail
+    // Clear power-ups, trail and the previous game's snapshots
     activePowerup = null;
     ballTrail = [];
+    snapshotBuffer = [];
     myPowerups = { speedBoost: false, bigPaddle: false };
     opponentPowerups = { speedBoost: false, bigPaddle: false };
     
     document.getElementById('startBtn').disabled = true;
-    document.getElementById('startBtn').textContent = 'Playing...';
+    document.getElementById('startBtn').textContent = gameState.playerNumber === 0 ? 'Spectating' : 'Playing...';
     document.getElementById('pauseBtn').disabled = false;
     
     if (gameState.isHost) {
         // Start power-up spawn timer
+        clearInterval(powerupSpawnTimer);
         powerupSpawnTimer = setInterval(spawnPowerup, CONFIG.POWERUP_SPAWN_INTERVAL);
-        gameLoop();
-    } else {
-        nonHostLoop();
     }
+    gameLoop();
 }
 
 function handleOpponentPaddle(data) {
@@ -276,14 +650,75 @@ function handleOpponentPaddle(data) {
 }
 
 function handleBallState(data) {
-    if (!gameState.isHost) {
-        ball.x = data.ballX;
-        ball.y = data.ballY;
-        ball.dx = data.ballDx;
-        ball.dy = data.ballDy;
+    // Server-authoritative snapshot, drawn by interpolate() slightly in the past
+    if (!clockSynced && snapshotBuffer.length === 0) {
+        serverClockOffset = data.timestamp - Date.now();
+    }
+    snapshotBuffer.push({
+        time: data.timestamp,
+        ballX: data.ballX,
+        ballY: data.ballY,
+        player1Y: data.player1Y,
+        player2Y: data.player2Y
+    });
+    if (snapshotBuffer.length > CONFIG.SNAPSHOT_BUFFER_SIZE) {
+        snapshotBuffer.shift();
+    }
+    ball.dx = data.ballDx;
+    ball.dy = data.ballDy;
+    if (gameState.playerNumber === 0) return;
+    
+    // Delta snapshots echo only our own input sequence
+    const isPlayer1 = gameState.playerNumber === 1;
+    const ackedSeq = data.inputSeq !== undefined
+        ? data.inputSeq
+        : (isPlayer1 ? data.player1InputSeq : data.player2InputSeq);
+    reconcile(isPlayer1 ? data.player1Y : data.player2Y, ackedSeq || 0);
+}
+
+function reconcile(serverY, ackedSeq) {
+    // Inputs are absolute positions, so replaying the unapplied ones leaves the newest in place.
+    // Once everything is applied, only a real disagreement (e.g. a clamp) moves the paddle.
+    if (ackedSeq >= inputSeq) {
+        const myPaddle = gameState.playerNumber === 1 ? player1 : player2;
+        if (Math.abs(myPaddle.y - serverY) > CONFIG.RECONCILE_TOLERANCE) {
+            myPaddle.y = serverY;
+        }
     }
 }
 
+function interpolate() {
+    if (snapshotBuffer.length === 0) return;
+    const renderTime = Date.now() + serverClockOffset - CONFIG.INTERPOLATION_DELAY;
+    
+    // Keep one snapshot at or before the render time
+    while (snapshotBuffer.length > 2 && snapshotBuffer[1].time <= renderTime) {
+        snapshotBuffer.shift();
+    }
+    const older = snapshotBuffer[0];
+    const newer = snapshotBuffer.length > 1 ? snapshotBuffer[1] : older;
+    const span = newer.time - older.time;
+    const t = span > 0 ? Math.max(0, Math.min(1, (renderTime - older.time) / span)) : 1;
+    
+    if (Math.abs(newer.ballX - older.ballX) > CONFIG.BALL_SNAP_DISTANCE) {
+        ball.x = newer.ballX;
+        ball.y = newer.ballY;
+    } else {
+        ball.x = lerp(older.ballX, newer.ballX, t);
+        ball.y = lerp(older.ballY, newer.ballY, t);
+    }
+    if (gameState.playerNumber !== 1) {
+        player1.y = lerp(older.player1Y, newer.player1Y, t);
+    }
+    if (gameState.playerNumber !== 2) {
+        player2.y = lerp(older.player2Y, newer.player2Y, t);
+    }
+}
+
+function lerp(from, to, t) {
+    return from + (to - from) * t;
+}
+
 function handleScoreUpdated(data) {
     gameState.player1Score = data.player1Score;
     gameState.player2Score = data.player2Score;
@@ -292,9 +727,17 @@ function handleScoreUpdated(data) {
 
 function handleGameEnded(data) {
     gameState.isRunning = false;
-    
-    const winnerText = data.winner === gameState.playerNumber ? 'You Win!' : 'You Lose!';
-    const winnerColor = data.winner === gameState.playerNumber ? '#00ff88' : '#e94560';
+    clearInterval(powerupSpawnTimer);
+    
+    const spectating = gameState.playerNumber === 0;
+    let winnerText = data.winner === gameState.playerNumber ? 'You Win!' : 'You Lose!';
+    let winnerColor = data.winner === gameState.playerNumber ? '#00ff88' : '#e94560';
+    if (spectating) {
+        winnerText = data.winner === 0
+            ? 'Match abandoned'
+            : `${document.getElementById(data.winner === 1 ? 'p1-name' : 'p2-name').textContent} Wins!`;
+        winnerColor = '#00ff88';
+    }
     
     ctx.fillStyle = 'rgba(0, 0, 0, 0.8)';
     ctx.fillRect(0, 0, canvas.width, canvas.height);
@@ -308,8 +751,8 @@ function handleGameEnded(data) {
     ctx.fillStyle = '#ffffff';
     ctx.fillText(`Final Score: ${data.player1Score} - ${data.player2Score}`, canvas.width / 2, canvas.height / 2 + 25);
     
-    document.getElementById('startBtn').disabled = false;
-    document.getElementById('startBtn').textContent = 'Play Again';
+    document.getElementById('startBtn').disabled = spectating;
+    document.getElementById('startBtn').textContent = spectating ? 'Spectating' : 'Play Again';
 }
 
 function handleOpponentDisconnected() {
@@ -321,6 +764,11 @@ function handleOpponentDisconnected() {
 function handlePong(data) {
     const now = Date.now();
     latencyState.myLatency = now - data.clientTimestamp;
+    
+    // Server clock estimate for interpolation, smoothed against RTT jitter
+    const offset = data.serverTimestamp + latencyState.myLatency / 2 - now;
+    serverClockOffset = clockSynced ? serverClockOffset * 0.9 + offset * 0.1 : offset;
+    clockSynced = true;
     latencyState.opponentLatency = gameState.playerNumber === 1 ? data.player2Latency : data.player1Latency;
     
     updateLatencyDisplay();
@@ -343,46 +791,28 @@ function handlePowerupCollected(data) {
     
     const isMe = data.playerNumber === gameState.playerNumber;
     const powerups = isMe ? myPowerups : opponentPowerups;
-    const paddle = data.playerNumber === 1 ? player1 : player2;
     
-    // Apply power-up effect
-    switch (data.powerupType) {
-        case 'SPEED_BOOST':
-            powerups.speedBoost = true;
-            setTimeout(() => { powerups.speedBoost = false; }, CONFIG.POWERUP_DURATION);
-            break;
-        case 'BIG_PADDLE':
-            powerups.bigPaddle = true;
-            const originalHeight = paddle.height;
-            paddle.height = CONFIG.PADDLE_HEIGHT * 1.5;
-            setTimeout(() => { 
-                powerups.bigPaddle = false; 
-                paddle.height = originalHeight;
-            }, CONFIG.POWERUP_DURATION);
-            break;
-        case 'SLOW_BALL':
-            if (gameState.isHost) {
-                const originalSpeed = ball.speed;
-                ball.speed = CONFIG.BALL_SPEED * 0.5;
-                ball.dx *= 0.5;
-                ball.dy *= 0.5;
-                setTimeout(() => { 
-                    ball.speed = originalSpeed;
-                }, CONFIG.POWERUP_DURATION);
-            }
-            break;
-        case 'SHRINK_OPPONENT':
-            const oppPaddle = data.playerNumber === 1 ? player2 : player1;
-            const oppOriginalHeight = oppPaddle.height;
-            oppPaddle.height = CONFIG.PADDLE_HEIGHT * 0.6;
-            setTimeout(() => { oppPaddle.height = oppOriginalHeight; }, CONFIG.POWERUP_DURATION);
-            break;
+    // Paddle heights come from the server, which also ends each effect on its own clock
+    applyPaddleHeights(data);
+    if (data.powerupType === 'SPEED_BOOST') {
+        // Client-side paddle speed only; the server says how long it lasts
+        powerups.speedBoost = true;
+        setTimeout(() => { powerups.speedBoost = false; }, data.durationMs);
     }
     
     // Show notification
     showPowerupNotification(data.powerupType, isMe);
 }
 
+function applyPaddleHeights(data) {
+    player1.height = data.player1PaddleHeight;
+    player2.height = data.player2PaddleHeight;
+    const myPaddle = gameState.playerNumber === 2 ? player2 : player1;
+    const opponentPaddle = myPaddle === player1 ? player2 : player1;
+    myPowerups.bigPaddle = myPaddle.height > CONFIG.PADDLE_HEIGHT;
+    opponentPowerups.bigPaddle = opponentPaddle.height > CONFIG.PADDLE_HEIGHT;
+}
+
 function showPowerupNotification(type, isMe) {
     const config = CONFIG.POWERUPS[type];
     const msg = isMe ? `You got ${config.icon} ${config.name}!` : `Opponent got ${config.icon} ${config.name}!`;
@@ -391,6 +821,7 @@ function showPowerupNotification(type, isMe) {
     addChatMessage('System', msg, true);
 }
 
+// The host proposes a spawn; the server places it and announces it with its own id
 function spawnPowerup() {
     if (!gameState.isHost || !gameState.isRunning || activePowerup) return;
     
@@ -404,30 +835,10 @@ function spawnPowerup() {
         type: 'spawn_powerup',
         powerupType: type,
         x: x,
-        y: y,
-        id: Date.now()
+        y: y
     });
 }
 
-function checkPowerupCollision() {
-    if (!activePowerup) return;
-    
-    const myPaddle = gameState.playerNumber === 1 ? player1 : player2;
-    
-    // Check if ball hits power-up
-    const dx = ball.x - activePowerup.x;
-    const dy = ball.y - activePowerup.y;
-    const dist = Math.sqrt(dx * dx + dy * dy);
-    
-    if (dist < ball.size + 15) {
-        sendMessage({
-            type: 'collect_powerup',
-            powerupId: activePowerup.id,
-            playerNumber: gameState.playerNumber
-        });
-    }
-}
-
 // ============================================
 // Chat System
 // ============================================
@@ -542,6 +953,8 @@ document.addEventListener('keyup', (e) => {
 // Lobby buttons
 document.getElementById('createRoomBtn').addEventListener('click', createRoom);
 document.getElementById('joinRoomBtn').addEventListener('click', joinRoom);
+document.getElementById('quickMatchBtn').addEventListener('click', quickMatch);
+document.getElementById('spectateBtn').addEventListener('click', spectateRoom);
 document.getElementById('cancelWaitBtn').addEventListener('click', cancelWait);
 document.getElementById('copyCodeBtn').addEventListener('click', copyRoomCode);
 
@@ -601,6 +1014,38 @@ function joinRoom() {
     }
 }
 
+function spectateRoom() {
+    const roomCode = document.getElementById('roomCodeInput').value.trim().toUpperCase();
+    
+    if (roomCode.length !== 4) {
+        showLobbyError('Please enter a 4-character room code');
+        return;
+    }
+    
+    if (!socket || socket.readyState !== WebSocket.OPEN) {
+        connectWebSocket();
+        setTimeout(() => {
+            sendMessage({ type: 'spectate', roomCode });
+        }, 500);
+    } else {
+        sendMessage({ type: 'spectate', roomCode });
+    }
+}
+
+function quickMatch() {
+    const playerName = document.getElementById('playerName').value.trim() || 'Player';
+    gameState.myName = playerName;
+    
+    if (!socket || socket.readyState !== WebSocket.OPEN) {
+        connectWebSocket();
+        setTimeout(() => {
+            sendMessage({ type: 'quick_match', playerName, rtt: latencyState.myLatency || 0 });
+        }, 500);
+    } else {
+        sendMessage({ type: 'quick_match', playerName, rtt: latencyState.myLatency || 0 });
+    }
+}
+
 function cancelWait() {
     if (socket) {
         socket.close();
@@ -618,6 +1063,120 @@ function copyRoomCode() {
     });
 }
 
+// Open rooms pushed by the server: one snapshot on subscribe, then add/remove diffs
+const lobbyBrowser = {
+    rooms: new Map(),
+    version: 0,
+    subscribed: false,
+    synced: false,
+    
+    reset() {
+        this.rooms.clear();
+        this.version = 0;
+        this.subscribed = false;
+        this.synced = false;
+    },
+    
+    subscribe() {
+        if (!socket || socket.readyState !== WebSocket.OPEN) {
+            if (!socket || socket.readyState !== WebSocket.CONNECTING) connectWebSocket();
+            return; // subscribed from onopen
+        }
+        this.synced = false;
+        this.subscribed = true;
+        sendMessage({ type: 'lobby_subscribe' });
+    },
+    
+    unsubscribe() {
+        if (!this.subscribed) return;
+        this.subscribed = false;
+        this.synced = false;
+        sendMessage({ type: 'lobby_unsubscribe' });
+    },
+    
+    applySnapshot(data) {
+        this.rooms.clear();
+        data.rooms.forEach(room => this.rooms.set(room.roomCode, room));
+        this.version = data.version;
+        this.synced = true;
+        this.render();
+    },
+    
+    applyDiff(data) {
+        if (!this.synced || data.version <= this.version) return;
+        if (data.version !== this.version + 1) {
+            this.subscribe(); // missed a diff; start over from a fresh snapshot
+            return;
+        }
+        data.removed.forEach(code => this.rooms.delete(code));
+        data.added.forEach(room => this.rooms.set(room.roomCode, room));
+        this.version = data.version;
+        this.render();
+    },
+    
+    render() {
+        const list = document.getElementById('lobby-rooms');
+        const rooms = [...this.rooms.values()]
+            .sort((a, b) => a.createdAt - b.createdAt)
+            .slice(0, CONFIG.LOBBY_MAX_ROWS);
+        list.replaceChildren(...rooms.map(room => {
+            const item = document.createElement('li');
+            const label = document.createElement('span');
+            label.textContent = `${room.hostName} · ${room.roomCode}`;
+            const join = document.createElement('button');
+            join.className = 'btn btn-secondary';
+            join.textContent = 'Join';
+            join.addEventListener('click', () => {
+                document.getElementById('roomCodeInput').value = room.roomCode;
+                joinRoom();
+            });
+            item.append(label, join);
+            return item;
+        }));
+        document.getElementById('lobby-empty').style.display = rooms.length ? 'none' : '';
+    }
+};
+
+// Finished matches from the replay log, refreshed whenever the lobby is shown
+const replayBrowser = {
+    async refresh() {
+        try {
+            const response = await fetch(`/api/replays?limit=${CONFIG.REPLAY_MAX_ROWS}`);
+            if (response.ok) this.render((await response.json()).matches);
+        } catch (e) {
+            console.error('Replay list error:', e);
+        }
+    },
+    
+    render(matches) {
+        const list = document.getElementById('replay-list');
+        list.replaceChildren(...matches.map(match => {
+            const item = document.createElement('li');
+            const label = document.createElement('span');
+            label.textContent = `${match.player1Name} ${match.player1Score} - ${match.player2Score} ${match.player2Name}`;
+            const buttons = document.createElement('span');
+            buttons.append(this.button('▶', match.matchId, 1), this.button('⏩', match.matchId, 4));
+            item.append(label, buttons);
+            return item;
+        }));
+        document.getElementById('replay-empty').style.display = matches.length ? 'none' : '';
+    },
+    
+    button(text, matchId, speed) {
+        const button = document.createElement('button');
+        button.className = 'btn btn-secondary';
+        button.textContent = text;
+        button.addEventListener('click', () => {
+            if (!binaryMode) {
+                showLobbyError('Replays need the binary protocol');
+                return;
+            }
+            sendMessage({ type: 'replay', matchId, speed });
+        });
+        return button;
+    }
+};
+
 function showLobbyError(message) {
     const status = document.getElementById('lobby-status');
     status.textContent = message;
@@ -664,6 +1223,7 @@ function togglePause() {
 }
 
 function leaveGame() {
+    sessionStorage.removeItem(RESUME_TOKEN_KEY);
     if (socket) {
         socket.close();
     }
@@ -682,19 +1242,19 @@ function leaveGame() {
 }
 
 function resetBall() {
+    // The server serves the ball; hold it at center until the first snapshot
     ball.x = canvas.width / 2;
     ball.y = canvas.height / 2;
     ball.speed = CONFIG.BALL_SPEED;
-    
-    const angle = (Math.random() * Math.PI / 4) - Math.PI / 8;
-    const direction = Math.random() > 0.5 ? 1 : -1;
-    ball.dx = direction * ball.speed * Math.cos(angle);
-    ball.dy = ball.speed * Math.sin(angle);
+    ball.dx = 0;
+    ball.dy = 0;
 }
 
 function resetPaddles() {
     player1.y = canvas.height / 2 - CONFIG.PADDLE_HEIGHT / 2;
     player2.y = canvas.height / 2 - CONFIG.PADDLE_HEIGHT / 2;
+    player1.height = CONFIG.PADDLE_HEIGHT;
+    player2.height = CONFIG.PADDLE_HEIGHT;
 }
 
 function updateScoreDisplay() {
@@ -703,9 +1263,11 @@ function updateScoreDisplay() {
 }
 
 // ============================================
-// Game Loop (Host only controls ball)
+// Game Loop (server controls ball, clients send paddle input)
 // ============================================
 function update() {
+    if (gameState.playerNumber === 0) return; // spectators only watch
+    
     // My paddle movement
     const myPaddle = gameState.playerNumber === 1 ? player1 : player2;
     let moved = false;
@@ -725,77 +1287,9 @@ function update() {
     myPaddle.y = Math.max(0, Math.min(canvas.height - myPaddle.height, myPaddle.y));
     
     if (moved) {
-        sendMessage({ type: 'paddle_move', paddleY: myPaddle.y });
-    }
-    
-    // Only host controls ball physics
-    if (gameState.isHost) {
-        ball.x += ball.dx;
-        ball.y += ball.dy;
-        
-        // Check power-up collision
-        checkPowerupCollision();
-        
-        // Wall collision
-        if (ball.y - ball.size < 0 || ball.y + ball.size > canvas.height) {
-            ball.dy = -ball.dy;
-            ball.y = ball.y - ball.size < 0 ? ball.size : canvas.height - ball.size;
-        }
-        
-        // Paddle collision
-        if (checkPaddleCollision(player1)) {
-            handlePaddleCollision(player1);
-        } else if (checkPaddleCollision(player2)) {
-            handlePaddleCollision(player2);
-        }
-        
-        // Scoring
-        if (ball.x < 0) {
-            gameState.player2Score++;
-            sendMessage({ type: 'score_update', scorer: 2 });
-            checkWinner();
-            resetBall();
-        } else if (ball.x > canvas.width) {
-            gameState.player1Score++;
-            sendMessage({ type: 'score_update', scorer: 1 });
-            checkWinner();
-            resetBall();
-        }
-        
-        // Sync ball state to player 2 (throttled)
-        sendGameState();
-    }
-}
-
-function checkPaddleCollision(paddle) {
-    return ball.x - ball.size < paddle.x + paddle.width &&
-           ball.x + ball.size > paddle.x &&
-           ball.y - ball.size < paddle.y + paddle.height &&
-           ball.y + ball.size > paddle.y;
-}
-
-function handlePaddleCollision(paddle) {
-    const hitPos = (ball.y - paddle.y) / paddle.height;
-    const angle = (hitPos - 0.5) * Math.PI / 3;
-    
-    ball.speed = Math.min(ball.speed + CONFIG.BALL_SPEED_INCREMENT, CONFIG.BALL_SPEED * 2.5);
-    
-    const direction = paddle === player1 ? 1 : -1;
-    ball.dx = direction * ball.speed * Math.cos(angle);
-    ball.dy = ball.speed * Math.sin(angle);
-    
-    if (paddle === player1) {
-        ball.x = paddle.x + paddle.width + ball.size;
-    } else {
-        ball.x = paddle.x - ball.size;
-    }
-}
-
-function checkWinner() {
-    if (gameState.player1Score >= CONFIG.WINNING_SCORE) {
-        sendMessage({ type: 'game_over', winner: 1 });
-    } else if (gameState.player2Score >= CONFIG.WINNING_SCORE) {
-        sendMessage({ type: 'game_over', winner: 2 });
+        // Predicted locally; confirmed when a snapshot echoes this sequence number
+        inputSeq++;
+        sendMessage({ type: 'paddle_move', paddleY: myPaddle.y, seq: inputSeq });
     }
 }
 
@@ -939,46 +1433,19 @@ function drawBall() {
 function gameLoop() {
     if (gameState.isRunning && !gameState.isPaused) {
         update();
+        interpolate();
         draw();
         requestAnimationFrame(gameLoop);
     }
 }
 
-// Non-host also needs to run update (for paddle input) and render
-function nonHostLoop() {
-    if (gameState.isRunning && !gameState.isPaused && !gameState.isHost) {
-        updateMyPaddle();
-        draw();
-        requestAnimationFrame(nonHostLoop);
-    }
-}
-
-// Separate paddle update for non-host to avoid ball physics
-function updateMyPaddle() {
-    const myPaddle = gameState.playerNumber === 1 ? player1 : player2;
-    let moved = false;
-    
-    if (keys.w || keys.W || keys.ArrowUp) {
-        myPaddle.y -= CONFIG.PADDLE_SPEED;
-        moved = true;
-    }
-    if (keys.s || keys.S || keys.ArrowDown) {
-        myPaddle.y += CONFIG.PADDLE_SPEED;
-        moved = true;
-    }
-    
-    myPaddle.y = Math.max(0, Math.min(canvas.height - myPaddle.height, myPaddle.y));
-    
-    if (moved) {
-        sendMessage({ type: 'paddle_move', paddleY: myPaddle.y });
-    }
-}
-
 // ============================================
 // Latency & Metrics
 // ============================================
 function startPingLoop() {
-    setInterval(() => {
+    // Each reconnect starts a new loop; the previous one would keep pinging alongside it
+    clearInterval(pingTimer);
+    pingTimer = setInterval(() => {
         if (socket && socket.readyState === WebSocket.OPEN) {
             // Send our last measured RTT so server can share it with opponent
             sendMessage({ 
@@ -1077,6 +1544,14 @@ const MetricsDashboard = {
 function showScreen(screenId) {
     document.querySelectorAll('.screen').forEach(s => s.classList.remove('active'));
     document.getElementById(screenId).classList.add('active');
+    
+    // Only the lobby screen listens for open rooms
+    if (screenId === 'lobby-screen') {
+        lobbyBrowser.subscribe();
+        replayBrowser.refresh();
+    } else {
+        lobbyBrowser.unsubscribe();
+    }
 }
 
 // ============================================
@@ -1085,5 +1560,7 @@ function showScreen(screenId) {
 document.addEventListener('DOMContentLoaded', () => {
     draw();
     MetricsDashboard.init();
+    lobbyBrowser.subscribe();
+    replayBrowser.refresh();
     console.log('%c🎮 DevSecOps Pong v3.0 - Online Multiplayer!', 'color: #00d4ff; font-size: 20px;');
 });
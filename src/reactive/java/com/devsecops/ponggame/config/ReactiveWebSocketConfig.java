@@ -0,0 +1,51 @@
+package com.devsecops.ponggame.config;
+
+import com.devsecops.ponggame.websocket.GameWebSocketHandler;
+import com.devsecops.ponggame.websocket.ReactiveGameWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+
+import java.util.Map;
+
+/**
+ * Reactive (WebFlux on Netty) transport for /game-ws, enabled with the "reactive" profile
+ * (which also switches the application to a reactive web server)
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWebSocketConfig implements WebFluxConfigurer {
+
+    /**
+     * Tomcat is still on the classpath for the servlet mode, and Boot would prefer it
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Override
+    public WebSocketService getWebSocketService() {
+        return new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy());
+    }
+
+    @Bean
+    public ReactiveGameWebSocketHandler reactiveGameWebSocketHandler(GameWebSocketHandler gameWebSocketHandler,
+            @Value("${pong.ws.reactive.send-buffer:32}") int sendBuffer) {
+        return new ReactiveGameWebSocketHandler(gameWebSocketHandler, sendBuffer);
+    }
+
+    @Bean
+    public HandlerMapping reactiveGameWebSocketMapping(ReactiveGameWebSocketHandler reactiveGameWebSocketHandler) {
+        return new SimpleUrlHandlerMapping(Map.of("/game-ws", reactiveGameWebSocketHandler), Ordered.HIGHEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,66 @@
+package com.devsecops.ponggame.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+
+/**
+ * WebFlux transport for the game protocol. Each connection gets one inbound pipeline feeding
+ * {@link GameWebSocketHandler} on the Netty event loop and one outbound {@code Flux} that Netty
+ * writes with backpressure, so a busy connection never holds a thread of its own.
+ * Room, matchmaking and game logic are shared with the servlet endpoint.
+ */
+public class ReactiveGameWebSocketHandler implements WebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveGameWebSocketHandler.class);
+
+    private final GameWebSocketHandler protocol;
+    private final int sendBuffer;
+
+    public ReactiveGameWebSocketHandler(GameWebSocketHandler protocol, int sendBuffer) {
+        this.protocol = protocol;
+        this.sendBuffer = sendBuffer;
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return protocol.getSubProtocols();
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        ReactiveSessionAdapter adapter = new ReactiveSessionAdapter(session, sendBuffer);
+        protocol.afterConnectionEstablished(adapter);
+
+        Mono<Void> inbound = session.receive()
+                .doOnNext(message -> dispatch(adapter, message))
+                .doFinally(signal -> adapter.complete()) // ends the outbound stream too
+                .then();
+        Mono<Void> outbound = session.send(adapter.outbound());
+
+        return Mono.when(inbound, outbound)
+                .doFinally(signal -> protocol.afterConnectionClosed(adapter,
+                        signal == SignalType.ON_ERROR ? CloseStatus.SESSION_NOT_RELIABLE : CloseStatus.NORMAL));
+    }
+
+    private void dispatch(ReactiveSessionAdapter adapter,
+                          org.springframework.web.reactive.socket.WebSocketMessage message) {
+        WebSocketMessage<?> standard = adapter.toStandardMessage(message);
+        if (standard == null) {
+            return;
+        }
+        try {
+            protocol.handleMessage(adapter, standard);
+        } catch (Exception e) {
+            // GameWebSocketHandler already keeps the connection alive on handler errors
+            logger.error("Error handling reactive message: {} - {}", e.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+}
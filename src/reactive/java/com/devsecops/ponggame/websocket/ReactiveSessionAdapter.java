@@ -0,0 +1,175 @@
+package com.devsecops.ponggame.websocket;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.socket.HandshakeInfo;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Presents a reactive session to {@link GameWebSocketHandler} and {@link OutboundDispatcher} as a
+ * standard {@link WebSocketSession}. Sends never block: they are emitted into a bounded per-connection
+ * stream that Netty drains as the socket accepts writes. A full stream is reported as a failed send,
+ * so the dispatcher treats the client as a slow consumer just like a timed-out blocking send.
+ */
+class ReactiveSessionAdapter implements WebSocketSession {
+
+    private final org.springframework.web.reactive.socket.WebSocketSession delegate;
+    private final Sinks.Many<org.springframework.web.reactive.socket.WebSocketMessage> outbound;
+    private volatile boolean closed;
+
+    ReactiveSessionAdapter(org.springframework.web.reactive.socket.WebSocketSession delegate, int sendBuffer) {
+        this.delegate = delegate;
+        this.outbound = Sinks.many().unicast().onBackpressureBuffer(
+                Queues.<org.springframework.web.reactive.socket.WebSocketMessage>get(sendBuffer).get());
+    }
+
+    /**
+     * Frames for Netty to write, in the order they were sent
+     */
+    Flux<org.springframework.web.reactive.socket.WebSocketMessage> outbound() {
+        return outbound.asFlux();
+    }
+
+    /**
+     * Copy an inbound frame out of its pooled buffer, which is released once the receive callback returns
+     */
+    WebSocketMessage<?> toStandardMessage(org.springframework.web.reactive.socket.WebSocketMessage message) {
+        switch (message.getType()) {
+            case TEXT:
+                return new TextMessage(message.getPayloadAsText());
+            case BINARY:
+                ByteBuffer copy = ByteBuffer.allocate(message.getPayload().readableByteCount());
+                message.getPayload().toByteBuffer(copy);
+                return new BinaryMessage(copy);
+            default:
+                return null; // ping/pong frames are answered by Netty
+        }
+    }
+
+    /**
+     * The connection has ended; stop accepting frames
+     */
+    void complete() {
+        closed = true;
+        outbound.tryEmitComplete();
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (closed) {
+            throw new IOException("Session closed: " + getId());
+        }
+        org.springframework.web.reactive.socket.WebSocketMessage frame;
+        if (message instanceof BinaryMessage binary) {
+            frame = delegate.binaryMessage(factory -> factory.wrap(binary.getPayload().duplicate()));
+        } else {
+            frame = delegate.textMessage(message.getPayload().toString());
+        }
+        // One flush per session at a time (see OutboundQueue), so emits are never concurrent
+        Sinks.EmitResult result = outbound.tryEmitNext(frame);
+        if (result.isFailure()) {
+            throw new IOException("Outbound stream rejected frame (" + result + ") for " + getId());
+        }
+    }
+
+    @Override
+    public void close() {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        complete();
+        delegate.close(new org.springframework.web.reactive.socket.CloseStatus(status.getCode(), status.getReason()))
+                .subscribe();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed && delegate.isOpen();
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public URI getUri() {
+        return handshake().getUri();
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return handshake().getHeaders();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return delegate.getAttributes();
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null; // resolved lazily by WebFlux; the game protocol is anonymous
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return handshake().getRemoteAddress();
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return handshake().getSubProtocol();
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+        // configured on the Netty server
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        // configured on the Netty server
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+
+    private HandshakeInfo handshake() {
+        return delegate.getHandshakeInfo();
+    }
+}
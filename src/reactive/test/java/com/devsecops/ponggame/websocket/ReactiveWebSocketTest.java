@@ -0,0 +1,61 @@
+package com.devsecops.ponggame.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The game protocol over the WebFlux/Netty transport
+ */
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive") // the test loader picks the server before profile files load
+class ReactiveWebSocketTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void testCreateRoomAndPingOverNetty() {
+        Map<String, String> received = new ConcurrentHashMap<>();
+        ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient();
+
+        // Frames are matched by type: room creation is followed by a resume_token before the pong
+        client.execute(URI.create("ws://localhost:" + port + "/game-ws"), session -> session
+                .send(Flux.just(
+                        session.textMessage("{\"type\":\"create_room\",\"playerName\":\"Alice\"}"),
+                        session.textMessage("{\"type\":\"ping\",\"timestamp\":123,\"rtt\":0}")))
+                .thenMany(session.receive().map(WebSocketMessage::getPayloadAsText)
+                        .doOnNext(payload -> received.putIfAbsent(typeOf(payload), payload))
+                        .takeUntil(payload -> received.containsKey("room_created") && received.containsKey("pong")))
+                .then())
+            .block(Duration.ofSeconds(10));
+
+        assertTrue(received.containsKey("room_created"), received.toString());
+        assertTrue(received.containsKey("pong"), received.toString());
+        assertTrue(received.get("pong").contains("\"clientTimestamp\":123"), received.get("pong"));
+    }
+
+    private static String typeOf(String payload) {
+        try {
+            return objectMapper.readTree(payload).get("type").asText();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
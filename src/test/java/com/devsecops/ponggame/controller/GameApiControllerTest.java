@@ -1,12 +1,15 @@
 package com.devsecops.ponggame.controller;
 
 import com.devsecops.ponggame.service.GameRoomService;
+import com.devsecops.ponggame.websocket.LobbyBroadcaster;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.socket.TextMessage;
 
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -19,6 +22,9 @@ class GameApiControllerTest {
     @MockBean
     private GameRoomService gameRoomService;
 
+    @MockBean
+    private LobbyBroadcaster lobbyBroadcaster;
+
     @Test
     void testGetGameInfo() throws Exception {
         mockMvc.perform(get("/api/info"))
@@ -37,4 +43,16 @@ class GameApiControllerTest {
                 .andExpect(jsonPath("$.application").value("Pong Game"))
                 .andExpect(jsonPath("$.version").value("3.1.0"));
     }
+
+    @Test
+    void testLobbyPageIsServedAsCached() throws Exception {
+        when(lobbyBroadcaster.page(1)).thenReturn(new TextMessage(
+                "{\"type\":\"lobby_snapshot\",\"version\":3,\"page\":1,\"pages\":2,\"total\":21,\"rooms\":[]}"));
+
+        mockMvc.perform(get("/api/lobby").param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(3))
+                .andExpect(jsonPath("$.page").value(1))
+                .andExpect(jsonPath("$.total").value(21));
+    }
 }
@@ -0,0 +1,66 @@
+package com.devsecops.ponggame.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Steps the client count up until a step fails to connect or pair everyone, reports errors, or
+ * breaks the ball_state p99 budget. The last passing step is the maximum concurrent sessions for
+ * the server's thread mode. Compare modes on a Java 21 build with the same workload:
+ * <pre>
+ * mvn -Pjava21,soak test -Dtest=CapacityTest -Dspring.threads.virtual.enabled=false
+ * mvn -Pjava21,soak test -Dtest=CapacityTest -Dspring.threads.virtual.enabled=true
+ * </pre>
+ */
+@Tag("soak")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CapacityTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Test
+    void testMaxConcurrentSessions() throws Exception {
+        LoadConfig base = LoadConfig.fromSystemProperties();
+        int start = Integer.getInteger("pong.load.ramp-start", 500);
+        int max = Integer.getInteger("pong.load.ramp-max", 16000);
+        int stepSeconds = Integer.getInteger("pong.load.ramp-step-seconds", 20);
+        long p99BudgetMs = Long.getLong("pong.load.p99-budget-ms", 100);
+
+        List<String> rows = new ArrayList<>();
+        int maxSessions = 0;
+        for (int clients = start; clients <= max; clients *= 2) {
+            LoadConfig step = new LoadConfig(clients, base.connectConcurrency, stepSeconds, base.paddleHz,
+                    base.pingHz, base.gameStateHz, Math.min(base.pregameMs, stepSeconds * 500), base.driverThreads);
+            LoadReport report = new LoadGenerator(step).run("ws://localhost:" + port + "/game-ws");
+            double p99Ms = LoadReport.percentileMs(report.ballState, 0.99);
+            boolean passed = report.connectedClients == clients && report.pairedRooms == clients / 2
+                    && report.errors == 0 && p99Ms <= p99BudgetMs;
+            rows.add(String.format("%8d  %5s  %8.0f conn/s  %9.0f msg/s  ball_state p99 %8.2f ms  p999 %8.2f ms  errors %d",
+                    clients, passed ? "ok" : "FAIL", report.connectionsPerSecond(), report.receivedPerSecond, p99Ms,
+                    LoadReport.percentileMs(report.ballState, 0.999), report.errors));
+            if (!passed) {
+                break;
+            }
+            maxSessions = clients;
+            Thread.sleep(2000); // let the previous step's sessions close and expire
+        }
+
+        System.out.println("==== Capacity (" + (virtualThreads ? "virtual" : "platform") + " threads, p99 budget "
+                + p99BudgetMs + " ms) ====");
+        rows.forEach(System.out::println);
+        System.out.println("max concurrent sessions: " + maxSessions);
+        assertTrue(maxSessions >= start, "the first step should pass");
+    }
+}
@@ -0,0 +1,53 @@
+package com.devsecops.ponggame.load;
+
+/**
+ * Load shape, read from {@code pong.load.*} system properties so a run can be resized from the command line
+ */
+final class LoadConfig {
+
+    /** Simulated clients; every two form one room */
+    final int clients;
+    /** Handshakes allowed in flight while connecting */
+    final int connectConcurrency;
+    final int durationSeconds;
+    final int paddleHz;
+    final int pingHz;
+    /** Legacy host-side game_state frames; the server parses and ignores them */
+    final int gameStateHz;
+    /** Time each room spends before game_start, when paddles are relayed as opponent_paddle */
+    final int pregameMs;
+    final int driverThreads;
+
+    LoadConfig(int clients, int connectConcurrency, int durationSeconds, int paddleHz, int pingHz,
+               int gameStateHz, int pregameMs, int driverThreads) {
+        if (clients < 2 || clients % 2 != 0) {
+            throw new IllegalArgumentException("clients must be an even number >= 2: " + clients);
+        }
+        this.clients = clients;
+        this.connectConcurrency = connectConcurrency;
+        this.durationSeconds = durationSeconds;
+        this.paddleHz = paddleHz;
+        this.pingHz = pingHz;
+        this.gameStateHz = gameStateHz;
+        this.pregameMs = pregameMs;
+        this.driverThreads = driverThreads;
+    }
+
+    static LoadConfig fromSystemProperties() {
+        return new LoadConfig(
+                Integer.getInteger("pong.load.clients", 1000),
+                Integer.getInteger("pong.load.connect-concurrency", 100),
+                Integer.getInteger("pong.load.duration-seconds", 30),
+                Integer.getInteger("pong.load.paddle-hz", 30),
+                Integer.getInteger("pong.load.ping-hz", 1),
+                Integer.getInteger("pong.load.game-state-hz", 0),
+                Integer.getInteger("pong.load.pregame-ms", 3000),
+                Integer.getInteger("pong.load.driver-threads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Override
+    public String toString() {
+        return clients + " clients, " + durationSeconds + " s, paddle " + paddleHz + " Hz, ping " + pingHz
+                + " Hz, game_state " + gameStateHz + " Hz, pregame " + pregameMs + " ms";
+    }
+}
@@ -0,0 +1,189 @@
+package com.devsecops.ponggame.load;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless load generator for {@code /game-ws}. Connects {@link LoadConfig#clients} simulated
+ * players with Spring's standard WebSocket client, pairs them through create_room/join_room, then
+ * drives paddle_move, ping and (optionally) game_state traffic for the configured duration.
+ * Runs embedded from {@link SoakTest}, or against a deployed server via {@link #main}.
+ */
+class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private final LoadConfig config;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Timer opponentPaddleLatency;
+    private final Timer ballStateLatency;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, AtomicInteger> errorsByCause = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    LoadGenerator(LoadConfig config) {
+        this.config = config;
+        this.opponentPaddleLatency = latencyTimer("opponent_paddle");
+        this.ballStateLatency = latencyTimer("ball_state");
+    }
+
+    private Timer latencyTimer(String type) {
+        return Timer.builder("load_relay_latency")
+                .tag("type", type)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .distributionStatisticExpiry(Duration.ofDays(1)) // report the whole run, not a sliding window
+                .register(registry);
+    }
+
+    LoadReport run(String url) throws InterruptedException {
+        StandardWebSocketClient client = new StandardWebSocketClient();
+        List<SimulatedClient> clients = new ArrayList<>(config.clients);
+        for (int i = 0; i < config.clients; i += 2) {
+            SimulatedClient host = new SimulatedClient(this, true, i / 2);
+            SimulatedClient guest = new SimulatedClient(this, false, i / 2);
+            host.setOpponent(guest);
+            guest.setOpponent(host);
+            clients.add(host);
+            clients.add(guest);
+        }
+        running = true;
+
+        // Connect, with a bounded number of handshakes in flight
+        long connectStart = System.nanoTime();
+        Semaphore inFlight = new Semaphore(config.connectConcurrency);
+        AtomicInteger connected = new AtomicInteger();
+        List<CompletableFuture<?>> handshakes = new ArrayList<>(config.clients);
+        for (SimulatedClient simulated : clients) {
+            inFlight.acquire();
+            handshakes.add(client.execute(simulated, url).whenComplete((session, error) -> {
+                inFlight.release();
+                if (error != null) {
+                    recordError("connect: " + error.getClass().getSimpleName());
+                } else {
+                    connected.incrementAndGet();
+                }
+            }));
+        }
+        awaitQuietly(CompletableFuture.allOf(handshakes.toArray(new CompletableFuture[0])), 60);
+        double connectSeconds = (System.nanoTime() - connectStart) / 1e9;
+        logger.info("Connected {}/{} clients in {} s", connected.get(), config.clients, String.format("%.2f", connectSeconds));
+
+        // Pair: each host creates a room and its guest joins it
+        List<CompletableFuture<Void>> pairings = new ArrayList<>();
+        for (int i = 0; i < clients.size(); i += 2) {
+            SimulatedClient host = clients.get(i);
+            SimulatedClient guest = clients.get(i + 1);
+            host.roomCode.thenAccept(guest::joinRoom);
+            host.createRoom();
+            pairings.add(CompletableFuture.allOf(host.paired, guest.paired));
+        }
+        awaitQuietly(CompletableFuture.allOf(pairings.toArray(new CompletableFuture[0])), 60);
+        long pairedRooms = pairings.stream().filter(CompletableFuture::isDone).count();
+        logger.info("Paired {}/{} rooms", pairedRooms, pairings.size());
+
+        // Drive traffic; start offsets are jittered so clients do not send in lockstep
+        sent.reset();
+        received.reset();
+        ScheduledExecutorService driver = Executors.newScheduledThreadPool(config.driverThreads, runnable -> {
+            Thread thread = new Thread(runnable, "load-driver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long driveStart = System.nanoTime();
+        for (SimulatedClient simulated : clients) {
+            schedule(driver, simulated::sendPaddleMove, config.paddleHz);
+            schedule(driver, simulated::sendPing, config.pingHz);
+            if (simulated.isHost()) {
+                schedule(driver, simulated::sendGameState, config.gameStateHz);
+            }
+        }
+        Thread.sleep(TimeUnit.SECONDS.toMillis(config.durationSeconds));
+        driver.shutdownNow();
+        double driveSeconds = (System.nanoTime() - driveStart) / 1e9;
+        long sentCount = sent.sum();
+        long receivedCount = received.sum();
+
+        running = false;
+        clients.forEach(SimulatedClient::close);
+
+        return new LoadReport(config, connected.get(), connectSeconds, (int) pairedRooms,
+                sentCount / driveSeconds, receivedCount / driveSeconds,
+                opponentPaddleLatency.takeSnapshot(), ballStateLatency.takeSnapshot(),
+                errors.sum(), Map.copyOf(errorsByCause));
+    }
+
+    private void schedule(ScheduledExecutorService driver, Runnable task, int hz) {
+        if (hz <= 0) {
+            return;
+        }
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / hz;
+        long offset = ThreadLocalRandom.current().nextLong(periodNanos);
+        driver.scheduleAtFixedRate(task, offset, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static void awaitQuietly(CompletableFuture<?> future, int timeoutSeconds) {
+        try {
+            future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // Failures are counted per client; report whatever completed
+        }
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    long pregameNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(config.pregameMs);
+    }
+
+    Timer opponentPaddleLatency() {
+        return opponentPaddleLatency;
+    }
+
+    Timer ballStateLatency() {
+        return ballStateLatency;
+    }
+
+    void recordSent() {
+        sent.increment();
+    }
+
+    void recordReceived() {
+        received.increment();
+    }
+
+    void recordError(String cause) {
+        errors.increment();
+        errorsByCause.computeIfAbsent(cause, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * Run against a deployed server, e.g. {@code ws://localhost:8080/game-ws}; shape via -Dpong.load.*
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String url = args.length > 0 ? args[0] : "ws://localhost:8080/game-ws";
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        logger.info("Load against {}: {}", url, config);
+        System.out.println(new LoadGenerator(config).run(url));
+    }
+}
@@ -0,0 +1,88 @@
+package com.devsecops.ponggame.load;
+
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of one load run
+ */
+final class LoadReport {
+
+    final LoadConfig config;
+    final int connectedClients;
+    final double connectSeconds;
+    final int pairedRooms;
+    final double sentPerSecond;
+    final double receivedPerSecond;
+    final HistogramSnapshot opponentPaddle;
+    final HistogramSnapshot ballState;
+    final long errors;
+    final Map<String, ? extends Number> errorsByCause;
+
+    LoadReport(LoadConfig config, int connectedClients, double connectSeconds, int pairedRooms,
+               double sentPerSecond, double receivedPerSecond,
+               HistogramSnapshot opponentPaddle, HistogramSnapshot ballState,
+               long errors, Map<String, ? extends Number> errorsByCause) {
+        this.config = config;
+        this.connectedClients = connectedClients;
+        this.connectSeconds = connectSeconds;
+        this.pairedRooms = pairedRooms;
+        this.sentPerSecond = sentPerSecond;
+        this.receivedPerSecond = receivedPerSecond;
+        this.opponentPaddle = opponentPaddle;
+        this.ballState = ballState;
+        this.errors = errors;
+        this.errorsByCause = errorsByCause;
+    }
+
+    double connectionsPerSecond() {
+        return connectedClients / connectSeconds;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append("==== Load report: ").append(config).append(" ====\n");
+        report.append(String.format("connections     %d/%d in %.2f s (%.0f/s)%n",
+                connectedClients, config.clients, connectSeconds, connectionsPerSecond()));
+        report.append(String.format("rooms paired    %d/%d%n", pairedRooms, config.clients / 2));
+        report.append(String.format("messages        %.0f sent/s, %.0f received/s%n", sentPerSecond, receivedPerSecond));
+        appendLatency(report, "opponent_paddle", opponentPaddle);
+        appendLatency(report, "ball_state", ballState);
+        report.append("errors          ").append(errors);
+        if (!errorsByCause.isEmpty()) {
+            report.append(' ').append(errorsByCause);
+        }
+        return report.append('\n').toString();
+    }
+
+    private static void appendLatency(StringBuilder report, String type, HistogramSnapshot snapshot) {
+        report.append(String.format("%-16s", type)).append(snapshot.count()).append(" samples");
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            report.append(String.format(", p%s %.2f ms", label(percentile.percentile()),
+                    percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        report.append(String.format(", max %.2f ms%n", snapshot.max(TimeUnit.MILLISECONDS)));
+    }
+
+    /**
+     * Value of one of the published percentiles (0.5, 0.99, 0.999), or NaN
+     */
+    static double percentileMs(HistogramSnapshot snapshot, double percentile) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static String label(double percentile) {
+        // 0.5 -> 50, 0.99 -> 99, 0.999 -> 999
+        String digits = String.valueOf(percentile).substring(2);
+        return digits.length() == 1 ? digits + "0" : digits;
+    }
+}
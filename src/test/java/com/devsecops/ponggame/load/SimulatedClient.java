@@ -0,0 +1,193 @@
+package com.devsecops.ponggame.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * One headless player. Hosts create a room and hand the code to their guest; both then move
+ * their paddle through a cycle of distinct positions so the opponent can tell which input a
+ * relayed position came from and time it.
+ */
+class SimulatedClient extends TextWebSocketHandler {
+
+    /** Paddle positions are multiples of 0.1 in [0, 360), each used once per cycle */
+    private static final int POSITIONS = 3600;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final LoadGenerator generator;
+    private final boolean host;
+    private final String name;
+    private final AtomicLongArray sentAtNanos = new AtomicLongArray(POSITIONS);
+    final CompletableFuture<String> roomCode = new CompletableFuture<>();
+    final CompletableFuture<Void> paired = new CompletableFuture<>();
+
+    private volatile WebSocketSession session;
+    private volatile SimulatedClient opponent;
+    private volatile int playerNumber;
+    private volatile long pairedAtNanos;
+    private volatile boolean gameRequested;
+    private int position;
+    private int lastSeenOpponentKey = -1;
+
+    SimulatedClient(LoadGenerator generator, boolean host, int index) {
+        this.generator = generator;
+        this.host = host;
+        this.name = (host ? "host-" : "guest-") + index;
+    }
+
+    void setOpponent(SimulatedClient opponent) {
+        this.opponent = opponent;
+    }
+
+    boolean isHost() {
+        return host;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        this.session = session;
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        if (generator.isRunning()) {
+            generator.recordError("closed " + status.getCode());
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        generator.recordError(exception.getClass().getSimpleName());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        long receivedNanos = System.nanoTime();
+        generator.recordReceived();
+        JsonNode json = MAPPER.readTree(message.getPayload());
+        switch (json.path("type").asText()) {
+            case "room_created":
+                playerNumber = 1;
+                roomCode.complete(json.path("roomCode").asText());
+                break;
+            case "room_joined":
+                playerNumber = json.path("playerNumber").asInt();
+                markPaired();
+                break;
+            case "opponent_joined":
+                markPaired();
+                break;
+            case "opponent_paddle":
+                recordRelay(json.path("paddleY").asDouble(), receivedNanos, generator.opponentPaddleLatency());
+                break;
+            case "ball_state":
+                String opponentField = playerNumber == 1 ? "player2Y" : "player1Y";
+                recordRelay(json.path(opponentField).asDouble(), receivedNanos, generator.ballStateLatency());
+                break;
+            case "game_ended":
+                gameRequested = false; // the host starts a rematch on its next tick
+                break;
+            case "error":
+                generator.recordError("server: " + json.path("message").asText());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void markPaired() {
+        pairedAtNanos = System.nanoTime();
+        paired.complete(null);
+    }
+
+    /**
+     * Time from sending a paddle position to seeing the opponent receive it. Snapshots repeat the
+     * last position every tick, so only the first frame carrying a new position is counted.
+     */
+    private void recordRelay(double paddleY, long receivedNanos, Timer timer) {
+        SimulatedClient sender = opponent;
+        int key = (int) Math.round(paddleY * 10);
+        if (sender == null || key < 0 || key >= POSITIONS || key == lastSeenOpponentKey) {
+            return;
+        }
+        lastSeenOpponentKey = key;
+        long sentAt = sender.sentAtNanos.getAndSet(key, 0);
+        if (sentAt != 0 && receivedNanos >= sentAt) {
+            timer.record(receivedNanos - sentAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void createRoom() {
+        send("{\"type\":\"create_room\",\"playerName\":\"" + name + "\"}");
+    }
+
+    void joinRoom(String code) {
+        send("{\"type\":\"join_room\",\"roomCode\":\"" + code + "\",\"playerName\":\"" + name + "\"}");
+    }
+
+    void sendPaddleMove() {
+        if (!paired.isDone()) {
+            return;
+        }
+        int key = position;
+        position = (position + 1) % POSITIONS;
+        sentAtNanos.set(key, System.nanoTime());
+        send("{\"type\":\"paddle_move\",\"paddleY\":" + (key / 10.0) + "}");
+
+        // The host starts (and restarts) the game once the pregame window has passed
+        if (host && !gameRequested && System.nanoTime() - pairedAtNanos >= generator.pregameNanos()) {
+            gameRequested = true;
+            send("{\"type\":\"game_start\"}");
+        }
+    }
+
+    void sendPing() {
+        send("{\"type\":\"ping\",\"timestamp\":" + System.currentTimeMillis() + ",\"rtt\":0}");
+    }
+
+    void sendGameState() {
+        if (paired.isDone()) {
+            send("{\"type\":\"game_state\",\"ballX\":400,\"ballY\":225}");
+        }
+    }
+
+    void close() {
+        WebSocketSession current = session;
+        if (current != null && current.isOpen()) {
+            try {
+                current.close(CloseStatus.NORMAL);
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+    }
+
+    /**
+     * Sessions are not safe for concurrent sends; every client's tasks share one lock
+     */
+    private void send(String payload) {
+        WebSocketSession current = session;
+        if (current == null || !current.isOpen()) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                current.sendMessage(new TextMessage(payload));
+            }
+            generator.recordSent();
+        } catch (IOException | IllegalStateException e) {
+            generator.recordError(e.getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.devsecops.ponggame.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Soak run against an embedded server on a random port. Excluded from the default build;
+ * run with {@code mvn test -Psoak} and size it with {@code -Dpong.load.clients=...} etc.
+ */
+@Tag("soak")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SoakTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void testSustainedLoad() throws Exception {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        LoadReport report = new LoadGenerator(config).run("ws://localhost:" + port + "/game-ws");
+        System.out.println(report);
+
+        assertEquals(config.clients, report.connectedClients, "every client connects");
+        assertEquals(config.clients / 2, report.pairedRooms, "every pair shares a room");
+        assertTrue(report.opponentPaddle.count() > 0, "opponent_paddle relays were timed");
+        assertTrue(report.ballState.count() > 0 || config.durationSeconds * 1000L <= config.pregameMs,
+                "ball_state relays were timed");
+    }
+}
@@ -0,0 +1,76 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.ClusterNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRoomDirectoryTest {
+
+    private static final String THREE_NODES = "a=ws://a:8080/game-ws, b=ws://b:8080/game-ws, c=ws://c:8080/game-ws";
+    private static final String CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+
+    private static String code(int i) {
+        return "" + CHARS.charAt(i % 32) + CHARS.charAt(i / 32 % 32) + CHARS.charAt(i / 1024 % 32) + CHARS.charAt(i / 32768 % 32);
+    }
+
+    @Test
+    void testWithoutNodeListEverythingIsLocal() {
+        RoomDirectory directory = new ConsistentHashRoomDirectory("local", "", 128);
+        assertEquals(1, directory.getNodes().size());
+        assertTrue(directory.isLocal("AB12"));
+        assertTrue(directory.isLocal("ZZZZ"));
+    }
+
+    @Test
+    void testNodesAgreeOnOwnersAndShareTheCodes() {
+        RoomDirectory a = new ConsistentHashRoomDirectory("a", THREE_NODES, 128);
+        RoomDirectory b = new ConsistentHashRoomDirectory("b", THREE_NODES, 128);
+        RoomDirectory c = new ConsistentHashRoomDirectory("c", THREE_NODES, 128);
+
+        Map<String, Integer> owned = new HashMap<>();
+        int codes = 30_000;
+        for (int i = 0; i < codes; i++) {
+            String code = code(i);
+            ClusterNode owner = a.ownerOf(code);
+            assertEquals(owner.getId(), b.ownerOf(code).getId());
+            assertEquals(owner.getId(), c.ownerOf(code).getId());
+            int localCount = (a.isLocal(code) ? 1 : 0) + (b.isLocal(code) ? 1 : 0) + (c.isLocal(code) ? 1 : 0);
+            assertEquals(1, localCount, code);
+            owned.merge(owner.getId(), 1, Integer::sum);
+        }
+        assertEquals("ws://b:8080/game-ws", b.getLocalNode().getUrl());
+        for (int count : owned.values()) {
+            assertTrue(count > codes / 3 * 0.75 && count < codes / 3 * 1.25, "balanced: " + owned);
+        }
+    }
+
+    @Test
+    void testAddingANodeOnlyMovesCodesToIt() {
+        RoomDirectory before = new ConsistentHashRoomDirectory("a", THREE_NODES, 128);
+        RoomDirectory after = new ConsistentHashRoomDirectory("a", THREE_NODES + ",d=ws://d:8080/game-ws", 128);
+
+        int moved = 0;
+        int codes = 30_000;
+        for (int i = 0; i < codes; i++) {
+            String code = code(i);
+            String previous = before.ownerOf(code).getId();
+            String next = after.ownerOf(code).getId();
+            if (!previous.equals(next)) {
+                assertEquals("d", next);
+                moved++;
+            }
+        }
+        assertTrue(moved > codes / 4 * 0.75 && moved < codes / 4 * 1.25, "about a quarter moved: " + moved);
+    }
+
+    @Test
+    void testRejectsBadNodeLists() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRoomDirectory("x", THREE_NODES, 128));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRoomDirectory("a", "a=ws://a,a=ws://b", 128));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRoomDirectory("a", "a", 128));
+    }
+}
@@ -0,0 +1,96 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiryServiceTest {
+
+    private static final long SESSION_TIMEOUT_MS = 30_000;
+    private static final long ROOM_TIMEOUT_MS = 300_000;
+
+    private final ExpiryService expiryService =
+            new ExpiryService(new SimpleMeterRegistry(), SESSION_TIMEOUT_MS, ROOM_TIMEOUT_MS);
+    private final List<String> expiredSessions = new ArrayList<>();
+    private final List<GameRoom> expiredRooms = new ArrayList<>();
+
+    ExpiryServiceTest() {
+        expiryService.setListener(new ExpiryListener() {
+            public void onSessionExpired(String sessionId) {
+                expiredSessions.add(sessionId);
+            }
+            public void onRoomExpired(GameRoom room) {
+                expiredRooms.add(room);
+            }
+        });
+    }
+
+    @Test
+    void testIdleSessionsExpireAndActiveOnesAreRescheduled() {
+        long start = System.currentTimeMillis();
+        expiryService.trackSession("idle");
+        expiryService.trackSession("active");
+        expiryService.trackSession("closed");
+        expiryService.untrackSession("closed");
+        expiryService.sweep(start);
+
+        expiryService.sweep(start + SESSION_TIMEOUT_MS / 2);
+        expiryService.touchSession("active", start + SESSION_TIMEOUT_MS / 2);
+        assertTrue(expiredSessions.isEmpty());
+
+        expiryService.sweep(start + SESSION_TIMEOUT_MS + 2_000);
+        assertEquals(List.of("idle"), expiredSessions);
+
+        expiryService.sweep(start + SESSION_TIMEOUT_MS * 2 + 2_000);
+        assertEquals(List.of("idle", "active"), expiredSessions);
+    }
+
+    @Test
+    void testRoomsExpireAfterLastPing() {
+        long start = System.currentTimeMillis();
+        GameRoom abandoned = new GameRoom("ABCD");
+        abandoned.addPlayer("s1", "Ann");
+        GameRoom pinged = new GameRoom("EFGH");
+        pinged.addPlayer("s2", "Bob");
+        expiryService.trackRoom(abandoned);
+        expiryService.trackRoom(pinged);
+        expiryService.sweep(start);
+
+        pinged.updatePing(1, start + ROOM_TIMEOUT_MS - 10_000);
+        expiryService.sweep(start + ROOM_TIMEOUT_MS + 2_000);
+
+        assertEquals(List.of(abandoned), expiredRooms);
+    }
+
+    @Test
+    void testClosedRoomsAreDroppedSilently() {
+        long start = System.currentTimeMillis();
+        GameRoom room = new GameRoom("WXYZ");
+        expiryService.trackRoom(room);
+        expiryService.sweep(start);
+        assertTrue(room.closeIfEmpty());
+
+        expiryService.sweep(start + ROOM_TIMEOUT_MS + 2_000);
+        assertTrue(expiredRooms.isEmpty());
+    }
+
+    @Test
+    void testWheelOnlyVisitsDueEntries() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1000, 64, 0);
+        for (int i = 0; i < 10_000; i++) {
+            wheel.schedule(i, 5_000 + (i % 50) * 1000L);
+        }
+        List<Integer> fired = new ArrayList<>();
+
+        wheel.advance(5_000, fired::add);
+        assertEquals(200, fired.size());
+        wheel.advance(200_000, fired::add);
+        assertEquals(10_000, fired.size());
+        assertEquals(0, wheel.size());
+    }
+}
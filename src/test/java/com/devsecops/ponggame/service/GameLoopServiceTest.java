@@ -0,0 +1,242 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.GameState;
+import com.devsecops.ponggame.model.PowerupType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameLoopServiceTest {
+
+    private final GameLoopService gameLoopService = new GameLoopService(60);
+
+    @Test
+    void testBallBouncesOffTopWall() {
+        GameState state = new GameState();
+        state.setBallX(400);
+        state.setBallY(GameState.BALL_SIZE + 1);
+        state.setBallDx(0);
+        state.setBallDy(-5);
+
+        assertEquals(0, gameLoopService.step(state, System.currentTimeMillis()));
+        assertTrue(state.getBallDy() > 0);
+        assertEquals(GameState.BALL_SIZE, state.getBallY());
+    }
+
+    @Test
+    void testBallBouncesOffPaddle() {
+        GameState state = new GameState();
+        state.setPlayer1Y(180);
+        state.setBallX(GameState.PADDLE_MARGIN + GameState.PADDLE_WIDTH + GameState.BALL_SIZE + 2);
+        state.setBallY(225);
+        state.setBallDx(-5);
+        state.setBallDy(0);
+
+        assertEquals(0, gameLoopService.step(state, System.currentTimeMillis()));
+        assertTrue(state.getBallDx() > 0);
+        assertTrue(state.getBallSpeed() > GameState.BALL_SPEED);
+    }
+
+    @Test
+    void testScoreAndGameOver() {
+        GameState state = new GameState();
+        state.setRunning(true);
+        state.setPlayer1Score(GameLoopService.WINNING_SCORE - 1);
+        state.setPlayer2Y(0);
+        state.setBallX(GameState.FIELD_WIDTH - 1);
+        state.setBallY(400);
+        state.setBallDx(5);
+        state.setBallDy(0);
+
+        assertEquals(1, gameLoopService.step(state, System.currentTimeMillis()));
+        assertEquals(GameLoopService.WINNING_SCORE, state.getPlayer1Score());
+        assertFalse(state.isRunning());
+    }
+
+    @Test
+    void testLowTickRateDoesNotTunnelThroughPaddle() {
+        GameLoopService slowLoop = new GameLoopService(10);
+        GameState state = new GameState();
+        state.setPlayer2Y(180);
+        state.setBallX(GameState.FIELD_WIDTH - GameState.PADDLE_MARGIN - 40);
+        state.setBallY(225);
+        state.setBallDx(GameLoopService.MAX_BALL_SPEED);
+        state.setBallDy(0);
+
+        assertEquals(0, slowLoop.step(state, System.currentTimeMillis()));
+        assertTrue(state.getBallDx() < 0);
+    }
+
+    @Test
+    void testPowerupIsPlacedByTheServerAndCollectedOnce() {
+        GameState state = new GameState();
+        long now = System.currentTimeMillis();
+        assertFalse(gameLoopService.placePowerup(state, PowerupType.SHRINK_OPPONENT, 400, 200), "no game running");
+
+        state.setRunning(true);
+        assertTrue(gameLoopService.placePowerup(state, PowerupType.SHRINK_OPPONENT, -1000, 9999));
+        assertEquals(GameState.FIELD_WIDTH / 4, state.getPowerupX());
+        assertEquals(GameState.FIELD_HEIGHT - 50, state.getPowerupY());
+        assertFalse(gameLoopService.placePowerup(state, PowerupType.BIG_PADDLE, 400, 200), "one live power-up");
+
+        state.setBallX(400);
+        state.setBallY(225);
+        assertEquals(0, gameLoopService.collectPowerup(state, now));
+        assertEquals(GameState.PADDLE_HEIGHT, state.getPlayer1PaddleHeight());
+
+        // Ball moving right was last hit by player 1, whose opponent shrinks
+        state.setBallX(state.getPowerupX() + 5);
+        state.setBallY(state.getPowerupY());
+        state.setBallDx(5);
+        assertEquals(1, gameLoopService.collectPowerup(state, now));
+        assertEquals(GameState.PADDLE_HEIGHT * 0.6, state.getPlayer2PaddleHeight());
+        assertEquals(0, state.getPowerupId());
+        assertEquals(0, gameLoopService.collectPowerup(state, now));
+    }
+
+    @Test
+    void testPowerupEffectsExpireIndependently() {
+        GameState state = new GameState();
+        state.setRunning(true);
+        state.setBallDx(5);
+        long now = System.currentTimeMillis();
+
+        collectAt(state, PowerupType.BIG_PADDLE, now);
+        collectAt(state, PowerupType.SLOW_BALL, now + 3000);
+        assertEquals(GameState.PADDLE_HEIGHT * 1.5, state.getPlayer1PaddleHeight());
+        assertTrue(state.getSpeedBeforeSlow() > 0);
+
+        // The big paddle wears off on time and is reported, the later slow ball is left alone
+        assertTrue(gameLoopService.expirePowerups(state, now + GameLoopService.POWERUP_DURATION_MS));
+        assertEquals(GameState.PADDLE_HEIGHT, state.getPlayer1PaddleHeight());
+        assertTrue(state.getSpeedBeforeSlow() > 0);
+
+        assertFalse(gameLoopService.expirePowerups(state, now + 3000 + GameLoopService.POWERUP_DURATION_MS));
+        assertEquals(0, state.getSpeedBeforeSlow());
+    }
+
+    private void collectAt(GameState state, PowerupType type, long now) {
+        assertTrue(gameLoopService.placePowerup(state, type, 400, 225));
+        state.setBallX(state.getPowerupX());
+        state.setBallY(state.getPowerupY());
+        assertEquals(1, gameLoopService.collectPowerup(state, now));
+    }
+
+    @Test
+    void testPaddleInputIsCoalescedAndRateCapped() {
+        GameLoopService cappedLoop = new GameLoopService(60, 30, 100);
+        GameRoom room = new GameRoom("TEST");
+        long now = 1_000_000_000L;
+
+        assertTrue(cappedLoop.applyPaddleInput(room, 1, 100, now));
+        assertFalse(cappedLoop.applyPaddleInput(room, 1, 120, now + 1_000_000));
+        assertTrue(cappedLoop.applyPaddleInput(room, 1, 140, now + 10_000_000));
+        assertTrue(cappedLoop.applyPaddleInput(room, 2, 9999, now));
+
+        GameState state = room.getGameState();
+        assertEquals(140, state.getPlayer1Y());
+        assertEquals(GameState.FIELD_HEIGHT - GameState.PADDLE_HEIGHT, state.getPlayer2Y());
+        assertTrue(state.isPaddleDirty(1));
+        assertTrue(state.isPaddleDirty(2));
+    }
+
+    @Test
+    void testUnchangedPaddleIsNotRelayed() {
+        GameRoom room = new GameRoom("TEST");
+        GameState state = room.getGameState();
+
+        assertTrue(gameLoopService.applyPaddleInput(room, 1, state.getPlayer1Y(), 1_000_000_000L));
+        assertFalse(state.isPaddleDirty(1));
+        assertTrue(gameLoopService.applyPaddleInput(room, 1, state.getPlayer1Y() + 8, 1_000_000_000L));
+        assertTrue(state.isPaddleDirty(1));
+    }
+
+    @Test
+    void testLastAppliedInputSequenceIsKept() {
+        GameRoom room = new GameRoom("TEST");
+
+        gameLoopService.applyPaddleInput(room, 2, 100, 7, 1_000_000_000L);
+        gameLoopService.applyPaddleInput(room, 2, 100, 8, 1_000_000_000L);
+        assertEquals(8, room.getInputSeq(2));
+        gameLoopService.applyPaddleInput(room, 2, 120, 0, 1_000_000_000L);
+        assertEquals(8, room.getInputSeq(2));
+        assertEquals(0, room.getInputSeq(1));
+
+        room.getGameState().reset();
+        assertEquals(8, room.getInputSeq(2), "a new game on the same connection keeps counting");
+    }
+
+    @Test
+    void testInputSequenceStartsOverWhenSlotChangesHands() {
+        GameRoom room = new GameRoom("TEST");
+        room.addPlayer("s1", "Ann");
+        room.addPlayer("s2", "Bob");
+        gameLoopService.applyPaddleInput(room, 2, 100, 40, 1_000_000_000L);
+        int leftGeneration = room.getSlotGeneration(2);
+
+        room.removePlayer("s2");
+        assertEquals(0, room.getInputSeq(2));
+        room.addPlayer("s3", "Cid");
+        assertEquals(0, room.getInputSeq(2));
+
+        // An input of the previous occupant still queued on the shard is not acknowledged
+        gameLoopService.applyPaddleInput(room, 2, 110, 41, leftGeneration, 1_000_000_000L);
+        assertEquals(0, room.getInputSeq(2));
+        gameLoopService.applyPaddleInput(room, 2, 120, 1, 1_000_000_000L);
+        assertEquals(1, room.getInputSeq(2));
+
+        assertTrue(room.rebindSlot("s3", "s4"));
+        assertEquals(0, room.getInputSeq(2));
+        assertEquals(0, room.getInputSeq(1));
+    }
+
+    @Test
+    void testRoomMutationsRunOnOwningShard() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GameLoopService shardedLoop = new GameLoopService(60, 30, 0, 4, registry);
+        Map<String, String> startedOn = new ConcurrentHashMap<>();
+        Map<String, String> snapshotOn = new ConcurrentHashMap<>();
+        CountDownLatch snapshots = new CountDownLatch(8);
+        shardedLoop.setListener(new GameLoopListener() {
+            public void onGameStarted(GameRoom room) {
+                startedOn.put(room.getRoomCode(), Thread.currentThread().getName());
+            }
+            public void onSnapshot(GameRoom room) {
+                if (snapshotOn.putIfAbsent(room.getRoomCode(), Thread.currentThread().getName()) == null) {
+                    snapshots.countDown();
+                }
+            }
+            public void onPaddleFlush(GameRoom room, int playerNumber, double paddleY) { }
+            public void onScore(GameRoom room, int scorer) { }
+            public void onGameOver(GameRoom room, int winner) { }
+            public void onPowerupSpawned(GameRoom room, long powerupId, PowerupType type, double x, double y) { }
+            public void onPowerupCollected(GameRoom room, int playerNumber, PowerupType type) { }
+            public void onPowerupExpired(GameRoom room) { }
+        });
+        shardedLoop.start();
+        try {
+            for (int i = 0; i < 8; i++) {
+                GameRoom room = new GameRoom("ROOM" + i);
+                room.addPlayer("a" + i, "A");
+                room.addPlayer("b" + i, "B");
+                shardedLoop.startGame(room);
+            }
+
+            assertTrue(snapshots.await(5, TimeUnit.SECONDS));
+            assertEquals(startedOn, snapshotOn);
+            assertTrue(snapshotOn.values().stream().distinct().count() > 1);
+            assertEquals(4, registry.find("pong_shard_rooms").gauges().size());
+            assertEquals(8.0, registry.find("pong_shard_rooms").gauges().stream()
+                    .mapToDouble(gauge -> gauge.value()).sum());
+        } finally {
+            shardedLoop.stop();
+        }
+    }
+}
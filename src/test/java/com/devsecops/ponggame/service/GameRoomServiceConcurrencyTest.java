@@ -0,0 +1,98 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.RoomPhase;
+import com.devsecops.ponggame.model.RoomStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers room creation, joins and leaves from many threads on a small set of shared room codes
+ */
+class GameRoomServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 20_000;
+    private static final int SHARED_CODES = 8;
+
+    @Test
+    void testConcurrentJoinsNeverOverfillRooms() throws Exception {
+        GameRoomService service = new GameRoomService();
+        AtomicReferenceArray<String> codes = new AtomicReferenceArray<>(SHARED_CODES);
+        for (int i = 0; i < SHARED_CODES; i++) {
+            codes.set(i, service.createRoom().getRoomCode());
+        }
+
+        Map<GameRoom, AtomicInteger> occupants = new ConcurrentHashMap<>();
+        AtomicLong joins = new AtomicLong();
+        AtomicInteger violations = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[THREADS];
+
+        for (int t = 0; t < THREADS; t++) {
+            int worker = t;
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    int slot = random.nextInt(SHARED_CODES);
+                    String code = codes.get(slot);
+                    String sessionId = worker + "-" + i;
+
+                    GameRoom room = service.joinRoom(code, sessionId, "P" + worker);
+                    if (room == null) {
+                        // Closed and removed after its last player left: replace the shared code
+                        if (service.getRoom(code) == null) {
+                            codes.compareAndSet(slot, code, service.createRoom().getRoomCode());
+                        }
+                        continue;
+                    }
+                    joins.incrementAndGet();
+
+                    // Counted after the join and uncounted before the leave, so never above the real occupancy
+                    AtomicInteger count = occupants.computeIfAbsent(room, r -> new AtomicInteger());
+                    int playerNumber = room.getPlayerNumber(sessionId);
+                    if (count.incrementAndGet() > 2 || (playerNumber != 1 && playerNumber != 2)
+                            || service.getRoomBySession(sessionId) != room) {
+                        violations.incrementAndGet();
+                    }
+                    if (random.nextInt(4) == 0) {
+                        Thread.yield();
+                    }
+                    count.decrementAndGet();
+                    service.leaveRoom(sessionId);
+                }
+            });
+            workers[t].start();
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(0, violations.get());
+        assertTrue(joins.get() > 0);
+
+        RoomStats roomStats = service.getRoomStats();
+        assertEquals(0, service.getConnectedPlayerCount());
+        assertEquals(0, roomStats.count(RoomPhase.FULL));
+        assertEquals(service.getActiveRoomCount(), roomStats.count(RoomPhase.WAITING));
+        for (int i = 0; i < SHARED_CODES; i++) {
+            GameRoom room = service.getRoom(codes.get(i));
+            assertTrue(room == null || room.isEmpty());
+        }
+    }
+}
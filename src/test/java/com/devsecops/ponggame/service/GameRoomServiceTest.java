@@ -0,0 +1,76 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.RoomPhase;
+import com.devsecops.ponggame.model.RoomStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRoomServiceTest {
+
+    private final GameRoomService service = new GameRoomService();
+
+    @Test
+    void testRoomStatsFollowLifecycle() {
+        RoomStats stats = service.getRoomStats();
+        GameRoom room = service.createRoom();
+        service.joinRoom(room.getRoomCode(), "s1", "Ann");
+        assertEquals(1, stats.count(RoomPhase.WAITING));
+
+        service.joinRoom(room.getRoomCode(), "s2", "Bob");
+        assertEquals(0, stats.count(RoomPhase.WAITING));
+        assertEquals(1, stats.count(RoomPhase.FULL));
+
+        assertTrue(room.markRunning());
+        assertEquals(1, service.getActiveGameCount());
+        assertFalse(room.markRunning());
+
+        assertTrue(room.markFinished());
+        assertEquals(0, service.getActiveGameCount());
+        assertEquals(1, stats.count(RoomPhase.FINISHED));
+
+        service.leaveRoom("s2");
+        assertEquals(RoomPhase.WAITING, room.getPhase());
+        assertFalse(room.markRunning());
+
+        service.leaveRoom("s1");
+        assertEquals(0, service.getActiveRoomCount());
+        assertNull(service.getRoom(room.getRoomCode()));
+
+        Map<String, Object> snapshot = service.getStats();
+        assertEquals(1L, snapshot.get("totalRoomsCreated"));
+        assertEquals(0L, snapshot.get("activeRooms"));
+    }
+
+    @Test
+    void testSpectatorsFollowTheRoom() {
+        GameRoom room = service.createRoom();
+        service.joinRoom(room.getRoomCode(), "s1", "Ann");
+        service.joinRoom(room.getRoomCode(), "s2", "Bob");
+
+        assertSame(room, service.spectate(room.getRoomCode().toLowerCase(), "w1"));
+        assertSame(room, service.spectate(room.getRoomCode(), "w2"));
+        assertNull(service.spectate("ZZZZ", "w3"));
+        assertEquals(2, room.getSpectatorCount());
+        assertEquals(2L, service.getStats().get("spectators"));
+
+        // Watchers hold no slot and do not count as players
+        assertEquals(RoomPhase.FULL, room.getPhase());
+        assertEquals(2, service.getConnectedPlayerCount());
+
+        service.stopSpectating("w2");
+        assertNull(service.getRoomBySpectator("w2"));
+        assertEquals(1, room.getSpectatorCount());
+
+        service.leaveRoom("s1");
+        service.leaveRoom("s2");
+        assertTrue(room.getSlots().isClosed());
+        assertEquals(List.of("w1"), service.removeSpectators(room));
+        assertEquals(0, service.getSpectatorCount());
+        assertNull(service.spectate(room.getRoomCode(), "w1"));
+    }
+}
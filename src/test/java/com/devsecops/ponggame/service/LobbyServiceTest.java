@@ -0,0 +1,95 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.LobbyEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LobbyServiceTest {
+
+    private final LobbyService lobbyService = new LobbyService(new SimpleMeterRegistry(), 500);
+    private final List<String> added = new ArrayList<>();
+    private final List<String> removed = new ArrayList<>();
+    private long publishedVersion;
+
+    LobbyServiceTest() {
+        lobbyService.setListener((version, rooms, addedEntries, removedCodes) -> {
+            publishedVersion = version;
+            addedEntries.forEach(entry -> added.add(entry.getRoomCode()));
+            removed.addAll(removedCodes);
+        });
+    }
+
+    @Test
+    void testWaitingRoomsAreListedAndDiffed() {
+        GameRoom room = new GameRoom("AB12");
+        room.addPlayer("s1", "Ann");
+        lobbyService.roomChanged(room);
+        assertTrue(lobbyService.refresh());
+
+        assertEquals(List.of("AB12"), added);
+        assertEquals(1, publishedVersion);
+        LobbyEntry entry = lobbyService.getRooms().get(0);
+        assertEquals("Ann", entry.getHostName());
+
+        // Nothing changed: no refresh work and no publish
+        assertFalse(lobbyService.refresh());
+        lobbyService.roomChanged(room);
+        assertFalse(lobbyService.refresh());
+        assertEquals(1, lobbyService.getVersion());
+
+        room.addPlayer("s2", "Bob");
+        lobbyService.roomChanged(room);
+        assertTrue(lobbyService.refresh());
+        assertEquals(List.of("AB12"), removed);
+        assertTrue(lobbyService.getRooms().isEmpty());
+        assertEquals(2, publishedVersion);
+    }
+
+    @Test
+    void testRoomThatFillsBetweenRefreshesIsNeverListed() {
+        GameRoom room = new GameRoom("CD34");
+        room.addPlayer("s1", "Ann");
+        lobbyService.roomChanged(room);
+        room.addPlayer("s2", "Bob");
+        lobbyService.roomChanged(room);
+
+        assertFalse(lobbyService.refresh());
+        assertTrue(added.isEmpty());
+        assertEquals(0, lobbyService.getVersion());
+    }
+
+    @Test
+    void testHostChangeReplacesTheEntry() {
+        GameRoom older = new GameRoom("EF56");
+        older.addPlayer("s1", "Ann");
+        older.addPlayer("s2", "Bob");
+        GameRoom newer = new GameRoom("GH78");
+        newer.addPlayer("s3", "Cid");
+        lobbyService.roomChanged(older);
+        lobbyService.roomChanged(newer);
+        lobbyService.refresh();
+        assertEquals(List.of("GH78"), added);
+
+        // Ann leaves a full room: Bob is now waiting in it
+        older.removePlayer("s1");
+        lobbyService.roomChanged(older);
+        lobbyService.refresh();
+        assertEquals(List.of("GH78", "EF56"), added);
+        assertEquals("Bob", lobbyService.getRooms().stream()
+                .filter(e -> e.getRoomCode().equals("EF56")).findFirst().orElseThrow().getHostName());
+
+        // The room closes once empty
+        older.removePlayer("s2");
+        older.closeIfEmpty();
+        lobbyService.roomChanged(older);
+        lobbyService.refresh();
+        assertEquals(List.of("EF56"), removed);
+        assertEquals(1, lobbyService.getRooms().size());
+    }
+}
@@ -0,0 +1,158 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.GameState;
+import com.devsecops.ponggame.model.PlayerStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchHistoryServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<MatchHistoryService> services = new ArrayList<>();
+
+    @AfterEach
+    void stopServices() {
+        services.forEach(MatchHistoryService::stop);
+    }
+
+    private Path file() {
+        return directory.resolve("history").resolve("matches.log");
+    }
+
+    private MatchHistoryService open(int batchSize) {
+        return open(batchSize, List.of());
+    }
+
+    private MatchHistoryService open(int batchSize, List<MatchResultListener> listeners) {
+        MatchHistoryService service = new MatchHistoryService(new SimpleMeterRegistry(), true,
+                file().toString(), batchSize, 50, 1024, 60, listeners);
+        service.start();
+        services.add(service);
+        return service;
+    }
+
+    private static void finish(MatchHistoryService service, String player1, String player2,
+                               int score1, int score2) {
+        GameRoom room = new GameRoom("AB12");
+        room.addPlayer("s1", player1);
+        room.addPlayer("s2", player2);
+        GameState state = room.getGameState();
+        state.setPlayer1Score(score1);
+        state.setPlayer2Score(score2);
+        service.record(room, score1 > score2 ? 1 : 2);
+    }
+
+    @Test
+    void testResultsAreAggregatedAfterTheyAreWritten() {
+        MatchHistoryService service = open(2);
+        finish(service, "Ann", "Bob", 10, 3);
+        finish(service, "Ann", "Cid", 7, 10);
+        finish(service, "Bob", "Ann", 10, 9);
+        service.stop();
+
+        assertEquals(3, service.getGamesPlayed());
+        assertEquals(2, service.getPlayer1Wins());
+        assertEquals(1, service.getPlayer2Wins());
+
+        PlayerStats ann = service.getPlayer("Ann");
+        assertEquals(3, ann.getGames());
+        assertEquals(1, ann.getWins());
+        assertEquals(2, ann.getLosses());
+        assertEquals(26, ann.getPointsFor());
+        assertEquals(23, ann.getPointsAgainst());
+        assertEquals(1, service.getPlayer("Cid").getWins());
+        assertNull(service.getPlayer("Dee"));
+
+        Map<String, Object> summary = service.getWindowSummary(5);
+        assertEquals(3L, summary.get("gamesPlayed"));
+        assertEquals(2L, summary.get("player1Wins"));
+        assertEquals(5, summary.get("windowMinutes"));
+        assertEquals(60, service.getWindowSummary(100_000).get("windowMinutes"));
+    }
+
+    @Test
+    void testHistorySurvivesRestartAndTornTailIsCut() throws Exception {
+        MatchHistoryService service = open(256);
+        for (int i = 0; i < 100; i++) {
+            finish(service, "Ann", "Bob", 10, i % 10);
+        }
+        service.stop();
+        long intact = Files.size(file());
+
+        // A batch cut off mid-record by a crash
+        try (FileChannel channel = FileChannel.open(file(), StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {40, 0, 0, 0, 1, 2, 3}));
+        }
+
+        MatchHistoryService reopened = open(256);
+        assertEquals(intact, Files.size(file()));
+        assertEquals(100, reopened.getGamesPlayed());
+        assertEquals(100, reopened.getPlayer("Ann").getWins());
+        assertEquals(100L, reopened.getWindowSummary(60).get("gamesPlayed"));
+
+        finish(reopened, "Bob", "Cid", 2, 10);
+        reopened.stop();
+        MatchHistoryService again = open(256);
+        assertEquals(101, again.getGamesPlayed());
+        assertEquals(101, again.getPlayer("Bob").getGames());
+    }
+
+    @Test
+    void testListenersSeeEveryGameAndAreRebuiltOnRestart() {
+        RatingService ratings = new RatingService(new SimpleMeterRegistry(), 1500, 32, 10, 1000);
+        MatchHistoryService service = open(256, List.of(ratings));
+        finish(service, "Ann", "Bob", 10, 3);
+        assertEquals(1516.0, ratings.getRating("Ann").getRating(), 1e-9); // before the write
+        service.stop();
+
+        RatingService rebuilt = new RatingService(new SimpleMeterRegistry(), 1500, 32, 10, 1000);
+        open(256, List.of(rebuilt));
+        assertEquals(1516.0, rebuilt.getRating("Ann").getRating(), 1e-9);
+        assertEquals(1484.0, rebuilt.getRating("Bob").getRating(), 1e-9);
+    }
+
+    @Test
+    void testListenersSeeGamesWithTheHistoryDisabled() {
+        RatingService ratings = new RatingService(new SimpleMeterRegistry(), 1500, 32, 10, 1000);
+        MatchHistoryService service = new MatchHistoryService(new SimpleMeterRegistry(), false,
+                file().toString(), 256, 50, 1024, 60, List.of(ratings));
+        service.start();
+        services.add(service);
+        finish(service, "Ann", "Bob", 10, 3);
+
+        assertEquals(1, ratings.getRating("Ann").getWins());
+        assertEquals(0, service.getGamesPlayed());
+        assertFalse(Files.exists(file()));
+    }
+
+    @Test
+    void testRecordNeverBlocksWhenTheQueueIsFull() {
+        MatchHistoryService service = new MatchHistoryService(new SimpleMeterRegistry(), true,
+                file().toString(), 1, 60_000, 1, 60, List.of());
+        service.start();
+        services.add(service);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            finish(service, "Ann", "Bob", 10, 0);
+        }
+        assertTrue(System.nanoTime() - startNanos < 1_000_000_000L);
+        service.stop();
+        assertTrue(service.getGamesPlayed() >= 1 && service.getGamesPlayed() < 1000);
+    }
+}
@@ -0,0 +1,96 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchmakingServiceTest {
+
+    private final GameRoomService gameRoomService = new GameRoomService();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MatchmakingService matchmaking =
+            new MatchmakingService(gameRoomService, registry, 100, 50, 6, 3000);
+    private final List<GameRoom> matched = new ArrayList<>();
+
+    MatchmakingServiceTest() {
+        matchmaking.setListener(matched::add);
+    }
+
+    @Test
+    void testPairsWithinRttBucket() {
+        matchmaking.enqueue("fast-1", "Ann", 10);
+        matchmaking.enqueue("slow-1", "Cal", 240);
+        matchmaking.enqueue("fast-2", "Bob", 30);
+
+        matchmaking.matchBatch(System.nanoTime());
+
+        assertEquals(1, matched.size());
+        GameRoom room = matched.get(0);
+        assertEquals("fast-1", room.getPlayer1SessionId());
+        assertEquals("fast-2", room.getPlayer2SessionId());
+        assertSame(room, gameRoomService.getRoomBySession("fast-2"));
+        assertTrue(matchmaking.isWaiting("slow-1"));
+        assertFalse(matchmaking.isWaiting("fast-1"));
+    }
+
+    @Test
+    void testWidensToOtherBucketsAfterWaiting() {
+        matchmaking.enqueue("near", "Ann", 10);
+        matchmaking.enqueue("far", "Cal", 240);
+
+        matchmaking.matchBatch(System.nanoTime());
+        assertTrue(matched.isEmpty());
+
+        matchmaking.matchBatch(System.nanoTime() + TimeUnit.SECONDS.toNanos(4));
+        assertEquals(1, matched.size());
+        assertEquals(0, matchmaking.getWaitingCount());
+    }
+
+    @Test
+    void testCancelledPlayersAreSkipped() {
+        matchmaking.enqueue("a", "Ann", 10);
+        matchmaking.enqueue("b", "Bob", 10);
+        matchmaking.enqueue("c", "Cal", 10);
+        assertFalse(matchmaking.enqueue("a", "Ann", 10));
+        assertTrue(matchmaking.cancel("b"));
+
+        matchmaking.matchBatch(System.nanoTime());
+
+        assertEquals(1, matched.size());
+        assertEquals("c", matched.get(0).getPlayer2SessionId());
+        assertNull(gameRoomService.getRoomBySession("b"));
+    }
+
+    @Test
+    void testBurstFromManyThreadsIsPairedInOneBatch() throws Exception {
+        int threads = 8;
+        int perThread = 1_000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    // Even counts per bucket so everybody pairs without widening
+                    matchmaking.enqueue(worker + "-" + i, "P", (i / 2 % 6) * 50L);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        matchmaking.matchBatch(System.nanoTime());
+        assertEquals(threads * perThread / 2, matched.size());
+        assertEquals(0, matchmaking.getWaitingCount());
+        Timer timeToMatch = registry.find("pong_matchmaking_time_to_match").timer();
+        assertEquals(threads * perThread, timeToMatch.count());
+    }
+}
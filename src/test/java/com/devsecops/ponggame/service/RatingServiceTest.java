@@ -0,0 +1,105 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.MatchResult;
+import com.devsecops.ponggame.model.PlayerRating;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingServiceTest {
+
+    private final RatingService ratingService = new RatingService(new SimpleMeterRegistry(), 1500, 32, 3, 1000);
+    private final List<List<PlayerRating>> published = new ArrayList<>();
+
+    RatingServiceTest() {
+        ratingService.setListener((version, top, players) -> published.add(top));
+    }
+
+    private static MatchResult game(String winner, String loser) {
+        return new MatchResult("AB12", winner, loser, 10, 4, 1, 1000);
+    }
+
+    @Test
+    void testEloUpdatesBothPlayers() {
+        ratingService.apply(game("Ann", "Bob"));
+
+        PlayerRating ann = ratingService.getRating("Ann");
+        PlayerRating bob = ratingService.getRating("Bob");
+        assertEquals(1516.0, ann.getRating(), 1e-9);
+        assertEquals(1484.0, bob.getRating(), 1e-9);
+        assertEquals(1, ann.getWins());
+        assertEquals(0, bob.getWins());
+
+        // Beating a weaker player earns less than 16 points
+        ratingService.apply(game("Ann", "Bob"));
+        assertEquals(1516.0 + 32 * (1 - 1 / (1 + Math.pow(10, -32 / 400.0))),
+                ratingService.getRating("Ann").getRating(), 1e-9);
+        assertEquals(3000.0, ratingService.getRating("Ann").getRating() + ratingService.getRating("Bob").getRating(), 1e-9);
+
+        // No winner, or the same name on both sides: unrated
+        ratingService.apply(new MatchResult("AB12", "Ann", "Cid", 0, 0, 0, 1000));
+        ratingService.apply(game("Ann", "Ann"));
+        assertNull(ratingService.getRating("Cid"));
+        assertEquals(2, ratingService.getRating("Ann").getGames());
+
+        // Nameless players are not one person across games
+        ratingService.apply(game("Ann", MatchResult.DEFAULT_PLAYER2_NAME));
+        ratingService.apply(game(MatchResult.DEFAULT_PLAYER1_NAME, "Bob"));
+        assertNull(ratingService.getRating(MatchResult.DEFAULT_PLAYER1_NAME));
+        assertNull(ratingService.getRating(MatchResult.DEFAULT_PLAYER2_NAME));
+        assertEquals(2, ratingService.getRating("Ann").getGames());
+        assertEquals(2, ratingService.getRating("Bob").getGames());
+    }
+
+    @Test
+    void testRanksAndLeaderboardFollowRatings() {
+        ratingService.apply(game("Ann", "Bob"));
+        ratingService.apply(game("Cid", "Dee"));
+        ratingService.apply(game("Ann", "Cid"));
+
+        assertEquals(1, ratingService.getRank("Ann"));
+        assertEquals(2, ratingService.getRank("Cid"));
+        assertEquals(3, ratingService.getRank("Bob"));
+        assertEquals(3, ratingService.getRank("Dee")); // same rating as Bob
+        assertEquals(0, ratingService.getRank("Eve"));
+
+        assertTrue(ratingService.refresh());
+        assertEquals(List.of("Ann", "Cid", "Bob"),
+                published.get(0).stream().map(PlayerRating::getPlayerName).toList());
+        assertEquals(1, ratingService.getVersion());
+
+        // Nothing changed: no refresh work and no publish
+        assertFalse(ratingService.refresh());
+        ratingService.apply(game("Dee", "Ann"));
+        ratingService.apply(game("Dee", "Cid"));
+        assertTrue(ratingService.refresh());
+        assertEquals("Dee", ratingService.getLeaderboard().get(0).getPlayerName());
+        assertEquals(2, published.size());
+    }
+
+    @Test
+    void testRanksMatchAFullSort() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            int a = random.nextInt(200);
+            int b = random.nextInt(200);
+            ratingService.apply(game("p" + a, "p" + b));
+        }
+        List<PlayerRating> all = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            PlayerRating rating = ratingService.getRating("p" + i);
+            if (rating != null) {
+                all.add(rating);
+            }
+        }
+        for (PlayerRating rating : all) {
+            long higher = all.stream().filter(other -> other.getPoints() > rating.getPoints()).count();
+            assertEquals(higher + 1, ratingService.getRank(rating.getPlayerName()), rating.getPlayerName());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.GameState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayLogTest {
+
+    private static final int SEGMENT_BYTES = 8192;
+    private static final long NEVER = 3_600_000;
+
+    @TempDir
+    Path directory;
+
+    private final List<ReplayLog> logs = new ArrayList<>();
+
+    @AfterEach
+    void stopLogs() {
+        logs.forEach(ReplayLog::stop);
+    }
+
+    private ReplayLog open(long maxBytes, int fullSegments) {
+        ReplayLog log = new ReplayLog(new SimpleMeterRegistry(), true, directory.toString(),
+                SEGMENT_BYTES, maxBytes, fullSegments, 10, NEVER);
+        log.start();
+        logs.add(log);
+        return log;
+    }
+
+    private static GameRoom room(String code) {
+        GameRoom room = new GameRoom(code);
+        room.addPlayer("s1", "Ann");
+        room.addPlayer("s2", "Bob");
+        return room;
+    }
+
+    /**
+     * Record a match of {@code ticks} snapshots 16 ms apart, a paddle move per tick, won 10-3 by player 1
+     */
+    private static void play(ReplayLog log, GameRoom room, int ticks) {
+        GameState state = room.getGameState();
+        log.gameStarted(room);
+        long start = state.getLastUpdate();
+        for (int i = 0; i < ticks; i++) {
+            log.paddleMoved(room, 1, i);
+            state.setBallX(i);
+            state.setLastUpdate(start + i * 16L);
+            log.snapshot(room);
+        }
+        state.setPlayer1Score(10);
+        state.setPlayer2Score(3);
+        log.gameOver(room, 1);
+    }
+
+    private static List<Byte> types(ReplayCursor cursor) {
+        List<Byte> types = new ArrayList<>();
+        while (cursor.next()) {
+            types.add(cursor.type());
+        }
+        return types;
+    }
+
+    @Test
+    void testEventsAreRecordedAsBinaryFrames() {
+        ReplayLog log = open(1 << 30, 2);
+        GameRoom room = room("AB12");
+        GameState state = room.getGameState();
+
+        log.gameStarted(room);
+        long matchId = state.getMatchId();
+        assertTrue(matchId > 0);
+        log.paddleMoved(room, 2, 120.5);
+        state.setBallX(300);
+        log.snapshot(room);
+        state.setPlayer1Score(1);
+        log.scored(room, 1);
+        log.powerup(room, 2, "BIG_PADDLE");
+        log.gameOver(room, 1);
+        assertEquals(0, state.getMatchId());
+
+        ReplayLog.Match match = log.recentMatches(10).get(0);
+        assertEquals(matchId, match.getMatchId());
+        assertEquals("AB12", match.getRoomCode());
+        assertEquals("Ann", match.getPlayer1Name());
+        assertEquals("Bob", match.getPlayer2Name());
+        assertEquals(1, match.getWinner());
+        assertEquals(1, match.getPlayer1Score());
+
+        ReplayCursor cursor = log.openCursor(matchId);
+        assertTrue(cursor.next());
+        assertEquals(ReplayLog.START, cursor.type());
+        ByteBuffer start = cursor.record();
+        assertEquals(ReplayLog.RECORD_OPCODE, start.get(0));
+        assertEquals(start.remaining(), start.getInt(0) >>> 8);
+        assertEquals(0, start.remaining() % 8);
+
+        assertTrue(cursor.next());
+        assertEquals(ReplayLog.PADDLE, cursor.type());
+        assertEquals(120.5f, cursor.record().getFloat(ReplayLog.HEADER_SIZE));
+        assertTrue(cursor.next());
+        assertEquals(ReplayLog.BALL, cursor.type());
+        assertEquals(300f, cursor.record().getFloat(ReplayLog.HEADER_SIZE));
+        assertEquals(List.of(ReplayLog.SCORE, ReplayLog.POWERUP, ReplayLog.END), types(cursor));
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void testMatchesSurviveSegmentRollsAndRestart() {
+        ReplayLog log = open(1 << 30, 100);
+        GameRoom room = room("CD34");
+        play(log, room, 200); // ~16 KB of records: spans several 8 KB segments
+        long matchId = log.recentMatches(1).get(0).getMatchId();
+        log.stop();
+
+        ReplayLog reopened = open(1 << 30, 100);
+        ReplayLog.Match match = reopened.getMatch(matchId);
+        assertNotNull(match);
+        assertEquals("Ann", match.getPlayer1Name());
+        assertEquals(10, match.getPlayer1Score());
+        List<Byte> types = types(reopened.openCursor(matchId));
+        assertEquals(200, types.stream().filter(type -> type == ReplayLog.BALL).count());
+        assertEquals(ReplayLog.END, (byte) types.get(types.size() - 1));
+
+        // Ids keep increasing across restarts
+        reopened.gameStarted(room);
+        assertTrue(room.getGameState().getMatchId() > matchId);
+    }
+
+    @Test
+    void testRecordsLinkToTheNextRecordOfTheirMatch() throws Exception {
+        ReplayLog log = open(1 << 30, 0);
+        GameRoom first = room("IJ90");
+        GameRoom second = room("KL12");
+        log.gameStarted(first);
+        log.gameStarted(second);
+        long matchId = first.getGameState().getMatchId();
+        for (int i = 0; i < 20; i++) {
+            log.snapshot(first);
+            log.paddleMoved(second, 2, i);
+            log.snapshot(second);
+        }
+        log.gameOver(first, 1);
+        log.gameOver(second, 2);
+        assertEquals(22, assertLinked(log.openCursor(matchId), matchId));
+
+        // Compaction keeps the links between the records it keeps
+        play(log, room("MN34"), 200);
+        log.maintain();
+        assertTrue(assertLinked(log.openCursor(matchId), matchId) >= 3);
+    }
+
+    /**
+     * Walk a match, checking that every record but the END links to the next one. Returns the record count.
+     */
+    private static int assertLinked(ReplayCursor cursor, long matchId) {
+        int records = 0;
+        byte type = 0;
+        while (cursor.next()) {
+            ByteBuffer record = cursor.record();
+            type = cursor.type();
+            assertEquals(matchId, record.getLong(8));
+            assertEquals(type == ReplayLog.END, record.getShort(6) == 0, "link of record " + records);
+            records++;
+        }
+        assertEquals(ReplayLog.END, type);
+        return records;
+    }
+
+    @Test
+    void testCompactionThinsOldSegmentsAndSizeCapDeletesOldest() throws Exception {
+        ReplayLog log = open(1 << 30, 0);
+        play(log, room("EF56"), 200);
+        long matchId = log.recentMatches(1).get(0).getMatchId();
+        play(log, room("GH78"), 200); // seals the segments of the first match
+
+        // Each match wrote 200 paddle (32 bytes) and 200 ball (48 bytes) records
+        log.maintain();
+        assertTrue(log.getUsedBytes() < 200 * (32 + 48));
+        List<Byte> types = types(log.openCursor(matchId));
+        assertFalse(types.contains(ReplayLog.PADDLE));
+        long balls = types.stream().filter(type -> type == ReplayLog.BALL).count();
+        assertTrue(balls >= 30 && balls < 200, "ball states thinned to about 10 Hz: " + balls);
+        assertEquals(ReplayLog.END, (byte) types.get(types.size() - 1));
+
+        // Shrinking the cap drops the oldest segments and the matches that started in them
+        log.stop();
+        ReplayLog capped = open(1024, 0);
+        capped.maintain();
+        assertNull(capped.getMatch(matchId));
+        assertNull(capped.openCursor(matchId));
+        assertTrue(capped.getUsedBytes() <= 1024);
+    }
+}
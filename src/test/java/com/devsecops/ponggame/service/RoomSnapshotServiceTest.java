@@ -0,0 +1,131 @@
+package com.devsecops.ponggame.service;
+
+import com.devsecops.ponggame.model.GameRoom;
+import com.devsecops.ponggame.model.GameState;
+import com.devsecops.ponggame.model.RoomPhase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomSnapshotServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private RoomSnapshotService snapshots(GameRoomService gameRoomService) {
+        return new RoomSnapshotService(gameRoomService, new GameLoopService(60), new SimpleMeterRegistry(),
+                true, directory.resolve("rooms.snap").toString());
+    }
+
+    private static GameRoom join(GameRoomService service, String... players) {
+        GameRoom room = service.createRoom();
+        for (int i = 0; i < players.length; i++) {
+            String sessionId = room.getRoomCode() + "-s" + (i + 1);
+            room.addPlayer(sessionId, players[i]);
+            service.registerSession(sessionId, room.getRoomCode());
+            service.issueResumeToken(room, i + 1);
+        }
+        return room;
+    }
+
+    @Test
+    void testRoomsSurviveRestart() {
+        GameRoomService before = new GameRoomService();
+        GameRoom game = join(before, "Ann", "Bob");
+        game.markRunning();
+        GameState state = game.getGameState();
+        state.setRunning(true);
+        state.setBallX(312.5);
+        state.setBallDy(-4.25);
+        state.setPlayer2Y(77);
+        state.setPlayer1PaddleHeight(135);
+        state.setPlayer1Score(4);
+        state.setPlayer2Score(7);
+        GameRoom waiting = join(before, "Cid");
+        GameRoom left = join(before, "Dee", "Eve");
+        before.leaveRoom(left.getRoomCode() + "-s1"); // player 2 stays, alone
+
+        assertEquals(3, snapshots(before).save());
+
+        GameRoomService after = new GameRoomService();
+        RoomSnapshotService restarted = snapshots(after);
+        assertEquals(3, restarted.restore());
+        assertFalse(Files.exists(directory.resolve("rooms.snap")), "a snapshot is applied once");
+        assertEquals(0, restarted.restore());
+
+        GameRoom restored = after.getRoom(game.getRoomCode());
+        assertEquals(RoomPhase.RUNNING, restored.getPhase());
+        assertEquals("Ann", restored.getPlayer1Name());
+        assertEquals("Bob", restored.getPlayer2Name());
+        assertEquals(GameRoomService.placeholderSessionId(game.getRoomCode(), 1), restored.getPlayer1SessionId());
+        assertSame(restored, after.getRoomBySession(restored.getPlayer2SessionId()));
+        GameState restoredState = restored.getGameState();
+        assertTrue(restoredState.isRunning());
+        assertTrue(restoredState.isPaused(), "held until both players are back");
+        assertEquals(312.5, restoredState.getBallX());
+        assertEquals(-4.25, restoredState.getBallDy());
+        assertEquals(77, restoredState.getPlayer2Y());
+        assertEquals(135, restoredState.getPlayer1PaddleHeight());
+        assertEquals(4, restoredState.getPlayer1Score());
+        assertEquals(7, restoredState.getPlayer2Score());
+        assertEquals(game.getResumeToken(2), restored.getResumeToken(2));
+
+        GameRoom restoredWaiting = after.getRoom(waiting.getRoomCode());
+        assertEquals(RoomPhase.WAITING, restoredWaiting.getPhase());
+        assertEquals("Cid", restoredWaiting.getPlayer1Name());
+        GameRoom restoredLeft = after.getRoom(left.getRoomCode());
+        assertNull(restoredLeft.getPlayer1SessionId());
+        assertEquals("Eve", restoredLeft.getPlayer2Name());
+        assertEquals(GameRoomService.placeholderSessionId(left.getRoomCode(), 2), restoredLeft.getPlayer2SessionId());
+    }
+
+    @Test
+    void testResumeTokenReclaimsRestoredSlotOnce() {
+        GameRoomService before = new GameRoomService();
+        GameRoom game = join(before, "Ann", "Bob");
+        String token = game.getResumeToken(2);
+        game.acknowledgeInput(2, game.getSlotGeneration(2), 55);
+        snapshots(before).save();
+
+        GameRoomService after = new GameRoomService();
+        snapshots(after).restore();
+        String code = game.getRoomCode();
+        assertNull(after.resume(code + ".forged", "n2"));
+        assertNull(after.resume("nonsense", "n2"));
+
+        GameRoom room = after.resume(token, "n2");
+        assertNotNull(room);
+        assertEquals(2, room.getPlayerNumber("n2"));
+        assertEquals(0, room.getInputSeq(2), "the resumed connection numbers its inputs from 1");
+        assertEquals("Bob", room.getPlayer2Name());
+        assertSame(room, after.getRoomBySession("n2"));
+        assertNull(after.getRoomBySession(GameRoomService.placeholderSessionId(code, 2)));
+        assertTrue(GameRoomService.isPlaceholder(room.getPlayer1SessionId()));
+
+        // The slot now belongs to a live session
+        assertNull(after.resume(token, "n3"));
+        // Leaving revokes the token
+        after.leaveRoom("n2");
+        assertNull(room.getResumeToken(2));
+    }
+
+    @Test
+    void testDamagedSnapshotIsIgnored() throws Exception {
+        GameRoomService before = new GameRoomService();
+        join(before, "Ann", "Bob");
+        snapshots(before).save();
+        Path file = directory.resolve("rooms.snap");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        GameRoomService after = new GameRoomService();
+        assertEquals(0, snapshots(after).restore());
+        assertEquals(0, after.getActiveRoomCount());
+    }
+}
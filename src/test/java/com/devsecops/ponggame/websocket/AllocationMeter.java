@@ -0,0 +1,65 @@
+package com.devsecops.ponggame.websocket;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Bytes allocated while running a piece of work, for allocation-rate tests
+ */
+final class AllocationMeter {
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * Run {@code work} once to warm up, then again while counting this thread's allocations
+     */
+    static long measureAllocatedBytes(ThrowingRunnable work) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        work.run(); // warm up
+        long before = threads.getThreadAllocatedBytes(threadId);
+        work.run();
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    /**
+     * Run {@code work} on {@code count} fresh virtual threads, one after another, and return the
+     * bytes allocated beyond starting as many empty virtual threads. Needs Java 21: virtual threads
+     * report no per-thread counter, so this reads the JVM-wide total.
+     */
+    static long measureAllocatedBytesOnVirtualThreads(int count, ThrowingRunnable work) throws Exception {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("alloc-");
+        executor.setVirtualThreads(true);
+        try {
+            runOnVirtualThreads(executor, count, work); // warm up
+            long empty = runOnVirtualThreads(executor, count, () -> { });
+            return runOnVirtualThreads(executor, count, work) - empty;
+        } finally {
+            executor.close();
+        }
+    }
+
+    private static long runOnVirtualThreads(SimpleAsyncTaskExecutor executor, int count, ThrowingRunnable work)
+            throws Exception {
+        long before = totalAllocatedBytes();
+        for (int i = 0; i < count; i++) {
+            executor.submit(() -> {
+                work.run();
+                return null;
+            }).get();
+        }
+        return totalAllocatedBytes() - before;
+    }
+
+    private static long totalAllocatedBytes() throws Exception {
+        // ThreadMXBean.getTotalThreadAllocatedBytes() is Java 21 API; the default build targets 17
+        return (long) com.sun.management.ThreadMXBean.class.getMethod("getTotalThreadAllocatedBytes")
+                .invoke(ManagementFactory.getThreadMXBean());
+    }
+
+    interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
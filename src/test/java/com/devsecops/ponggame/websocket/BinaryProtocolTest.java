@@ -0,0 +1,65 @@
+package com.devsecops.ponggame.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryProtocolTest {
+
+    @Test
+    void testPaddleMoveRoundTrip() {
+        ByteBuffer frame = BinaryProtocol.encodePaddleMove(123.5).getPayload();
+
+        assertEquals(BinaryProtocol.PADDLE_MOVE_SIZE, frame.remaining());
+        assertEquals(BinaryProtocol.PADDLE_MOVE, BinaryProtocol.opcode(frame));
+        assertEquals(123.5, BinaryProtocol.decodePaddleMove(frame));
+    }
+
+    @Test
+    void testSequencedPaddleMove() {
+        ByteBuffer frame = BinaryProtocol.encodePaddleMove(123.5, 300).getPayload();
+
+        assertEquals(BinaryProtocol.SEQUENCED_PADDLE_MOVE_SIZE, frame.remaining());
+        assertEquals(123.5, BinaryProtocol.decodePaddleMove(frame));
+        assertEquals(300, BinaryProtocol.decodePaddleMoveSeq(frame));
+        assertEquals(0, BinaryProtocol.decodePaddleMoveSeq(BinaryProtocol.encodePaddleMove(123.5).getPayload()));
+    }
+
+    @Test
+    void testTruncatedPaddleMove() {
+        ByteBuffer frame = ByteBuffer.wrap(new byte[]{BinaryProtocol.PADDLE_MOVE, 0});
+
+        assertTrue(Double.isNaN(BinaryProtocol.decodePaddleMove(frame)));
+    }
+
+    @Test
+    void testBallStateLayoutIsLittleEndian() {
+        ByteBuffer frame = BinaryProtocol.encodeBallState(400, 225, 5, -2.5, 180, 90, 1_700_000_000_123L, 12, 70_000)
+                .getPayload().order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(BinaryProtocol.BALL_STATE_SIZE, frame.remaining());
+        assertEquals(BinaryProtocol.BALL_STATE, frame.get(0));
+        assertEquals(400f, frame.getFloat(1));
+        assertEquals(225f, frame.getFloat(5));
+        assertEquals(5f, frame.getFloat(9));
+        assertEquals(-2.5f, frame.getFloat(13));
+        assertEquals(180f, frame.getFloat(17));
+        assertEquals(90f, frame.getFloat(21));
+        assertEquals(1_700_000_000_123L, (long) frame.getDouble(25));
+        assertEquals(12, frame.getInt(33));
+        assertEquals(70_000, frame.getInt(37));
+    }
+
+    @Test
+    void testSnapshotAckRoundTrip() {
+        ByteBuffer frame = BinaryProtocol.encodeSnapshotAck(70_000).getPayload();
+
+        assertEquals(BinaryProtocol.SNAPSHOT_ACK_SIZE, frame.remaining());
+        assertEquals(BinaryProtocol.SNAPSHOT_ACK, BinaryProtocol.opcode(frame));
+        assertEquals(70_000, BinaryProtocol.decodeSnapshotAck(frame));
+        assertEquals(-1, BinaryProtocol.decodeSnapshotAck(ByteBuffer.wrap(new byte[]{BinaryProtocol.SNAPSHOT_ACK, 1})));
+    }
+}
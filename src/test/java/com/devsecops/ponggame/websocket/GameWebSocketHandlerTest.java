@@ -0,0 +1,42 @@
+package com.devsecops.ponggame.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The servlet WebSocket endpoint, driven by a real client
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GameWebSocketHandlerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void testBinaryFrameWithoutBinarySubprotocolIsRejected() throws Exception {
+        CompletableFuture<CloseStatus> closed = new CompletableFuture<>();
+
+        // A JSON session (no subprotocol offered) sends a binary paddle frame
+        WebSocketSession session = new StandardWebSocketClient()
+            .execute(new AbstractWebSocketHandler() {
+                @Override
+                public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+                    closed.complete(status);
+                }
+            }, "ws://localhost:" + port + "/game-ws")
+            .get(10, TimeUnit.SECONDS);
+        session.sendMessage(BinaryProtocol.encodePaddleMove(100));
+
+        assertEquals(CloseStatus.NOT_ACCEPTABLE.getCode(), closed.get(10, TimeUnit.SECONDS).getCode());
+    }
+}
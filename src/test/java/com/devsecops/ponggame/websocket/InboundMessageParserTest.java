@@ -0,0 +1,99 @@
+package com.devsecops.ponggame.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static com.devsecops.ponggame.websocket.AllocationMeter.measureAllocatedBytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InboundMessageParserTest {
+
+    private static final String PADDLE_MOVE = "{\"type\":\"paddle_move\",\"paddleY\":187.5}";
+    private static final String PING = "{\"type\":\"ping\",\"timestamp\":1700000000123,\"rtt\":42}";
+
+    private final InboundMessageParser parser = new InboundMessageParser();
+
+    @Test
+    void testParsesHotMessageTypes() throws Exception {
+        InboundMessage paddle = parser.parse(PADDLE_MOVE);
+        assertEquals(MessageType.PADDLE_MOVE, paddle.getType());
+        assertTrue(paddle.hasPaddleY());
+        assertEquals(187.5, paddle.getPaddleY());
+        assertEquals(0, paddle.getSeq());
+
+        InboundMessage sequenced = parser.parse("{\"type\":\"paddle_move\",\"paddleY\":190,\"seq\":812}");
+        assertEquals(812, sequenced.getSeq());
+
+        InboundMessage ping = parser.parse(PING);
+        assertEquals(MessageType.PING, ping.getType());
+        assertEquals(1700000000123L, ping.getTimestamp());
+        assertEquals(42, ping.getRtt());
+        assertFalse(ping.hasPaddleY());
+    }
+
+    @Test
+    void testParsesTextFieldsAndSkipsUnknownOnes() throws Exception {
+        InboundMessage join = parser.parse(
+                "{\"extra\":{\"nested\":[1,2]},\"roomCode\":\"ab12\",\"type\":\"join_room\",\"playerName\":\"Bob\"}");
+
+        assertEquals(MessageType.JOIN_ROOM, join.getType());
+        assertEquals("ab12", join.getRoomCode());
+        assertEquals("Bob", join.getPlayerName());
+    }
+
+    @Test
+    void testRejectsMalformedMessagesAndRecovers() throws Exception {
+        assertNull(parser.parse("{\"paddleY\":10}"));
+        assertNull(parser.parse("[1,2,3]"));
+        assertNull(parser.parse("{\"type\":\"ping\",\"extra\":{\"a\":"));
+        assertNull(parser.parse("{\"type\":\"ping\"}{\"type\":\"ping\"}"));
+        assertEquals(MessageType.UNKNOWN, parser.parse("{\"type\":\"teleport\"}").getType());
+        assertEquals(MessageType.PADDLE_MOVE, parser.parse(PADDLE_MOVE).getType());
+    }
+
+    @Test
+    void testDecimalFastPathMatchesJdk() {
+        for (String value : new String[]{"0", "-0.5", "187.5", "315", "12.345678901234", "0.1", "449.99999"}) {
+            assertEquals(Double.parseDouble(value),
+                    InboundMessageParser.parseShortDecimal(value.toCharArray(), 0, value.length()), value);
+        }
+        assertTrue(Double.isNaN(InboundMessageParser.parseShortDecimal("1e5".toCharArray(), 0, 3)));
+        assertTrue(Double.isNaN(InboundMessageParser.parseShortDecimal(
+                "187.53333333333333".toCharArray(), 0, 18)));
+    }
+
+    @Test
+    void testNonAsciiText() throws Exception {
+        InboundMessage chat = parser.parse("{\"type\":\"chat\",\"message\":\"gg \u00e9\u00e9 \ud83c\udfd3\"}");
+
+        assertEquals(MessageType.CHAT, chat.getType());
+        assertEquals("gg \u00e9\u00e9 \ud83c\udfd3", chat.getMessage());
+    }
+
+    /**
+     * Allocation-rate comparison with the previous readTree path for the dominant message type
+     */
+    @Test
+    void testAllocatesLessThanTreeModel() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        int iterations = 50_000;
+
+        long treeBytes = measureAllocatedBytes(() -> {
+            for (int i = 0; i < iterations; i++) {
+                JsonNode json = objectMapper.readTree(PADDLE_MOVE);
+                if (json.get("type").asText().isEmpty() || json.get("paddleY").asDouble() < 0) fail();
+            }
+        });
+        long streamingBytes = measureAllocatedBytes(() -> {
+            for (int i = 0; i < iterations; i++) {
+                InboundMessage inbound = parser.parse(PADDLE_MOVE);
+                if (inbound.getType() != MessageType.PADDLE_MOVE || inbound.getPaddleY() < 0) fail();
+                parser.release(inbound);
+            }
+        });
+
+        assertTrue(streamingBytes < treeBytes / 10,
+                "paddle_move bytes per message: streaming=" + streamingBytes / iterations + " tree=" + treeBytes / iterations);
+    }
+}
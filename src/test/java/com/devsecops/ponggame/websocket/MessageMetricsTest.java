@@ -0,0 +1,40 @@
+package com.devsecops.ponggame.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageMetricsTest {
+
+    @Test
+    void testUtf8LengthMatchesEncoder() {
+        String[] samples = { "", "{\"type\":\"ping\"}", "héllo", "→ ←", "gg 🏓🏓", "\uD83C" };
+        for (String sample : samples) {
+            assertEquals(sample.getBytes(StandardCharsets.UTF_8).length, MessageMetrics.utf8Length(sample), sample);
+        }
+        assertEquals(9, MessageMetrics.payloadBytes(new TextMessage("chat 🏓")));
+        assertEquals(9, MessageMetrics.payloadBytes(new BinaryMessage(new byte[9])));
+    }
+
+    @Test
+    void testRecordsPerTypeTimingAndBytes() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MessageMetrics metrics = new MessageMetrics(meterRegistry);
+
+        metrics.recordInbound(MessageType.PADDLE_MOVE, 9, System.nanoTime());
+        metrics.recordInbound(MessageType.PADDLE_MOVE, 9, System.nanoTime());
+        metrics.recordInbound(MessageType.CHAT, 40, System.nanoTime());
+        metrics.recordChatRelay(System.nanoTime());
+
+        assertEquals(2, meterRegistry.get("pong_ws_handler").tag("type", "paddle_move").timer().count());
+        assertEquals(18.0, meterRegistry.get("pong_ws_inbound_bytes_total").tag("type", "paddle_move").counter().count());
+        assertEquals(40.0, meterRegistry.get("pong_ws_inbound_bytes_total").tag("type", "chat").counter().count());
+        assertEquals(0, meterRegistry.get("pong_ws_handler").tag("type", "ping").timer().count());
+        assertEquals(1, meterRegistry.get("pong_ws_relay_latency").tag("type", "chat").timer().count());
+    }
+}
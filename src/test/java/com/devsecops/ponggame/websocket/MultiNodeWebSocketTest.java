@@ -0,0 +1,179 @@
+package com.devsecops.ponggame.websocket;
+
+import com.devsecops.ponggame.PongGameApplication;
+import com.devsecops.ponggame.service.RoomDirectory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two nodes of a cluster in one JVM, each a full application context on its own port
+ */
+class MultiNodeWebSocketTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static String urlA;
+    private static String urlB;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        int portA = freePort();
+        int portB = freePort();
+        urlA = "ws://localhost:" + portA + "/game-ws";
+        urlB = "ws://localhost:" + portB + "/game-ws";
+        String nodes = "a=" + urlA + ",b=" + urlB;
+        nodeA = startNode("a", portA, nodes);
+        nodeB = startNode("b", portB, nodes);
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId, int port, String nodes) {
+        // Command-line arguments, since builder properties are only defaults under application.properties
+        return new SpringApplicationBuilder(PongGameApplication.class)
+                .run("--server.port=" + port,
+                        "--pong.cluster.node-id=" + nodeId,
+                        "--pong.cluster.nodes=" + nodes,
+                        // Both nodes share the working directory
+                        "--pong.replay.enabled=false",
+                        "--pong.history.enabled=false",
+                        "--pong.snapshot.enabled=false");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeA != null) nodeA.close();
+        if (nodeB != null) nodeB.close();
+    }
+
+    @Test
+    void testJoinOnTheWrongNodeIsRedirectedToTheOwner() throws Exception {
+        try (Client alice = new Client(urlA); Client bob = new Client(urlB)) {
+            alice.send("{\"type\":\"create_room\",\"playerName\":\"Alice\"}");
+            String roomCode = alice.await("room_created").get("roomCode").asText();
+            assertTrue(nodeA.getBean(RoomDirectory.class).isLocal(roomCode));
+            assertFalse(nodeB.getBean(RoomDirectory.class).isLocal(roomCode));
+
+            bob.send("{\"type\":\"join_room\",\"roomCode\":\"" + roomCode + "\",\"playerName\":\"Bob\"}");
+            JsonNode redirect = bob.await("redirect");
+            assertEquals(roomCode, redirect.get("roomCode").asText());
+            assertEquals("join_room", redirect.get("action").asText());
+            assertEquals(urlA, redirect.get("url").asText());
+
+            try (Client bobOnOwner = new Client(redirect.get("url").asText())) {
+                bobOnOwner.send("{\"type\":\"join_room\",\"roomCode\":\"" + roomCode + "\",\"playerName\":\"Bob\"}");
+                JsonNode joined = bobOnOwner.await("room_joined");
+                assertEquals(2, joined.get("playerNumber").asInt());
+                assertEquals("Alice", joined.get("opponentName").asText());
+                assertEquals("Bob", alice.await("opponent_joined").get("opponentName").asText());
+            }
+        }
+    }
+
+    @Test
+    void testEachNodeCreatesRoomsItOwns() throws Exception {
+        try (Client host = new Client(urlB); Client viewer = new Client(urlB)) {
+            for (int i = 0; i < 20; i++) {
+                host.send("{\"type\":\"create_room\",\"playerName\":\"Host" + i + "\"}");
+                String roomCode = host.await("room_created").get("roomCode").asText();
+                assertTrue(nodeB.getBean(RoomDirectory.class).isLocal(roomCode), roomCode);
+            }
+            // Spectating a room of the other node is redirected as well
+            viewer.send("{\"type\":\"spectate\",\"roomCode\":\"" + codeOwnedBy(nodeA) + "\"}");
+            JsonNode redirect = viewer.await("redirect");
+            assertEquals("spectate", redirect.get("action").asText());
+            assertEquals(urlA, redirect.get("url").asText());
+        }
+    }
+
+    @Test
+    void testResumeIsRedirectedToTheNodeOwningTheTokensRoom() throws Exception {
+        String token = codeOwnedBy(nodeA) + ".c2VjcmV0";
+        try (Client onB = new Client(urlB); Client onA = new Client(urlA)) {
+            onB.send("{\"type\":\"resume\",\"token\":\"" + token + "\"}");
+            JsonNode redirect = onB.await("redirect");
+            assertEquals("resume", redirect.get("action").asText());
+            assertEquals(urlA, redirect.get("url").asText());
+
+            // The owner checks the token itself
+            onA.send("{\"type\":\"resume\",\"token\":\"" + token + "\"}");
+            onA.await("resume_failed");
+        }
+    }
+
+    private static String codeOwnedBy(ConfigurableApplicationContext node) {
+        RoomDirectory directory = node.getBean(RoomDirectory.class);
+        for (int i = 0; ; i++) {
+            String code = String.format("Q%03d", i);
+            if (directory.isLocal(code)) {
+                return code;
+            }
+        }
+    }
+
+    /**
+     * JSON WebSocket client that queues what it receives
+     */
+    private static final class Client implements AutoCloseable {
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        private final Sinks.Many<String> outbound = Sinks.many().unicast().onBackpressureBuffer();
+        private final Disposable connection;
+
+        Client(String url) {
+            connection = new ReactorNettyWebSocketClient().execute(URI.create(url), session -> session
+                    .send(outbound.asFlux().map(session::textMessage))
+                    .and(session.receive().map(WebSocketMessage::getPayloadAsText).doOnNext(received::add)))
+                .subscribe();
+        }
+
+        void send(String json) {
+            outbound.tryEmitNext(json);
+        }
+
+        /**
+         * Next message of the given type, skipping others
+         */
+        JsonNode await(String type) throws Exception {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (true) {
+                String payload = received.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (payload == null) {
+                    return fail("No " + type + " message within 10 s");
+                }
+                JsonNode message = objectMapper.readTree(payload);
+                if (type.equals(message.get("type").asText())) {
+                    return message;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            connection.dispose();
+        }
+    }
+}
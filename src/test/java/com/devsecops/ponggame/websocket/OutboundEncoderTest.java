@@ -0,0 +1,147 @@
+package com.devsecops.ponggame.websocket;
+
+import com.devsecops.ponggame.model.LobbyEntry;
+import com.devsecops.ponggame.model.PlayerRating;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.List;
+
+import static com.devsecops.ponggame.websocket.AllocationMeter.measureAllocatedBytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundEncoderTest {
+
+    private final OutboundEncoder encoder = new OutboundEncoder();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testBallStateFields() throws Exception {
+        TextMessage frame = encoder.ballState(395.25, 120.0, -5.5, 3.125, 180, 200.5, 1700000000123L, 41, 7);
+
+        JsonNode json = objectMapper.readTree(frame.getPayload());
+        assertEquals("ball_state", json.get("type").asText());
+        assertEquals(395.25, json.get("ballX").asDouble());
+        assertEquals(120.0, json.get("ballY").asDouble());
+        assertEquals(-5.5, json.get("ballDx").asDouble());
+        assertEquals(3.125, json.get("ballDy").asDouble());
+        assertEquals(180.0, json.get("player1Y").asDouble());
+        assertEquals(200.5, json.get("player2Y").asDouble());
+        assertEquals(1700000000123L, json.get("timestamp").asLong());
+        assertEquals(41, json.get("player1InputSeq").asInt());
+        assertEquals(7, json.get("player2InputSeq").asInt());
+        // Whole numbers drop the fraction, which JavaScript reads identically
+        assertEquals("{\"type\":\"ball_state\",\"ballX\":395.25,\"ballY\":120,\"ballDx\":-5.5,\"ballDy\":3.125,"
+                + "\"player1Y\":180,\"player2Y\":200.5,\"timestamp\":1700000000123,"
+                + "\"player1InputSeq\":41,\"player2InputSeq\":7}", frame.getPayload());
+    }
+
+    @Test
+    void testNumbersAreRoundedToThreeDecimals() throws Exception {
+        JsonNode json = objectMapper.readTree(encoder.opponentPaddle(187.53333333, 42).getPayload());
+        assertEquals(187.533, json.get("paddleY").asDouble());
+
+        json = objectMapper.readTree(encoder.opponentPaddle(-0.0004, 0).getPayload());
+        assertEquals(0.0, json.get("paddleY").asDouble());
+
+        json = objectMapper.readTree(encoder.opponentPaddle(Double.NaN, 0).getPayload());
+        assertEquals(0.0, json.get("paddleY").asDouble());
+    }
+
+    @Test
+    void testPowerupFramesCarryServerPaddleHeights() {
+        assertEquals("{\"type\":\"powerup_collected\",\"playerNumber\":2,\"powerupType\":\"SHRINK_OPPONENT\","
+                        + "\"player1PaddleHeight\":54,\"player2PaddleHeight\":90,\"durationMs\":5000}",
+                encoder.powerupCollected(2, "SHRINK_OPPONENT", 54, 90, 5000).getPayload());
+        assertEquals("{\"type\":\"powerup_expired\",\"player1PaddleHeight\":90,\"player2PaddleHeight\":135}",
+                encoder.powerupExpired(90, 135).getPayload());
+    }
+
+    @Test
+    void testStringsAreEscaped() throws Exception {
+        String message = "say \"gg\" \\ \n\t café 🏓";
+        JsonNode json = objectMapper.readTree(encoder.chatMessage("Bob", message).getPayload());
+
+        assertEquals("chat_message", json.get("type").asText());
+        assertEquals("Bob", json.get("sender").asText());
+        assertEquals(message, json.get("message").asText());
+
+        json = objectMapper.readTree(encoder.roomCreated("AB12CD", 1, null).getPayload());
+        assertTrue(json.get("playerName").isNull());
+    }
+
+    @Test
+    void testLobbyFrames() throws Exception {
+        List<LobbyEntry> rooms = List.of(
+                new LobbyEntry("AB12", "Ann", 1000),
+                new LobbyEntry("CD34", "B\"ob", 2000),
+                new LobbyEntry("EF56", "Cid", 3000));
+
+        TextMessage page = encoder.lobbySnapshot(7, 1, 2, rooms, 2, 3);
+        assertEquals("{\"type\":\"lobby_snapshot\",\"version\":7,\"page\":1,\"pages\":2,\"total\":3,"
+                + "\"rooms\":[{\"roomCode\":\"EF56\",\"hostName\":\"Cid\",\"createdAt\":3000}]}", page.getPayload());
+
+        JsonNode diff = objectMapper.readTree(encoder.lobbyDiff(8, rooms.subList(0, 2), List.of("GH78", "JK90")).getPayload());
+        assertEquals("lobby_diff", diff.get("type").asText());
+        assertEquals(8, diff.get("version").asLong());
+        assertEquals(2, diff.get("added").size());
+        assertEquals("B\"ob", diff.get("added").get(1).get("hostName").asText());
+        assertEquals("JK90", diff.get("removed").get(1).asText());
+
+        JsonNode empty = objectMapper.readTree(encoder.lobbyDiff(9, List.of(), List.of()).getPayload());
+        assertEquals(0, empty.get("added").size());
+        assertEquals(0, empty.get("removed").size());
+    }
+
+    @Test
+    void testLeaderboardFrameSharesRanksOnEqualPoints() {
+        List<PlayerRating> top = List.of(
+                new PlayerRating("Ann", 1531.6, 3, 3, 0),
+                new PlayerRating("Bob", 1532.2, 2, 1, 0),
+                new PlayerRating("Cid", 1484.0, 4, 1, 0));
+
+        assertEquals("{\"type\":\"leaderboard\",\"version\":5,\"players\":9,\"entries\":["
+                + "{\"rank\":1,\"playerName\":\"Ann\",\"rating\":1532,\"games\":3,\"wins\":3},"
+                + "{\"rank\":1,\"playerName\":\"Bob\",\"rating\":1532,\"games\":2,\"wins\":1},"
+                + "{\"rank\":3,\"playerName\":\"Cid\",\"rating\":1484,\"games\":4,\"wins\":1}]}",
+                encoder.leaderboard(5, 9, top).getPayload());
+    }
+
+    /**
+     * Allocation-rate comparison with the previous ObjectNode path for the per-tick snapshot
+     */
+    @Test
+    void testAllocatesLessThanTreeModel() throws Exception {
+        int iterations = 50_000;
+
+        long treeBytes = measureAllocatedBytes(() -> {
+            for (int i = 0; i < iterations; i++) {
+                ObjectNode message = objectMapper.createObjectNode();
+                message.put("type", "ball_state");
+                message.put("ballX", 395.25 + i);
+                message.put("ballY", 120.5);
+                message.put("ballDx", -5.5);
+                message.put("ballDy", 3.125);
+                message.put("player1Y", 180.0);
+                message.put("player2Y", 200.5);
+                message.put("timestamp", 1700000000123L + i);
+                message.put("player1InputSeq", i);
+                message.put("player2InputSeq", i);
+                if (new TextMessage(message.toString()).getPayloadLength() == 0) fail();
+            }
+        });
+        long encoderBytes = measureAllocatedBytes(() -> {
+            for (int i = 0; i < iterations; i++) {
+                TextMessage frame = encoder.ballState(395.25 + i, 120.5, -5.5, 3.125, 180.0, 200.5,
+                        1700000000123L + i, i, i);
+                if (frame.getPayloadLength() == 0) fail();
+            }
+        });
+
+        assertTrue(encoderBytes < treeBytes / 3,
+                "ball_state bytes per message: encoder=" + encoderBytes / iterations + " tree=" + treeBytes / iterations);
+    }
+}
@@ -0,0 +1,132 @@
+package com.devsecops.ponggame.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboundQueueTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboundDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void testEventsJumpAheadAndStateIsSuperseded() throws Exception {
+        dispatcher = new OutboundDispatcher(meterRegistry, 16, OverflowPolicy.DISCONNECT, 1, 2000);
+        CountDownLatch firstSendStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstSend = new CountDownLatch(1);
+        CountDownLatch allSent = new CountDownLatch(4);
+        List<Object> sent = new CopyOnWriteArrayList<>();
+        WebSocketSession session = mockSession("s1", sent, firstSendStarted, releaseFirstSend, allSent);
+        dispatcher.register(session);
+
+        dispatcher.send("s1", OutboundKind.EVENT, MessageType.GAME_STARTED, new TextMessage("e0"));
+        assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+
+        // Queued while the first send is stalled
+        dispatcher.send("s1", OutboundKind.CHAT, MessageType.CHAT_MESSAGE, new TextMessage("c1"));
+        dispatcher.send("s1", OutboundKind.BALL_STATE, MessageType.BALL_STATE, new TextMessage("b1"));
+        dispatcher.send("s1", OutboundKind.BALL_STATE, MessageType.BALL_STATE, new TextMessage("b2"));
+        dispatcher.send("s1", OutboundKind.EVENT, MessageType.SCORE_UPDATED, new TextMessage("e1"));
+        assertEquals(3, dispatcher.getQueueDepth("s1"));
+
+        releaseFirstSend.countDown();
+        assertTrue(allSent.await(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("e0", "e1", "b2", "c1"), sent);
+        assertEquals(1.0, meterRegistry.get("pong_ws_outbound_dropped_total")
+                .tag("kind", "ball_state").tag("reason", "superseded").counter().count());
+        // Frames of one lane are still counted by their own type
+        assertEquals(2.0, meterRegistry.get("pong_ws_outbound_bytes_total").tag("type", "game_started").counter().count());
+        assertEquals(2.0, meterRegistry.get("pong_ws_outbound_bytes_total").tag("type", "score_updated").counter().count());
+        assertEquals(2.0, meterRegistry.get("pong_ws_outbound_bytes_total").tag("type", "ball_state").counter().count());
+    }
+
+    @Test
+    void testDropNewestWhenLaneIsFull() throws Exception {
+        dispatcher = new OutboundDispatcher(meterRegistry, 1, OverflowPolicy.DROP_NEWEST, 1, 2000);
+        CountDownLatch firstSendStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstSend = new CountDownLatch(1);
+        CountDownLatch allSent = new CountDownLatch(2);
+        List<Object> sent = new CopyOnWriteArrayList<>();
+        WebSocketSession session = mockSession("s2", sent, firstSendStarted, releaseFirstSend, allSent);
+        dispatcher.register(session);
+
+        dispatcher.send("s2", OutboundKind.CHAT, MessageType.CHAT_MESSAGE, new TextMessage("c0"));
+        assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+        assertTrue(dispatcher.send("s2", OutboundKind.CHAT, MessageType.CHAT_MESSAGE, new TextMessage("c1")));
+        assertFalse(dispatcher.send("s2", OutboundKind.CHAT, MessageType.CHAT_MESSAGE, new TextMessage("c2")));
+
+        releaseFirstSend.countDown();
+        assertTrue(allSent.await(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("c0", "c1"), sent);
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void testSharedBinaryFrameReachesEverySession() throws Exception {
+        dispatcher = new OutboundDispatcher(meterRegistry, 16, OverflowPolicy.DISCONNECT, 2, 2000);
+        CountDownLatch allSent = new CountDownLatch(2);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        for (String id : new String[]{"w1", "w2"}) {
+            WebSocketSession session = mock(WebSocketSession.class);
+            when(session.getId()).thenReturn(id);
+            when(session.isOpen()).thenReturn(true);
+            doAnswer(invocation -> {
+                // Like a container write, drain the payload buffer
+                ByteBuffer payload = ((BinaryMessage) invocation.getArgument(0)).getPayload();
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                received.add(bytes.length);
+                allSent.countDown();
+                return null;
+            }).when(session).sendMessage(any());
+            dispatcher.register(session);
+        }
+
+        BinaryMessage shared = new BinaryMessage(new byte[]{1, 2, 3});
+        dispatcher.send("w1", OutboundKind.BALL_STATE, MessageType.BALL_STATE, shared);
+        dispatcher.send("w2", OutboundKind.BALL_STATE, MessageType.BALL_STATE, shared);
+        assertTrue(allSent.await(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of(3, 3), received);
+        assertEquals(3, shared.getPayloadLength());
+    }
+
+    private WebSocketSession mockSession(String id, List<Object> sent, CountDownLatch firstSendStarted,
+                                         CountDownLatch releaseFirstSend, CountDownLatch allSent) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            if (firstSendStarted.getCount() > 0) {
+                firstSendStarted.countDown();
+                releaseFirstSend.await(5, TimeUnit.SECONDS);
+            }
+            sent.add(message.getPayload());
+            allSent.countDown();
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+}
@@ -0,0 +1,157 @@
+package com.devsecops.ponggame.websocket;
+
+import com.devsecops.ponggame.model.GameState;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotChannelTest {
+
+    /**
+     * Client side of the stream, mirroring the snapshot decoder in pong.js
+     */
+    private final Map<Integer, int[]> received = new HashMap<>();
+    private final Map<Integer, Long> receivedTimestamps = new HashMap<>();
+
+    @Test
+    void testFirstSnapshotIsKeyframe() {
+        SnapshotChannel channel = new SnapshotChannel(60);
+        ByteBuffer frame = channel.encode(state(400.5, 225, 5, -2.5, 180, 90, 1_000), 0).getPayload()
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(BinaryProtocol.KEYFRAME_SIZE, frame.remaining());
+        assertEquals(BinaryProtocol.KEYFRAME, frame.get(0));
+        assertEquals(1, frame.getInt(1));
+        assertEquals(400.5 * 16, frame.getShort(5));
+        assertEquals(-2.5 * 256, frame.getShort(11));
+        assertEquals(0, frame.getInt(17));
+        assertEquals(1_000L, (long) frame.getDouble(21));
+    }
+
+    @Test
+    void testAcknowledgedSnapshotsAreDeltaEncoded() {
+        SnapshotChannel channel = new SnapshotChannel(60);
+        decode(channel.encode(state(400, 225, 5, -2.5, 180, 90, 1_000), 0));
+        channel.acknowledge(1);
+
+        GameState moved = state(405.03, 222.5, 5, -2.5, 180, 96.25, 1_016);
+        ByteBuffer frame = channel.encode(moved, 0).getPayload();
+
+        assertEquals(BinaryProtocol.DELTA, frame.get(0));
+        // 7 byte header, 1 timestamp byte, then 2 + 1 + 2 bytes for the three changed fields
+        assertEquals(13, frame.remaining());
+        assertEquals(0b100011, frame.get(6));
+        int[] values = decode(frame);
+        assertEquals(Math.round(405.03 * 16), values[0]);
+        assertEquals(222.5 * 16, values[1]);
+        assertEquals(5 * 256, values[2]);
+        assertEquals(96.25 * 16, values[5]);
+        assertEquals(1_016L, receivedTimestamps.get(2).longValue());
+    }
+
+    @Test
+    void testUnacknowledgedSnapshotsAreNeverUsedAsBase() {
+        SnapshotChannel channel = new SnapshotChannel(60);
+        decode(channel.encode(state(400, 225, 5, 5, 180, 180, 1_000), 0));
+        channel.acknowledge(1);
+
+        // Snapshot 2 is superseded in the outbound queue and never reaches the client
+        channel.encode(state(405, 230, 5, 5, 180, 180, 1_016), 0);
+        ByteBuffer third = channel.encode(state(410, 235, 5, 5, 180, 180, 1_033), 0).getPayload();
+
+        assertEquals(2, third.get(5)); // 3 - 1
+        int[] values = decode(third);
+        assertEquals(410 * 16, values[0]);
+        assertEquals(235 * 16, values[1]);
+    }
+
+    @Test
+    void testRecipientInputSequenceIsEchoed() {
+        SnapshotChannel channel = new SnapshotChannel(60);
+        assertEquals(5, decode(channel.encode(state(400, 225, 5, 5, 180, 180, 1_000), 5))[6]);
+        channel.acknowledge(1);
+
+        ByteBuffer frame = channel.encode(state(400, 225, 5, 5, 180, 180, 1_016), 9).getPayload();
+        assertEquals(0b1000000, frame.get(6));
+        assertEquals(9, decode(frame)[6]);
+    }
+
+    @Test
+    void testKeyframeIntervalAndBogusAcksForceKeyframes() {
+        SnapshotChannel channel = new SnapshotChannel(3);
+        channel.encode(state(400, 225, 5, 5, 180, 180, 1_000), 0);
+        channel.acknowledge(1);
+        assertEquals(BinaryProtocol.DELTA, channel.encode(state(401, 225, 5, 5, 180, 180, 1_016), 0).getPayload().get(0));
+        assertEquals(BinaryProtocol.DELTA, channel.encode(state(402, 225, 5, 5, 180, 180, 1_033), 0).getPayload().get(0));
+        assertEquals(BinaryProtocol.KEYFRAME, channel.encode(state(403, 225, 5, 5, 180, 180, 1_050), 0).getPayload().get(0));
+
+        SnapshotChannel other = new SnapshotChannel(60);
+        other.encode(state(400, 225, 5, 5, 180, 180, 1_000), 0);
+        other.acknowledge(1_000);
+        assertEquals(BinaryProtocol.KEYFRAME, other.encode(state(401, 225, 5, 5, 180, 180, 1_016), 0).getPayload().get(0));
+    }
+
+    private int[] decode(BinaryMessage message) {
+        return decode(message.getPayload());
+    }
+
+    private int[] decode(ByteBuffer frame) {
+        frame = frame.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        byte opcode = frame.get();
+        int seq = frame.getInt();
+        int[] values = new int[SnapshotChannel.FIELDS];
+        long timestamp;
+        if (opcode == BinaryProtocol.KEYFRAME) {
+            for (int i = 0; i < SnapshotChannel.QUANTIZED_FIELDS; i++) {
+                values[i] = frame.getShort();
+            }
+            values[SnapshotChannel.QUANTIZED_FIELDS] = frame.getInt();
+            timestamp = (long) frame.getDouble();
+        } else {
+            int baseSeq = seq - (frame.get() & 0xFF);
+            int[] base = received.get(baseSeq);
+            assertNotNull(base, "delta against a snapshot the client never received");
+            int mask = frame.get();
+            timestamp = receivedTimestamps.get(baseSeq) + readVarint(frame);
+            for (int i = 0; i < values.length; i++) {
+                long zigzag = (mask & (1 << i)) != 0 ? readVarint(frame) : 0;
+                values[i] = base[i] + (int) ((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+        }
+        assertFalse(frame.hasRemaining());
+        received.put(seq, values);
+        receivedTimestamps.put(seq, timestamp);
+        return values;
+    }
+
+    private static long readVarint(ByteBuffer frame) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = frame.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static GameState state(double ballX, double ballY, double ballDx, double ballDy,
+                                   double player1Y, double player2Y, long timestamp) {
+        GameState state = new GameState();
+        state.setBallX(ballX);
+        state.setBallY(ballY);
+        state.setBallDx(ballDx);
+        state.setBallDy(ballDy);
+        state.setPlayer1Y(player1Y);
+        state.setPlayer2Y(player2Y);
+        state.setLastUpdate(timestamp);
+        return state;
+    }
+}
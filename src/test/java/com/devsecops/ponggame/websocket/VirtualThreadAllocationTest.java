@@ -0,0 +1,55 @@
+package com.devsecops.ponggame.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.web.socket.TextMessage;
+
+import static com.devsecops.ponggame.websocket.AllocationMeter.measureAllocatedBytes;
+import static com.devsecops.ponggame.websocket.AllocationMeter.measureAllocatedBytesOnVirtualThreads;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * With virtual threads every message and flush may run on a thread that has never parsed or
+ * encoded before, so the reusable parser and writer state must not be per thread.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadAllocationTest {
+
+    private static final String PADDLE_MOVE = "{\"type\":\"paddle_move\",\"paddleY\":187.5}";
+    private static final int THREADS = 5_000;
+
+    private final InboundMessageParser parser = new InboundMessageParser();
+    private final OutboundEncoder encoder = new OutboundEncoder();
+
+    @Test
+    void testParserDoesNotAllocatePerVirtualThread() throws Exception {
+        long bytes = measureAllocatedBytesOnVirtualThreads(THREADS, () -> {
+            InboundMessage inbound = parser.parse(PADDLE_MOVE);
+            if (inbound.getType() != MessageType.PADDLE_MOVE || inbound.getPaddleY() < 0) fail();
+            parser.release(inbound);
+        });
+
+        assertTrue(bytes / THREADS < 64, "paddle_move bytes per virtual thread: " + bytes / THREADS);
+    }
+
+    @Test
+    void testEncoderAllocatesNoMoreOnVirtualThreads() throws Exception {
+        long platformBytes = measureAllocatedBytes(() -> {
+            for (int i = 0; i < THREADS; i++) {
+                if (ballState().getPayloadLength() == 0) fail();
+            }
+        });
+        long virtualBytes = measureAllocatedBytesOnVirtualThreads(THREADS, () -> {
+            if (ballState().getPayloadLength() == 0) fail();
+        });
+
+        // Only the payload and its TextMessage, as on a platform thread
+        assertTrue(virtualBytes / THREADS < platformBytes / THREADS + 64,
+                "ball_state bytes per frame: virtual=" + virtualBytes / THREADS + " platform=" + platformBytes / THREADS);
+    }
+
+    private TextMessage ballState() {
+        return encoder.ballState(395.25, 120.5, -5.5, 3.125, 180.0, 200.5, 1700000000123L, 812, 640);
+    }
+}